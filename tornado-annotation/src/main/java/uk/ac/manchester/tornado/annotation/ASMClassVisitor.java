@@ -19,8 +19,11 @@ package uk.ac.manchester.tornado.annotation;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -34,6 +37,12 @@ import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider;
 import uk.ac.manchester.tornado.runtime.common.ParallelAnnotationProvider;
 
 public class ASMClassVisitor extends ClassVisitor implements ASMClassVisitorProvider {
+    /**
+     * Class files of the generated classes, which cannot be read back from the
+     * class path.
+     */
+    private static final Map<String, byte[]> generatedClassFiles = new ConcurrentHashMap<>();
+
     private List<ParallelAnnotationProvider> parallelAnnotations;
     private ResolvedJavaMethod resolvedJavaMethod;
 
@@ -58,9 +67,15 @@ public class ASMClassVisitor extends ClassVisitor implements ASMClassVisitorProv
     @Override
     public ParallelAnnotationProvider[] getParallelAnnotations(ResolvedJavaMethod method) {
         String methodClassFile = method.getDeclaringClass().getName().replaceFirst("L", "").replaceFirst(";", ".class");
-        InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(methodClassFile);
+        byte[] generatedClassFile = generatedClassFiles.get(methodClassFile);
         try {
-            ClassReader classReader = new ClassReader(inputStream);
+            ClassReader classReader;
+            if (generatedClassFile != null) {
+                classReader = new ClassReader(generatedClassFile);
+            } else {
+                InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(methodClassFile);
+                classReader = new ClassReader(inputStream);
+            }
             ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
             ASMClassVisitor visitor = new ASMClassVisitor(Opcodes.ASM9, cw, method);
             classReader.accept(visitor, 0);
@@ -72,4 +87,23 @@ public class ASMClassVisitor extends ClassVisitor implements ASMClassVisitorProv
             throw new TornadoRuntimeException("[ERROR] Class reader could not be instantiated for class file: " + methodClassFile);
         }
     }
+
+    @Override
+    public byte[] getParallelPartitionedClass(Method method, String className) {
+        return new ASMParallelLoopPartitioner(method).generate(className);
+    }
+
+    @Override
+    public byte[] getVectorizedClass(Method method, String className) {
+        return new ASMLoopVectorizer(method).generate(className);
+    }
+
+    @Override
+    public FusedClass getFusedClass(Method[] methods, int[][] parameterMapping, Object[] arguments, boolean[] isLiveOut, String className, String methodName) {
+        FusedClass fusedClass = new ASMTaskFusion(methods, parameterMapping, arguments, isLiveOut).generate(className, methodName);
+        if (fusedClass != null) {
+            generatedClassFiles.put(className + ".class", fusedClass.classFile());
+        }
+        return fusedClass;
+    }
 }
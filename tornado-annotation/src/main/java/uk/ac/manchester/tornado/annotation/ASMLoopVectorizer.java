@@ -0,0 +1,851 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+
+/**
+ * Generates a version of a static task method that uses the SIMD instructions
+ * of the host through the Java Vector API ({@code jdk.incubator.vector}). The
+ * task method must consist of a single loop annotated with
+ * {@link uk.ac.manchester.tornado.api.annotations.Parallel}, with unit stride,
+ * whose body only reads and writes the elements at the index of the loop:
+ *
+ * <pre>
+ * for (&#64;Parallel int i = 0; i &lt; c.getSize(); i++) {
+ *     c.set(i, alpha * a.get(i) + TornadoMath.sqrt(b.get(i)));
+ * }
+ * </pre>
+ *
+ * <p>
+ * The body can use {@code FloatArray}, {@code VectorFloat} and
+ * {@code VectorFloat2/4/8/16} parameters (all with the same number of floats
+ * per element), float parameters and constants, float arithmetic, the float
+ * functions of {@code TornadoMath} and {@code Math}, the lane-wise operations of
+ * {@code Float2/4/8/16} and local variables assigned in the body. The elements
+ * of a {@code VectorFloatN} are flattened, so each vector register holds several
+ * {@code FloatN} values.
+ * </p>
+ *
+ * <p>
+ * The generated class has three static methods. {@code lowerBound} and
+ * {@code upperBound} take the parameters of the task method and return the
+ * iteration space of the loop. The third method has the name of the task method
+ * and two extra int parameters, and runs the iterations in {@code [from, to)}:
+ * first in chunks of {@code FloatVector.SPECIES_PREFERRED} lanes, then the
+ * remaining iterations with the scalar operations of the task.
+ * </p>
+ */
+class ASMLoopVectorizer {
+
+    static final String LOWER_BOUND_METHOD = "lowerBound";
+    static final String UPPER_BOUND_METHOD = "upperBound";
+
+    private static final String FLOAT_VECTOR = "jdk/incubator/vector/FloatVector";
+    private static final String VECTOR_SPECIES = "jdk/incubator/vector/VectorSpecies";
+    private static final String VECTOR_OPERATORS = "jdk/incubator/vector/VectorOperators";
+    private static final String MEMORY_SEGMENT = "java/lang/foreign/MemorySegment";
+    private static final String BYTE_ORDER = "java/nio/ByteOrder";
+    private static final String FLOAT_ARRAY = "uk/ac/manchester/tornado/api/types/arrays/FloatArray";
+    private static final String VECTOR_FLOAT = "uk/ac/manchester/tornado/api/types/collections/VectorFloat";
+    private static final String FLOAT_N = "uk/ac/manchester/tornado/api/types/vectors/Float";
+    private static final String TORNADO_MATH = "uk/ac/manchester/tornado/api/math/TornadoMath";
+    private static final String JAVA_MATH = "java/lang/Math";
+
+    private static final String FLOAT_VECTOR_TYPE = "L" + FLOAT_VECTOR + ";";
+    private static final String VECTOR_TYPE = "Ljdk/incubator/vector/Vector;";
+    private static final String SPECIES_TYPE = "L" + VECTOR_SPECIES + ";";
+    private static final String SEGMENT_TYPE = "L" + MEMORY_SEGMENT + ";";
+    private static final String ORDER_TYPE = "L" + BYTE_ORDER + ";";
+
+    private static final String SPECIES_FIELD = "SPECIES";
+    private static final String STEP_FIELD = "STEP";
+    private static final String ORDER_FIELD = "ORDER";
+
+    private final Method method;
+    private final String hostClassName;
+    private final String methodDescriptor;
+    private final Type[] slotTypes;
+    private final int argumentSlots;
+
+    // Result of the analysis of the loop
+    private int loopIndex;
+    private int width;
+    private Insn init;
+    private final List<Insn> bound = new ArrayList<>();
+    private final List<Statement> statements = new ArrayList<>();
+    private final Map<Integer, String> arrays = new LinkedHashMap<>();
+    private final List<Integer> temporaryStores = new ArrayList<>();
+
+    // Locals of the generated method
+    private int fromSlot;
+    private int toSlot;
+    private int indexSlot;
+    private int limitSlot;
+    private int offsetSlot;
+    private final Map<Integer, Integer> segmentSlots = new HashMap<>();
+    private int[] vectorTemporarySlots;
+    private int[] scalarTemporarySlots;
+
+    ASMLoopVectorizer(Method method) {
+        this.method = method;
+        this.hostClassName = Type.getInternalName(method.getDeclaringClass());
+        this.methodDescriptor = Type.getMethodDescriptor(method);
+        int slots = 0;
+        for (Type type : Type.getArgumentTypes(methodDescriptor)) {
+            slots += type.getSize();
+        }
+        this.argumentSlots = slots;
+        this.slotTypes = new Type[slots];
+        int slot = 0;
+        for (Type type : Type.getArgumentTypes(methodDescriptor)) {
+            slotTypes[slot] = type;
+            slot += type.getSize();
+        }
+    }
+
+    private static Integer intConstant(Insn insn) {
+        if (insn.opcode() >= Opcodes.ICONST_M1 && insn.opcode() <= Opcodes.ICONST_5) {
+            return insn.opcode() - Opcodes.ICONST_0;
+        } else if (insn.opcode() == Opcodes.BIPUSH || insn.opcode() == Opcodes.SIPUSH) {
+            return insn.operand();
+        } else if (insn.opcode() == Opcodes.LDC && insn.constant() instanceof Integer value) {
+            return value;
+        }
+        return null;
+    }
+
+    private static int widthOf(String owner, String prefix) {
+        String suffix = owner.startsWith(prefix) ? owner.substring(prefix.length()) : null;
+        if (suffix == null) {
+            return 0;
+        }
+        return switch (suffix) {
+            case "2" -> 2;
+            case "4" -> 4;
+            case "8" -> 8;
+            case "16" -> 16;
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return Number of floats of each element of an array type, or 0 if the type
+     *     is not supported.
+     */
+    private static int arrayWidth(String owner) {
+        if (owner.equals(FLOAT_ARRAY) || owner.equals(VECTOR_FLOAT)) {
+            return 1;
+        }
+        return widthOf(owner, VECTOR_FLOAT);
+    }
+
+    private static String elementDescriptor(int width) {
+        return width == 1 ? "F" : "L" + FLOAT_N + width + ";";
+    }
+
+    private static Operation arithmetic(int opcode) {
+        return switch (opcode) {
+            case Opcodes.FADD -> Operation.ADD;
+            case Opcodes.FSUB -> Operation.SUB;
+            case Opcodes.FMUL -> Operation.MUL;
+            case Opcodes.FDIV -> Operation.DIV;
+            case Opcodes.FNEG -> Operation.NEG;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return The lane-wise operation of a static method, or null if the method is
+     *     not supported.
+     */
+    private static Operation function(String owner, String name, String descriptor) {
+        if (owner.equals(TORNADO_MATH) || owner.equals(JAVA_MATH)) {
+            // The transcendental functions of Math take doubles
+            final boolean isTornadoMath = owner.equals(TORNADO_MATH);
+            return switch (descriptor) {
+                case "(F)F" -> switch (name) {
+                    case "abs" -> Operation.ABS;
+                    case "sqrt", "exp", "log", "sin", "cos", "tan", "tanh" -> isTornadoMath ? Operation.unary(name.toUpperCase()) : null;
+                    default -> null;
+                };
+                case "(FF)F" -> switch (name) {
+                    case "min" -> Operation.MIN;
+                    case "max" -> Operation.MAX;
+                    case "pow" -> isTornadoMath ? Operation.POW : null;
+                    default -> null;
+                };
+                case "(FFF)F" -> !isTornadoMath && name.equals("fma") ? Operation.FMA : null;
+                default -> null;
+            };
+        }
+
+        if (widthOf(owner, FLOAT_N) == 0) {
+            return null;
+        }
+        final String type = "L" + owner + ";";
+        final boolean isVectorVector = descriptor.equals("(" + type + type + ")" + type);
+        final boolean isVectorScalar = descriptor.equals("(" + type + "F)" + type);
+        if (descriptor.equals("(" + type + ")" + type)) {
+            return name.equals("sqrt") ? Operation.SQRT : null;
+        } else if (!isVectorVector && !isVectorScalar) {
+            return null;
+        }
+        return switch (name) {
+            case "add" -> Operation.ADD;
+            case "sub" -> Operation.SUB;
+            case "mult" -> Operation.MUL;
+            case "div" -> Operation.DIV;
+            case "min" -> isVectorVector ? Operation.MIN : null;
+            case "max" -> isVectorVector ? Operation.MAX : null;
+            default -> null;
+        };
+    }
+
+    private ClassReader readHostClass() {
+        Class<?> hostClass = method.getDeclaringClass();
+        ClassLoader classLoader = hostClass.getClassLoader() != null ? hostClass.getClassLoader() : ClassLoader.getSystemClassLoader();
+        try (InputStream inputStream = classLoader.getResourceAsStream(hostClassName + ".class")) {
+            return inputStream == null ? null : new ClassReader(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    byte[] generate(String className) {
+        if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != void.class) {
+            return null;
+        }
+        ClassReader classReader = readHostClass();
+        if (classReader == null) {
+            return null;
+        }
+        MethodScanner scanner = new MethodScanner();
+        classReader.accept(scanner, ClassReader.SKIP_FRAMES);
+        if (!analyse(scanner)) {
+            return null;
+        }
+        allocateSlots();
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return method.getDeclaringClass().getClassLoader();
+            }
+        };
+        classWriter.visit(scanner.version, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, className, null, "java/lang/Object", null);
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, SPECIES_FIELD, SPECIES_TYPE, null, null).visitEnd();
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, STEP_FIELD, "I", null, null).visitEnd();
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, ORDER_FIELD, ORDER_TYPE, null, null).visitEnd();
+        emitStaticInitializer(classWriter, className);
+        emitBound(classWriter, LOWER_BOUND_METHOD, List.of(init));
+        emitBound(classWriter, UPPER_BOUND_METHOD, bound);
+        emitVectorizedMethod(classWriter, className);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Checks the shape of the method, which javac emits as:
+     *
+     * <pre>
+     * init; ISTORE i; L0: ILOAD i; bound; IF_ICMPGE L1; body; IINC i 1; GOTO L0; L1: RETURN
+     * </pre>
+     */
+    private boolean analyse(MethodScanner scanner) {
+        final List<Insn> code = scanner.code;
+        final int size = code.size();
+        if (scanner.isUnsupported || scanner.parallelIndices.size() != 1 || size < 8) {
+            return false;
+        }
+        init = code.get(0);
+        loopIndex = code.get(1).operand();
+        if (intConstant(init) == null || code.get(1).opcode() != Opcodes.ISTORE || loopIndex != scanner.parallelIndices.getFirst() || loopIndex < argumentSlots) {
+            return false;
+        }
+        if (code.get(2).opcode() != Opcodes.ILOAD || code.get(2).operand() != loopIndex) {
+            return false;
+        }
+
+        int position = 3;
+        Insn first = code.get(position);
+        Insn second = code.get(position + 1);
+        if (intConstant(first) != null || (first.opcode() == Opcodes.ILOAD && isParameter(first.operand(), Type.INT))) {
+            bound.add(first);
+            position += 1;
+        } else if (first.opcode() == Opcodes.ALOAD && isParameter(first.operand(), Type.ARRAY) && second.opcode() == Opcodes.ARRAYLENGTH) {
+            bound.addAll(List.of(first, second));
+            position += 2;
+        } else if (first.opcode() == Opcodes.ALOAD && isParameter(first.operand(), Type.OBJECT) && second.opcode() == Opcodes.INVOKEVIRTUAL && arrayWidth(second.owner()) != 0
+                && second.descriptor().equals("()I") && List.of("getSize", "size", "getLength").contains(second.name())) {
+            bound.addAll(List.of(first, second));
+            position += 2;
+        } else {
+            return false;
+        }
+
+        Insn exit = code.get(position);
+        Insn increment = code.get(size - 3);
+        Insn backEdge = code.get(size - 2);
+        if (exit.opcode() != Opcodes.IF_ICMPGE || scanner.targetOf(exit) != size - 1 || code.get(size - 1).opcode() != Opcodes.RETURN) {
+            return false;
+        } else if (backEdge.opcode() != Opcodes.GOTO || scanner.targetOf(backEdge) != 2) {
+            return false;
+        } else if (increment.opcode() != Opcodes.IINC || increment.operand() != loopIndex || !Integer.valueOf(1).equals(increment.constant())) {
+            return false;
+        }
+        return evaluateBody(code.subList(position + 1, size - 3));
+    }
+
+    private boolean isParameter(int slot, int sort) {
+        return slot < argumentSlots && slotTypes[slot] != null && slotTypes[slot].getSort() == sort;
+    }
+
+    /**
+     * Evaluates the body of the loop symbolically. Each instruction pushes a node,
+     * and the stores to arrays and local variables are recorded as statements, in
+     * program order.
+     */
+    private boolean evaluateBody(List<Insn> body) {
+        final Deque<Node> stack = new ArrayDeque<>();
+        final Map<Integer, Node> locals = new HashMap<>();
+        for (Insn insn : body) {
+            final int opcode = insn.opcode();
+            Node node;
+            if (opcode == Opcodes.ALOAD || opcode == Opcodes.FLOAD) {
+                node = loadLocal(insn, locals);
+            } else if (opcode == Opcodes.ILOAD) {
+                node = insn.operand() == loopIndex ? new Node(Kind.INDEX, insn, List.of(), null, -1, false) : null;
+            } else if ((opcode >= Opcodes.FCONST_0 && opcode <= Opcodes.FCONST_2) || (opcode == Opcodes.LDC && insn.constant() instanceof Float)) {
+                node = new Node(Kind.CONSTANT, insn, List.of(), null, -1, true);
+            } else if (arithmetic(opcode) != null) {
+                node = operation(insn, arithmetic(opcode), stack);
+            } else if (opcode == Opcodes.INVOKESTATIC) {
+                Operation operation = function(insn.owner(), insn.name(), insn.descriptor());
+                node = operation == null ? null : operation(insn, operation, stack);
+            } else if (opcode == Opcodes.INVOKEVIRTUAL && insn.name().equals("get")) {
+                node = load(insn, stack);
+            } else if (opcode == Opcodes.INVOKEVIRTUAL && insn.name().equals("set")) {
+                if (!store(insn, stack)) {
+                    return false;
+                }
+                continue;
+            } else if (opcode == Opcodes.FSTORE || opcode == Opcodes.ASTORE) {
+                if (!assign(insn, stack, locals)) {
+                    return false;
+                }
+                continue;
+            } else {
+                node = null;
+            }
+            if (node == null) {
+                return false;
+            }
+            stack.push(node);
+        }
+        return stack.isEmpty() && !arrays.isEmpty() && statements.stream().anyMatch(statement -> statement.array() != null);
+    }
+
+    private Node loadLocal(Insn insn, Map<Integer, Node> locals) {
+        final int slot = insn.operand();
+        if (slot >= argumentSlots) {
+            // Only the local variables assigned before in the same iteration
+            return locals.get(slot);
+        } else if (insn.opcode() == Opcodes.FLOAD && isParameter(slot, Type.FLOAT)) {
+            return new Node(Kind.PARAMETER, insn, List.of(), null, -1, true);
+        } else if (insn.opcode() == Opcodes.ALOAD && isParameter(slot, Type.OBJECT) && arrayWidth(slotTypes[slot].getInternalName()) != 0) {
+            return new Node(Kind.ARRAY, insn, List.of(), null, -1, false);
+        }
+        return null;
+    }
+
+    private static Node operation(Insn insn, Operation operation, Deque<Node> stack) {
+        if (stack.size() < operation.arity()) {
+            return null;
+        }
+        Node[] inputs = new Node[operation.arity()];
+        boolean isUniform = true;
+        for (int i = inputs.length - 1; i >= 0; i--) {
+            inputs[i] = stack.pop();
+            if (!inputs[i].isValue()) {
+                return null;
+            }
+            isUniform &= inputs[i].isUniform();
+        }
+        return new Node(Kind.OPERATION, insn, List.of(inputs), operation, -1, isUniform);
+    }
+
+    /**
+     * Accesses to an element of an array parameter must use the index of the loop,
+     * and all arrays must have the same number of floats per element.
+     */
+    private boolean isElementAccess(Insn insn, Node array, Node index) {
+        final int arrayWidth = arrayWidth(insn.owner());
+        if (array.kind() != Kind.ARRAY || index.kind() != Kind.INDEX || arrayWidth == 0 || (width != 0 && width != arrayWidth)) {
+            return false;
+        } else if (!slotTypes[array.insn().operand()].getInternalName().equals(insn.owner())) {
+            return false;
+        }
+        width = arrayWidth;
+        arrays.put(array.insn().operand(), insn.owner());
+        return true;
+    }
+
+    private Node load(Insn insn, Deque<Node> stack) {
+        if (stack.size() < 2 || !insn.descriptor().equals("(I)" + elementDescriptor(Math.max(1, arrayWidth(insn.owner()))))) {
+            return null;
+        }
+        Node index = stack.pop();
+        Node array = stack.pop();
+        return isElementAccess(insn, array, index) ? new Node(Kind.LOAD, insn, List.of(array), null, -1, false) : null;
+    }
+
+    private boolean store(Insn insn, Deque<Node> stack) {
+        if (stack.size() < 3 || !insn.descriptor().equals("(I" + elementDescriptor(Math.max(1, arrayWidth(insn.owner()))) + ")V")) {
+            return false;
+        }
+        Node value = stack.pop();
+        Node index = stack.pop();
+        Node array = stack.pop();
+        if (!value.isValue() || !isElementAccess(insn, array, index)) {
+            return false;
+        }
+        statements.add(new Statement(insn, array, value, -1));
+        return true;
+    }
+
+    private boolean assign(Insn insn, Deque<Node> stack, Map<Integer, Node> locals) {
+        final int slot = insn.operand();
+        if (stack.isEmpty() || slot < argumentSlots || slot == loopIndex || !stack.peek().isValue()) {
+            return false;
+        }
+        Node value = stack.pop();
+        final int temporary = temporaryStores.size();
+        temporaryStores.add(insn.opcode());
+        statements.add(new Statement(insn, null, value, temporary));
+        locals.put(slot, new Node(Kind.TEMPORARY, insn, List.of(), null, temporary, value.isUniform()));
+        return true;
+    }
+
+    private void allocateSlots() {
+        fromSlot = argumentSlots;
+        toSlot = argumentSlots + 1;
+        indexSlot = argumentSlots + 2;
+        limitSlot = argumentSlots + 3;
+        offsetSlot = argumentSlots + 4;
+        int next = offsetSlot + 2;
+        for (int array : arrays.keySet()) {
+            segmentSlots.put(array, next++);
+        }
+        vectorTemporarySlots = new int[temporaryStores.size()];
+        scalarTemporarySlots = new int[temporaryStores.size()];
+        for (int i = 0; i < temporaryStores.size(); i++) {
+            vectorTemporarySlots[i] = next++;
+            scalarTemporarySlots[i] = next++;
+        }
+    }
+
+    private void emitStaticInitializer(ClassWriter classWriter, String className) {
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        mv.visitCode();
+        mv.visitFieldInsn(Opcodes.GETSTATIC, FLOAT_VECTOR, "SPECIES_PREFERRED", SPECIES_TYPE);
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, className, SPECIES_FIELD, SPECIES_TYPE);
+        // Number of elements of the arrays that fit in a vector. It is 0 if an element is wider than a vector.
+        mv.visitFieldInsn(Opcodes.GETSTATIC, className, SPECIES_FIELD, SPECIES_TYPE);
+        mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, VECTOR_SPECIES, "length", "()I", true);
+        ASMParallelLoopPartitioner.pushConstant(mv, width);
+        mv.visitInsn(Opcodes.IDIV);
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, className, STEP_FIELD, "I");
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, BYTE_ORDER, "nativeOrder", "()" + ORDER_TYPE, false);
+        mv.visitFieldInsn(Opcodes.PUTSTATIC, className, ORDER_FIELD, ORDER_TYPE);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void emitBound(ClassWriter classWriter, String name, List<Insn> instructions) {
+        String descriptor = methodDescriptor.substring(0, methodDescriptor.lastIndexOf(')') + 1) + "I";
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, descriptor, null, null);
+        mv.visitCode();
+        instructions.forEach(insn -> replay(mv, insn));
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void emitVectorizedMethod(ClassWriter classWriter, String className) {
+        String descriptor = methodDescriptor.substring(0, methodDescriptor.lastIndexOf(')')) + "II)V";
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, method.getName(), descriptor, null, null);
+        mv.visitCode();
+        for (Map.Entry<Integer, String> array : arrays.entrySet()) {
+            mv.visitVarInsn(Opcodes.ALOAD, array.getKey());
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, array.getValue(), "getSegment", "()" + SEGMENT_TYPE, false);
+            mv.visitVarInsn(Opcodes.ASTORE, segmentSlots.get(array.getKey()));
+        }
+
+        Label vectorLoop = new Label();
+        Label scalarLoop = new Label();
+        Label exit = new Label();
+        mv.visitVarInsn(Opcodes.ILOAD, fromSlot);
+        mv.visitVarInsn(Opcodes.ISTORE, indexSlot);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, className, STEP_FIELD, "I");
+        mv.visitJumpInsn(Opcodes.IFEQ, scalarLoop);
+        mv.visitVarInsn(Opcodes.ILOAD, toSlot);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, className, STEP_FIELD, "I");
+        mv.visitInsn(Opcodes.ISUB);
+        mv.visitVarInsn(Opcodes.ISTORE, limitSlot);
+
+        // for (; i <= to - STEP; i += STEP), with the byte offset of element i
+        mv.visitLabel(vectorLoop);
+        mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+        mv.visitVarInsn(Opcodes.ILOAD, limitSlot);
+        mv.visitJumpInsn(Opcodes.IF_ICMPGT, scalarLoop);
+        mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+        mv.visitInsn(Opcodes.I2L);
+        mv.visitLdcInsn((long) width * Float.BYTES);
+        mv.visitInsn(Opcodes.LMUL);
+        mv.visitVarInsn(Opcodes.LSTORE, offsetSlot);
+        statements.forEach(statement -> emitVectorStatement(mv, className, statement));
+        mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+        mv.visitFieldInsn(Opcodes.GETSTATIC, className, STEP_FIELD, "I");
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitVarInsn(Opcodes.ISTORE, indexSlot);
+        mv.visitJumpInsn(Opcodes.GOTO, vectorLoop);
+
+        // for (; i < to; i++)
+        mv.visitLabel(scalarLoop);
+        mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+        mv.visitVarInsn(Opcodes.ILOAD, toSlot);
+        mv.visitJumpInsn(Opcodes.IF_ICMPGE, exit);
+        statements.forEach(statement -> emitScalarStatement(mv, statement));
+        mv.visitIincInsn(indexSlot, 1);
+        mv.visitJumpInsn(Opcodes.GOTO, scalarLoop);
+
+        mv.visitLabel(exit);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void emitVectorStatement(MethodVisitor mv, String className, Statement statement) {
+        if (statement.array() != null) {
+            emitVector(mv, className, statement.value());
+            mv.visitVarInsn(Opcodes.ALOAD, segmentSlots.get(statement.array().insn().operand()));
+            mv.visitVarInsn(Opcodes.LLOAD, offsetSlot);
+            mv.visitFieldInsn(Opcodes.GETSTATIC, className, ORDER_FIELD, ORDER_TYPE);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FLOAT_VECTOR, "intoMemorySegment", "(" + SEGMENT_TYPE + "J" + ORDER_TYPE + ")V", false);
+        } else if (statement.value().isUniform()) {
+            emitScalar(mv, statement.value(), true);
+            mv.visitVarInsn(Opcodes.FSTORE, vectorTemporarySlots[statement.temporary()]);
+        } else {
+            emitVector(mv, className, statement.value());
+            mv.visitVarInsn(Opcodes.ASTORE, vectorTemporarySlots[statement.temporary()]);
+        }
+    }
+
+    private void emitVector(MethodVisitor mv, String className, Node node) {
+        if (node.isUniform()) {
+            mv.visitFieldInsn(Opcodes.GETSTATIC, className, SPECIES_FIELD, SPECIES_TYPE);
+            emitScalar(mv, node, true);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, FLOAT_VECTOR, "broadcast", "(" + SPECIES_TYPE + "F)" + FLOAT_VECTOR_TYPE, false);
+            return;
+        }
+        switch (node.kind()) {
+            case LOAD -> {
+                mv.visitFieldInsn(Opcodes.GETSTATIC, className, SPECIES_FIELD, SPECIES_TYPE);
+                mv.visitVarInsn(Opcodes.ALOAD, segmentSlots.get(node.inputs().getFirst().insn().operand()));
+                mv.visitVarInsn(Opcodes.LLOAD, offsetSlot);
+                mv.visitFieldInsn(Opcodes.GETSTATIC, className, ORDER_FIELD, ORDER_TYPE);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, FLOAT_VECTOR, "fromMemorySegment", "(" + SPECIES_TYPE + SEGMENT_TYPE + "J" + ORDER_TYPE + ")" + FLOAT_VECTOR_TYPE, false);
+            }
+            case TEMPORARY -> mv.visitVarInsn(Opcodes.ALOAD, vectorTemporarySlots[node.temporary()]);
+            case OPERATION -> {
+                Operation operation = node.operation();
+                emitVector(mv, className, node.inputs().getFirst());
+                mv.visitFieldInsn(Opcodes.GETSTATIC, VECTOR_OPERATORS, operation.operator(), "L" + VECTOR_OPERATORS + "$" + operation.fieldType() + ";");
+                for (int i = 1; i < node.inputs().size(); i++) {
+                    emitVector(mv, className, node.inputs().get(i));
+                }
+                String operands = VECTOR_TYPE.repeat(operation.arity() - 1);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FLOAT_VECTOR, "lanewise", "(L" + VECTOR_OPERATORS + "$" + operation.operatorType() + ";" + operands + ")" + FLOAT_VECTOR_TYPE, false);
+            }
+            default -> throw new IllegalStateException("Unexpected node: " + node.kind());
+        }
+    }
+
+    private void emitScalarStatement(MethodVisitor mv, Statement statement) {
+        if (statement.array() != null) {
+            mv.visitVarInsn(Opcodes.ALOAD, statement.array().insn().operand());
+            mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+            emitScalar(mv, statement.value(), false);
+            replay(mv, statement.insn());
+        } else {
+            emitScalar(mv, statement.value(), false);
+            mv.visitVarInsn(statement.insn().opcode(), scalarTemporarySlots[statement.temporary()]);
+        }
+    }
+
+    /**
+     * Emits the original operations of a value. In the vector loop, it is only
+     * used for the values that are the same in all lanes.
+     */
+    private void emitScalar(MethodVisitor mv, Node node, boolean inVectorLoop) {
+        switch (node.kind()) {
+            case PARAMETER, CONSTANT -> replay(mv, node.insn());
+            case LOAD -> {
+                mv.visitVarInsn(Opcodes.ALOAD, node.inputs().getFirst().insn().operand());
+                mv.visitVarInsn(Opcodes.ILOAD, indexSlot);
+                replay(mv, node.insn());
+            }
+            case TEMPORARY -> {
+                if (inVectorLoop) {
+                    mv.visitVarInsn(Opcodes.FLOAD, vectorTemporarySlots[node.temporary()]);
+                } else {
+                    int loadOpcode = temporaryStores.get(node.temporary()) == Opcodes.FSTORE ? Opcodes.FLOAD : Opcodes.ALOAD;
+                    mv.visitVarInsn(loadOpcode, scalarTemporarySlots[node.temporary()]);
+                }
+            }
+            case OPERATION -> {
+                node.inputs().forEach(input -> emitScalar(mv, input, inVectorLoop));
+                replay(mv, node.insn());
+            }
+            default -> throw new IllegalStateException("Unexpected node: " + node.kind());
+        }
+    }
+
+    private static void replay(MethodVisitor mv, Insn insn) {
+        final int opcode = insn.opcode();
+        if (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKESTATIC) {
+            mv.visitMethodInsn(opcode, insn.owner(), insn.name(), insn.descriptor(), false);
+        } else if (opcode == Opcodes.LDC) {
+            mv.visitLdcInsn(insn.constant());
+        } else if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
+            mv.visitIntInsn(opcode, insn.operand());
+        } else if (opcode == Opcodes.ILOAD || opcode == Opcodes.FLOAD || opcode == Opcodes.ALOAD) {
+            mv.visitVarInsn(opcode, insn.operand());
+        } else {
+            mv.visitInsn(opcode);
+        }
+    }
+
+    /**
+     * Lane-wise operator of {@code VectorOperators}. The type of the field can be
+     * a subtype of the type of the operator, such as {@code Associative} for
+     * {@code Binary}.
+     */
+    private record Operation(String operator, String fieldType, int arity) {
+        static final Operation ADD = new Operation("ADD", "Associative", 2);
+        static final Operation SUB = new Operation("SUB", "Binary", 2);
+        static final Operation MUL = new Operation("MUL", "Associative", 2);
+        static final Operation DIV = new Operation("DIV", "Binary", 2);
+        static final Operation MIN = new Operation("MIN", "Associative", 2);
+        static final Operation MAX = new Operation("MAX", "Associative", 2);
+        static final Operation POW = new Operation("POW", "Binary", 2);
+        static final Operation NEG = unary("NEG");
+        static final Operation ABS = unary("ABS");
+        static final Operation SQRT = unary("SQRT");
+        static final Operation FMA = new Operation("FMA", "Ternary", 3);
+
+        static Operation unary(String operator) {
+            return new Operation(operator, "Unary", 1);
+        }
+
+        String operatorType() {
+            return switch (arity) {
+                case 1 -> "Unary";
+                case 2 -> "Binary";
+                default -> "Ternary";
+            };
+        }
+    }
+
+    private enum Kind {
+        PARAMETER, CONSTANT, ARRAY, INDEX, LOAD, OPERATION, TEMPORARY
+    }
+
+    /**
+     * Node of the symbolic evaluation of the loop body. Uniform nodes have the same
+     * value in all iterations of the loop.
+     */
+    private record Node(Kind kind, Insn insn, List<Node> inputs, Operation operation, int temporary, boolean isUniform) {
+        boolean isValue() {
+            return kind != Kind.ARRAY && kind != Kind.INDEX;
+        }
+    }
+
+    /**
+     * Store of a value into an element of an array parameter, or assignment of a
+     * local variable of the loop body.
+     */
+    private record Statement(Insn insn, Node array, Node value, int temporary) {
+    }
+
+    /**
+     * Simplified instruction. The operand is the local variable index or the
+     * operand of BIPUSH and SIPUSH. The constant is the value of LDC, the
+     * increment of IINC or the target label of a jump.
+     */
+    private record Insn(int opcode, int operand, String owner, String name, String descriptor, Object constant) {
+        Insn(int opcode, int operand) {
+            this(opcode, operand, null, null, null, null);
+        }
+    }
+
+    /**
+     * Records the instructions of the task method, without labels, and the local
+     * variables annotated with
+     * {@link uk.ac.manchester.tornado.api.annotations.Parallel}.
+     */
+    private class MethodScanner extends ClassVisitor {
+
+        private final List<Insn> code = new ArrayList<>();
+        private final List<Integer> parallelIndices = new ArrayList<>();
+        private final Map<Label, Integer> labelPositions = new HashMap<>();
+        private int version;
+        private boolean isUnsupported;
+
+        MethodScanner() {
+            super(Opcodes.ASM9);
+        }
+
+        int targetOf(Insn jump) {
+            Integer position = labelPositions.get((Label) jump.constant());
+            return position == null ? -1 : position;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.version = version;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!name.equals(method.getName()) || !descriptor.equals(methodDescriptor)) {
+                return null;
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+
+                @Override
+                public void visitLabel(Label label) {
+                    labelPositions.put(label, code.size());
+                }
+
+                @Override
+                public void visitInsn(int opcode) {
+                    code.add(new Insn(opcode, 0));
+                }
+
+                @Override
+                public void visitIntInsn(int opcode, int operand) {
+                    code.add(new Insn(opcode, operand));
+                }
+
+                @Override
+                public void visitVarInsn(int opcode, int varIndex) {
+                    code.add(new Insn(opcode, varIndex));
+                }
+
+                @Override
+                public void visitIincInsn(int varIndex, int increment) {
+                    code.add(new Insn(Opcodes.IINC, varIndex, null, null, null, increment));
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    code.add(new Insn(opcode, 0, type, null, null, null));
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String fieldName, String fieldDescriptor) {
+                    code.add(new Insn(opcode, 0, owner, fieldName, fieldDescriptor, null));
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String methodName, String descriptor, boolean isInterface) {
+                    isUnsupported |= isInterface;
+                    code.add(new Insn(opcode, 0, owner, methodName, descriptor, null));
+                }
+
+                @Override
+                public void visitInvokeDynamicInsn(String indyName, String indyDescriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public void visitJumpInsn(int opcode, Label label) {
+                    code.add(new Insn(opcode, 0, null, null, null, label));
+                }
+
+                @Override
+                public void visitLdcInsn(Object value) {
+                    code.add(new Insn(Opcodes.LDC, 0, null, null, null, value));
+                }
+
+                @Override
+                public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String annotationDescriptor, boolean visible) {
+                    String annotationName = Type.getType(annotationDescriptor).getClassName();
+                    if (annotationName.equals(ASMMethodVisitor.parallelAnnotationClassPath)) {
+                        parallelIndices.add(index[0]);
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+}
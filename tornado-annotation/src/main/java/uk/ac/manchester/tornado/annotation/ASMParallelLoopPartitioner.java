@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+
+/**
+ * Generates a copy of a static task method in which the outermost loop
+ * annotated with {@link uk.ac.manchester.tornado.api.annotations.Parallel} is
+ * distributed across Java threads.
+ *
+ * <p>
+ * The generated method takes three extra int parameters (worker id, number of
+ * workers and block size) and visits the original iteration space in a
+ * block-cyclic order: each worker executes contiguous blocks of iterations,
+ * skipping the blocks that belong to the rest of the workers. The loop bounds
+ * are not modified, so any loop shape accepted by the TornadoVM JIT compiler
+ * (e.g., unknown trip counts or negative strides) is supported, as long as the
+ * induction variable is only updated with a constant increment.
+ * </p>
+ */
+class ASMParallelLoopPartitioner {
+
+    private static final int EXTRA_PARAMETERS = 3;
+    private static final String EXTRA_DESCRIPTOR = "III";
+
+    private final Method method;
+    private final String hostClassName;
+    private final String methodDescriptor;
+
+    ASMParallelLoopPartitioner(Method method) {
+        this.method = method;
+        this.hostClassName = Type.getInternalName(method.getDeclaringClass());
+        this.methodDescriptor = Type.getMethodDescriptor(method);
+    }
+
+    private static int argumentSlots(String descriptor) {
+        int slots = 0;
+        for (Type type : Type.getArgumentTypes(descriptor)) {
+            slots += type.getSize();
+        }
+        return slots;
+    }
+
+    static void pushConstant(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    byte[] generate(String className) {
+        if (!Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+
+        ClassReader classReader = readHostClass();
+        if (classReader == null) {
+            return null;
+        }
+
+        // Both passes must read the class with the same options, so that they visit the same sequence of labels
+        LoopScanner scanner = new LoopScanner();
+        classReader.accept(scanner, ClassReader.SKIP_FRAMES);
+        ParallelLoop loop = scanner.selectOutermostLoop();
+        if (loop == null) {
+            return null;
+        }
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return method.getDeclaringClass().getClassLoader();
+            }
+        };
+        classReader.accept(new PartitionedClassBuilder(classWriter, className, loop, scanner.maxLocals), ClassReader.SKIP_FRAMES);
+        return classWriter.toByteArray();
+    }
+
+    private ClassReader readHostClass() {
+        Class<?> hostClass = method.getDeclaringClass();
+        ClassLoader classLoader = hostClass.getClassLoader() != null ? hostClass.getClassLoader() : ClassLoader.getSystemClassLoader();
+        try (InputStream inputStream = classLoader.getResourceAsStream(hostClassName + ".class")) {
+            return inputStream == null ? null : new ClassReader(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The generated class is not a nest-mate of the host class, so any access to a
+     * private member of the host class would fail at link time.
+     */
+    private boolean isPrivateHostMember(String owner, String name, String descriptor) {
+        if (!owner.equals(hostClassName)) {
+            return false;
+        }
+        Class<?> hostClass = method.getDeclaringClass();
+        if (descriptor.startsWith("(")) {
+            if (name.equals("<init>")) {
+                for (Constructor<?> constructor : hostClass.getDeclaredConstructors()) {
+                    if (Type.getConstructorDescriptor(constructor).equals(descriptor)) {
+                        return Modifier.isPrivate(constructor.getModifiers());
+                    }
+                }
+                return false;
+            }
+            for (Method declaredMethod : hostClass.getDeclaredMethods()) {
+                if (declaredMethod.getName().equals(name) && Type.getMethodDescriptor(declaredMethod).equals(descriptor)) {
+                    return Modifier.isPrivate(declaredMethod.getModifiers());
+                }
+            }
+            return false;
+        }
+        for (Field field : hostClass.getDeclaredFields()) {
+            if (field.getName().equals(name)) {
+                return Modifier.isPrivate(field.getModifiers());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Labels are identified by the order in which they are visited, since their
+     * bytecode offsets are not resolved when reading a class.
+     */
+    private record ParallelLoop(int startLabel, int endLabel, int index, int increment) {
+    }
+
+    private record AnnotatedLocal(Label start, Label end, int index) {
+    }
+
+    private record LocalUpdate(int label, int index, int increment, boolean isConstantIncrement) {
+    }
+
+    /**
+     * First pass: collects the parallel annotations, the updates of the local
+     * variables and the maximum number of local slots of the task method.
+     */
+    private class LoopScanner extends ClassVisitor {
+
+        private final List<AnnotatedLocal> annotations = new ArrayList<>();
+        private final List<LocalUpdate> updates = new ArrayList<>();
+        private final Map<Label, Integer> labelOrder = new HashMap<>();
+        private int maxLocals;
+        private boolean accessesPrivateMembers;
+
+        LoopScanner() {
+            super(Opcodes.ASM9);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!name.equals(method.getName()) || !descriptor.equals(methodDescriptor)) {
+                return null;
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+                private int lastLabel = -1;
+
+                @Override
+                public void visitLabel(Label label) {
+                    lastLabel = labelOrder.size();
+                    labelOrder.put(label, lastLabel);
+                }
+
+                @Override
+                public void visitIincInsn(int varIndex, int increment) {
+                    updates.add(new LocalUpdate(lastLabel, varIndex, increment, true));
+                }
+
+                @Override
+                public void visitVarInsn(int opcode, int varIndex) {
+                    if (opcode == Opcodes.ISTORE) {
+                        updates.add(new LocalUpdate(lastLabel, varIndex, 0, false));
+                    }
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String fieldName, String fieldDescriptor) {
+                    accessesPrivateMembers |= isPrivateHostMember(owner, fieldName, fieldDescriptor);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String methodName, String methodDescriptor, boolean isInterface) {
+                    accessesPrivateMembers |= isPrivateHostMember(owner, methodName, methodDescriptor);
+                }
+
+                @Override
+                public void visitInvokeDynamicInsn(String indyName, String indyDescriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                    for (Object argument : bootstrapMethodArguments) {
+                        if (argument instanceof Handle handle) {
+                            accessesPrivateMembers |= isPrivateHostMember(handle.getOwner(), handle.getName(), handle.getDesc());
+                        }
+                    }
+                }
+
+                @Override
+                public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String annotationDescriptor, boolean visible) {
+                    String annotationName = Type.getType(annotationDescriptor).getClassName();
+                    if (annotationName.equals(ASMMethodVisitor.parallelAnnotationClassPath)) {
+                        annotations.add(new AnnotatedLocal(start[0], end[0], index[0]));
+                    }
+                    return null;
+                }
+
+                @Override
+                public void visitMaxs(int maxStack, int maxLocalSlots) {
+                    maxLocals = maxLocalSlots;
+                }
+            };
+        }
+
+        ParallelLoop selectOutermostLoop() {
+            if (accessesPrivateMembers || annotations.isEmpty()) {
+                return null;
+            }
+            AnnotatedLocal outermost = annotations.getFirst();
+            for (AnnotatedLocal annotation : annotations) {
+                if (labelOrder.get(annotation.start()) < labelOrder.get(outermost.start())) {
+                    outermost = annotation;
+                }
+            }
+
+            int start = labelOrder.get(outermost.start());
+            int end = labelOrder.get(outermost.end());
+            // Sibling parallel loops cannot be partitioned independently
+            for (AnnotatedLocal annotation : annotations) {
+                if (labelOrder.get(annotation.start()) < start || labelOrder.get(annotation.end()) > end) {
+                    return null;
+                }
+            }
+            Integer increment = null;
+            for (LocalUpdate update : updates) {
+                if (update.index() != outermost.index() || update.label() < start || update.label() >= end) {
+                    continue;
+                }
+                // Only loops with a single constant increment of the induction variable can be partitioned
+                if (!update.isConstantIncrement() || increment != null || update.increment() == 0) {
+                    return null;
+                }
+                increment = update.increment();
+            }
+            return increment == null ? null : new ParallelLoop(start, end, outermost.index(), increment);
+        }
+    }
+
+    /**
+     * Second pass: emits a class that only contains the partitioned copy of the
+     * task method.
+     */
+    private class PartitionedClassBuilder extends ClassVisitor {
+
+        private final String className;
+        private final ParallelLoop loop;
+        private final int maxLocals;
+
+        PartitionedClassBuilder(ClassVisitor classVisitor, String className, ParallelLoop loop, int maxLocals) {
+            super(Opcodes.ASM9, classVisitor);
+            this.className = className;
+            this.loop = loop;
+            this.maxLocals = maxLocals;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            super.visit(version, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, className, null, "java/lang/Object", null);
+        }
+
+        @Override
+        public void visitNestHost(String nestHost) {
+        }
+
+        @Override
+        public void visitNestMember(String nestMember) {
+        }
+
+        @Override
+        public void visitPermittedSubclass(String permittedSubclass) {
+        }
+
+        @Override
+        public void visitOuterClass(String owner, String name, String descriptor) {
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public org.objectweb.asm.RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+            return null;
+        }
+
+        @Override
+        public org.objectweb.asm.FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!name.equals(method.getName()) || !descriptor.equals(methodDescriptor)) {
+                return null;
+            }
+            String partitionedDescriptor = descriptor.replace(")", EXTRA_DESCRIPTOR + ")");
+            MethodVisitor methodVisitor = super.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, name, partitionedDescriptor, null, exceptions);
+            return new PartitionedLoopRewriter(methodVisitor, argumentSlots(descriptor), loop, maxLocals);
+        }
+    }
+
+    /**
+     * Shifts the method locals to make room for the extra parameters and rewrites
+     * the entry and the increment of the partitioned loop.
+     */
+    private static class PartitionedLoopRewriter extends MethodVisitor {
+
+        private final int argumentSlots;
+        private final int workerIdSlot;
+        private final int numWorkersSlot;
+        private final int blockSizeSlot;
+        private final int remainingSlot;
+        private final ParallelLoop loop;
+        private final int inductionSlot;
+        private int visitedLabels;
+        private boolean inLoop;
+
+        PartitionedLoopRewriter(MethodVisitor methodVisitor, int argumentSlots, ParallelLoop loop, int maxLocals) {
+            super(Opcodes.ASM9, methodVisitor);
+            this.argumentSlots = argumentSlots;
+            this.workerIdSlot = argumentSlots;
+            this.numWorkersSlot = argumentSlots + 1;
+            this.blockSizeSlot = argumentSlots + 2;
+            this.remainingSlot = maxLocals + EXTRA_PARAMETERS;
+            this.loop = loop;
+            this.inductionSlot = remap(loop.index());
+        }
+
+        private int remap(int slot) {
+            return slot < argumentSlots ? slot : slot + EXTRA_PARAMETERS;
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            int order = visitedLabels++;
+            if (order == loop.startLabel()) {
+                // i = i + workerId * blockSize * increment. This is emitted before the label,
+                // because the label is also the target of the loop back-edge.
+                super.visitVarInsn(Opcodes.ILOAD, inductionSlot);
+                super.visitVarInsn(Opcodes.ILOAD, workerIdSlot);
+                super.visitVarInsn(Opcodes.ILOAD, blockSizeSlot);
+                super.visitInsn(Opcodes.IMUL);
+                pushConstant(mv, loop.increment());
+                super.visitInsn(Opcodes.IMUL);
+                super.visitInsn(Opcodes.IADD);
+                super.visitVarInsn(Opcodes.ISTORE, inductionSlot);
+                super.visitVarInsn(Opcodes.ILOAD, blockSizeSlot);
+                super.visitVarInsn(Opcodes.ISTORE, remainingSlot);
+                inLoop = true;
+            } else if (order >= loop.endLabel()) {
+                inLoop = false;
+            }
+            super.visitLabel(label);
+        }
+
+        @Override
+        public void visitIincInsn(int varIndex, int increment) {
+            if (!inLoop || varIndex != loop.index()) {
+                super.visitIincInsn(remap(varIndex), increment);
+                return;
+            }
+            // i += increment; if (--remaining == 0) { i += increment * blockSize * (numWorkers - 1); remaining = blockSize; }
+            Label sameBlock = new Label();
+            super.visitIincInsn(inductionSlot, increment);
+            super.visitIincInsn(remainingSlot, -1);
+            super.visitVarInsn(Opcodes.ILOAD, remainingSlot);
+            super.visitJumpInsn(Opcodes.IFNE, sameBlock);
+            super.visitVarInsn(Opcodes.ILOAD, inductionSlot);
+            pushConstant(mv, increment);
+            super.visitVarInsn(Opcodes.ILOAD, blockSizeSlot);
+            super.visitInsn(Opcodes.IMUL);
+            super.visitVarInsn(Opcodes.ILOAD, numWorkersSlot);
+            super.visitInsn(Opcodes.ICONST_1);
+            super.visitInsn(Opcodes.ISUB);
+            super.visitInsn(Opcodes.IMUL);
+            super.visitInsn(Opcodes.IADD);
+            super.visitVarInsn(Opcodes.ISTORE, inductionSlot);
+            super.visitVarInsn(Opcodes.ILOAD, blockSizeSlot);
+            super.visitVarInsn(Opcodes.ISTORE, remainingSlot);
+            super.visitLabel(sameBlock);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int varIndex) {
+            super.visitVarInsn(opcode, remap(varIndex));
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+            super.visitLocalVariable(name, descriptor, signature, start, end, remap(index));
+        }
+
+        @Override
+        public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String descriptor, boolean visible) {
+            return null;
+        }
+
+        @Override
+        public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            // Frames are recomputed by the class writer
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            super.visitMaxs(0, 0);
+        }
+    }
+}
@@ -0,0 +1,1232 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.Attribute;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider.FusedClass;
+
+/**
+ * Generates a class with a static method that runs the bodies of several static
+ * task methods in a single loop, so that a task-graph can launch them as a
+ * single kernel. Each task method must consist of a single loop annotated with
+ * {@link uk.ac.manchester.tornado.api.annotations.Parallel}, and all loops must
+ * start at the same value, have the same increment and the same number of
+ * iterations for the given arguments. Each iteration of the fused loop runs the
+ * same iteration of every task, so an object written by one of the tasks and
+ * used by another one can only be accessed at the index of the parallel loop.
+ *
+ * <p>
+ * An object that is only used by the fused tasks (an intermediate result) does
+ * not need to be stored: if the first task that accesses it writes its element
+ * without branches, the element is kept in a local variable of the fused loop,
+ * and the object is removed from the parameters of the fused method.
+ * </p>
+ *
+ * <p>
+ * The generated class also implements the {@code TornadoFunctions.TaskN}
+ * interface that matches the parameters of the fused method, so it can be used
+ * as the code of a {@code TaskPackage}.
+ * </p>
+ */
+class ASMTaskFusion {
+
+    private static final String TASK_INTERFACE = "uk/ac/manchester/tornado/api/common/TornadoFunctions$Task";
+    private static final int LABEL = -1;
+
+    private static final int SIZE_USE = 1;
+    private static final int READ_USE = 1 << 1;
+    private static final int WRITE_USE = 1 << 2;
+    private static final int UNKNOWN_USE = 1 << 3;
+    private static final int ELEMENT_USES = READ_USE | WRITE_USE | UNKNOWN_USE;
+
+    private final Method[] methods;
+    private final int[][] parameterMapping;
+    private final Object[] arguments;
+    private final boolean[] isLiveOut;
+    private final Class<?>[] parameterTypes;
+    private final Map<Class<?>, ClassReader> classReaders = new HashMap<>();
+
+    /**
+     * @param methods
+     *     Static task methods, in execution order.
+     * @param parameterMapping
+     *     For each method, the index of the fused parameter passed to each of its
+     *     parameters.
+     * @param arguments
+     *     Values of the fused parameters. They are used to compare the number of
+     *     iterations of the parallel loops.
+     * @param isLiveOut
+     *     For each fused parameter, true if the object is used after the fused
+     *     tasks, so it cannot be removed.
+     */
+    ASMTaskFusion(Method[] methods, int[][] parameterMapping, Object[] arguments, boolean[] isLiveOut) {
+        this.methods = methods;
+        this.parameterMapping = parameterMapping;
+        this.arguments = arguments;
+        this.isLiveOut = isLiveOut;
+        this.parameterTypes = new Class<?>[arguments.length];
+    }
+
+    private static int[] parameterSlots(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        int[] slots = new int[types.length + 1];
+        for (int i = 0; i < types.length; i++) {
+            slots[i + 1] = slots[i] + Type.getType(types[i]).getSize();
+        }
+        return slots;
+    }
+
+    private static int parameterAt(int[] slots, int slot) {
+        for (int i = 0; i < slots.length - 1; i++) {
+            if (slots[i] == slot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Integer intConstant(Insn insn) {
+        if (insn.opcode() >= Opcodes.ICONST_M1 && insn.opcode() <= Opcodes.ICONST_5) {
+            return insn.opcode() - Opcodes.ICONST_0;
+        } else if (insn.opcode() == Opcodes.BIPUSH || insn.opcode() == Opcodes.SIPUSH) {
+            return insn.operand();
+        } else if (insn.opcode() == Opcodes.LDC && insn.constant() instanceof Integer value) {
+            return value;
+        }
+        return null;
+    }
+
+    private static String boxedType(Class<?> type) {
+        if (type == int.class) {
+            return "java/lang/Integer";
+        } else if (type == long.class) {
+            return "java/lang/Long";
+        } else if (type == float.class) {
+            return "java/lang/Float";
+        } else if (type == double.class) {
+            return "java/lang/Double";
+        } else if (type == short.class) {
+            return "java/lang/Short";
+        } else if (type == byte.class) {
+            return "java/lang/Byte";
+        } else if (type == char.class) {
+            return "java/lang/Character";
+        }
+        return "java/lang/Boolean";
+    }
+
+    /**
+     * @return Number of values popped and pushed by an instruction, or null if
+     *     the instruction is not supported by the analysis of the indices.
+     */
+    private static int[] stackEffect(Insn insn) {
+        final int opcode = insn.opcode();
+        if (opcode == Opcodes.NOP || opcode == Opcodes.IINC) {
+            return new int[] { 0, 0 };
+        } else if ((opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.LDC) || (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) || opcode == Opcodes.GETSTATIC) {
+            return new int[] { 0, 1 };
+        } else if (opcode >= Opcodes.IALOAD && opcode <= Opcodes.SALOAD) {
+            return new int[] { 2, 1 };
+        } else if (opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE) {
+            return new int[] { 1, 0 };
+        } else if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+            return new int[] { 3, 0 };
+        } else if ((opcode >= Opcodes.IADD && opcode <= Opcodes.DREM) || (opcode >= Opcodes.ISHL && opcode <= Opcodes.LXOR) || (opcode >= Opcodes.LCMP && opcode <= Opcodes.DCMPG)) {
+            return new int[] { 2, 1 };
+        } else if ((opcode >= Opcodes.INEG && opcode <= Opcodes.DNEG) || (opcode >= Opcodes.I2L && opcode <= Opcodes.I2S) || opcode == Opcodes.GETFIELD || opcode == Opcodes.CHECKCAST
+                || opcode == Opcodes.INSTANCEOF || opcode == Opcodes.ARRAYLENGTH) {
+            return new int[] { 1, 1 };
+        } else if (opcode == Opcodes.PUTFIELD) {
+            return new int[] { 2, 0 };
+        } else if (opcode == Opcodes.PUTSTATIC) {
+            return new int[] { 1, 0 };
+        } else if (opcode >= Opcodes.INVOKEVIRTUAL && opcode <= Opcodes.INVOKEINTERFACE) {
+            final int receiver = opcode == Opcodes.INVOKESTATIC ? 0 : 1;
+            final int returned = Type.getReturnType(insn.descriptor()) == Type.VOID_TYPE ? 0 : 1;
+            return new int[] { Type.getArgumentTypes(insn.descriptor()).length + receiver, returned };
+        }
+        return null;
+    }
+
+    private static boolean isElementRead(Insn insn) {
+        return (insn.opcode() >= Opcodes.IALOAD && insn.opcode() <= Opcodes.SALOAD) //
+                || (insn.opcode() == Opcodes.INVOKEVIRTUAL && insn.name().equals("get") && insn.descriptor().startsWith("(I)"));
+    }
+
+    private static boolean isElementWrite(Insn insn) {
+        return (insn.opcode() >= Opcodes.IASTORE && insn.opcode() <= Opcodes.SASTORE) //
+                || (insn.opcode() == Opcodes.INVOKEVIRTUAL && insn.name().equals("set") && insn.descriptor().startsWith("(I") //
+                        && Type.getArgumentTypes(insn.descriptor()).length == 2 && insn.descriptor().endsWith(")V"));
+    }
+
+    private static boolean isSizeRead(Insn insn) {
+        return insn.opcode() == Opcodes.ARRAYLENGTH || (insn.opcode() == Opcodes.INVOKEVIRTUAL && insn.name().equals("getSize") && insn.descriptor().equals("()I"));
+    }
+
+    private ClassReader readHostClass(Class<?> hostClass) {
+        if (classReaders.containsKey(hostClass)) {
+            return classReaders.get(hostClass);
+        }
+        ClassLoader classLoader = hostClass.getClassLoader() != null ? hostClass.getClassLoader() : ClassLoader.getSystemClassLoader();
+        ClassReader classReader;
+        try (InputStream inputStream = classLoader.getResourceAsStream(Type.getInternalName(hostClass) + ".class")) {
+            classReader = inputStream == null ? null : new ClassReader(inputStream);
+        } catch (IOException e) {
+            classReader = null;
+        }
+        classReaders.put(hostClass, classReader);
+        return classReader;
+    }
+
+    /**
+     * The generated class is not a nest-mate of the host class, so any access to a
+     * private member of the host class would fail at link time.
+     */
+    private static boolean isPrivateHostMember(Class<?> hostClass, String owner, String name, String descriptor) {
+        if (!owner.equals(Type.getInternalName(hostClass))) {
+            return false;
+        }
+        if (descriptor.startsWith("(")) {
+            for (Method declaredMethod : hostClass.getDeclaredMethods()) {
+                if (declaredMethod.getName().equals(name) && Type.getMethodDescriptor(declaredMethod).equals(descriptor)) {
+                    return Modifier.isPrivate(declaredMethod.getModifiers());
+                }
+            }
+            // Constructors and unknown members
+            return !name.equals("<init>") || hasPrivateConstructor(hostClass, descriptor);
+        }
+        for (Field field : hostClass.getDeclaredFields()) {
+            if (field.getName().equals(name)) {
+                return Modifier.isPrivate(field.getModifiers());
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasPrivateConstructor(Class<?> hostClass, String descriptor) {
+        for (var constructor : hostClass.getDeclaredConstructors()) {
+            if (Type.getConstructorDescriptor(constructor).equals(descriptor)) {
+                return Modifier.isPrivate(constructor.getModifiers());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The fused class and the fused parameters that it receives, or null
+     *     if the methods cannot be fused.
+     */
+    FusedClass generate(String className, String methodName) {
+        final int numMethods = methods.length;
+        final MethodScanner[] scanners = new MethodScanner[numMethods];
+        final LoopInfo[] loops = new LoopInfo[numMethods];
+        int version = Opcodes.V1_8;
+        for (int k = 0; k < numMethods; k++) {
+            Method method = methods[k];
+            if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != void.class || !setParameterTypes(k)) {
+                return null;
+            }
+            ClassReader classReader = readHostClass(method.getDeclaringClass());
+            if (classReader == null) {
+                return null;
+            }
+            scanners[k] = new MethodScanner(method);
+            classReader.accept(scanners[k], ClassReader.SKIP_FRAMES);
+            loops[k] = scanners[k].analyse();
+            if (loops[k] == null) {
+                return null;
+            }
+            version = Math.max(version, scanners[k].version);
+        }
+
+        if (!hasSameIterationSpace(loops) || !hasIndependentIterations(loops)) {
+            return null;
+        }
+
+        final Type[] intermediateTypes = findIntermediates(loops);
+        final int boundMethod = selectBoundMethod(loops, intermediateTypes);
+        final int[] fusedParameters = keptParameters(intermediateTypes);
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected ClassLoader getClassLoader() {
+                return methods[0].getDeclaringClass().getClassLoader();
+            }
+        };
+        String fusedDescriptor = fusedDescriptor(fusedParameters);
+        classWriter.visit(version, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, className, null, "java/lang/Object", new String[] {
+                TASK_INTERFACE + (fusedParameters.length == 0 ? "" : Integer.toString(fusedParameters.length)) });
+        // The task method is resolved from the first invocation in apply, so apply is emitted first to keep its constant pool indices small
+        emitApply(classWriter, className, methodName, fusedDescriptor, fusedParameters);
+        emitConstructor(classWriter);
+        emitFusedMethod(classWriter, methodName, fusedDescriptor, fusedParameters, intermediateTypes, boundMethod, scanners, loops);
+        classWriter.visitEnd();
+        return new FusedClass(classWriter.toByteArray(), fusedParameters);
+    }
+
+    private boolean setParameterTypes(int k) {
+        Class<?>[] types = methods[k].getParameterTypes();
+        if (types.length != parameterMapping[k].length) {
+            return false;
+        }
+        for (int j = 0; j < types.length; j++) {
+            int index = parameterMapping[k][j];
+            if (parameterTypes[index] == null) {
+                parameterTypes[index] = types[j];
+            } else if (parameterTypes[index] != types[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String fusedDescriptor(int[] fusedParameters) {
+        Type[] types = new Type[fusedParameters.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = Type.getType(parameterTypes[fusedParameters[i]]);
+        }
+        return Type.getMethodDescriptor(Type.VOID_TYPE, types);
+    }
+
+    private Long evaluate(Bound bound, int k) {
+        if (bound.parameter() == -1) {
+            return bound.value();
+        }
+        Object argument = arguments[parameterMapping[k][bound.parameter()]];
+        try {
+            return switch (bound.kind()) {
+                case PARAMETER -> argument instanceof Number number ? number.longValue() : null;
+                case LENGTH -> (long) Array.getLength(argument);
+                case SIZE -> ((Number) argument.getClass().getMethod("getSize").invoke(argument)).longValue();
+                default -> null;
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean hasSameIterationSpace(LoopInfo[] loops) {
+        Long iterations = evaluate(loops[0].bound(), 0);
+        if (iterations == null) {
+            return false;
+        }
+        for (int k = 1; k < loops.length; k++) {
+            if (loops[k].init() != loops[0].init() || loops[k].increment() != loops[0].increment() || !iterations.equals(evaluate(loops[k].bound(), k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An object that is written by one of the tasks and accessed by another one
+     * can only be accessed at the index of the parallel loop.
+     */
+    private boolean hasIndependentIterations(LoopInfo[] loops) {
+        for (int index = 0; index < arguments.length; index++) {
+            if (parameterTypes[index].isPrimitive()) {
+                continue;
+            }
+            int[] uses = new int[methods.length];
+            int accessors = 0;
+            boolean isWritten = false;
+            for (int k = 0; k < methods.length; k++) {
+                for (int j = 0; j < parameterMapping[k].length; j++) {
+                    if (parameterMapping[k][j] == index) {
+                        uses[k] |= loops[k].uses()[j];
+                    }
+                }
+                accessors += (uses[k] & ELEMENT_USES) != 0 ? 1 : 0;
+                isWritten |= (uses[k] & (WRITE_USE | UNKNOWN_USE)) != 0;
+            }
+            if (!isWritten || accessors < 2) {
+                continue;
+            }
+            for (int use : uses) {
+                if ((use & UNKNOWN_USE) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An object is an intermediate result if it is not used after the fused
+     * tasks, the tasks only access its elements at the index of the parallel
+     * loop, and the first access of the first task that uses it is a write
+     * outside any branch. Each iteration then writes the element before reading
+     * it, so the element can be kept in a local variable.
+     *
+     * @return For each fused parameter, the type of the local variable that
+     *     replaces it, or null if the parameter is kept.
+     */
+    private Type[] findIntermediates(LoopInfo[] loops) {
+        Type[] intermediateTypes = new Type[arguments.length];
+        for (int index = 0; index < arguments.length; index++) {
+            if (parameterTypes[index].isPrimitive() || isLiveOut[index]) {
+                continue;
+            }
+            Type elementType = null;
+            boolean isAccessed = false;
+            boolean isIntermediate = true;
+            for (int k = 0; k < methods.length && isIntermediate; k++) {
+                for (int j = 0; j < parameterMapping[k].length; j++) {
+                    if (parameterMapping[k][j] == index && (loops[k].uses()[j] & (SIZE_USE | UNKNOWN_USE)) != 0) {
+                        isIntermediate = false;
+                    }
+                }
+                // The accesses are ordered by the load of the object, so the first access is the one that consumes it first
+                ElementAccess first = null;
+                for (ElementAccess access : loops[k].accesses()) {
+                    if (parameterMapping[k][access.parameter()] != index) {
+                        continue;
+                    }
+                    if (first == null || access.consumer() < first.consumer()) {
+                        first = access;
+                    }
+                    if (elementType != null && !elementType.equals(access.elementType())) {
+                        isIntermediate = false;
+                    }
+                    elementType = access.elementType();
+                }
+                if (first != null && !isAccessed) {
+                    isAccessed = true;
+                    isIntermediate &= !loops[k].hasBranches() && first.isWrite();
+                }
+            }
+            if (isIntermediate && isAccessed) {
+                intermediateTypes[index] = elementType;
+            }
+        }
+        return intermediateTypes;
+    }
+
+    /**
+     * The fused loop keeps the condition of one of the tasks. It must not read
+     * the size of an object that is removed, so if all the conditions read the
+     * size of an intermediate result, that object is kept as a parameter.
+     */
+    private int selectBoundMethod(LoopInfo[] loops, Type[] intermediateTypes) {
+        for (int k = 0; k < loops.length; k++) {
+            Bound bound = loops[k].bound();
+            if (bound.parameter() == -1 || intermediateTypes[parameterMapping[k][bound.parameter()]] == null) {
+                return k;
+            }
+        }
+        intermediateTypes[parameterMapping[0][loops[0].bound().parameter()]] = null;
+        return 0;
+    }
+
+    private static int[] keptParameters(Type[] intermediateTypes) {
+        int count = 0;
+        for (Type type : intermediateTypes) {
+            count += type == null ? 1 : 0;
+        }
+        int[] kept = new int[count];
+        for (int i = 0, j = 0; i < intermediateTypes.length; i++) {
+            if (intermediateTypes[i] == null) {
+                kept[j++] = i;
+            }
+        }
+        return kept;
+    }
+
+    private void emitApply(ClassWriter classWriter, String className, String methodName, String fusedDescriptor, int[] fusedParameters) {
+        String descriptor = "(" + "Ljava/lang/Object;".repeat(fusedParameters.length) + ")V";
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "apply", descriptor, null, null);
+        mv.visitCode();
+        for (int i = 0; i < fusedParameters.length; i++) {
+            Class<?> type = parameterTypes[fusedParameters[i]];
+            mv.visitVarInsn(Opcodes.ALOAD, i + 1);
+            if (type.isPrimitive()) {
+                String boxedType = boxedType(type);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, boxedType);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxedType, type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+            } else if (type != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            }
+        }
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, methodName, fusedDescriptor, false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void emitConstructor(ClassWriter classWriter) {
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void emitBound(MethodVisitor mv, Bound bound, int slot) {
+        switch (bound.kind()) {
+            case CONSTANT -> ASMParallelLoopPartitioner.pushConstant(mv, (int) bound.value());
+            case PARAMETER -> mv.visitVarInsn(Opcodes.ILOAD, slot);
+            case LENGTH -> {
+                mv.visitVarInsn(Opcodes.ALOAD, slot);
+                mv.visitInsn(Opcodes.ARRAYLENGTH);
+            }
+            case SIZE -> {
+                mv.visitVarInsn(Opcodes.ALOAD, slot);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, bound.owner(), "getSize", "()I", false);
+            }
+        }
+    }
+
+    /**
+     * Emits {@code for (int i = init; i < bound; i += increment) { body_0; ...;
+     * body_n; }}. The locals of each task are placed after the fused parameters
+     * and the locals of the previous tasks, followed by the index of the fused
+     * loop and the locals that replace the intermediate results.
+     */
+    private void emitFusedMethod(ClassWriter classWriter, String methodName, String fusedDescriptor, int[] fusedParameters, Type[] intermediateTypes, int boundMethod, MethodScanner[] scanners,
+            LoopInfo[] loops) {
+        int[] fusedSlots = new int[arguments.length];
+        int base = 0;
+        for (int index : fusedParameters) {
+            fusedSlots[index] = base;
+            base += Type.getType(parameterTypes[index]).getSize();
+        }
+        int[] taskBases = new int[methods.length];
+        for (int k = 0; k < methods.length; k++) {
+            taskBases[k] = base;
+            int[] slots = parameterSlots(methods[k]);
+            base += scanners[k].maxLocals - slots[slots.length - 1];
+        }
+        final int loopSlot = base++;
+        for (int index = 0; index < arguments.length; index++) {
+            if (intermediateTypes[index] != null) {
+                fusedSlots[index] = base;
+                base += intermediateTypes[index].getSize();
+            }
+        }
+
+        MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, methodName, fusedDescriptor, null, null);
+        mv.visitCode();
+        Label begin = new Label();
+        mv.visitLabel(begin);
+        ASMParallelLoopPartitioner.pushConstant(mv, loops[0].init());
+        mv.visitVarInsn(Opcodes.ISTORE, loopSlot);
+        Label head = new Label();
+        Label exit = new Label();
+        mv.visitLabel(head);
+        mv.visitVarInsn(Opcodes.ILOAD, loopSlot);
+        Bound bound = loops[boundMethod].bound();
+        emitBound(mv, bound, bound.parameter() == -1 ? -1 : fusedSlots[parameterMapping[boundMethod][bound.parameter()]]);
+        mv.visitJumpInsn(Opcodes.IF_ICMPGE, exit);
+
+        for (int k = 0; k < methods.length; k++) {
+            final int[] slots = parameterSlots(methods[k]);
+            final int[] mapping = parameterMapping[k];
+            final int argumentSlots = slots[slots.length - 1];
+            final int loopIndex = loops[k].loopIndex();
+            final int taskBase = taskBases[k];
+            IntUnaryOperator remap = slot -> {
+                if (slot == loopIndex) {
+                    return loopSlot;
+                }
+                return slot < argumentSlots ? fusedSlots[mapping[parameterAt(slots, slot)]] : taskBase + slot - argumentSlots;
+            };
+
+            // The elements of the intermediate results are loaded from and stored to their local variables
+            Set<Integer> skipped = new HashSet<>();
+            Map<Integer, Insn> replaced = new HashMap<>();
+            for (ElementAccess access : loops[k].accesses()) {
+                Type type = intermediateTypes[mapping[access.parameter()]];
+                if (type != null) {
+                    skipped.add(access.load());
+                    skipped.add(access.load() + 1);
+                    replaced.put(access.consumer(), new Insn(type.getOpcode(access.isWrite() ? Opcodes.ISTORE : Opcodes.ILOAD), fusedSlots[mapping[access.parameter()]]));
+                }
+            }
+            BodyCopier copier = new BodyCopier(methods[k], mv, loops[k].bodyStart(), loops[k].bodyEnd(), remap, skipped, replaced);
+            readHostClass(methods[k].getDeclaringClass()).accept(copier, ClassReader.SKIP_FRAMES);
+        }
+
+        mv.visitIincInsn(loopSlot, loops[0].increment());
+        mv.visitJumpInsn(Opcodes.GOTO, head);
+        mv.visitLabel(exit);
+        mv.visitInsn(Opcodes.RETURN);
+        Label finish = new Label();
+        mv.visitLabel(finish);
+
+        // The kernel parameters are named after the local variable table of the fused method
+        Set<String> names = new HashSet<>();
+        for (int index : fusedParameters) {
+            String name = parameterName(scanners, index);
+            if (name == null || !names.add(name)) {
+                name = "arg" + index;
+                names.add(name);
+            }
+            mv.visitLocalVariable(name, Type.getDescriptor(parameterTypes[index]), null, begin, finish, fusedSlots[index]);
+        }
+        AnnotatedLocal parallel = loops[0].annotation();
+        mv.visitLocalVariable(scanners[0].loopName != null && names.add(scanners[0].loopName) ? scanners[0].loopName : "i$fused", "I", null, head, exit, loopSlot);
+        AnnotationVisitor annotationVisitor = mv.visitLocalVariableAnnotation(parallel.typeRef(), parallel.typePath(), new Label[] { head }, new Label[] { exit }, new int[] { loopSlot }, parallel
+                .descriptor(), parallel.visible());
+        if (annotationVisitor != null) {
+            annotationVisitor.visitEnd();
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private String parameterName(MethodScanner[] scanners, int index) {
+        for (int k = 0; k < methods.length; k++) {
+            for (int j = 0; j < parameterMapping[k].length; j++) {
+                if (parameterMapping[k][j] == index && scanners[k].parameterNames[j] != null) {
+                    return scanners[k].parameterNames[j];
+                }
+            }
+        }
+        return null;
+    }
+
+    private enum BoundKind {
+        CONSTANT, PARAMETER, LENGTH, SIZE
+    }
+
+    /**
+     * Upper bound of a parallel loop: a constant, an int parameter, or the length
+     * or the size of an array parameter.
+     *
+     * @param length
+     *     Number of instructions of the bound.
+     * @param owner
+     *     Class of the {@code getSize} call of a {@code SIZE} bound.
+     */
+    private record Bound(BoundKind kind, int parameter, long value, int length, String owner) {
+    }
+
+    /**
+     * Access to an element of a parameter at the index of the parallel loop.
+     *
+     * @param parameter
+     *     Index of the parameter of the task method.
+     * @param load
+     *     Position of the load of the parameter. The next instruction loads the
+     *     index.
+     * @param consumer
+     *     Position of the instruction that reads or writes the element.
+     * @param elementType
+     *     Type of the element.
+     */
+    private record ElementAccess(int parameter, int load, int consumer, boolean isWrite, Type elementType) {
+    }
+
+    /**
+     * Shape of the parallel loop of a task method.
+     *
+     * @param bodyStart
+     *     Position of the first instruction of the loop body.
+     * @param bodyEnd
+     *     Position of the increment of the loop index.
+     * @param hasBranches
+     *     True if the loop body has jumps.
+     * @param uses
+     *     Uses of each parameter in the loop body.
+     * @param accesses
+     *     Accesses to elements at the index of the loop, in the order of the
+     *     body.
+     */
+    private record LoopInfo(int init, int increment, Bound bound, int loopIndex, int bodyStart, int bodyEnd, boolean hasBranches, int[] uses, List<ElementAccess> accesses,
+            AnnotatedLocal annotation) {
+    }
+
+    private record AnnotatedLocal(Label start, Label end, int index, int typeRef, TypePath typePath, String descriptor, boolean visible) {
+    }
+
+    /**
+     * Simplified instruction: the operand is the local variable index, the
+     * operand of BIPUSH and SIPUSH, or the order of a label. The constant is the
+     * value of LDC and IINC, the target of a jump, the targets of a switch, or the
+     * owner of a method.
+     */
+    private record Insn(int opcode, int operand, String name, String descriptor, Object constant) {
+        Insn(int opcode, int operand) {
+            this(opcode, operand, null, null, null);
+        }
+    }
+
+    /**
+     * First pass: records the instructions, the parallel annotations and the
+     * parameter names of a task method.
+     */
+    private class MethodScanner extends ClassVisitor {
+
+        private final Method method;
+        private final String methodDescriptor;
+        private final int[] slots;
+        private final String[] parameterNames;
+        private final List<Insn> code = new ArrayList<>();
+        private final List<AnnotatedLocal> annotations = new ArrayList<>();
+        private final Map<Label, Integer> labelOrder = new HashMap<>();
+        private final Map<Integer, String> localNames = new HashMap<>();
+        private String loopName;
+        private int version;
+        private int maxLocals;
+        private boolean isUnsupported;
+
+        MethodScanner(Method method) {
+            super(Opcodes.ASM9);
+            this.method = method;
+            this.methodDescriptor = Type.getMethodDescriptor(method);
+            this.slots = parameterSlots(method);
+            this.parameterNames = new String[method.getParameterCount()];
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.version = version & 0xFFFF;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!name.equals(method.getName()) || !descriptor.equals(methodDescriptor)) {
+                return null;
+            }
+            final Class<?> hostClass = method.getDeclaringClass();
+            final int argumentSlots = slots[slots.length - 1];
+            return new MethodVisitor(Opcodes.ASM9) {
+
+                @Override
+                public void visitLabel(Label label) {
+                    labelOrder.put(label, labelOrder.size());
+                    code.add(new Insn(LABEL, labelOrder.get(label)));
+                }
+
+                @Override
+                public void visitInsn(int opcode) {
+                    code.add(new Insn(opcode, 0));
+                }
+
+                @Override
+                public void visitIntInsn(int opcode, int operand) {
+                    code.add(new Insn(opcode, operand));
+                }
+
+                @Override
+                public void visitVarInsn(int opcode, int varIndex) {
+                    // The parameters are shared by all fused tasks, so they cannot be modified
+                    isUnsupported |= opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE && varIndex < argumentSlots;
+                    code.add(new Insn(opcode, varIndex));
+                }
+
+                @Override
+                public void visitIincInsn(int varIndex, int increment) {
+                    isUnsupported |= varIndex < argumentSlots;
+                    code.add(new Insn(Opcodes.IINC, varIndex, null, null, increment));
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    code.add(new Insn(opcode, 0, type, null, null));
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String fieldName, String fieldDescriptor) {
+                    isUnsupported |= isPrivateHostMember(hostClass, owner, fieldName, fieldDescriptor);
+                    code.add(new Insn(opcode, 0, fieldName, fieldDescriptor, null));
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String methodName, String descriptor, boolean isInterface) {
+                    isUnsupported |= isPrivateHostMember(hostClass, owner, methodName, descriptor);
+                    code.add(new Insn(opcode, 0, methodName, descriptor, owner));
+                }
+
+                @Override
+                public void visitInvokeDynamicInsn(String indyName, String indyDescriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                    for (Object argument : bootstrapMethodArguments) {
+                        if (argument instanceof Handle handle) {
+                            isUnsupported |= isPrivateHostMember(hostClass, handle.getOwner(), handle.getName(), handle.getDesc());
+                        }
+                    }
+                    code.add(new Insn(Opcodes.INVOKEDYNAMIC, 0, indyName, indyDescriptor, null));
+                }
+
+                @Override
+                public void visitJumpInsn(int opcode, Label label) {
+                    code.add(new Insn(opcode, 0, null, null, label));
+                }
+
+                @Override
+                public void visitLdcInsn(Object value) {
+                    code.add(new Insn(Opcodes.LDC, 0, null, null, value));
+                }
+
+                @Override
+                public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                    code.add(new Insn(Opcodes.TABLESWITCH, 0, null, null, switchTargets(dflt, labels)));
+                }
+
+                @Override
+                public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                    code.add(new Insn(Opcodes.LOOKUPSWITCH, 0, null, null, switchTargets(dflt, labels)));
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                    code.add(new Insn(Opcodes.MULTIANEWARRAY, 0));
+                }
+
+                @Override
+                public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+                    isUnsupported = true;
+                }
+
+                @Override
+                public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                    int parameter = parameterAt(slots, index);
+                    if (parameter != -1 && index < argumentSlots) {
+                        parameterNames[parameter] = name;
+                    } else {
+                        localNames.put(index, name);
+                    }
+                }
+
+                @Override
+                public AnnotationVisitor visitLocalVariableAnnotation(int typeRef, TypePath typePath, Label[] start, Label[] end, int[] index, String annotationDescriptor, boolean visible) {
+                    String annotationName = Type.getType(annotationDescriptor).getClassName();
+                    if (annotationName.equals(ASMMethodVisitor.parallelAnnotationClassPath)) {
+                        annotations.add(new AnnotatedLocal(start[0], end[0], index[0], typeRef, typePath, annotationDescriptor, visible));
+                    }
+                    return null;
+                }
+
+                @Override
+                public void visitMaxs(int maxStack, int maxLocalSlots) {
+                    maxLocals = maxLocalSlots;
+                }
+            };
+        }
+
+        private static Label[] switchTargets(Label dflt, Label[] labels) {
+            Label[] targets = new Label[labels.length + 1];
+            targets[0] = dflt;
+            System.arraycopy(labels, 0, targets, 1, labels.length);
+            return targets;
+        }
+
+        private int positionOf(Label label) {
+            Integer order = labelOrder.get(label);
+            for (int i = 0; order != null && i < code.size(); i++) {
+                if (code.get(i).opcode() == LABEL && code.get(i).operand() == order) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int nextInstruction(int position) {
+            int next = position + 1;
+            while (next < code.size() && code.get(next).opcode() == LABEL) {
+                next++;
+            }
+            return next;
+        }
+
+        private int previousInstruction(int position) {
+            int previous = position - 1;
+            while (previous >= 0 && code.get(previous).opcode() == LABEL) {
+                previous--;
+            }
+            return previous;
+        }
+
+        /**
+         * The method must be the loop {@code for (int i = init; i < bound; i +=
+         * increment) { body }} followed by the return, as compiled by javac. The
+         * body cannot return or jump out of the loop.
+         *
+         * @return The shape of the parallel loop and the uses of each parameter, or
+         *     null if the method cannot be fused.
+         */
+        LoopInfo analyse() {
+            if (isUnsupported || annotations.size() != 1) {
+                return null;
+            }
+            final AnnotatedLocal loop = annotations.getFirst();
+            final int start = positionOf(loop.start());
+            if (start < 2) {
+                return null;
+            }
+
+            Insn store = code.get(start - 1);
+            Integer init = intConstant(code.get(start - 2));
+            if (store.opcode() != Opcodes.ISTORE || store.operand() != loop.index() || init == null) {
+                return null;
+            }
+            for (int i = 0; i < start - 2; i++) {
+                if (code.get(i).opcode() != LABEL) {
+                    return null;
+                }
+            }
+            int position = nextInstruction(start);
+            if (position >= code.size() || code.get(position).opcode() != Opcodes.ILOAD || code.get(position).operand() != loop.index()) {
+                return null;
+            }
+            Bound bound = boundAt(position + 1);
+            if (bound == null) {
+                return null;
+            }
+            final int condition = position + 1 + bound.length();
+            final int exit = positionOf((Label) code.get(condition).constant());
+
+            // i += increment; goto condition
+            final int backEdge = previousInstruction(exit);
+            final int increment = previousInstruction(backEdge);
+            if (exit <= condition || increment <= condition || code.get(backEdge).opcode() != Opcodes.GOTO) {
+                return null;
+            }
+            final int head = positionOf((Label) code.get(backEdge).constant());
+            Insn iinc = code.get(increment);
+            if (head < start || head > position || iinc.opcode() != Opcodes.IINC || iinc.operand() != loop.index() || (int) iinc.constant() == 0) {
+                return null;
+            }
+            boolean isReturned = false;
+            for (int i = exit; i < code.size(); i++) {
+                if (code.get(i).opcode() == Opcodes.RETURN && !isReturned) {
+                    isReturned = true;
+                } else if (code.get(i).opcode() != LABEL) {
+                    return null;
+                }
+            }
+
+            final int bodyStart = condition + 1;
+            boolean hasBranches = false;
+            for (int i = bodyStart; i < increment; i++) {
+                Insn insn = code.get(i);
+                if ((insn.opcode() >= Opcodes.IRETURN && insn.opcode() <= Opcodes.RETURN) || ((insn.opcode() == Opcodes.IINC || insn.opcode() == Opcodes.ISTORE) && insn.operand() == loop.index())) {
+                    return null;
+                }
+                Label[] targets = insn.constant() instanceof Label label ? new Label[] { label } : insn.constant() instanceof Label[] labels ? labels : new Label[0];
+                for (Label target : targets) {
+                    int targetPosition = positionOf(target);
+                    if (targetPosition < bodyStart || targetPosition >= increment) {
+                        return null;
+                    }
+                    hasBranches = true;
+                }
+            }
+
+            loopName = localNames.get(loop.index());
+            int[] uses = new int[method.getParameterCount()];
+            List<ElementAccess> accesses = new ArrayList<>();
+            Class<?>[] types = method.getParameterTypes();
+            for (int i = bodyStart; i < increment; i++) {
+                Insn insn = code.get(i);
+                if (insn.opcode() != Opcodes.ALOAD) {
+                    continue;
+                }
+                int parameter = parameterAt(slots, insn.operand());
+                if (parameter != -1 && insn.operand() < slots[slots.length - 1] && !types[parameter].isPrimitive()) {
+                    uses[parameter] |= useAt(i, loop.index(), parameter, accesses);
+                }
+            }
+            return new LoopInfo(init, (int) iinc.constant(), bound, loop.index(), bodyStart, increment, hasBranches, uses, accesses, loop);
+        }
+
+        private Bound boundAt(int position) {
+            if (position + 1 >= code.size()) {
+                return null;
+            }
+            Insn first = code.get(position);
+            Insn second = code.get(position + 1);
+            Integer constant = intConstant(first);
+            if (constant != null && second.opcode() == Opcodes.IF_ICMPGE) {
+                return new Bound(BoundKind.CONSTANT, -1, constant, 1, null);
+            } else if (first.opcode() == Opcodes.ILOAD && second.opcode() == Opcodes.IF_ICMPGE) {
+                int parameter = parameterAt(slots, first.operand());
+                return parameter == -1 || first.operand() >= slots[slots.length - 1] ? null : new Bound(BoundKind.PARAMETER, parameter, 0, 1, null);
+            } else if (first.opcode() == Opcodes.ALOAD && position + 2 < code.size() && code.get(position + 2).opcode() == Opcodes.IF_ICMPGE) {
+                int parameter = parameterAt(slots, first.operand());
+                if (parameter == -1 || first.operand() >= slots[slots.length - 1]) {
+                    return null;
+                } else if (second.opcode() == Opcodes.ARRAYLENGTH) {
+                    return new Bound(BoundKind.LENGTH, parameter, 0, 2, null);
+                } else if (second.opcode() == Opcodes.INVOKEVIRTUAL && second.name().equals("getSize") && second.descriptor().equals("()I")) {
+                    return new Bound(BoundKind.SIZE, parameter, 0, 2, (String) second.constant());
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Classifies the use of an object loaded at a position: its size is read, or
+         * one of its elements is read or written at the index of the parallel loop.
+         * Any other use is unknown.
+         */
+        private int useAt(int position, int loopIndex, int parameter, List<ElementAccess> accesses) {
+            Insn next = code.get(position + 1);
+            if (isSizeRead(next)) {
+                return SIZE_USE;
+            }
+            if (next.opcode() != Opcodes.ILOAD || next.operand() != loopIndex) {
+                return UNKNOWN_USE;
+            }
+            // Follow the values pushed after the index until the instruction that consumes the object and the index
+            int depth = 0;
+            for (int i = position + 2; i < code.size(); i++) {
+                Insn insn = code.get(i);
+                int[] effect = insn.opcode() == LABEL ? null : stackEffect(insn);
+                if (effect == null) {
+                    return UNKNOWN_USE;
+                }
+                if (effect[0] > depth) {
+                    if (effect[0] != depth + 2) {
+                        return UNKNOWN_USE;
+                    } else if (isElementRead(insn)) {
+                        accesses.add(new ElementAccess(parameter, position, i, false, elementType(parameter, insn, false)));
+                        return READ_USE;
+                    } else if (isElementWrite(insn)) {
+                        accesses.add(new ElementAccess(parameter, position, i, true, elementType(parameter, insn, true)));
+                        return WRITE_USE;
+                    }
+                    return UNKNOWN_USE;
+                }
+                depth += effect[1] - effect[0];
+            }
+            return UNKNOWN_USE;
+        }
+
+        private Type elementType(int parameter, Insn insn, boolean isWrite) {
+            Class<?> type = method.getParameterTypes()[parameter];
+            if (type.isArray()) {
+                return Type.getType(type.getComponentType());
+            }
+            return isWrite ? Type.getArgumentTypes(insn.descriptor())[1] : Type.getReturnType(insn.descriptor());
+        }
+    }
+
+    /**
+     * Second pass: copies the loop body of a task method into the fused loop. The
+     * parameters are replaced with the fused parameters, the index with the index
+     * of the fused loop, and the rest of the locals are moved after the locals of
+     * the previous tasks. The instructions are numbered as in the
+     * {@link MethodScanner}.
+     */
+    private static class BodyCopier extends ClassVisitor {
+
+        private final Method method;
+        private final String methodDescriptor;
+        private final MethodVisitor target;
+        private final int from;
+        private final int to;
+        private final IntUnaryOperator remap;
+        private final Set<Integer> skipped;
+        private final Map<Integer, Insn> replaced;
+        private final Set<Label> copiedLabels = new HashSet<>();
+        private final int argumentSlots;
+        private int position;
+
+        /**
+         * @param skipped
+         *     Positions of the instructions that are not copied.
+         * @param replaced
+         *     Positions of the instructions that are replaced with the load or
+         *     store of a local, and that load or store.
+         */
+        BodyCopier(Method method, MethodVisitor target, int from, int to, IntUnaryOperator remap, Set<Integer> skipped, Map<Integer, Insn> replaced) {
+            super(Opcodes.ASM9);
+            this.method = method;
+            this.methodDescriptor = Type.getMethodDescriptor(method);
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.remap = remap;
+            this.skipped = skipped;
+            this.replaced = replaced;
+            this.argumentSlots = parameterSlots(method)[method.getParameterCount()];
+        }
+
+        /**
+         * @return True if the next instruction must be copied.
+         */
+        private boolean isCopied() {
+            final int current = position++;
+            if (current < from || current >= to || skipped.contains(current)) {
+                return false;
+            }
+            Insn replacement = replaced.get(current);
+            if (replacement != null) {
+                target.visitVarInsn(replacement.opcode(), replacement.operand());
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (!name.equals(method.getName()) || !descriptor.equals(methodDescriptor)) {
+                return null;
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+
+                @Override
+                public void visitLabel(Label label) {
+                    if (isCopied()) {
+                        copiedLabels.add(label);
+                        target.visitLabel(label);
+                    }
+                }
+
+                @Override
+                public void visitInsn(int opcode) {
+                    if (isCopied()) {
+                        target.visitInsn(opcode);
+                    }
+                }
+
+                @Override
+                public void visitIntInsn(int opcode, int operand) {
+                    if (isCopied()) {
+                        target.visitIntInsn(opcode, operand);
+                    }
+                }
+
+                @Override
+                public void visitVarInsn(int opcode, int varIndex) {
+                    if (isCopied()) {
+                        target.visitVarInsn(opcode, remap.applyAsInt(varIndex));
+                    }
+                }
+
+                @Override
+                public void visitIincInsn(int varIndex, int increment) {
+                    if (isCopied()) {
+                        target.visitIincInsn(remap.applyAsInt(varIndex), increment);
+                    }
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    if (isCopied()) {
+                        target.visitTypeInsn(opcode, type);
+                    }
+                }
+
+                @Override
+                public void visitFieldInsn(int opcode, String owner, String fieldName, String fieldDescriptor) {
+                    if (isCopied()) {
+                        target.visitFieldInsn(opcode, owner, fieldName, fieldDescriptor);
+                    }
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String methodName, String descriptor, boolean isInterface) {
+                    if (isCopied()) {
+                        target.visitMethodInsn(opcode, owner, methodName, descriptor, isInterface);
+                    }
+                }
+
+                @Override
+                public void visitInvokeDynamicInsn(String indyName, String indyDescriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+                    if (isCopied()) {
+                        target.visitInvokeDynamicInsn(indyName, indyDescriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+                    }
+                }
+
+                @Override
+                public void visitJumpInsn(int opcode, Label label) {
+                    if (isCopied()) {
+                        target.visitJumpInsn(opcode, label);
+                    }
+                }
+
+                @Override
+                public void visitLdcInsn(Object value) {
+                    if (isCopied()) {
+                        target.visitLdcInsn(value);
+                    }
+                }
+
+                @Override
+                public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                    if (isCopied()) {
+                        target.visitTableSwitchInsn(min, max, dflt, labels);
+                    }
+                }
+
+                @Override
+                public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                    if (isCopied()) {
+                        target.visitLookupSwitchInsn(dflt, keys, labels);
+                    }
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+                    if (isCopied()) {
+                        target.visitMultiANewArrayInsn(descriptor, numDimensions);
+                    }
+                }
+
+                @Override
+                public void visitLineNumber(int line, Label start) {
+                    if (copiedLabels.contains(start)) {
+                        target.visitLineNumber(line, start);
+                    }
+                }
+
+                @Override
+                public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                    // The parameters and the loop index are declared once for the whole fused method
+                    if (index >= argumentSlots && remap.applyAsInt(index) >= 0 && copiedLabels.contains(start) && copiedLabels.contains(end)) {
+                        target.visitLocalVariable(name, descriptor, signature, start, end, remap.applyAsInt(index));
+                    }
+                }
+
+                @Override
+                public void visitAttribute(Attribute attribute) {
+                }
+            };
+        }
+    }
+
+}
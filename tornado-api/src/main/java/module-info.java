@@ -49,6 +49,8 @@ module tornado.api {
     exports uk.ac.manchester.tornado.api.types;
     opens uk.ac.manchester.tornado.api.types;
     opens uk.ac.manchester.tornado.api.runtime;
+    exports uk.ac.manchester.tornado.api.plan.policy;
+    opens uk.ac.manchester.tornado.api.plan.policy;
     exports uk.ac.manchester.tornado.api.plan.types;
     opens uk.ac.manchester.tornado.api.plan.types;
 }
@@ -18,10 +18,12 @@
 package uk.ac.manchester.tornado.api;
 
 import java.util.Collection;
+import java.util.List;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
 
 /**
@@ -154,6 +156,10 @@ public class ImmutableTaskGraph {
         taskGraph.batch(batchSize);
     }
 
+    void withBatch(String batchSize, int chunksInFlight) {
+        taskGraph.batch(batchSize, chunksInFlight);
+    }
+
     void withMemoryLimit(String memoryLimit) {
         taskGraph.withMemoryLimit(memoryLimit);
     }
@@ -182,6 +188,14 @@ public class ImmutableTaskGraph {
         taskGraph.withoutConcurrentDevices();
     }
 
+    void withDataParallelSplit(List<ExecutionTarget> targets) {
+        taskGraph.withDataParallelSplit(targets);
+    }
+
+    void withoutDataParallelSplit() {
+        taskGraph.withoutDataParallelSplit();
+    }
+
     void withThreadInfo() {
         taskGraph.withThreadInfo();
     }
@@ -19,6 +19,7 @@ package uk.ac.manchester.tornado.api;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import uk.ac.manchester.tornado.api.common.PrebuiltTaskPackage;
@@ -44,6 +45,7 @@ import uk.ac.manchester.tornado.api.enums.DataTransferMode;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoTaskRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
 import uk.ac.manchester.tornado.api.runtime.TornadoAPIProvider;
 
@@ -796,6 +798,10 @@ public class TaskGraph implements TaskGraphInterface {
         taskGraphImpl.withBatch(batchSize);
     }
 
+    void batch(String batchSize, int chunksInFlight) {
+        taskGraphImpl.withBatch(batchSize, chunksInFlight);
+    }
+
     void withMemoryLimit(String memoryLimit) {
         taskGraphImpl.withMemoryLimit(memoryLimit);
     }
@@ -911,6 +917,14 @@ public class TaskGraph implements TaskGraphInterface {
         taskGraphImpl.withoutConcurrentDevices();
     }
 
+    void withDataParallelSplit(List<ExecutionTarget> targets) {
+        taskGraphImpl.withDataParallelSplit(targets);
+    }
+
+    void withoutDataParallelSplit() {
+        taskGraphImpl.withoutDataParallelSplit();
+    }
+
     void withThreadInfo() {
         taskGraphImpl.withThreadInfo();
     }
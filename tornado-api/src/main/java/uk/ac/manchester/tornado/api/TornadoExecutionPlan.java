@@ -17,28 +17,39 @@
  */
 package uk.ac.manchester.tornado.api;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.DevicePolicy;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionSample;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
 import uk.ac.manchester.tornado.api.plan.types.OffConcurrentDevices;
 import uk.ac.manchester.tornado.api.plan.types.OffMemoryLimit;
 import uk.ac.manchester.tornado.api.plan.types.OffPrintKernel;
 import uk.ac.manchester.tornado.api.plan.types.OffProfiler;
 import uk.ac.manchester.tornado.api.plan.types.OffThreadInfo;
 import uk.ac.manchester.tornado.api.plan.types.WithAllGraphs;
+import uk.ac.manchester.tornado.api.plan.types.WithAutoTuning;
 import uk.ac.manchester.tornado.api.plan.types.WithBatch;
 import uk.ac.manchester.tornado.api.plan.types.WithClearProfiles;
 import uk.ac.manchester.tornado.api.plan.types.WithCompilerFlags;
 import uk.ac.manchester.tornado.api.plan.types.WithConcurrentDevices;
+import uk.ac.manchester.tornado.api.plan.types.WithDataParallelSplit;
 import uk.ac.manchester.tornado.api.plan.types.WithDefaultScheduler;
 import uk.ac.manchester.tornado.api.plan.types.WithDevice;
+import uk.ac.manchester.tornado.api.plan.types.WithDynamicDevicePolicy;
 import uk.ac.manchester.tornado.api.plan.types.WithFreeDeviceMemory;
 import uk.ac.manchester.tornado.api.plan.types.WithGraph;
 import uk.ac.manchester.tornado.api.plan.types.WithGridScheduler;
@@ -48,6 +59,7 @@ import uk.ac.manchester.tornado.api.plan.types.WithPrintKernel;
 import uk.ac.manchester.tornado.api.plan.types.WithProfiler;
 import uk.ac.manchester.tornado.api.plan.types.WithResetDevice;
 import uk.ac.manchester.tornado.api.plan.types.WithThreadInfo;
+import uk.ac.manchester.tornado.api.plan.types.WithTimelineTrace;
 import uk.ac.manchester.tornado.api.plan.types.WithWarmUpIterations;
 import uk.ac.manchester.tornado.api.plan.types.WithWarmUpTime;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
@@ -178,7 +190,27 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
      * @return {@link TornadoExecutionPlan}
      */
     public TornadoExecutionResult execute() {
+        final DevicePolicy devicePolicy = executionFrame.getDevicePolicy();
+        if (devicePolicy != null) {
+            return executeWithDevicePolicy(devicePolicy);
+        }
+        tornadoExecutor.execute(executionFrame);
+        return createExecutionResult();
+    }
+
+    private TornadoExecutionResult executeWithDevicePolicy(DevicePolicy devicePolicy) {
+        final long inputSize = executionFrame.getPolicyInputSize().getAsLong();
+        final ExecutionTarget target = devicePolicy.select(inputSize);
+        tornadoExecutor.selectTarget(target, executionFrame);
+        final long start = System.nanoTime();
         tornadoExecutor.execute(executionFrame);
+        final long totalTime = System.nanoTime() - start;
+        TornadoExecutionResult executionResult = createExecutionResult();
+        devicePolicy.record(ExecutionSample.of(target, inputSize, totalTime, executionResult.getProfilerResult()));
+        return executionResult;
+    }
+
+    private TornadoExecutionResult createExecutionResult() {
         TornadoProfilerResult profilerResult = new TornadoProfilerResult(tornadoExecutor, this.getTraceExecutionPlan());
         TornadoExecutionResult executionResult = new TornadoExecutionResult(profilerResult);
         planResults.add(executionResult);
@@ -186,6 +218,30 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
         return executionResult;
     }
 
+    /**
+     * Execute an execution plan in a background thread owned by the execution
+     * plan, so the calling thread is not blocked. This is not an asynchronous
+     * execution on the device: the background thread runs {@link #execute()},
+     * so it stays blocked until all task-graphs finished, including the final
+     * barrier and the transfers to the host, and then it completes the returned
+     * future. Each plan has its own background thread, so a plan can only run
+     * one execution at a time.
+     *
+     * <p>
+     * Executions of the same plan run in submission order. The host data of an
+     * execution must not be modified until its future completes, and
+     * {@link #execute()} must not be invoked while background executions are
+     * pending. Closing the plan waits for the pending executions. If the plan is
+     * closed from a callback that runs in the background thread, the executions
+     * that have not started yet are cancelled instead.
+     * </p>
+     *
+     * @return {@link CompletableFuture} with the {@link TornadoExecutionResult}.
+     */
+    public CompletableFuture<TornadoExecutionResult> executeInBackground() {
+        return tornadoExecutor.submitInBackground(this::execute, executionFrame.getExecutionPlanId());
+    }
+
     /**
      * Select a graph from the {@link TornadoExecutionPlan} to execute.
      * This method allows developers to select a specific graph from the
@@ -282,6 +338,37 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
         return new WithDevice(this, device);
     }
 
+    /**
+     * It selects the device of each execution with a {@link DevicePolicy}. Before
+     * each execution, the policy selects a target (a device or the sequential
+     * Java implementation) for the current input size, and after the execution it
+     * receives the timings. If the profiler is enabled, the timings include the
+     * breakdown of compilation, kernel and transfer times.
+     *
+     * @param devicePolicy
+     *     {@link DevicePolicy}
+     * @param inputSize
+     *     Supplier of the input size of the next execution (e.g., the number of
+     *     elements).
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withDynamicDevicePolicy(DevicePolicy devicePolicy, LongSupplier inputSize) {
+        executionFrame.setDevicePolicy(devicePolicy, inputSize);
+        return new WithDynamicDevicePolicy(this, devicePolicy);
+    }
+
+    /**
+     * It disables the device policy. The task-graphs keep running on the last
+     * device selected by the policy.
+     *
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withoutDynamicDevicePolicy() {
+        executionFrame.setDevicePolicy(null, null);
+        executionFrame.setJavaSequential(false);
+        return new WithDynamicDevicePolicy(this, null);
+    }
+
     /**
      * It enables multiple tasks in a task graph to run concurrently on the same
      * or different devices. Note that the TornadoVM runtime does not check for
@@ -307,6 +394,49 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
         return new OffConcurrentDevices(this);
     }
 
+    /**
+     * It splits the iteration space of each task-graph across several targets,
+     * which run their part at the same time. Each device receives its range of
+     * the arrays that are split by iterations (e.g., the elements of a vector or
+     * the rows of a matrix) and the whole of the rest of the objects, and copies
+     * its range of the outputs back to the host arrays. The
+     * {@link ExecutionTarget#sequentialJava()} target runs its range on the host
+     * with the sequential Java implementation of the tasks.
+     *
+     * <p>
+     * The first execution splits the iteration space in equal parts. The
+     * following executions move iterations to the targets with the highest
+     * measured throughput. Changing the range of a device recompiles its
+     * kernels, so the split only changes when the difference is significant.
+     * </p>
+     *
+     * <p>
+     * All outputs must be split by iterations, and the tasks can neither be
+     * reductions nor write their loop index to an output. The outputs are copied
+     * to the host after every execution.
+     * </p>
+     *
+     * @param targets
+     *     The {@link ExecutionTarget} that run the task-graphs. Each target
+     *     can only appear once.
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withDataParallelSplit(ExecutionTarget... targets) {
+        tornadoExecutor.withDataParallelSplit(List.of(targets));
+        return new WithDataParallelSplit(this, targets);
+    }
+
+    /**
+     * It disables the data-parallel split, and it frees the device memory used
+     * by the targets of the split.
+     *
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withoutDataParallelSplit() {
+        tornadoExecutor.withoutDataParallelSplit();
+        return new WithDataParallelSplit(this, null);
+    }
+
     /**
      * It obtains the device for a specific immutable task-graph. Note that,
      * ideally, different task immutable task-graph could be executed on different
@@ -386,6 +516,27 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
         return new WithBatch(this, batchSize);
     }
 
+    /**
+     * Enable pipelined batch processing. As in {@link #withBatch(String)}, the
+     * iteration space is split in batches, but up to {@code chunksInFlight}
+     * batches are kept on the device at the same time, each one with its own
+     * device buffers. The copy-in and the kernel of the next batches are
+     * enqueued before the copy-out of the current one, so data transfers and
+     * compute can overlap on devices that execute commands out of order
+     * ({@code -Dtornado.ooo-execution.enable=True -Dtornado.vm.deps=True}).
+     *
+     * @param batchSize
+     *     String in the format a number + "MB" Example "512MB".
+     * @param chunksInFlight
+     *     Number of batches kept on the device at the same time. A value of 1
+     *     is equivalent to {@link #withBatch(String)}.
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withBatch(String batchSize, int chunksInFlight) {
+        tornadoExecutor.withBatch(batchSize, chunksInFlight);
+        return new WithBatch(this, batchSize, chunksInFlight);
+    }
+
     /**
      * Enables the profiler. The profiler includes options to query device kernel
      * time, data transfers and compilation at different stages (JIT, driver
@@ -410,6 +561,102 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
         return new OffProfiler(this);
     }
 
+    /**
+     * Enables the timeline trace of the execution plan. The trace records each
+     * bytecode run by the TornadoVM interpreters, the compilation phases of each
+     * task (Graal and driver compilation), and the device events of the
+     * transfers and kernels, with their queued, submit, start and end times when
+     * the driver provides them. It shows where the transfers and the kernels do
+     * not overlap without attaching a vendor profiler.
+     *
+     * <p>
+     * The trace is kept in a ring buffer of
+     * {@link TimelineTracer#DEFAULT_CAPACITY} spans, and it is written in the
+     * Chrome trace event format when the execution plan is closed or when the
+     * trace is disabled. The file can be opened with {@code chrome://tracing}
+     * or with Perfetto.
+     * </p>
+     *
+     * @param file
+     *     Path of the JSON file for the trace.
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withTimelineTrace(Path file) {
+        executionFrame.setTimelineTracer(new TimelineTracer(getId(), TimelineTracer.DEFAULT_CAPACITY), file);
+        return new WithTimelineTrace(this, file);
+    }
+
+    /**
+     * Writes the timeline trace to its file and disables it.
+     *
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withoutTimelineTrace() {
+        try {
+            writeTimelineTrace();
+        } catch (IOException e) {
+            throw new TornadoRuntimeException(e);
+        }
+        executionFrame.setTimelineTracer(null, null);
+        return new WithTimelineTrace(this, null);
+    }
+
+    /**
+     * Obtains the tracer of the timeline trace, or {@code null} if the trace
+     * is not enabled.
+     *
+     * @return {@link TimelineTracer}
+     */
+    public TimelineTracer getTimelineTracer() {
+        return executionFrame.getTimelineTracer();
+    }
+
+    private void writeTimelineTrace() throws IOException {
+        TimelineTracer timelineTracer = executionFrame.getTimelineTracer();
+        if (timelineTracer != null) {
+            timelineTracer.write(executionFrame.getTimelineTraceFile());
+        }
+    }
+
+    /**
+     * Enables the autotuning of the local work sizes. For each parallel task
+     * without a {@link WorkerGrid}, the first execution runs with the default
+     * local work sizes of the backend, and the next executions try other local
+     * work sizes that fit on the device. The configuration with the lowest
+     * kernel time is then used for the rest of the executions.
+     *
+     * <p>
+     * The winning configuration is stored in a file, keyed by the task, the
+     * device and the problem size, so the search is done once per
+     * configuration. The file is set with
+     * {@code -Dtornado.autotuning.file=<path>}, and it is
+     * {@code ~/.tornadovm/autotuning.properties} by default.
+     * </p>
+     *
+     * @param iterations
+     *     Maximum number of executions used to search the local work sizes
+     *     of each task.
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withAutoTuning(int iterations) {
+        if (iterations <= 0) {
+            throw new TornadoRuntimeException("[ERROR] The number of autotuning iterations must be greater than 0");
+        }
+        executionFrame.setAutoTuningIterations(iterations);
+        return new WithAutoTuning(this, iterations);
+    }
+
+    /**
+     * Disables the autotuning of the local work sizes. The tasks use the default
+     * local work sizes of the backend again.
+     *
+     * @return {@link TornadoExecutionPlan}
+     */
+    public TornadoExecutionPlan withoutAutoTuning() {
+        executionFrame.setAutoTuningIterations(0);
+        return new WithAutoTuning(this, 0);
+    }
+
     /**
      * This method sets a limit to the amount of memory used on the target
      * hardware accelerator. The TornadoVM runtime will check that the
@@ -549,7 +796,13 @@ public sealed class TornadoExecutionPlan implements AutoCloseable permits Execut
      */
     @Override
     public void close() throws TornadoExecutionPlanException {
+        tornadoExecutor.shutdownBackgroundExecutor();
         tornadoExecutor.freeDeviceMemory();
+        try {
+            writeTimelineTrace();
+        } catch (IOException e) {
+            throw new TornadoExecutionPlanException("Error writing the timeline trace to " + executionFrame.getTimelineTraceFile(), e);
+        }
     }
 
     /**
@@ -20,13 +20,20 @@ package uk.ac.manchester.tornado.api;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
 
 /**
@@ -40,6 +47,19 @@ class TornadoExecutor {
     private final List<ImmutableTaskGraph> immutableTaskGraphList;
     private List<ImmutableTaskGraph> subgraphList;
 
+    /**
+     * Thread that runs the background executions of the plan. Executions of
+     * the same plan are serialized, because the task-graphs are not thread-safe.
+     */
+    private ThreadPoolExecutor backgroundExecutor;
+
+    private Thread backgroundThread;
+
+    /**
+     * Target selected by the device policy for the last execution.
+     */
+    private ExecutionTarget policyTarget;
+
     TornadoExecutor(ImmutableTaskGraph... immutableTaskGraphs) {
         immutableTaskGraphList = new ArrayList<>();
         Collections.addAll(immutableTaskGraphList, immutableTaskGraphs);
@@ -49,6 +69,82 @@ class TornadoExecutor {
         immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.execute(executionPackage));
     }
 
+    /**
+     * It runs an execution in the thread of the plan. The future completes with
+     * the result of the execution, or exceptionally if the execution fails or
+     * is cancelled by {@link #shutdownBackgroundExecutor()}.
+     */
+    synchronized <T> CompletableFuture<T> submitInBackground(Supplier<T> execution, long executionPlanId) {
+        if (backgroundExecutor == null) {
+            // Daemon thread, so it does not keep the JVM alive if the plan is not closed
+            ThreadFactory threadFactory = Thread.ofPlatform().name("tornadovm-plan-" + executionPlanId).daemon(true).factory();
+            backgroundExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                backgroundThread = threadFactory.newThread(runnable);
+                return backgroundThread;
+            });
+        }
+        BackgroundExecution<T> backgroundExecution = new BackgroundExecution<>(new CompletableFuture<>(), execution);
+        backgroundExecutor.execute(backgroundExecution);
+        return backgroundExecution.future();
+    }
+
+    private record BackgroundExecution<T>(CompletableFuture<T> future, Supplier<T> execution) implements Runnable {
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(execution.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * It waits for the pending background executions and shuts down their
+     * thread. When it is invoked from the thread of the plan (e.g., from a
+     * callback of a future returned by {@link #submitInBackground}), it cannot wait for
+     * the executions queued behind the running one, so it cancels them.
+     */
+    synchronized void shutdownBackgroundExecutor() {
+        if (backgroundExecutor == null) {
+            return;
+        }
+        if (Thread.currentThread() == backgroundThread) {
+            List<Runnable> pending = new ArrayList<>();
+            backgroundExecutor.getQueue().drainTo(pending);
+            backgroundExecutor.shutdown();
+            pending.forEach(runnable -> ((BackgroundExecution<?>) runnable).future().cancel(false));
+        } else {
+            backgroundExecutor.shutdown();
+            try {
+                backgroundExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        backgroundExecutor = null;
+        backgroundThread = null;
+    }
+
+    /**
+     * It applies the target selected by a device policy. The device is only
+     * updated when it changes between executions.
+     */
+    void selectTarget(ExecutionTarget target, ExecutorFrame executorFrame) {
+        executorFrame.setJavaSequential(target.javaSequential());
+        if (target.javaSequential() || target.equals(policyTarget)) {
+            return;
+        }
+        if (target.device() == null) {
+            throw new TornadoRuntimeException("[ERROR] The target " + target + " has no device");
+        }
+        setDevice(target.device());
+        policyTarget = target;
+    }
+
     boolean withGridScheduler(GridScheduler gridScheduler) {
         boolean checkGridRegistered = false;
         for (ImmutableTaskGraph immutableTaskGraph : immutableTaskGraphList) {
@@ -77,6 +173,10 @@ class TornadoExecutor {
         immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withBatch(batchSize));
     }
 
+    void withBatch(String batchSize, int chunksInFlight) {
+        immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withBatch(batchSize, chunksInFlight));
+    }
+
     void withMemoryLimit(String memoryLimit) {
         immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withMemoryLimit(memoryLimit));
     }
@@ -107,6 +207,14 @@ class TornadoExecutor {
         immutableTaskGraphList.forEach(ImmutableTaskGraph::withoutConcurrentDevices);
     }
 
+    void withDataParallelSplit(List<ExecutionTarget> targets) {
+        immutableTaskGraphList.forEach(immutableTaskGraph -> immutableTaskGraph.withDataParallelSplit(targets));
+    }
+
+    void withoutDataParallelSplit() {
+        immutableTaskGraphList.forEach(ImmutableTaskGraph::withoutDataParallelSplit);
+    }
+
     void freeDeviceMemory() {
         immutableTaskGraphList.forEach(ImmutableTaskGraph::freeDeviceMemory);
     }
@@ -28,6 +28,7 @@ import uk.ac.manchester.tornado.api.common.TaskPackage;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
 import uk.ac.manchester.tornado.api.profiler.ProfilerInterface;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
 import uk.ac.manchester.tornado.api.runtime.TaskContextInterface;
@@ -54,6 +55,8 @@ public interface TornadoTaskGraphInterface extends ProfilerInterface {
 
     void withBatch(String batchSize);
 
+    void withBatch(String batchSize, int chunksInFlight);
+
     void withMemoryLimit(String memoryLimit);
 
     void withoutMemoryLimit();
@@ -120,6 +123,10 @@ public interface TornadoTaskGraphInterface extends ProfilerInterface {
 
     void withoutConcurrentDevices();
 
+    void withDataParallelSplit(List<ExecutionTarget> targets);
+
+    void withoutDataParallelSplit();
+
     void withThreadInfo();
 
     void withoutThreadInfo();
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.plan.policy;
+
+import java.util.List;
+
+/**
+ * Policy to select the target of each execution of an execution plan. The
+ * execution plan asks the policy for a target before each execution and
+ * reports the timings of the execution afterwards.
+ *
+ * <p>
+ * Policies do not depend on the runtime, so they can be evaluated offline by
+ * feeding them recorded {@link ExecutionSample}s.
+ * </p>
+ */
+public interface DevicePolicy {
+
+    /**
+     * It returns the targets the policy selects from.
+     *
+     * @return {@link List} of {@link ExecutionTarget}
+     */
+    List<ExecutionTarget> getTargets();
+
+    /**
+     * It selects the target of the next execution.
+     *
+     * @param inputSize
+     *     The input size of the next execution.
+     * @return {@link ExecutionTarget}
+     */
+    ExecutionTarget select(long inputSize);
+
+    /**
+     * It records the timings of an execution.
+     *
+     * @param sample
+     *     {@link ExecutionSample}
+     */
+    void record(ExecutionSample sample);
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.plan.policy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+
+/**
+ * Epsilon-greedy {@link DevicePolicy}. Input sizes are grouped in power-of-two
+ * buckets, and the policy keeps the cost of the last executions of each target
+ * in each bucket.
+ *
+ * <ul>
+ * <li>The first sample of each target is discarded, because it includes the JIT
+ * compilation and the first allocation of the device buffers.</li>
+ * <li>Exploration: a target without samples in the bucket of the input size is
+ * selected first. Afterwards, a random target is selected with probability
+ * {@code epsilon}.</li>
+ * <li>Exploitation: otherwise, the target with the lowest mean cost in the
+ * bucket is selected.</li>
+ * </ul>
+ */
+public class EpsilonGreedyDevicePolicy implements DevicePolicy {
+
+    private final List<ExecutionTarget> targets;
+    private final double epsilon;
+    private final int historySize;
+    private final Random random;
+
+    private final boolean[] warmedUp;
+    private final Map<Integer, History[]> buckets;
+
+    /**
+     * It creates a new policy.
+     *
+     * @param targets
+     *     The targets to select from.
+     * @param epsilon
+     *     Probability of selecting a random target once all targets have been
+     *     explored.
+     * @param historySize
+     *     Number of executions per target and input-size bucket used to compute
+     *     the mean cost.
+     * @param seed
+     *     Seed of the random exploration.
+     */
+    public EpsilonGreedyDevicePolicy(List<ExecutionTarget> targets, double epsilon, int historySize, long seed) {
+        if (targets.isEmpty()) {
+            throw new TornadoRuntimeException("[ERROR] A device policy needs at least one target");
+        }
+        if (epsilon < 0 || epsilon > 1) {
+            throw new TornadoRuntimeException("[ERROR] Epsilon must be in [0, 1]: " + epsilon);
+        }
+        if (historySize < 1) {
+            throw new TornadoRuntimeException("[ERROR] The history size must be at least 1: " + historySize);
+        }
+        this.targets = List.copyOf(targets);
+        this.epsilon = epsilon;
+        this.historySize = historySize;
+        this.random = new Random(seed);
+        this.warmedUp = new boolean[targets.size()];
+        this.buckets = new HashMap<>();
+    }
+
+    /**
+     * It creates a new policy with a 5% exploration and a history of 16
+     * executions.
+     *
+     * @param targets
+     *     The targets to select from.
+     */
+    public EpsilonGreedyDevicePolicy(List<ExecutionTarget> targets) {
+        this(targets, 0.05, 16, System.nanoTime());
+    }
+
+    @Override
+    public List<ExecutionTarget> getTargets() {
+        return targets;
+    }
+
+    @Override
+    public synchronized ExecutionTarget select(long inputSize) {
+        final History[] histories = getHistories(inputSize);
+        for (int i = 0; i < histories.length; i++) {
+            if (!warmedUp[i] || histories[i].count == 0) {
+                return targets.get(i);
+            }
+        }
+        if (epsilon > 0 && random.nextDouble() < epsilon) {
+            return targets.get(random.nextInt(targets.size()));
+        }
+        int best = 0;
+        for (int i = 1; i < histories.length; i++) {
+            if (histories[i].mean() < histories[best].mean()) {
+                best = i;
+            }
+        }
+        return targets.get(best);
+    }
+
+    @Override
+    public synchronized void record(ExecutionSample sample) {
+        final int index = targets.indexOf(sample.target());
+        if (index == -1) {
+            throw new TornadoRuntimeException("[ERROR] Target not found in the device policy: " + sample.target());
+        }
+        if (!warmedUp[index]) {
+            warmedUp[index] = true;
+            return;
+        }
+        getHistories(sample.inputSize())[index].add(sample.cost());
+    }
+
+    /**
+     * It returns the mean cost of a target for an input size, or -1 if there are
+     * no samples.
+     *
+     * @param target
+     *     {@link ExecutionTarget}
+     * @param inputSize
+     *     The input size.
+     * @return double
+     */
+    public synchronized double getMeanCost(ExecutionTarget target, long inputSize) {
+        final History history = getHistories(inputSize)[targets.indexOf(target)];
+        return history.count == 0 ? -1 : history.mean();
+    }
+
+    private History[] getHistories(long inputSize) {
+        return buckets.computeIfAbsent(bucketOf(inputSize), bucket -> {
+            History[] histories = new History[targets.size()];
+            for (int i = 0; i < histories.length; i++) {
+                histories[i] = new History(historySize);
+            }
+            return histories;
+        });
+    }
+
+    private static int bucketOf(long inputSize) {
+        return Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, inputSize));
+    }
+
+    /**
+     * Ring buffer with the last costs of a target.
+     */
+    private static final class History {
+        private final long[] costs;
+        private int count;
+        private int next;
+        private long sum;
+
+        History(int size) {
+            costs = new long[size];
+        }
+
+        void add(long cost) {
+            if (count == costs.length) {
+                sum -= costs[next];
+            } else {
+                count++;
+            }
+            costs[next] = cost;
+            sum += cost;
+            next = (next + 1) % costs.length;
+        }
+
+        double mean() {
+            return (double) sum / count;
+        }
+    }
+}
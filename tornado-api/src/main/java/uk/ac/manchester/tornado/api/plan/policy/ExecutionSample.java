@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.plan.policy;
+
+import uk.ac.manchester.tornado.api.TornadoProfilerResult;
+
+/**
+ * Timings of one execution of an execution plan on a target. All times are in
+ * nanoseconds. The breakdown (compilation, kernel and transfers) is only
+ * available when the profiler of the execution plan is enabled; otherwise it is
+ * zero.
+ *
+ * @param target
+ *     The {@link ExecutionTarget} of the execution.
+ * @param inputSize
+ *     The input size of the execution, as reported to the policy.
+ * @param totalTime
+ *     The end-to-end time of the execution.
+ * @param compileTime
+ *     The time spent compiling the tasks.
+ * @param kernelTime
+ *     The time of the kernels on the device.
+ * @param copyInTime
+ *     The time of the transfers from the host to the device.
+ * @param copyOutTime
+ *     The time of the transfers from the device to the host.
+ */
+public record ExecutionSample(ExecutionTarget target, long inputSize, long totalTime, long compileTime, long kernelTime, long copyInTime, long copyOutTime) {
+
+    /**
+     * It creates a sample with only the end-to-end time, e.g., from a recorded
+     * trace.
+     */
+    public ExecutionSample(ExecutionTarget target, long inputSize, long totalTime) {
+        this(target, inputSize, totalTime, 0, 0, 0, 0);
+    }
+
+    /**
+     * It creates a sample from the profiler result of an execution.
+     *
+     * @param target
+     *     The {@link ExecutionTarget} of the execution.
+     * @param inputSize
+     *     The input size of the execution.
+     * @param totalTime
+     *     The end-to-end time measured by the caller.
+     * @param profilerResult
+     *     {@link TornadoProfilerResult}
+     * @return {@link ExecutionSample}
+     */
+    public static ExecutionSample of(ExecutionTarget target, long inputSize, long totalTime, TornadoProfilerResult profilerResult) {
+        return new ExecutionSample(target, inputSize, totalTime, profilerResult.getCompileTime(), profilerResult.getDeviceKernelTime(), profilerResult.getDeviceWriteTime(), profilerResult
+                .getDeviceReadTime());
+    }
+
+    /**
+     * The cost of the execution used to compare targets: the end-to-end time
+     * without the compilation, which is only paid once.
+     *
+     * @return long
+     */
+    public long cost() {
+        return Math.max(0, totalTime - compileTime);
+    }
+}
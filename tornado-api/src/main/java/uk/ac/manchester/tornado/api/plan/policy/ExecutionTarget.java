@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.plan.policy;
+
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+
+/**
+ * A target on which a {@link DevicePolicy} can run an execution plan: a
+ * TornadoVM device or the sequential Java implementation of the tasks.
+ *
+ * <p>
+ * Targets without a device that are not the Java sequential target can only be
+ * used to evaluate policies offline, e.g., with recorded profile traces.
+ * </p>
+ *
+ * @param name
+ *     Name of the target, used to report the decisions of a policy.
+ * @param device
+ *     The {@link TornadoDevice}, or null for the Java sequential target.
+ * @param javaSequential
+ *     True if the tasks run with the sequential Java implementation.
+ */
+public record ExecutionTarget(String name, TornadoDevice device, boolean javaSequential) {
+
+    private static final ExecutionTarget JAVA_SEQUENTIAL = new ExecutionTarget("java", null, true);
+
+    /**
+     * It returns the target for a TornadoVM device.
+     *
+     * @param device
+     *     {@link TornadoDevice}
+     * @return {@link ExecutionTarget}
+     */
+    public static ExecutionTarget of(TornadoDevice device) {
+        return new ExecutionTarget(device.getTornadoVMBackend() + ":" + device.getPhysicalDevice().getDeviceName(), device, false);
+    }
+
+    /**
+     * It returns the target that runs the tasks with the sequential Java
+     * implementation on the host.
+     *
+     * @return {@link ExecutionTarget}
+     */
+    public static ExecutionTarget sequentialJava() {
+        return JAVA_SEQUENTIAL;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -23,14 +23,23 @@ import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 public final class WithBatch extends ExecutionPlanType {
 
     private final String batchSize;
+    private final int chunksInFlight;
 
     public WithBatch(TornadoExecutionPlan parent, String batchSize) {
+        this(parent, batchSize, 1);
+    }
+
+    public WithBatch(TornadoExecutionPlan parent, String batchSize, int chunksInFlight) {
         super(parent);
         this.batchSize = batchSize;
+        this.chunksInFlight = chunksInFlight;
     }
 
     @Override
     public String toString() {
+        if (chunksInFlight > 1) {
+            return parentLink.toString() + "\n -> withBatch(<" + batchSize + ">, <" + chunksInFlight + ">";
+        }
         return parentLink.toString() + "\n -> withBatch(<" + batchSize + ">";
     }
 }
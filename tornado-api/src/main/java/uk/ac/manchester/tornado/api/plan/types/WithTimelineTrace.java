@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.plan.types;
+
+import java.nio.file.Path;
+
+import uk.ac.manchester.tornado.api.ExecutionPlanType;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+
+public final class WithTimelineTrace extends ExecutionPlanType {
+
+    private final Path file;
+
+    public WithTimelineTrace(TornadoExecutionPlan parent, Path file) {
+        super(parent);
+        this.file = file;
+    }
+
+    @Override
+    public String toString() {
+        if (file == null) {
+            return parentLink.toString() + "\n -> withoutTimelineTrace()";
+        }
+        return parentLink.toString() + "\n -> withTimelineTrace(" + file + ")";
+    }
+}
@@ -34,7 +34,11 @@ public enum ProfilerType {
     DEVICE_ID("Device-ID"),
     DEVICE("Device"),
     ALLOCATION_BYTES("Allocation-(Bytes)"),
+    BUFFER_NATIVE_ALLOCATIONS("Buffer-Native-Allocations"),
+    BUFFER_REUSED_ALLOCATIONS("Buffer-Reused-Allocations"),
+    BUFFER_FRAGMENTATION_BYTES("Buffer-Fragmentation-(Bytes)"),
     TOTAL_COPY_IN_SIZE_BYTES("CopyIn-Size-(Bytes)"),
+    SKIPPED_COPY_IN_SIZE_BYTES("Skipped-CopyIn-Size-(Bytes)"),
     TOTAL_COPY_OUT_SIZE_BYTES("CopyOut-Size-(Bytes)"),
     TASK_COMPILE_DRIVER_TIME("Task-Compile-Driver"),
     TASK_COMPILE_GRAAL_TIME("Task-Compile-Graal"),
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.api.profiler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the timeline of an execution plan: the bytecodes run by the
+ * interpreters, the compilation phases and the device events of the
+ * transfers and kernels. The timeline is written in the Chrome trace event
+ * format, which can be opened with {@code chrome://tracing} or with Perfetto.
+ *
+ * <p>
+ * The spans are stored in a ring buffer with a fixed capacity, so a long
+ * running application keeps the most recent spans without growing the heap.
+ * The fields of the spans are kept in preallocated arrays, and recording a span
+ * does not allocate.
+ * </p>
+ *
+ * <p>
+ * Each span belongs to a track, e.g., the thread of an interpreter or a
+ * device, which is shown as a thread of the process of the execution plan. The
+ * timestamps of the host spans are taken with {@link System#nanoTime()}. The
+ * device events use the clock of the device, so the tracer receives them
+ * already shifted to the host clock.
+ * </p>
+ */
+public class TimelineTracer {
+
+    /**
+     * Default number of spans kept by the tracer.
+     */
+    public static final int DEFAULT_CAPACITY = Integer.parseInt(System.getProperty("tornado.timeline.trace.capacity", "65536"));
+
+    public static final String CATEGORY_BYTECODE = "bytecode";
+    public static final String CATEGORY_COMPILE = "compile";
+    public static final String CATEGORY_DEVICE = "device";
+    public static final String CATEGORY_TASK_GRAPH = "task-graph";
+
+    /**
+     * Value of the fields of a span that are not available, e.g., the number of
+     * bytes of a kernel or the queued time of a host span.
+     */
+    public static final long NOT_AVAILABLE = -1;
+
+    private final long executionPlanId;
+    private final int capacity;
+    private final String[] names;
+    private final String[] categories;
+    private final String[] tracks;
+    private final long[] queuedTimes;
+    private final long[] submitTimes;
+    private final long[] startTimes;
+    private final long[] endTimes;
+    private final long[] bytes;
+
+    /**
+     * Total number of spans recorded. The span {@code i} is stored in the slot
+     * {@code i % capacity}.
+     */
+    private long recorded;
+
+    /**
+     * It creates a tracer for an execution plan.
+     *
+     * @param executionPlanId
+     *     Identifier of the execution plan, which is used as the process of
+     *     the trace.
+     * @param capacity
+     *     Maximum number of spans kept by the tracer. When it is full, each
+     *     new span replaces the oldest one.
+     */
+    public TimelineTracer(long executionPlanId, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the timeline tracer must be positive: " + capacity);
+        }
+        this.executionPlanId = executionPlanId;
+        this.capacity = capacity;
+        this.names = new String[capacity];
+        this.categories = new String[capacity];
+        this.tracks = new String[capacity];
+        this.queuedTimes = new long[capacity];
+        this.submitTimes = new long[capacity];
+        this.startTimes = new long[capacity];
+        this.endTimes = new long[capacity];
+        this.bytes = new long[capacity];
+    }
+
+    /**
+     * It records a span that runs on the host.
+     *
+     * @param name
+     *     Name of the span, e.g., the bytecode.
+     * @param category
+     *     Category of the span.
+     * @param track
+     *     Track of the span, e.g., the thread that runs it.
+     * @param startNs
+     *     Start time, from {@link System#nanoTime()}.
+     * @param endNs
+     *     End time, from {@link System#nanoTime()}.
+     */
+    public void record(String name, String category, String track, long startNs, long endNs) {
+        record(name, category, track, NOT_AVAILABLE, NOT_AVAILABLE, startNs, endNs, NOT_AVAILABLE);
+    }
+
+    /**
+     * It records a span with all its fields. The queued and submit times of a
+     * device event show how long the command waited before it started.
+     *
+     * @param name
+     *     Name of the span.
+     * @param category
+     *     Category of the span.
+     * @param track
+     *     Track of the span, e.g., the device.
+     * @param queuedNs
+     *     Time when the command was queued, or {@link #NOT_AVAILABLE}.
+     * @param submitNs
+     *     Time when the command was submitted to the device, or
+     *     {@link #NOT_AVAILABLE}.
+     * @param startNs
+     *     Start time.
+     * @param endNs
+     *     End time.
+     * @param numBytes
+     *     Number of bytes of a transfer, or {@link #NOT_AVAILABLE}.
+     */
+    public synchronized void record(String name, String category, String track, long queuedNs, long submitNs, long startNs, long endNs, long numBytes) {
+        final int slot = (int) (recorded % capacity);
+        names[slot] = name;
+        categories[slot] = category;
+        tracks[slot] = track;
+        queuedTimes[slot] = queuedNs;
+        submitTimes[slot] = submitNs;
+        startTimes[slot] = startNs;
+        endTimes[slot] = endNs;
+        bytes[slot] = numBytes;
+        recorded++;
+    }
+
+    public long getExecutionPlanId() {
+        return executionPlanId;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of spans kept by the tracer.
+     */
+    public synchronized int size() {
+        return (int) Math.min(recorded, capacity);
+    }
+
+    /**
+     * @return Number of spans that were replaced by newer ones because the
+     *     ring buffer was full.
+     */
+    public synchronized long getDroppedSpans() {
+        return Math.max(0, recorded - capacity);
+    }
+
+    /**
+     * It removes all the spans.
+     */
+    public synchronized void clear() {
+        recorded = 0;
+        Arrays.fill(names, null);
+        Arrays.fill(categories, null);
+        Arrays.fill(tracks, null);
+    }
+
+    /**
+     * It returns the trace in the Chrome trace event format. The spans are
+     * written from the oldest to the newest.
+     *
+     * @return String with the JSON trace.
+     */
+    public synchronized String toJson() {
+        JSonWriter<?> json = new JSonWriter<>();
+        json.objectStart();
+        json.arrayStart("traceEvents");
+        json.object(() -> {
+            json.kv("ph", "M");
+            json.kv("name", "process_name");
+            json.kv("pid", executionPlanId);
+            json.object("args", () -> json.kv("name", "TornadoExecutionPlan " + executionPlanId));
+        });
+
+        // Each track is shown as a thread of the execution plan
+        Map<String, Integer> trackIds = new LinkedHashMap<>();
+        final long first = Math.max(0, recorded - capacity);
+        for (long i = first; i < recorded; i++) {
+            trackIds.putIfAbsent(tracks[(int) (i % capacity)], trackIds.size() + 1);
+        }
+        for (Map.Entry<String, Integer> track : trackIds.entrySet()) {
+            json.object(() -> {
+                json.kv("ph", "M");
+                json.kv("name", "thread_name");
+                json.kv("pid", executionPlanId);
+                json.kv("tid", track.getValue());
+                json.object("args", () -> json.kv("name", track.getKey()));
+            });
+        }
+
+        for (long i = first; i < recorded; i++) {
+            final int slot = (int) (i % capacity);
+            json.compact().object(() -> {
+                json.kv("ph", "X");
+                json.kv("name", names[slot]);
+                json.kv("cat", categories[slot]);
+                json.kv("pid", executionPlanId);
+                json.kv("tid", trackIds.get(tracks[slot]));
+                json.ns("ts", startTimes[slot]);
+                json.nsd("dur", endTimes[slot] - startTimes[slot]);
+                if (queuedTimes[slot] != NOT_AVAILABLE || submitTimes[slot] != NOT_AVAILABLE || bytes[slot] != NOT_AVAILABLE) {
+                    json.object("args", () -> {
+                        if (queuedTimes[slot] != NOT_AVAILABLE) {
+                            json.kv("queued-to-start (ns)", startTimes[slot] - queuedTimes[slot]);
+                        }
+                        if (submitTimes[slot] != NOT_AVAILABLE) {
+                            json.kv("submit-to-start (ns)", startTimes[slot] - submitTimes[slot]);
+                        }
+                        if (bytes[slot] != NOT_AVAILABLE) {
+                            json.kv("bytes", bytes[slot]);
+                        }
+                    });
+                }
+            }).nonCompact();
+        }
+        json.arrayEnd();
+        json.objectEnd();
+        return json.toString();
+    }
+
+    /**
+     * It writes the trace in the Chrome trace event format.
+     *
+     * @param file
+     *     Path of the JSON file.
+     * @throws IOException
+     *     If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+}
@@ -17,8 +17,13 @@
  */
 package uk.ac.manchester.tornado.api.runtime;
 
+import java.nio.file.Path;
+import java.util.function.LongSupplier;
+
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.plan.policy.DevicePolicy;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
 
 /**
  * Class to store all objects and parameters related to the dispatch of an execution plan.
@@ -28,6 +33,12 @@ public class ExecutorFrame {
     private final long executionPlanId;
     private GridScheduler gridScheduler;
     private ProfilerMode profilerMode;
+    private DevicePolicy devicePolicy;
+    private LongSupplier policyInputSize;
+    private boolean javaSequential;
+    private TimelineTracer timelineTracer;
+    private Path timelineTraceFile;
+    private int autoTuningIterations;
 
     public ExecutorFrame(long id) {
         this.executionPlanId = id;
@@ -59,4 +70,59 @@ public class ExecutorFrame {
     public ProfilerMode getProfilerMode() {
         return profilerMode;
     }
+
+    public void setDevicePolicy(DevicePolicy devicePolicy, LongSupplier inputSize) {
+        this.devicePolicy = devicePolicy;
+        this.policyInputSize = inputSize;
+    }
+
+    public DevicePolicy getDevicePolicy() {
+        return devicePolicy;
+    }
+
+    public LongSupplier getPolicyInputSize() {
+        return policyInputSize;
+    }
+
+    /**
+     * When set, the task-graphs run with the sequential Java implementation of
+     * their tasks instead of on a device.
+     */
+    public void setJavaSequential(boolean javaSequential) {
+        this.javaSequential = javaSequential;
+    }
+
+    public boolean isJavaSequential() {
+        return javaSequential;
+    }
+
+    /**
+     * Sets the tracer that records the timeline of the execution plan, and the
+     * file where the timeline is written. A {@code null} tracer disables the
+     * timeline.
+     */
+    public void setTimelineTracer(TimelineTracer timelineTracer, Path timelineTraceFile) {
+        this.timelineTracer = timelineTracer;
+        this.timelineTraceFile = timelineTraceFile;
+    }
+
+    public TimelineTracer getTimelineTracer() {
+        return timelineTracer;
+    }
+
+    public Path getTimelineTraceFile() {
+        return timelineTraceFile;
+    }
+
+    /**
+     * Sets the number of executions used to search the local work sizes of each
+     * task. Zero disables the autotuning.
+     */
+    public void setAutoTuningIterations(int autoTuningIterations) {
+        this.autoTuningIterations = autoTuningIterations;
+    }
+
+    public int getAutoTuningIterations() {
+        return autoTuningIterations;
+    }
 }
@@ -20,10 +20,15 @@ package uk.ac.manchester.tornado.api.types.arrays;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
+import static java.lang.foreign.ValueLayout.JAVA_CHAR;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
 /**
@@ -48,11 +53,22 @@ public final class CharArray extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public CharArray(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link CharArray} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public CharArray(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         baseIndex = arrayHeaderSize / CHAR_BYTES;
-        segmentByteSize = (long) numberOfElements * CHAR_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * CHAR_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -68,7 +84,7 @@ public final class CharArray extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, CHAR_BYTES);
-        this.numberOfElements = (int) (dataSize / CHAR_BYTES);
+        this.numberOfElements = toIntSize(dataSize / CHAR_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -95,9 +111,7 @@ public final class CharArray extends TornadoNativeArray {
      */
     private static CharArray createSegment(char[] values) {
         CharArray array = new CharArray(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -132,7 +146,7 @@ public final class CharArray extends TornadoNativeArray {
      */
     public static CharArray fromSegment(MemorySegment segment) {
         long byteSize = segment.byteSize();
-        int numElements = (int) (byteSize / CHAR_BYTES);
+        long numElements = byteSize / CHAR_BYTES;
         ensureMultipleOfElementSize(byteSize, CHAR_BYTES);
         CharArray charArray = new CharArray(numElements);
         MemorySegment.copy(segment, 0, charArray.segment.getSegment(), (long) charArray.baseIndex * CHAR_BYTES, byteSize);
@@ -150,6 +164,27 @@ public final class CharArray extends TornadoNativeArray {
         return new CharArray(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link CharArray} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link CharArray} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static CharArray mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new CharArray(TornadoMemorySegment.mapFile(path, offset, numberOfElements * CHAR_BYTES, CHAR_BYTES, mode));
+    }
+
     /**
      * Creates a new instance of the {@link CharArray} class from a {@link CharBuffer}.
      *
@@ -204,6 +239,11 @@ public final class CharArray extends TornadoNativeArray {
         init('\u0000');
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return CHAR_BYTES;
@@ -216,12 +256,50 @@ public final class CharArray extends TornadoNativeArray {
      */
     public char[] toHeapArray() {
         char[] outputArray = new char[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap char array into the {@link CharArray} instance.
+     *
+     * @param src
+     *         The on-heap char array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link CharArray} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(char[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        segment.copyFromArray(src, srcOffset, JAVA_CHAR, dstOffset, length, baseIndex);
+    }
+
+    /**
+     * Copies a range of elements of the {@link CharArray} instance into an on-heap char array.
+     *
+     * @param dst
+     *         The on-heap char array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link CharArray} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(char[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        segment.copyToArray(JAVA_CHAR, srcOffset, dst, dstOffset, length, baseIndex);
+    }
+
     /**
      * Sets the char value at a specified index of the {@link CharArray} instance.
      *
@@ -245,6 +323,30 @@ public final class CharArray extends TornadoNativeArray {
         return segment.getCharAtIndex(index, baseIndex);
     }
 
+    /**
+     * Sets the char value at a specified {@code long} index of the {@link CharArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the char value.
+     * @param value
+     *         The char value to store at the specified index.
+     */
+    public void set(long index, char value) {
+        segment.setAtIndex(index, value, baseIndex);
+    }
+
+    /**
+     * Gets the char value stored at the specified {@code long} index of the {@link CharArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the char value.
+     * @return The char value stored at the specified index.
+     */
+    public char get(long index) {
+        return segment.getCharAtIndex(index, baseIndex);
+    }
+
     /**
      * Initializes all the elements of the {@link CharArray} instance with a specified value.
      *
@@ -252,9 +354,7 @@ public final class CharArray extends TornadoNativeArray {
      *         The char value to initialize the {@link ByteArray} instance with.
      */
     public void init(char value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value, baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value, baseIndex);
     }
 
     /**
@@ -264,7 +364,18 @@ public final class CharArray extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link CharArray} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link CharArray} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / CHAR_BYTES;
     }
 
     /**
@@ -319,7 +430,7 @@ public final class CharArray extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public CharArray slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
@@ -20,10 +20,15 @@ package uk.ac.manchester.tornado.api.types.arrays;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
 import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
 /**
@@ -50,11 +55,22 @@ public final class FloatArray extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public FloatArray(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link FloatArray} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public FloatArray(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         baseIndex = arrayHeaderSize / FLOAT_BYTES;
-        segmentByteSize = (long) numberOfElements * FLOAT_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * FLOAT_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -70,7 +86,7 @@ public final class FloatArray extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, FLOAT_BYTES);
-        this.numberOfElements = (int) (dataSize / FLOAT_BYTES);
+        this.numberOfElements = toIntSize(dataSize / FLOAT_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -97,9 +113,7 @@ public final class FloatArray extends TornadoNativeArray {
      */
     private static FloatArray createSegment(float[] values) {
         FloatArray array = new FloatArray(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -134,7 +148,7 @@ public final class FloatArray extends TornadoNativeArray {
      */
     public static FloatArray fromSegment(MemorySegment segment) {
         long byteSize = segment.byteSize();
-        int numElements = (int) (byteSize / FLOAT_BYTES);
+        long numElements = byteSize / FLOAT_BYTES;
         ensureMultipleOfElementSize(byteSize, FLOAT_BYTES);
         FloatArray floatArray = new FloatArray(numElements);
         MemorySegment.copy(segment, 0, floatArray.segment.getSegment(), (long) floatArray.baseIndex * FLOAT_BYTES, byteSize);
@@ -152,6 +166,27 @@ public final class FloatArray extends TornadoNativeArray {
         return new FloatArray(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link FloatArray} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link FloatArray} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static FloatArray mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new FloatArray(TornadoMemorySegment.mapFile(path, offset, numberOfElements * FLOAT_BYTES, FLOAT_BYTES, mode));
+    }
+
     /**
      * Creates a new instance of the {@link FloatArray} class from a {@link FloatBuffer}.
      *
@@ -205,12 +240,50 @@ public final class FloatArray extends TornadoNativeArray {
      */
     public float[] toHeapArray() {
         float[] outputArray = new float[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap float array into the {@link FloatArray} instance.
+     *
+     * @param src
+     *         The on-heap float array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link FloatArray} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(float[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        segment.copyFromArray(src, srcOffset, JAVA_FLOAT, dstOffset, length, baseIndex);
+    }
+
+    /**
+     * Copies a range of elements of the {@link FloatArray} instance into an on-heap float array.
+     *
+     * @param dst
+     *         The on-heap float array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link FloatArray} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(float[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        segment.copyToArray(JAVA_FLOAT, srcOffset, dst, dstOffset, length, baseIndex);
+    }
+
     /**
      * Sets the float value at a specified index of the {@link FloatArray} instance.
      *
@@ -234,6 +307,30 @@ public final class FloatArray extends TornadoNativeArray {
         return segment.getFloatAtIndex(index, baseIndex);
     }
 
+    /**
+     * Sets the float value at a specified {@code long} index of the {@link FloatArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the float value.
+     * @param value
+     *         The float value to store at the specified index.
+     */
+    public void set(long index, float value) {
+        segment.setAtIndex(index, value, baseIndex);
+    }
+
+    /**
+     * Gets the float value stored at the specified {@code long} index of the {@link FloatArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the float value.
+     * @return The float value stored at the specified index.
+     */
+    public float get(long index) {
+        return segment.getFloatAtIndex(index, baseIndex);
+    }
+
     /**
      * Sets all the values of the {@link FloatArray} instance to zero.
      */
@@ -242,6 +339,11 @@ public final class FloatArray extends TornadoNativeArray {
         init(0.0f);
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return FLOAT_BYTES;
@@ -254,9 +356,7 @@ public final class FloatArray extends TornadoNativeArray {
      *         The float value to initialize the {@link FloatArray} instance with.
      */
     public void init(float value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value, baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value, baseIndex);
     }
 
     /**
@@ -266,7 +366,18 @@ public final class FloatArray extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link FloatArray} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link FloatArray} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / FLOAT_BYTES;
     }
 
     /**
@@ -321,7 +432,7 @@ public final class FloatArray extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public FloatArray slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
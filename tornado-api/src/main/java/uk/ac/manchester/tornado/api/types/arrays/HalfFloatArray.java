@@ -21,8 +21,12 @@ import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 import uk.ac.manchester.tornado.api.types.HalfFloat;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
@@ -51,11 +55,22 @@ public final class HalfFloatArray extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public HalfFloatArray(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link HalfFloatArray} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public HalfFloatArray(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         baseIndex = arrayHeaderSize / HALF_FLOAT_BYTES;
-        segmentByteSize = (long) numberOfElements * HALF_FLOAT_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * HALF_FLOAT_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -71,7 +86,7 @@ public final class HalfFloatArray extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, HALF_FLOAT_BYTES);
-        this.numberOfElements = (int) (dataSize / HALF_FLOAT_BYTES);
+        this.numberOfElements = toIntSize(dataSize / HALF_FLOAT_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -98,9 +113,7 @@ public final class HalfFloatArray extends TornadoNativeArray {
      */
     private static HalfFloatArray createSegment(HalfFloat[] values) {
         HalfFloatArray array = new HalfFloatArray(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -135,7 +148,7 @@ public final class HalfFloatArray extends TornadoNativeArray {
      */
     public static HalfFloatArray fromSegment(MemorySegment segment) {
         long byteSize = segment.byteSize();
-        int numElements = (int) (byteSize / HALF_FLOAT_BYTES);
+        long numElements = byteSize / HALF_FLOAT_BYTES;
         ensureMultipleOfElementSize(byteSize, HALF_FLOAT_BYTES);
         HalfFloatArray halfFloatArray = new HalfFloatArray(numElements);
         MemorySegment.copy(segment, 0, halfFloatArray.segment.getSegment(), (long) halfFloatArray.baseIndex * HALF_FLOAT_BYTES, byteSize);
@@ -153,6 +166,27 @@ public final class HalfFloatArray extends TornadoNativeArray {
         return new HalfFloatArray(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link HalfFloatArray} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link HalfFloatArray} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static HalfFloatArray mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new HalfFloatArray(TornadoMemorySegment.mapFile(path, offset, numberOfElements * HALF_FLOAT_BYTES, HALF_FLOAT_BYTES, mode));
+    }
+
     /**
      * Factory method to initialize a {@link HalfFloatArray}. This method can be invoked from a Task-Graph.
      *
@@ -192,12 +226,54 @@ public final class HalfFloatArray extends TornadoNativeArray {
      */
     public HalfFloat[] toHeapArray() {
         HalfFloat[] outputArray = new HalfFloat[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap {@link HalfFloat} array into the {@link HalfFloatArray} instance.
+     *
+     * @param src
+     *         The on-heap {@link HalfFloat} array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link HalfFloatArray} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(HalfFloat[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        for (int i = 0; i < length; i++) {
+            segment.setAtIndex(dstOffset + i, src[srcOffset + i].getHalfFloatValue(), baseIndex);
+        }
+    }
+
+    /**
+     * Copies a range of elements of the {@link HalfFloatArray} instance into an on-heap {@link HalfFloat} array.
+     *
+     * @param dst
+     *         The on-heap {@link HalfFloat} array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link HalfFloatArray} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(HalfFloat[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = get(srcOffset + i);
+        }
+    }
+
     /**
      * Converts the {@link HalfFloat} data from off-heap to an on-heap short representation, by getting the values of a {@link HalfFloatArray} instance as short and coping them into a new on-heap
      * short array.
@@ -236,6 +312,31 @@ public final class HalfFloatArray extends TornadoNativeArray {
         return new HalfFloat(halfFloatValue);
     }
 
+    /**
+     * Sets the {@link HalfFloat} value at a specified {@code long} index of the {@link HalfFloatArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the {@link HalfFloat} value.
+     * @param value
+     *         The {@link HalfFloat} value to store at the specified index.
+     */
+    public void set(long index, HalfFloat value) {
+        segment.setAtIndex(index, value.getHalfFloatValue(), baseIndex);
+    }
+
+    /**
+     * Gets the {@link HalfFloat} value stored at the specified {@code long} index of the {@link HalfFloatArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the {@link HalfFloat} value.
+     * @return The {@link HalfFloat} value stored at the specified index.
+     */
+    public HalfFloat get(long index) {
+        short halfFloatValue = segment.getShortAtIndex(index, baseIndex);
+        return new HalfFloat(halfFloatValue);
+    }
+
     /**
      * Sets all the values of the {@link HalfFloatArray} instance to zero.
      */
@@ -244,6 +345,11 @@ public final class HalfFloatArray extends TornadoNativeArray {
         init(new HalfFloat(0.0f));
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return HALF_FLOAT_BYTES;
@@ -256,9 +362,7 @@ public final class HalfFloatArray extends TornadoNativeArray {
      *         The {@link HalfFloat} value to initialize the {@link HalfFloatArray} instance with.
      */
     public void init(HalfFloat value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value.getHalfFloatValue(), baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value.getHalfFloatValue(), baseIndex);
     }
 
     /**
@@ -268,7 +372,18 @@ public final class HalfFloatArray extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link HalfFloatArray} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link HalfFloatArray} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / HALF_FLOAT_BYTES;
     }
 
     /**
@@ -323,7 +438,7 @@ public final class HalfFloatArray extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public HalfFloatArray slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
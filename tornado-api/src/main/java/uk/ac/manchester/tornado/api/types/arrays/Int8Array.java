@@ -20,9 +20,14 @@ package uk.ac.manchester.tornado.api.types.arrays;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
 @SegmentElementSize(size = 1)
@@ -45,11 +50,22 @@ public final class Int8Array extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public Int8Array(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link Int8Array} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public Int8Array(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         baseIndex = arrayHeaderSize / INT8_BYTES;
-        segmentByteSize = (long) numberOfElements * INT8_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * INT8_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -65,7 +81,7 @@ public final class Int8Array extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, INT8_BYTES);
-        this.numberOfElements = (int) (dataSize / INT8_BYTES);
+        this.numberOfElements = toIntSize(dataSize / INT8_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -92,9 +108,7 @@ public final class Int8Array extends TornadoNativeArray {
      */
     private static Int8Array createSegment(byte[] values) {
         Int8Array array = new Int8Array(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -128,7 +142,7 @@ public final class Int8Array extends TornadoNativeArray {
      * @return A new {@link Int8Array} instance, initialized with the segment data.
      */
     public static Int8Array fromSegment(MemorySegment segment) {
-        int numElements = (int) segment.byteSize();
+        long numElements = segment.byteSize();
         Int8Array int8Array = new Int8Array(numElements);
         MemorySegment.copy(segment, 0, int8Array.segment.getSegment(), (long) int8Array.baseIndex, numElements);
         return int8Array;
@@ -145,6 +159,27 @@ public final class Int8Array extends TornadoNativeArray {
         return new Int8Array(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link Int8Array} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link Int8Array} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static Int8Array mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new Int8Array(TornadoMemorySegment.mapFile(path, offset, numberOfElements * INT8_BYTES, INT8_BYTES, mode));
+    }
+
     /**
      * Factory method to initialize a {@link Int8Array}. This method can be invoked from a Task-Graph.
      *
@@ -184,12 +219,50 @@ public final class Int8Array extends TornadoNativeArray {
      */
     public byte[] toHeapArray() {
         byte[] outputArray = new byte[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap byte array into the {@link Int8Array} instance.
+     *
+     * @param src
+     *         The on-heap byte array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link Int8Array} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(byte[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        segment.copyFromArray(src, srcOffset, JAVA_BYTE, dstOffset, length, baseIndex);
+    }
+
+    /**
+     * Copies a range of elements of the {@link Int8Array} instance into an on-heap byte array.
+     *
+     * @param dst
+     *         The on-heap byte array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link Int8Array} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(byte[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        segment.copyToArray(JAVA_BYTE, srcOffset, dst, dstOffset, length, baseIndex);
+    }
+
     /**
      * Sets the byte value at a specified index of the {@link Int8Array} instance.
      *
@@ -213,6 +286,30 @@ public final class Int8Array extends TornadoNativeArray {
         return segment.getByteAtIndex(index, baseIndex);
     }
 
+    /**
+     * Sets the byte value at a specified {@code long} index of the {@link Int8Array} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the byte value.
+     * @param value
+     *         The byte value to store at the specified index.
+     */
+    public void set(long index, byte value) {
+        segment.setAtIndex(index, value, baseIndex);
+    }
+
+    /**
+     * Gets the byte value stored at the specified {@code long} index of the {@link Int8Array} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the byte value.
+     * @return The byte value stored at the specified index.
+     */
+    public byte get(long index) {
+        return segment.getByteAtIndex(index, baseIndex);
+    }
+
     /**
      * Sets all the values of the {@link Int8Array} instance to zero.
      */
@@ -221,6 +318,11 @@ public final class Int8Array extends TornadoNativeArray {
         init((byte) 0);
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return INT8_BYTES;
@@ -233,9 +335,7 @@ public final class Int8Array extends TornadoNativeArray {
      *         The byte value to initialize the {@link Int8Array} instance with.
      */
     public void init(byte value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value, baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value, baseIndex);
     }
 
     /**
@@ -245,7 +345,18 @@ public final class Int8Array extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link Int8Array} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link Int8Array} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / INT8_BYTES;
     }
 
     /**
@@ -300,7 +411,7 @@ public final class Int8Array extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public Int8Array slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
@@ -20,9 +20,13 @@ package uk.ac.manchester.tornado.api.types.arrays;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
 import java.nio.IntBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
@@ -48,11 +52,22 @@ public final class IntArray extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public IntArray(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link IntArray} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public IntArray(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         baseIndex = arrayHeaderSize / INT_BYTES;
-        segmentByteSize = (long) numberOfElements * INT_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * INT_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -68,7 +83,7 @@ public final class IntArray extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, INT_BYTES);
-        this.numberOfElements = (int) (dataSize / INT_BYTES);
+        this.numberOfElements = toIntSize(dataSize / INT_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -95,9 +110,7 @@ public final class IntArray extends TornadoNativeArray {
      */
     private static IntArray createSegment(int[] values) {
         IntArray array = new IntArray(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -132,7 +145,7 @@ public final class IntArray extends TornadoNativeArray {
      */
     public static IntArray fromSegment(MemorySegment segment) {
         long byteSize = segment.byteSize();
-        int numElements = (int) (byteSize / INT_BYTES);
+        long numElements = byteSize / INT_BYTES;
         ensureMultipleOfElementSize(byteSize, INT_BYTES);
         IntArray intArray = new IntArray(numElements);
         MemorySegment.copy(segment, 0, intArray.segment.getSegment(), (long) intArray.baseIndex * INT_BYTES, byteSize);
@@ -150,6 +163,27 @@ public final class IntArray extends TornadoNativeArray {
         return new IntArray(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link IntArray} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link IntArray} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static IntArray mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new IntArray(TornadoMemorySegment.mapFile(path, offset, numberOfElements * INT_BYTES, INT_BYTES, mode));
+    }
+
     /**
      * Creates a new instance of the {@link IntArray} class from a {@link IntBuffer}.
      *
@@ -203,12 +237,50 @@ public final class IntArray extends TornadoNativeArray {
      */
     public int[] toHeapArray() {
         int[] outputArray = new int[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap int array into the {@link IntArray} instance.
+     *
+     * @param src
+     *         The on-heap int array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link IntArray} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(int[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        segment.copyFromArray(src, srcOffset, JAVA_INT, dstOffset, length, baseIndex);
+    }
+
+    /**
+     * Copies a range of elements of the {@link IntArray} instance into an on-heap int array.
+     *
+     * @param dst
+     *         The on-heap int array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link IntArray} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(int[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        segment.copyToArray(JAVA_INT, srcOffset, dst, dstOffset, length, baseIndex);
+    }
+
     /**
      * Sets the int value at a specified index of the {@link IntArray} instance.
      *
@@ -232,6 +304,30 @@ public final class IntArray extends TornadoNativeArray {
         return segment.getIntAtIndex(index, baseIndex);
     }
 
+    /**
+     * Sets the int value at a specified {@code long} index of the {@link IntArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the int value.
+     * @param value
+     *         The int value to store at the specified index.
+     */
+    public void set(long index, int value) {
+        segment.setAtIndex(index, value, baseIndex);
+    }
+
+    /**
+     * Gets the int value stored at the specified {@code long} index of the {@link IntArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the int value.
+     * @return The int value stored at the specified index.
+     */
+    public int get(long index) {
+        return segment.getIntAtIndex(index, baseIndex);
+    }
+
     /**
      * Sets all the values of the {@link IntArray} instance to zero.
      */
@@ -240,6 +336,11 @@ public final class IntArray extends TornadoNativeArray {
         init(0);
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return INT_BYTES;
@@ -252,9 +353,7 @@ public final class IntArray extends TornadoNativeArray {
      *         The int value to initialize the {@link IntArray} instance with.
      */
     public void init(int value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value, baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value, baseIndex);
     }
 
     /**
@@ -264,7 +363,18 @@ public final class IntArray extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link IntArray} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link IntArray} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / INT_BYTES;
     }
 
     /**
@@ -319,7 +429,7 @@ public final class IntArray extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public IntArray slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
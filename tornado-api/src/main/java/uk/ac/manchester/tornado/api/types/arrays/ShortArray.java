@@ -20,10 +20,15 @@ package uk.ac.manchester.tornado.api.types.arrays;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.internal.annotations.SegmentElementSize;
 
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
 import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Objects;
 
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 
 /**
@@ -48,12 +53,23 @@ public final class ShortArray extends TornadoNativeArray {
      *         The number of elements in the array.
      */
     public ShortArray(int numberOfElements) {
-        this.numberOfElements = numberOfElements;
+        this((long) numberOfElements);
+    }
+
+    /**
+     * Constructs a new instance of the {@link ShortArray} that will store a user-specified number of elements, which can be larger than {@link Integer#MAX_VALUE}. The elements
+     * beyond {@link Integer#MAX_VALUE} are accessed with the {@code long} index methods, and a task-graph can only process such an array in batches.
+     *
+     * @param numberOfElements
+     *         The number of elements in the array.
+     */
+    public ShortArray(long numberOfElements) {
+        this.numberOfElements = toIntSize(numberOfElements);
         arrayHeaderSize = (int) TornadoNativeArray.ARRAY_HEADER;
         assert arrayHeaderSize >= 4;
         baseIndex = arrayHeaderSize / SHORT_BYTES;
-        segmentByteSize = (long) numberOfElements * SHORT_BYTES + arrayHeaderSize;
-        segment = new TornadoMemorySegment(segmentByteSize, numberOfElements);
+        segmentByteSize = numberOfElements * SHORT_BYTES + arrayHeaderSize;
+        segment = new TornadoMemorySegment(segmentByteSize, this.numberOfElements);
     }
 
     /**
@@ -69,7 +85,7 @@ public final class ShortArray extends TornadoNativeArray {
         // Calculate number of elements from segment size
         long dataSize = existingSegment.byteSize() - arrayHeaderSize;
         ensureMultipleOfElementSize(dataSize, SHORT_BYTES);
-        this.numberOfElements = (int) (dataSize / SHORT_BYTES);
+        this.numberOfElements = toIntSize(dataSize / SHORT_BYTES);
 
         // Set up the segment and initialize header
         this.segmentByteSize = existingSegment.byteSize();
@@ -97,9 +113,7 @@ public final class ShortArray extends TornadoNativeArray {
      */
     private static ShortArray createSegment(short[] values) {
         ShortArray array = new ShortArray(values.length);
-        for (int i = 0; i < values.length; i++) {
-            array.set(i, values[i]);
-        }
+        array.copyFrom(values, 0, 0, values.length);
         return array;
     }
 
@@ -134,7 +148,7 @@ public final class ShortArray extends TornadoNativeArray {
      */
     public static ShortArray fromSegment(MemorySegment segment) {
         long byteSize = segment.byteSize();
-        int numElements = (int) (byteSize / SHORT_BYTES);
+        long numElements = byteSize / SHORT_BYTES;
         ensureMultipleOfElementSize(byteSize, SHORT_BYTES);
         ShortArray shortArray = new ShortArray(numElements);
         MemorySegment.copy(segment, 0, shortArray.segment.getSegment(), (long) shortArray.baseIndex * SHORT_BYTES, byteSize);
@@ -152,6 +166,27 @@ public final class ShortArray extends TornadoNativeArray {
         return new ShortArray(segment);
     }
 
+    /**
+     * Creates a new instance of the {@link ShortArray} class that is backed by a memory-mapped region of a file, without reading the data into the heap. The data is laid out in the file in the
+     * native byte order. To avoid any copy, the file must reserve {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header (see
+     * {@link TornadoMemorySegment#mapFile}).
+     *
+     * @param path
+     *         The file to map.
+     * @param offset
+     *         The offset, in bytes, of the first element in the file.
+     * @param numberOfElements
+     *         The number of elements to map.
+     * @param mode
+     *         {@link MapMode#READ_ONLY} or {@link MapMode#PRIVATE} to keep the file unmodified, or {@link MapMode#READ_WRITE} to store the writes in the file.
+     * @return A new {@link ShortArray} instance that wraps the mapped region.
+     * @throws IOException
+     *         if the file cannot be opened or mapped.
+     */
+    public static ShortArray mapFile(Path path, long offset, long numberOfElements, MapMode mode) throws IOException {
+        return new ShortArray(TornadoMemorySegment.mapFile(path, offset, numberOfElements * SHORT_BYTES, SHORT_BYTES, mode));
+    }
+
     /**
      * Creates a new instance of the {@link ShortArray} class from a {@link ShortBuffer}.
      *
@@ -205,12 +240,50 @@ public final class ShortArray extends TornadoNativeArray {
      */
     public short[] toHeapArray() {
         short[] outputArray = new short[getSize()];
-        for (int i = 0; i < getSize(); i++) {
-            outputArray[i] = get(i);
-        }
+        copyTo(outputArray, 0, 0, getSize());
         return outputArray;
     }
 
+    /**
+     * Copies a range of elements of an on-heap short array into the {@link ShortArray} instance.
+     *
+     * @param src
+     *         The on-heap short array to copy from.
+     * @param srcOffset
+     *         The index of the first element of the on-heap array to copy.
+     * @param dstOffset
+     *         The index of the {@link ShortArray} instance to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyFrom(short[] src, int srcOffset, long dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        Objects.checkFromIndexSize(dstOffset, length, getSizeLong());
+        segment.copyFromArray(src, srcOffset, JAVA_SHORT, dstOffset, length, baseIndex);
+    }
+
+    /**
+     * Copies a range of elements of the {@link ShortArray} instance into an on-heap short array.
+     *
+     * @param dst
+     *         The on-heap short array to copy to.
+     * @param srcOffset
+     *         The index of the first element of the {@link ShortArray} instance to copy.
+     * @param dstOffset
+     *         The index of the on-heap array to copy the first element to.
+     * @param length
+     *         The number of elements to copy.
+     * @throws IndexOutOfBoundsException
+     *         if a range is out of the bounds of either array.
+     */
+    public void copyTo(short[] dst, long srcOffset, int dstOffset, int length) {
+        Objects.checkFromIndexSize(srcOffset, length, getSizeLong());
+        Objects.checkFromIndexSize(dstOffset, length, dst.length);
+        segment.copyToArray(JAVA_SHORT, srcOffset, dst, dstOffset, length, baseIndex);
+    }
+
     /**
      * Sets the short value at a specified index of the {@link ShortArray} instance.
      *
@@ -234,6 +307,30 @@ public final class ShortArray extends TornadoNativeArray {
         return segment.getShortAtIndex(index, baseIndex);
     }
 
+    /**
+     * Sets the short value at a specified {@code long} index of the {@link ShortArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @param index
+     *         The index at which to set the short value.
+     * @param value
+     *         The short value to store at the specified index.
+     */
+    public void set(long index, short value) {
+        segment.setAtIndex(index, value, baseIndex);
+    }
+
+    /**
+     * Gets the short value stored at the specified {@code long} index of the {@link ShortArray} instance, which supports arrays with more than {@link Integer#MAX_VALUE}
+     * elements.
+     *
+     * @param index
+     *         The index of which to retrieve the short value.
+     * @return The short value stored at the specified index.
+     */
+    public short get(long index) {
+        return segment.getShortAtIndex(index, baseIndex);
+    }
+
     /**
      * Sets all the values of the {@link ShortArray} instance to zero.
      */
@@ -242,6 +339,11 @@ public final class ShortArray extends TornadoNativeArray {
         init((short) 0);
     }
 
+    @Override
+    TornadoMemorySegment getTornadoMemorySegment() {
+        return segment;
+    }
+
     @Override
     public int getElementSize() {
         return SHORT_BYTES;
@@ -254,9 +356,7 @@ public final class ShortArray extends TornadoNativeArray {
      *         The short value to initialize the {@link ShortArray} instance with.
      */
     public void init(short value) {
-        for (int i = 0; i < getSize(); i++) {
-            segment.setAtIndex(i, value, baseIndex);
-        }
+        segment.fill(0, getSizeLong(), value, baseIndex);
     }
 
     /**
@@ -266,7 +366,18 @@ public final class ShortArray extends TornadoNativeArray {
      */
     @Override
     public int getSize() {
-        return numberOfElements;
+        return checkIntSize(numberOfElements);
+    }
+
+    /**
+     * Returns the number of elements stored in the {@link ShortArray} instance as a {@code long}. Unlike {@link #getSize()}, it is also valid for arrays with more than
+     * {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the {@link ShortArray} instance.
+     */
+    @Override
+    public long getSizeLong() {
+        return (segmentByteSize - TornadoNativeArray.ARRAY_HEADER) / SHORT_BYTES;
     }
 
     /**
@@ -321,7 +432,7 @@ public final class ShortArray extends TornadoNativeArray {
      *         if the specified slice is out of the bounds of the original array.
      */
     public ShortArray slice(int offset, int length) {
-        if (offset < 0 || length < 0 || offset + length > getSize()) {
+        if (offset < 0 || length < 0 || (long) offset + length > getSizeLong()) {
             throw new IllegalArgumentException("Slice out of bounds");
         }
 
@@ -17,9 +17,21 @@
  */
 package uk.ac.manchester.tornado.api.types.arrays;
 
+import java.io.IOException;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The {@code TornadoMemorySegment} class provides a high-level interface for managing a {@link MemorySegment} with support for different data types.
@@ -28,7 +40,34 @@ import java.lang.foreign.ValueLayout;
  * </p>
  */
 public class TornadoMemorySegment {
+    /**
+     * Source of the modification versions. They are unique across segments, so a version identifies both the segment and its contents.
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * The last bytes of the header reserved in a file by {@link #reserveHeader}: "TORNADO" and a format version, in little-endian order. The kernels do not read the header beyond the number
+     * of elements, so the marker stays in the header of the mapped arrays.
+     */
+    private static final long HEADER_MARKER = 0x014F44414E524F54L;
+
+    /**
+     * Writers set the flag with a release store after writing the contents, and {@link #getModificationVersion()} clears it with an atomic exchange. A write that happens while the
+     * version is read is then either seen by that read or left for the next one. A release store does not need the fence of a volatile store, e.g., it is a plain store on x86.
+     */
+    private static final VarHandle IS_MODIFIED;
+
+    static {
+        try {
+            IS_MODIFIED = MethodHandles.lookup().findVarHandle(TornadoMemorySegment.class, "isModified", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private MemorySegment segment;
+    private boolean isModified = true;
+    private long version;
 
     /**
      * Constructs a {@code TornadoMemorySegment} with a specified byte size and base index.
@@ -50,6 +89,104 @@ public class TornadoMemorySegment {
         this.segment = memorySegment;
     }
 
+    /**
+     * Maps a region of a file into a memory segment laid out as a Tornado native array: the header followed by the data.
+     * <p>
+     * When the file reserves {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset}, the header is placed in that gap and the data is not copied: it is read from the page cache on
+     * access, and the OS can page out the data that is not used. With {@link MapMode#READ_ONLY} and {@link MapMode#PRIVATE}, the region is mapped copy-on-write, so the header is never written to
+     * the file. With {@link MapMode#READ_WRITE}, the region is shared, the reserved bytes are overwritten with the header, and the writes to the data are stored in the file. To never overwrite data of the file, a
+     * {@link MapMode#READ_WRITE} mapping is only created when the file has opted in: the reserved bytes must end with the marker that {@link #reserveHeader} writes.
+     * </p>
+     * <p>
+     * When the data starts in the first {@link TornadoNativeArray#ARRAY_HEADER} bytes of the file, there is no room for the header, and the data is copied from the mapping to a new segment. The
+     * same applies to files without write permission, because a copy-on-write mapping needs a writable channel. Both cases are only possible with {@link MapMode#READ_ONLY} and
+     * {@link MapMode#PRIVATE}.
+     * </p>
+     *
+     * @param path
+     *         the file to map
+     * @param offset
+     *         the offset, in bytes, of the first element in the file
+     * @param dataByteSize
+     *         the number of bytes of data to map
+     * @param elementSize
+     *         the size, in bytes, of an element
+     * @param mode
+     *         the mapping mode
+     * @return a segment that contains the header and the data
+     * @throws IOException
+     *         if the file cannot be opened or mapped
+     * @throws IllegalArgumentException
+     *         if the region is out of the bounds of the file, if the offset is not aligned to the element size, or if a {@link MapMode#READ_WRITE} mapping has no room for the header, or if the bytes before the offset have not been reserved with {@link #reserveHeader}
+     */
+    public static MemorySegment mapFile(Path path, long offset, long dataByteSize, int elementSize, MapMode mode) throws IOException {
+        final long headerSize = TornadoNativeArray.ARRAY_HEADER;
+        if (offset < 0 || dataByteSize < 0) {
+            throw new IllegalArgumentException("Negative offset or size: offset=" + offset + ", size=" + dataByteSize);
+        }
+        if (offset % elementSize != 0) {
+            throw new IllegalArgumentException("The offset (" + offset + ") is not aligned to the element size (" + elementSize + ")");
+        }
+        final boolean hasRoomForHeader = offset >= headerSize;
+        if (!hasRoomForHeader && mode == MapMode.READ_WRITE) {
+            throw new IllegalArgumentException("A READ_WRITE mapping needs " + headerSize + " bytes before the offset for the array header");
+        }
+
+        final boolean isShared = mode == MapMode.READ_WRITE;
+        // A private mapping needs a writable channel, although nothing is written to the file
+        final boolean isMappable = hasRoomForHeader && Files.isWritable(path);
+        final Set<StandardOpenOption> options = isMappable ? EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE) : EnumSet.of(StandardOpenOption.READ);
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            if (offset + dataByteSize > channel.size()) {
+                throw new IllegalArgumentException("The region [" + offset + ", " + (offset + dataByteSize) + ") is beyond the end of the file (" + channel.size() + " bytes)");
+            }
+            if (isMappable) {
+                // A private mapping is copy-on-write: writing the header only copies the first page
+                MemorySegment segment = channel.map(isShared ? MapMode.READ_WRITE : MapMode.PRIVATE, offset - headerSize, headerSize + dataByteSize, Arena.ofAuto());
+                if (isShared && segment.get(ValueLayout.JAVA_LONG_UNALIGNED, headerSize - Long.BYTES) != HEADER_MARKER) {
+                    throw new IllegalArgumentException("A READ_WRITE mapping overwrites the " + headerSize + " bytes before the offset (" + offset
+                            + ") with the array header, so they must be reserved with TornadoMemorySegment.reserveHeader");
+                }
+                return segment;
+            } else if (isShared) {
+                throw new AccessDeniedException(path.toString(), null, "A READ_WRITE mapping needs a writable file");
+            }
+            MemorySegment data = channel.map(MapMode.READ_ONLY, offset, dataByteSize, Arena.ofAuto());
+            MemorySegment segment = Arena.ofAuto().allocate(headerSize + dataByteSize, 1);
+            MemorySegment.copy(data, 0, segment, headerSize, dataByteSize);
+            return segment;
+        }
+    }
+
+    /**
+     * Reserves the {@link TornadoNativeArray#ARRAY_HEADER} bytes before {@code offset} for the array header, so the region that starts at {@code offset} can be mapped with
+     * {@link MapMode#READ_WRITE} (see {@link #mapFile}). It overwrites those bytes with zeros followed by a marker, so they must not hold data of the file.
+     *
+     * @param path
+     *         the file
+     * @param offset
+     *         the offset, in bytes, of the first element in the file
+     * @throws IOException
+     *         if the file cannot be opened or written
+     * @throws IllegalArgumentException
+     *         if the offset leaves no room for the header, or if it is beyond the end of the file
+     */
+    public static void reserveHeader(Path path, long offset) throws IOException {
+        final long headerSize = TornadoNativeArray.ARRAY_HEADER;
+        if (offset < headerSize) {
+            throw new IllegalArgumentException("The header needs " + headerSize + " bytes before the offset (" + offset + ")");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (offset > channel.size()) {
+                throw new IllegalArgumentException("The offset (" + offset + ") is beyond the end of the file (" + channel.size() + " bytes)");
+            }
+            MemorySegment header = channel.map(MapMode.READ_WRITE, offset - headerSize, headerSize, Arena.ofAuto());
+            header.fill((byte) 0);
+            header.set(ValueLayout.JAVA_LONG_UNALIGNED, headerSize - Long.BYTES, HEADER_MARKER);
+            header.force();
+        }
+    }
+
     /**
      * Returns the underlying {@link MemorySegment}.
      *
@@ -61,6 +198,26 @@ public class TornadoMemorySegment {
 
     public void setSegment(MemorySegment segment) {
         this.segment = segment;
+        markModified();
+    }
+
+    /**
+     * Records that the contents have been modified without the methods of this class, e.g., through the segment returned by {@link #getSegment()}.
+     */
+    public void markModified() {
+        IS_MODIFIED.setRelease(this, true);
+    }
+
+    /**
+     * Returns the version of the contents. The version changes when the contents have been modified through this object since the previous call, and it is unique across all segments.
+     *
+     * @return the version of the contents
+     */
+    public synchronized long getModificationVersion() {
+        if ((boolean) IS_MODIFIED.getAndSet(this, false)) {
+            version = VERSIONS.incrementAndGet();
+        }
+        return version;
     }
 
     /**
@@ -75,6 +232,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, float value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_FLOAT, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -102,6 +260,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, double value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_DOUBLE, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -129,6 +288,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, byte value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_BYTE, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -156,6 +316,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, char value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_CHAR, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -183,6 +344,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, int value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_INT, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -210,6 +372,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, long value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_LONG, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -237,6 +400,7 @@ public class TornadoMemorySegment {
      */
     public void setAtIndex(int index, short value, int baseIndex) {
         segment.setAtIndex(ValueLayout.JAVA_SHORT, baseIndex + index, value);
+        markModified();
     }
 
     /**
@@ -251,4 +415,404 @@ public class TornadoMemorySegment {
     public short getShortAtIndex(int index, int baseIndex) {
         return segment.getAtIndex(ValueLayout.JAVA_SHORT, baseIndex + index);
     }
+
+    /**
+     * Sets a {@code float} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code float} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, float value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_FLOAT, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code float} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code float} value at the specified index
+     */
+    public float getFloatAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_FLOAT, baseIndex + index);
+    }
+
+    /**
+     * Sets a {@code double} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code double} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, double value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_DOUBLE, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code double} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code double} value at the specified index
+     */
+    public double getDoubleAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_DOUBLE, baseIndex + index);
+    }
+
+    /**
+     * Sets a {@code byte} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code byte} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, byte value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_BYTE, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code byte} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code byte} value at the specified index
+     */
+    public byte getByteAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_BYTE, baseIndex + index);
+    }
+
+    /**
+     * Sets a {@code char} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code char} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, char value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_CHAR, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code char} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code char} value at the specified index
+     */
+    public char getCharAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_CHAR, baseIndex + index);
+    }
+
+    /**
+     * Sets an {@code int} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code int} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, int value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_INT, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code int} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code int} value at the specified index
+     */
+    public int getIntAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_INT, baseIndex + index);
+    }
+
+    /**
+     * Sets a {@code long} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code long} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, long value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_LONG, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code long} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code long} value at the specified index
+     */
+    public long getLongAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_LONG, baseIndex + index);
+    }
+
+    /**
+     * Sets a {@code short} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index where the value will be set
+     * @param value
+     *         the {@code short} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void setAtIndex(long index, short value, int baseIndex) {
+        segment.setAtIndex(ValueLayout.JAVA_SHORT, baseIndex + index, value);
+        markModified();
+    }
+
+    /**
+     * Returns the {@code short} value at the specified {@code long} index, which can be beyond {@link Integer#MAX_VALUE}.
+     *
+     * @param index
+     *         the index from which the value will be retrieved
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     * @return the {@code short} value at the specified index
+     */
+    public short getShortAtIndex(long index, int baseIndex) {
+        return segment.getAtIndex(ValueLayout.JAVA_SHORT, baseIndex + index);
+    }
+
+    /**
+     * Copies elements of an on-heap primitive array into the segment with a single bulk copy.
+     *
+     * @param srcArray
+     *         the on-heap primitive array to copy from
+     * @param srcIndex
+     *         the first element of the on-heap array to copy
+     * @param layout
+     *         the layout of the elements
+     * @param index
+     *         the first element of the segment to copy to
+     * @param length
+     *         the number of elements to copy
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void copyFromArray(Object srcArray, int srcIndex, ValueLayout layout, long index, int length, int baseIndex) {
+        MemorySegment.copy(srcArray, srcIndex, segment, layout, (baseIndex + index) * layout.byteSize(), length);
+        markModified();
+    }
+
+    /**
+     * Copies elements of the segment into an on-heap primitive array with a single bulk copy.
+     *
+     * @param layout
+     *         the layout of the elements
+     * @param index
+     *         the first element of the segment to copy from
+     * @param dstArray
+     *         the on-heap primitive array to copy to
+     * @param dstIndex
+     *         the first element of the on-heap array to copy to
+     * @param length
+     *         the number of elements to copy
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void copyToArray(ValueLayout layout, long index, Object dstArray, int dstIndex, int length, int baseIndex) {
+        MemorySegment.copy(segment, layout, (baseIndex + index) * layout.byteSize(), dstArray, dstIndex, length);
+    }
+
+    /**
+     * Sets a range of elements to a {@code byte} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code byte} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, byte value, int baseIndex) {
+        segment.asSlice(baseIndex + index, length).fill(value);
+        markModified();
+    }
+
+    /**
+     * Sets a range of elements to a {@code char} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code char} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, char value, int baseIndex) {
+        if (value == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_CHAR, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_CHAR, index, length, baseIndex);
+        }
+    }
+
+    /**
+     * Sets a range of elements to a {@code short} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code short} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, short value, int baseIndex) {
+        if (value == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_SHORT, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_SHORT, index, length, baseIndex);
+        }
+    }
+
+    /**
+     * Sets a range of elements to an {@code int} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code int} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, int value, int baseIndex) {
+        if (value == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_INT, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_INT, index, length, baseIndex);
+        }
+    }
+
+    /**
+     * Sets a range of elements to a {@code long} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code long} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, long value, int baseIndex) {
+        if (value == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_LONG, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_LONG, index, length, baseIndex);
+        }
+    }
+
+    /**
+     * Sets a range of elements to a {@code float} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code float} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, float value, int baseIndex) {
+        if (Float.floatToRawIntBits(value) == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_FLOAT, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_FLOAT, index, length, baseIndex);
+        }
+    }
+
+    /**
+     * Sets a range of elements to a {@code double} value.
+     *
+     * @param index
+     *         the first element to set
+     * @param length
+     *         the number of elements to set
+     * @param value
+     *         the {@code double} value to set
+     * @param baseIndex
+     *         the base index used for calculating the actual index
+     */
+    public void fill(long index, long length, double value, int baseIndex) {
+        if (Double.doubleToRawLongBits(value) == 0 || length == 0) {
+            fillWithZeros(ValueLayout.JAVA_DOUBLE, index, length, baseIndex);
+        } else {
+            setAtIndex(index, value, baseIndex);
+            replicate(ValueLayout.JAVA_DOUBLE, index, length, baseIndex);
+        }
+    }
+
+    private void fillWithZeros(ValueLayout layout, long index, long length, int baseIndex) {
+        segment.asSlice((baseIndex + index) * layout.byteSize(), length * layout.byteSize()).fill((byte) 0);
+        markModified();
+    }
+
+    /**
+     * Replicates the first element of a range over the whole range, doubling the
+     * initialised region with each bulk copy.
+     */
+    private void replicate(ValueLayout layout, long index, long length, int baseIndex) {
+        final long start = (baseIndex + index) * layout.byteSize();
+        final long total = length * layout.byteSize();
+        long filled = layout.byteSize();
+        while (filled < total) {
+            final long chunk = Math.min(filled, total - filled);
+            MemorySegment.copy(segment, start, segment, start + filled, chunk);
+            filled += chunk;
+        }
+    }
 }
@@ -46,6 +46,12 @@ public abstract sealed class TornadoNativeArray //
      */
     public static final long ARRAY_HEADER = Long.parseLong(System.getProperty("tornado.panama.objectHeader", getDefaultHeaderSize()));
 
+    /**
+     * The number of elements stored in the header of the arrays with more than {@link Integer#MAX_VALUE} elements. Their size is given by {@link #getSizeLong()}, and {@link #getSize()} throws
+     * for them.
+     */
+    public static final int OVERSIZED = -1;
+
     private static String getDefaultHeaderSize() {
         List<String> jvmArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
         boolean isUncompressed = jvmArgs.contains("-XX:-UseCompressedOops") || jvmArgs.contains("-XX:-UseCompressedClassPointers");
@@ -62,13 +68,43 @@ public abstract sealed class TornadoNativeArray //
         }
     }
 
+    /**
+     * Returns the number of elements as an {@code int}, or {@link #OVERSIZED} if it does not fit. This value is stored in the header and in the {@code numberOfElements} field that the
+     * kernels read, which is why the arrays with more than {@link Integer#MAX_VALUE} elements can only be processed in batches.
+     */
+    static int toIntSize(long numberOfElements) {
+        return numberOfElements <= Integer.MAX_VALUE ? (int) numberOfElements : OVERSIZED;
+    }
+
+    /**
+     * Returns the number of elements for {@link #getSize()}. The kernels do not call this method: they read the {@code numberOfElements} field, which the task specialisation checks.
+     *
+     * @throws IllegalStateException
+     *         if the array has more than {@link Integer#MAX_VALUE} elements.
+     */
+    static int checkIntSize(int numberOfElements) {
+        if (numberOfElements == OVERSIZED) {
+            throw new IllegalStateException(format("The array has more than %d elements: its size is given by getSizeLong()", Integer.MAX_VALUE));
+        }
+        return numberOfElements;
+    }
+
     /**
      * Returns the number of elements stored in the native array.
      *
      * @return The number of elements of the native data array.
+     * @throws IllegalStateException
+     *         if the array has more than {@link Integer#MAX_VALUE} elements (see {@link #getSizeLong()}).
      */
     public abstract int getSize();
 
+    /**
+     * Returns the number of elements stored in the native array as a {@code long}, which is also valid for arrays with more than {@link Integer#MAX_VALUE} elements.
+     *
+     * @return The number of elements of the native data array.
+     */
+    public abstract long getSizeLong();
+
     /**
      * Returns the underlying {@link MemorySegment} of the native array, without the Tornado Array header.
      *
@@ -106,4 +142,27 @@ public abstract sealed class TornadoNativeArray //
 
     public abstract int getElementSize();
 
+    /**
+     * Returns the {@link TornadoMemorySegment} that stores the header and the data of the native array.
+     */
+    abstract TornadoMemorySegment getTornadoMemorySegment();
+
+    /**
+     * Returns the version of the contents of the native array. The version changes after the contents are modified through the methods of the array, so the runtime can skip copying an
+     * unmodified array to a device again. The writes through the {@link MemorySegment} returned by {@link #getSegment()} or {@link #getSegmentWithHeader()}, and through other arrays that share
+     * the same memory (e.g., slices), are not tracked: call {@link #markModified()} after them.
+     *
+     * @return The version of the contents.
+     */
+    public long getModificationVersion() {
+        return getTornadoMemorySegment().getModificationVersion();
+    }
+
+    /**
+     * Records that the contents of the native array have been modified without the methods of the array. See {@link #getModificationVersion()}.
+     */
+    public void markModified() {
+        getTornadoMemorySegment().markModified();
+    }
+
 }
@@ -172,27 +172,97 @@ public final class VectorFloat3 implements TornadoCollectionInterface<FloatBuffe
     }
 
     public Float3 sum() {
-        Float3 result = new Float3();
+        float x = 0;
+        float y = 0;
+        float z = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float3.add(result, get(i));
+            final int offset = getIndex(i);
+            x += storage.get(offset);
+            y += storage.get(offset + 1);
+            z += storage.get(offset + 2);
         }
-        return result;
+        return new Float3(x, y, z);
     }
 
     public Float3 min() {
-        Float3 result = new Float3();
+        float x = 0;
+        float y = 0;
+        float z = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float3.min(result, get(i));
+            final int offset = getIndex(i);
+            x = Math.min(x, storage.get(offset));
+            y = Math.min(y, storage.get(offset + 1));
+            z = Math.min(z, storage.get(offset + 2));
         }
-        return result;
+        return new Float3(x, y, z);
     }
 
     public Float3 max() {
-        Float3 result = new Float3();
+        float x = 0;
+        float y = 0;
+        float z = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float3.max(result, get(i));
+            final int offset = getIndex(i);
+            x = Math.max(x, storage.get(offset));
+            y = Math.max(y, storage.get(offset + 1));
+            z = Math.max(z, storage.get(offset + 2));
         }
-        return result;
+        return new Float3(x, y, z);
+    }
+
+    /*
+     * In-place operations on the backing arrays. They do not allocate vectors,
+     * which removes the garbage of get/set when the kernels run on the host.
+     */
+
+    /**
+     * Writes {@code a + b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void addInto(VectorFloat3 dst, VectorFloat3 a, VectorFloat3 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) + b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) + b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) + b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a - b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void subInto(VectorFloat3 dst, VectorFloat3 a, VectorFloat3 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) - b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) - b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) - b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a * b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void multInto(VectorFloat3 dst, VectorFloat3 a, VectorFloat3 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) * b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a * value}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void scaleInto(VectorFloat3 dst, VectorFloat3 a, float value, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) * value);
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * value);
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * value);
+    }
+
+    /**
+     * Dot product of the elements at {@code index} of {@code a} and {@code b}.
+     */
+    public static float dot(VectorFloat3 a, VectorFloat3 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        return a.storage.get(offset) * b.storage.get(offset) //
+                + a.storage.get(offset + 1) * b.storage.get(offset + 1) //
+                + a.storage.get(offset + 2) * b.storage.get(offset + 2);
     }
 
     @Override
@@ -170,27 +170,108 @@ public final class VectorFloat4 implements TornadoCollectionInterface<FloatBuffe
     }
 
     public Float4 sum() {
-        Float4 result = new Float4();
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        float w = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float4.add(result, get(i));
+            final int offset = getIndex(i);
+            x += storage.get(offset);
+            y += storage.get(offset + 1);
+            z += storage.get(offset + 2);
+            w += storage.get(offset + 3);
         }
-        return result;
+        return new Float4(x, y, z, w);
     }
 
     public Float4 min() {
-        Float4 result = new Float4();
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        float w = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float4.min(result, get(i));
+            final int offset = getIndex(i);
+            x = Math.min(x, storage.get(offset));
+            y = Math.min(y, storage.get(offset + 1));
+            z = Math.min(z, storage.get(offset + 2));
+            w = Math.min(w, storage.get(offset + 3));
         }
-        return result;
+        return new Float4(x, y, z, w);
     }
 
     public Float4 max() {
-        Float4 result = new Float4();
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        float w = 0;
         for (int i = 0; i < numElements; i++) {
-            result = Float4.max(result, get(i));
+            final int offset = getIndex(i);
+            x = Math.max(x, storage.get(offset));
+            y = Math.max(y, storage.get(offset + 1));
+            z = Math.max(z, storage.get(offset + 2));
+            w = Math.max(w, storage.get(offset + 3));
         }
-        return result;
+        return new Float4(x, y, z, w);
+    }
+
+    /*
+     * In-place operations on the backing arrays. They do not allocate vectors,
+     * which removes the garbage of get/set when the kernels run on the host.
+     */
+
+    /**
+     * Writes {@code a + b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void addInto(VectorFloat4 dst, VectorFloat4 a, VectorFloat4 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) + b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) + b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) + b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) + b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a - b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void subInto(VectorFloat4 dst, VectorFloat4 a, VectorFloat4 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) - b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) - b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) - b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) - b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a * b}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void multInto(VectorFloat4 dst, VectorFloat4 a, VectorFloat4 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) * b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) * b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a * value}, for the element at {@code index}, into {@code dst}.
+     */
+    public static void scaleInto(VectorFloat4 dst, VectorFloat4 a, float value, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        dst.storage.set(offset, a.storage.get(offset) * value);
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * value);
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * value);
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) * value);
+    }
+
+    /**
+     * Dot product of the elements at {@code index} of {@code a} and {@code b}.
+     */
+    public static float dot(VectorFloat4 a, VectorFloat4 b, int index) {
+        final int offset = index * ELEMENT_SIZE;
+        return a.storage.get(offset) * b.storage.get(offset) //
+                + a.storage.get(offset + 1) * b.storage.get(offset + 1) //
+                + a.storage.get(offset + 2) * b.storage.get(offset + 2) //
+                + a.storage.get(offset + 3) * b.storage.get(offset + 3);
     }
 
     @Override
@@ -120,6 +120,16 @@ public final class ImageByte3 implements TornadoImagesInterface<ByteBuffer> {
         array.set(index + 2, value.getZ());
     }
 
+    /**
+     * Sets the element at {@code (x, y)} without allocating a {@link Byte3}.
+     */
+    public void set(int x, int y, byte valueX, byte valueY, byte valueZ) {
+        final int offset = getIndex(x, y);
+        storage.set(offset, valueX);
+        storage.set(offset + 1, valueY);
+        storage.set(offset + 2, valueZ);
+    }
+
     public int X() {
         return X;
     }
@@ -168,53 +168,126 @@ public final class ImageFloat3 implements TornadoImagesInterface<FloatBuffer> {
     }
 
     public Float3 mean() {
-        Float3 result = new Float3();
+        float x = 0;
+        float y = 0;
+        float z = 0;
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float3.add(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x += storage.get(offset);
+                y += storage.get(offset + 1);
+                z += storage.get(offset + 2);
             }
         }
 
-        return Float3.div(result, (X * Y));
+        return Float3.div(new Float3(x, y, z), (X * Y));
     }
 
     public Float3 min() {
-        Float3 result = new Float3(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        float x = Float.MAX_VALUE;
+        float y = Float.MAX_VALUE;
+        float z = Float.MAX_VALUE;
 
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float3.min(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x = Math.min(x, storage.get(offset));
+                y = Math.min(y, storage.get(offset + 1));
+                z = Math.min(z, storage.get(offset + 2));
             }
         }
-
-        return result;
+        return new Float3(x, y, z);
     }
 
     public Float3 max() {
-        Float3 result = new Float3(Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE);
+        float x = Float.MIN_VALUE;
+        float y = Float.MIN_VALUE;
+        float z = Float.MIN_VALUE;
 
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float3.max(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x = Math.max(x, storage.get(offset));
+                y = Math.max(y, storage.get(offset + 1));
+                z = Math.max(z, storage.get(offset + 2));
             }
         }
-
-        return result;
+        return new Float3(x, y, z);
     }
 
     public Float3 stdDev() {
         final Float3 mean = mean();
-        Float3 varience = new Float3();
+        float x = 0;
+        float y = 0;
+        float z = 0;
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                Float3 v = Float3.sub(mean, get(col, row));
-                v = Float3.mult(v, v);
-                v = Float3.div(v, X);
-                varience = Float3.add(v, varience);
+                final int offset = toIndex(col, row);
+                final float dx = mean.getX() - storage.get(offset);
+                final float dy = mean.getY() - storage.get(offset + 1);
+                final float dz = mean.getZ() - storage.get(offset + 2);
+                x += dx * dx / X;
+                y += dy * dy / X;
+                z += dz * dz / X;
             }
         }
 
-        return Float3.sqrt(varience);
+        return Float3.sqrt(new Float3(x, y, z));
+    }
+
+    /*
+     * In-place operations on the backing arrays. They do not allocate vectors,
+     * which removes the garbage of get/set when the kernels run on the host.
+     */
+
+    /**
+     * Writes {@code a + b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void addInto(ImageFloat3 dst, ImageFloat3 a, ImageFloat3 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) + b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) + b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) + b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a - b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void subInto(ImageFloat3 dst, ImageFloat3 a, ImageFloat3 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) - b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) - b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) - b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a * b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void multInto(ImageFloat3 dst, ImageFloat3 a, ImageFloat3 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) * b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * b.storage.get(offset + 2));
+    }
+
+    /**
+     * Writes {@code a * value}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void scaleInto(ImageFloat3 dst, ImageFloat3 a, float value, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) * value);
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * value);
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * value);
+    }
+
+    /**
+     * Dot product of the elements at {@code (x, y)} of {@code a} and {@code b}.
+     */
+    public static float dot(ImageFloat3 a, ImageFloat3 b, int x, int y) {
+        final int offset = a.toIndex(x, y);
+        return a.storage.get(offset) * b.storage.get(offset) //
+                + a.storage.get(offset + 1) * b.storage.get(offset + 1) //
+                + a.storage.get(offset + 2) * b.storage.get(offset + 2);
     }
 
     public String summarise() {
@@ -168,51 +168,140 @@ public final class ImageFloat4 implements TornadoImagesInterface<FloatBuffer> {
     }
 
     public Float4 mean() {
-        Float4 result = new Float4();
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        float w = 0;
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float4.add(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x += storage.get(offset);
+                y += storage.get(offset + 1);
+                z += storage.get(offset + 2);
+                w += storage.get(offset + 3);
             }
         }
 
-        return Float4.div(result, (X * Y));
+        return Float4.div(new Float4(x, y, z, w), (X * Y));
     }
 
     public Float4 min() {
-        Float4 result = new Float4(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        float x = Float.MAX_VALUE;
+        float y = Float.MAX_VALUE;
+        float z = Float.MAX_VALUE;
+        float w = Float.MAX_VALUE;
 
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float4.min(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x = Math.min(x, storage.get(offset));
+                y = Math.min(y, storage.get(offset + 1));
+                z = Math.min(z, storage.get(offset + 2));
+                w = Math.min(w, storage.get(offset + 3));
             }
         }
-        return result;
+        return new Float4(x, y, z, w);
     }
 
     public Float4 max() {
-        Float4 result = new Float4(Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE);
+        float x = Float.MIN_VALUE;
+        float y = Float.MIN_VALUE;
+        float z = Float.MIN_VALUE;
+        float w = Float.MIN_VALUE;
 
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                result = Float4.max(result, get(col, row));
+                final int offset = toIndex(col, row);
+                x = Math.max(x, storage.get(offset));
+                y = Math.max(y, storage.get(offset + 1));
+                z = Math.max(z, storage.get(offset + 2));
+                w = Math.max(w, storage.get(offset + 3));
             }
         }
-        return result;
+        return new Float4(x, y, z, w);
     }
 
     public Float4 stdDev() {
         final Float4 mean = mean();
-        Float4 varience = new Float4();
+        float x = 0;
+        float y = 0;
+        float z = 0;
+        float w = 0;
         for (int row = 0; row < Y; row++) {
             for (int col = 0; col < X; col++) {
-                Float4 v = Float4.sub(mean, get(col, row));
-                v = Float4.mult(v, v);
-                v = Float4.div(v, X);
-                varience = Float4.add(v, varience);
+                final int offset = toIndex(col, row);
+                final float dx = mean.getX() - storage.get(offset);
+                final float dy = mean.getY() - storage.get(offset + 1);
+                final float dz = mean.getZ() - storage.get(offset + 2);
+                final float dw = mean.getW() - storage.get(offset + 3);
+                x += dx * dx / X;
+                y += dy * dy / X;
+                z += dz * dz / X;
+                w += dw * dw / X;
             }
         }
 
-        return Float4.sqrt(varience);
+        return Float4.sqrt(new Float4(x, y, z, w));
+    }
+
+    /*
+     * In-place operations on the backing arrays. They do not allocate vectors,
+     * which removes the garbage of get/set when the kernels run on the host.
+     */
+
+    /**
+     * Writes {@code a + b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void addInto(ImageFloat4 dst, ImageFloat4 a, ImageFloat4 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) + b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) + b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) + b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) + b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a - b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void subInto(ImageFloat4 dst, ImageFloat4 a, ImageFloat4 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) - b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) - b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) - b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) - b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a * b}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void multInto(ImageFloat4 dst, ImageFloat4 a, ImageFloat4 b, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) * b.storage.get(offset));
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * b.storage.get(offset + 1));
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * b.storage.get(offset + 2));
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) * b.storage.get(offset + 3));
+    }
+
+    /**
+     * Writes {@code a * value}, for the element at {@code (x, y)}, into {@code dst}.
+     */
+    public static void scaleInto(ImageFloat4 dst, ImageFloat4 a, float value, int x, int y) {
+        final int offset = dst.toIndex(x, y);
+        dst.storage.set(offset, a.storage.get(offset) * value);
+        dst.storage.set(offset + 1, a.storage.get(offset + 1) * value);
+        dst.storage.set(offset + 2, a.storage.get(offset + 2) * value);
+        dst.storage.set(offset + 3, a.storage.get(offset + 3) * value);
+    }
+
+    /**
+     * Dot product of the elements at {@code (x, y)} of {@code a} and {@code b}.
+     */
+    public static float dot(ImageFloat4 a, ImageFloat4 b, int x, int y) {
+        final int offset = a.toIndex(x, y);
+        return a.storage.get(offset) * b.storage.get(offset) //
+                + a.storage.get(offset + 1) * b.storage.get(offset + 1) //
+                + a.storage.get(offset + 2) * b.storage.get(offset + 2) //
+                + a.storage.get(offset + 3) * b.storage.get(offset + 3);
     }
 
     @Override
@@ -27,6 +27,7 @@ import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
 import uk.ac.manchester.tornado.api.types.images.ImageByte3;
 import uk.ac.manchester.tornado.api.types.images.ImageFloat3;
 import uk.ac.manchester.tornado.api.types.vectors.Byte3;
+import uk.ac.manchester.tornado.api.types.vectors.Float3;
 
 public class ComputeKernels {
     // CHECKSTYLE:OFF
@@ -312,6 +313,43 @@ public class ComputeKernels {
         }
     }
 
+    /**
+     * Host version of {@link #renderTrack} that does not allocate a
+     * {@link Float3} and a {@link Byte3} per pixel.
+     */
+    public static void renderTrackInPlace(ImageByte3 output, ImageFloat3 input) {
+        final FloatArray pixels = input.getArray();
+        for (int y = 0; y < input.Y(); y++) {
+            for (int x = 0; x < input.X(); x++) {
+                // Third component of the Float3 at (x, y)
+                final int result = (int) pixels.get(3 * (x + y * input.X()) + 2);
+                switch (result) {
+                    case 1: // ok GREY
+                        output.set(x, y, (byte) 128, (byte) 128, (byte) 128);
+                        break;
+                    case -1: // no input BLACK
+                        output.set(x, y, (byte) 0, (byte) 0, (byte) 0);
+                        break;
+                    case -2: // not in image RED
+                        output.set(x, y, (byte) 255, (byte) 0, (byte) 0);
+                        break;
+                    case -3: // no correspondence GREEN
+                        output.set(x, y, (byte) 0, (byte) 255, (byte) 0);
+                        break;
+                    case -4: // too far away BLUE
+                        output.set(x, y, (byte) 0, (byte) 0, (byte) 255);
+                        break;
+                    case -5: // wrong normal YELLOW
+                        output.set(x, y, (byte) 255, (byte) 255, (byte) 0);
+                        break;
+                    default:
+                        output.set(x, y, (byte) 255, (byte) 128, (byte) 128);
+                        break;
+                }
+            }
+        }
+    }
+
     public static void euler(int size, LongArray five, LongArray outputA, LongArray outputB, LongArray outputC, LongArray outputD, LongArray outputE) {
         for (@Parallel int e = 1; e < five.getSize(); e++) {
             long e5 = five.get(e);
@@ -58,6 +58,15 @@ public final class GraphicsKernels {
         }
     }
 
+    /**
+     * Host version of {@link #dotVector} that reads the backing arrays in place.
+     */
+    public static void dotVectorInPlace(VectorFloat3 A, VectorFloat3 B, FloatArray c) {
+        for (int i = 0; i < c.getSize(); i++) {
+            c.set(i, VectorFloat3.dot(A, B, i));
+        }
+    }
+
     public static void rotateImage(ImageFloat3 output, Matrix4x4Float m, ImageFloat3 input) {
         for (@Parallel int i = 0; i < output.Y(); i++) {
             for (@Parallel int j = 0; j < output.X(); j++) {
@@ -88,6 +97,17 @@ public final class GraphicsKernels {
         }
     }
 
+    /**
+     * Host version of {@link #dotImage} that reads the backing arrays in place.
+     */
+    public static void dotImageInPlace(ImageFloat3 A, ImageFloat3 B, ImageFloat C) {
+        for (int i = 0; i < C.Y(); i++) {
+            for (int j = 0; j < C.X(); j++) {
+                C.set(j, i, ImageFloat3.dot(A, B, j, i));
+            }
+        }
+    }
+
     public static void addImage(ImageFloat4 a, ImageFloat4 b, ImageFloat4 c) {
         for (@Parallel int i = 0; i < c.Y(); i++) {
             for (@Parallel int j = 0; j < c.X(); j++) {
@@ -96,6 +116,19 @@ public final class GraphicsKernels {
         }
     }
 
+    /**
+     * Host version of {@link #addImage} that adds the images in place, without
+     * allocating a {@link uk.ac.manchester.tornado.api.types.vectors.Float4} per
+     * pixel.
+     */
+    public static void addImageInPlace(ImageFloat4 a, ImageFloat4 b, ImageFloat4 c) {
+        for (int i = 0; i < c.Y(); i++) {
+            for (int j = 0; j < c.X(); j++) {
+                ImageFloat4.addInto(c, a, b, j, i);
+            }
+        }
+    }
+
     public static void convolveImageArray(final FloatArray input, final FloatArray filter, final FloatArray output, final int iW, final int iH, final int fW, final int fH) {
         int u;
         int v;
@@ -21,6 +21,7 @@ import java.util.Random;
 
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.types.images.ImageFloat4;
+import uk.ac.manchester.tornado.api.types.utils.FloatOps;
 import uk.ac.manchester.tornado.api.types.vectors.Float4;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.GraphicsKernels;
@@ -73,9 +74,28 @@ public class AddJava extends BenchmarkDriver {
 
     }
 
+    /**
+     * Checks that {@link GraphicsKernels#addImageInPlace} computes the same
+     * result as the kernel it replaces on the host.
+     */
     @Override
     public boolean validate(TornadoDevice device) {
-        return true;
+        final ImageFloat4 result = new ImageFloat4(numElementsX, numElementsY);
+
+        runBenchmark(device);
+        GraphicsKernels.addImageInPlace(a, b, result);
+
+        float maxULP = 0f;
+        for (int i = 0; i < c.Y(); i++) {
+            for (int j = 0; j < c.X(); j++) {
+                final float ulp = FloatOps.findMaxULP(result.get(j, i), c.get(j, i));
+
+                if (ulp > maxULP) {
+                    maxULP = ulp;
+                }
+            }
+        }
+        return Float.compare(maxULP, MAX_ULP) <= 0;
     }
 
     public void printSummary() {
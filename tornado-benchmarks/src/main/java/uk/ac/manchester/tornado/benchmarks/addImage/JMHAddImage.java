@@ -103,6 +103,16 @@ public class JMHAddImage {
         GraphicsKernels.addImage(state.a, state.b, state.c);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void addImageJavaInPlace(BenchmarkSetup state) {
+        GraphicsKernels.addImageInPlace(state.a, state.b, state.c);
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
@@ -17,7 +17,9 @@
  */
 package uk.ac.manchester.tornado.benchmarks.dotimage;
 
+import static uk.ac.manchester.tornado.api.types.utils.FloatOps.findMaxULP;
 import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotImage;
+import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotImageInPlace;
 
 import java.util.Random;
 
@@ -75,9 +77,28 @@ public class DotJava extends BenchmarkDriver {
 
     }
 
+    /**
+     * Checks that {@link uk.ac.manchester.tornado.benchmarks.GraphicsKernels#dotImageInPlace}
+     * computes the same result as the kernel it replaces on the host.
+     */
     @Override
     public boolean validate(TornadoDevice device) {
-        return true;
+        final ImageFloat result = new ImageFloat(numElementsX, numElementsY);
+
+        runBenchmark(device);
+        dotImageInPlace(a, b, result);
+
+        float maxULP = 0f;
+        for (int i = 0; i < c.Y(); i++) {
+            for (int j = 0; j < c.X(); j++) {
+                final float ulp = findMaxULP(result.get(j, i), c.get(j, i));
+
+                if (ulp > maxULP) {
+                    maxULP = ulp;
+                }
+            }
+        }
+        return Float.compare(maxULP, MAX_ULP) <= 0;
     }
 
     public void printSummary() {
@@ -18,6 +18,7 @@
 package uk.ac.manchester.tornado.benchmarks.dotimage;
 
 import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotImage;
+import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotImageInPlace;
 
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -100,6 +101,16 @@ public class JMHDotImage {
         dotImage(state.a, state.b, state.c);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void dotImageJavaInPlace(BenchmarkSetup state) {
+        dotImageInPlace(state.a, state.b, state.c);
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
@@ -17,7 +17,9 @@
  */
 package uk.ac.manchester.tornado.benchmarks.dotvector;
 
+import static uk.ac.manchester.tornado.api.math.TornadoMath.findULPDistance;
 import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotVector;
+import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotVectorInPlace;
 
 import java.util.Random;
 
@@ -71,9 +73,19 @@ public class DotJava extends BenchmarkDriver {
 
     }
 
+    /**
+     * Checks that {@link uk.ac.manchester.tornado.benchmarks.GraphicsKernels#dotVectorInPlace}
+     * computes the same result as the kernel it replaces on the host.
+     */
     @Override
     public boolean validate(TornadoDevice device) {
-        return true;
+        final FloatArray result = new FloatArray(numElements);
+
+        runBenchmark(device);
+        dotVectorInPlace(a, b, result);
+
+        final float ulp = findULPDistance(result, c);
+        return Float.compare(ulp, MAX_ULP) <= 0;
     }
 
     public void printSummary() {
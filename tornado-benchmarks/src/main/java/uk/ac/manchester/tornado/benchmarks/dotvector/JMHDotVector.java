@@ -18,6 +18,7 @@
 package uk.ac.manchester.tornado.benchmarks.dotvector;
 
 import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotVector;
+import static uk.ac.manchester.tornado.benchmarks.GraphicsKernels.dotVectorInPlace;
 
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -99,6 +100,16 @@ public class JMHDotVector {
         dotVector(state.a, state.b, state.c);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void dotVectorJavaInPlace(BenchmarkSetup state) {
+        dotVectorInPlace(state.a, state.b, state.c);
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
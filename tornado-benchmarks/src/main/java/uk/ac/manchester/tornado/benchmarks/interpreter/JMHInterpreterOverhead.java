@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.interpreter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+
+/**
+ * Measures the overhead of the TornadoVM interpreter on each call to
+ * {@code execute()}. The kernel does no work and the array has a single
+ * element, so the time is dominated by the dispatch of the bytecodes and by
+ * the driver calls. The first benchmark only launches the kernel, and the
+ * second one also copies the array in and out on every execution.
+ *
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ * tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.interpreter.JMHInterpreterOverhead
+ * </code>
+ */
+public class JMHInterpreterOverhead {
+
+    public static void noOp(IntArray array) {
+        for (@Parallel int i = 0; i < array.getSize(); i++) {
+            array.set(i, array.get(i));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private IntArray array;
+
+        private TornadoExecutionPlan executorLaunch;
+        private TornadoExecutionPlan executorTransfers;
+
+        private TornadoExecutionPlan createExecutionPlan(String name, int transferMode) {
+            TaskGraph taskGraph = new TaskGraph(name) //
+                    .transferToDevice(transferMode, array) //
+                    .task("noOp", JMHInterpreterOverhead::noOp, array) //
+                    .transferToHost(transferMode, array);
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            TornadoExecutionPlan executor = new TornadoExecutionPlan(immutableTaskGraph);
+            executor.withPreCompilation();
+            return executor;
+        }
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            array = new IntArray(1);
+            executorLaunch = createExecutionPlan("launch", DataTransferMode.FIRST_EXECUTION);
+            executorTransfers = createExecutionPlan("transfers", DataTransferMode.EVERY_EXECUTION);
+            // The first execution copies the data of the launch-only plan
+            executorLaunch.execute();
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() throws TornadoExecutionPlanException {
+            executorLaunch.close();
+            executorTransfers.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void executeNoOp(BenchmarkSetup state, Blackhole blackhole) {
+        blackhole.consume(state.executorLaunch.execute());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void executeNoOpWithTransfers(BenchmarkSetup state, Blackhole blackhole) {
+        blackhole.consume(state.executorTransfers.execute());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHInterpreterOverhead.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(30)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(30)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
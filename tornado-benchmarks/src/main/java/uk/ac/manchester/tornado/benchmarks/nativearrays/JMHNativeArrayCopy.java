@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.nativearrays;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+
+/**
+ * Compares the element-by-element conversions between on-heap arrays and
+ * native arrays with the bulk copy and fill paths. No accelerator is used.
+ *
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ * tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.nativearrays.JMHNativeArrayCopy
+ * </code>
+ */
+public class JMHNativeArrayCopy {
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private int numElements = Integer.parseInt(System.getProperty("x", "16777216"));
+        private float[] heapFloats;
+        private double[] heapDoubles;
+        private FloatArray floatArray;
+        private DoubleArray doubleArray;
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            heapFloats = new float[numElements];
+            heapDoubles = new double[numElements];
+            for (int i = 0; i < numElements; i++) {
+                heapFloats[i] = i;
+                heapDoubles[i] = i;
+            }
+            floatArray = FloatArray.fromArray(heapFloats);
+            doubleArray = DoubleArray.fromArray(heapDoubles);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public FloatArray fromArrayElementWise(BenchmarkSetup state) {
+        FloatArray array = new FloatArray(state.numElements);
+        for (int i = 0; i < state.numElements; i++) {
+            array.set(i, state.heapFloats[i]);
+        }
+        return array;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public FloatArray fromArrayBulk(BenchmarkSetup state) {
+        return FloatArray.fromArray(state.heapFloats);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public float[] toHeapArrayElementWise(BenchmarkSetup state) {
+        float[] output = new float[state.numElements];
+        for (int i = 0; i < state.numElements; i++) {
+            output[i] = state.floatArray.get(i);
+        }
+        return output;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public float[] toHeapArrayBulk(BenchmarkSetup state) {
+        return state.floatArray.toHeapArray();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public double[] copyToRangeElementWise(BenchmarkSetup state) {
+        final int half = state.numElements / 2;
+        for (int i = 0; i < half; i++) {
+            state.heapDoubles[i] = state.doubleArray.get(half + i);
+        }
+        return state.heapDoubles;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public double[] copyToRangeBulk(BenchmarkSetup state) {
+        final int half = state.numElements / 2;
+        state.doubleArray.copyTo(state.heapDoubles, half, 0, half);
+        return state.heapDoubles;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public FloatArray initElementWise(BenchmarkSetup state) {
+        for (int i = 0; i < state.numElements; i++) {
+            state.floatArray.set(i, 1.5f);
+        }
+        return state.floatArray;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 10, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Fork(1)
+    public FloatArray initFill(BenchmarkSetup state) {
+        state.floatArray.init(1.5f);
+        return state.floatArray;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHNativeArrayCopy.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.MICROSECONDS) //
+                .warmupTime(TimeValue.seconds(10)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(10)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.benchmarks.profiler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+
+/**
+ * Measures the overhead of the profiler on each launch of a task-graph. The
+ * arrays are small, so the time is dominated by the launch path rather than by
+ * the kernel, and the difference between the two benchmarks is the cost of
+ * recording the timers and the metrics.
+ *
+ * <p>
+ * How to run in isolation?
+ * </p>
+ * <code>
+ * tornado -jar tornado-benchmarks/target/jmhbenchmarks.jar uk.ac.manchester.tornado.benchmarks.profiler.JMHProfilerOverhead
+ * </code>
+ */
+public class JMHProfilerOverhead {
+    @State(Scope.Thread)
+    public static class BenchmarkSetup {
+
+        private int numElements = Integer.parseInt(System.getProperty("x", "1024"));
+        private FloatArray x;
+        private FloatArray y;
+        private final float alpha = 2f;
+
+        private TornadoExecutionPlan executorProfilerOff;
+        private TornadoExecutionPlan executorProfilerOn;
+
+        private TornadoExecutionPlan createExecutionPlan(String name) {
+            TaskGraph taskGraph = new TaskGraph(name) //
+                    .transferToDevice(DataTransferMode.EVERY_EXECUTION, x) //
+                    .task("saxpy", LinearAlgebraArrays::saxpy, alpha, x, y) //
+                    .transferToHost(DataTransferMode.EVERY_EXECUTION, y);
+
+            ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+            TornadoExecutionPlan executor = new TornadoExecutionPlan(immutableTaskGraph);
+            executor.withPreCompilation();
+            return executor;
+        }
+
+        @Setup(Level.Trial)
+        public void doSetup() {
+            x = new FloatArray(numElements);
+            y = new FloatArray(numElements);
+            x.init(1.0f);
+
+            executorProfilerOff = createExecutionPlan("profilerOff");
+            executorProfilerOn = createExecutionPlan("profilerOn").withProfiler(ProfilerMode.SILENT);
+        }
+
+        @TearDown(Level.Trial)
+        public void doTearDown() throws TornadoExecutionPlanException {
+            executorProfilerOff.close();
+            executorProfilerOn.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void launchProfilerOff(BenchmarkSetup state, Blackhole blackhole) {
+        blackhole.consume(state.executorProfilerOff.execute());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void launchProfilerOn(BenchmarkSetup state, Blackhole blackhole) {
+        blackhole.consume(state.executorProfilerOn.execute());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+                .include(JMHProfilerOverhead.class.getName() + ".*") //
+                .mode(Mode.AverageTime) //
+                .timeUnit(TimeUnit.NANOSECONDS) //
+                .warmupTime(TimeValue.seconds(30)) //
+                .warmupIterations(2) //
+                .measurementTime(TimeValue.seconds(30)) //
+                .measurementIterations(5) //
+                .forks(1) //
+                .build();
+        new Runner(opt).run();
+    }
+}
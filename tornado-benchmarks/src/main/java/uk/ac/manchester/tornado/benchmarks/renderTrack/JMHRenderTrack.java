@@ -96,6 +96,16 @@ public class JMHRenderTrack {
         ComputeKernels.renderTrack(state.output, state.input);
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 2, time = 60, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 30, timeUnit = TimeUnit.SECONDS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Fork(1)
+    public void renderTrackJavaInPlace(BenchmarkSetup state) {
+        ComputeKernels.renderTrackInPlace(state.output, state.input);
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.AverageTime)
     @Warmup(iterations = 2, time = 30, timeUnit = TimeUnit.SECONDS)
@@ -22,6 +22,7 @@ import java.util.Random;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.types.images.ImageByte3;
 import uk.ac.manchester.tornado.api.types.images.ImageFloat3;
+import uk.ac.manchester.tornado.api.types.vectors.Byte3;
 import uk.ac.manchester.tornado.api.types.vectors.Float3;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.ComputeKernels;
@@ -50,8 +51,26 @@ public class RenderTrackJava extends BenchmarkDriver {
         }
     }
 
+    /**
+     * Checks that {@link ComputeKernels#renderTrackInPlace} paints the same
+     * pixels as the kernel it replaces on the host.
+     */
     @Override
     public boolean validate(TornadoDevice device) {
+        final ImageByte3 result = new ImageByte3(size, size);
+
+        runBenchmark(device);
+        ComputeKernels.renderTrackInPlace(result, input);
+
+        for (int i = 0; i < output.Y(); i++) {
+            for (int j = 0; j < output.X(); j++) {
+                final Byte3 expected = output.get(j, i);
+                final Byte3 pixel = result.get(j, i);
+                if (expected.getX() != pixel.getX() || expected.getY() != pixel.getY() || expected.getZ() != pixel.getZ()) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
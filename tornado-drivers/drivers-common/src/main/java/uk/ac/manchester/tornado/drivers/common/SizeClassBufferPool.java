@@ -0,0 +1,177 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.common;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import uk.ac.manchester.tornado.api.common.Access;
+
+/**
+ * Bookkeeping of the device buffers of a single access type. Free buffers are
+ * indexed by capacity in a {@link TreeMap}, so the best-fit lookup is
+ * O(log n) in the number of distinct capacities. Used buffers are indexed by
+ * their native pointer, so releasing a buffer does not scan the used list.
+ *
+ * <p>
+ * The pool is not thread-safe: callers hold the monitor of the pool, which
+ * acts as the lock stripe for its access type.
+ * </p>
+ */
+final class SizeClassBufferPool {
+
+    private final Access access;
+    private final TreeMap<Long, ArrayDeque<BufferContainer>> freeBuffers;
+    private final LinkedHashMap<Long, BufferContainer> usedBuffers;
+    private int numFreeBuffers;
+    private long bytesFree;
+    private long bytesInUse;
+    private long bytesRequested;
+
+    SizeClassBufferPool(Access access) {
+        this.access = access;
+        this.freeBuffers = new TreeMap<>();
+        this.usedBuffers = new LinkedHashMap<>();
+    }
+
+    /**
+     * Rounds a size up to its power-of-two size class. Sizes above the limit,
+     * or classes that would exceed the maximum allocation size, are kept
+     * exact.
+     *
+     * @param sizeInBytes
+     *     Requested size in bytes.
+     * @param limit
+     *     Largest size that is rounded to a size class.
+     * @param maxAllocationSize
+     *     Maximum size of a single allocation on the device.
+     * @return The capacity to allocate.
+     */
+    static long sizeClassOf(long sizeInBytes, long limit, long maxAllocationSize) {
+        if (sizeInBytes <= 1 || sizeInBytes > limit) {
+            return sizeInBytes;
+        }
+        long sizeClass = Long.highestOneBit(sizeInBytes - 1) << 1;
+        return sizeClass < maxAllocationSize ? sizeClass : sizeInBytes;
+    }
+
+    void addUsed(long buffer, long capacity, long sizeInBytes) {
+        usedBuffers.put(buffer, new BufferContainer(buffer, capacity, sizeInBytes, access));
+        bytesInUse += capacity;
+        bytesRequested += sizeInBytes;
+    }
+
+    /**
+     * Takes the smallest free buffer whose capacity is within
+     * {@code [sizeInBytes, maxCapacity]} and marks it as used.
+     *
+     * @return The native pointer of the buffer, or -1 if there is no buffer in
+     *     that range.
+     */
+    long takeBestFit(long sizeInBytes, long maxCapacity) {
+        Map.Entry<Long, ArrayDeque<BufferContainer>> entry = freeBuffers.ceilingEntry(sizeInBytes);
+        if (entry == null || entry.getKey() > maxCapacity) {
+            return -1;
+        }
+        BufferContainer bufferInfo = removeFree(entry);
+        addUsed(bufferInfo.buffer(), bufferInfo.capacity(), sizeInBytes);
+        return bufferInfo.buffer();
+    }
+
+    /**
+     * Moves a buffer from the used list to the free list.
+     *
+     * @return The released buffer, or null if the buffer is not in use.
+     */
+    BufferContainer release(long buffer) {
+        BufferContainer bufferInfo = usedBuffers.remove(buffer);
+        if (bufferInfo != null) {
+            bytesInUse -= bufferInfo.capacity();
+            bytesRequested -= bufferInfo.size();
+            freeBuffers.computeIfAbsent(bufferInfo.capacity(), capacity -> new ArrayDeque<>()).addLast(bufferInfo);
+            numFreeBuffers++;
+            bytesFree += bufferInfo.capacity();
+        }
+        return bufferInfo;
+    }
+
+    /**
+     * Removes the largest free buffer, so the device memory is recovered with
+     * the fewest native releases.
+     *
+     * @return The removed buffer, or null if the free list is empty.
+     */
+    BufferContainer pollLargestFree() {
+        Map.Entry<Long, ArrayDeque<BufferContainer>> entry = freeBuffers.lastEntry();
+        return entry == null ? null : removeFree(entry);
+    }
+
+    private BufferContainer removeFree(Map.Entry<Long, ArrayDeque<BufferContainer>> entry) {
+        ArrayDeque<BufferContainer> buffers = entry.getValue();
+        BufferContainer bufferInfo = buffers.pollFirst();
+        if (buffers.isEmpty()) {
+            freeBuffers.remove(entry.getKey());
+        }
+        numFreeBuffers--;
+        bytesFree -= bufferInfo.capacity();
+        return bufferInfo;
+    }
+
+    /**
+     * Iterates the used buffers in allocation order and reports whether the
+     * last one was requested with exactly {@code sizeInBytes}, as long as at
+     * least {@code numberOfBuffers} buffers are in use.
+     */
+    boolean isLastUsedBufferOfSize(long sizeInBytes, int numberOfBuffers) {
+        if (usedBuffers.isEmpty() || usedBuffers.size() < numberOfBuffers) {
+            return false;
+        }
+        return usedBuffers.lastEntry().getValue().size() == sizeInBytes;
+    }
+
+    int getNumFreeBuffers() {
+        return numFreeBuffers;
+    }
+
+    long getBytesFree() {
+        return bytesFree;
+    }
+
+    long getBytesInUse() {
+        return bytesInUse;
+    }
+
+    long getBytesRequested() {
+        return bytesRequested;
+    }
+
+    /**
+     * A device buffer with the capacity allocated on the device and the size
+     * requested by its current user.
+     */
+    record BufferContainer(long buffer, long capacity, long size, Access access) {
+    }
+}
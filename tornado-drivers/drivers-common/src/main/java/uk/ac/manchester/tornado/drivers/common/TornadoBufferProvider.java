@@ -24,32 +24,47 @@ package uk.ac.manchester.tornado.drivers.common;
 
 import static uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray.ARRAY_HEADER;
 import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEVICE_AVAILABLE_MEMORY;
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEVICE_BUFFER_SIZE_CLASS_LIMIT;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import uk.ac.manchester.tornado.api.TornadoDeviceContext;
-import uk.ac.manchester.tornado.api.TornadoTargetDevice;
 import uk.ac.manchester.tornado.api.common.Access;
-import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
 import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.drivers.common.SizeClassBufferPool.BufferContainer;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
 /**
  * This class implements a cache of allocated buffers on the device and also
  * handles the logic to allocate and free buffers. This class is extended for
- * each backend. The logic is as follows: it maintains a list of used buffers
- * and another list of free buffers. When performing an allocation, it first
- * checks if memory is available on the device. If it is not, then it will try
- * to reuse a buffer from the free list of buffers.
+ * each backend. The logic is as follows: buffers are kept in one
+ * {@link SizeClassBufferPool} per access type, each one with a list of used
+ * buffers and an index of free buffers sorted by capacity. Small requests are
+ * rounded up to a power-of-two size class (see
+ * {@link TornadoOptions#DEVICE_BUFFER_SIZE_CLASS_LIMIT}), so a free buffer of
+ * the same class is reused without a native allocation. Otherwise, it checks if
+ * memory is available on the device. If it is not, then it will try to reuse
+ * the best-fit buffer from the free list, and finally release free buffers
+ * before allocating.
+ *
+ * <p>
+ * Each pool is guarded by its own monitor, so allocations of different access
+ * types do not contend with each other. The device memory budget is shared and
+ * updated atomically.
+ * </p>
  */
 public abstract class TornadoBufferProvider {
 
     protected final TornadoDeviceContext deviceContext;
-    protected final HashMap<Access, ArrayList<BufferContainer>> freeBuffers;
-    protected final HashMap<Access, ArrayList<BufferContainer>> usedBuffers;
-    protected long currentMemoryAvailable;
+    private final EnumMap<Access, SizeClassBufferPool> bufferPools;
+    private final AtomicLong currentMemoryAvailable;
+    private final LongAdder nativeAllocations;
+    private final LongAdder reusedAllocations;
+    private final LongAdder nativeReleases;
     private TornadoLogger logger = new TornadoLogger(this.getClass());
 
     private static final String RESET = "\u001B[0m";
@@ -58,18 +73,14 @@ public abstract class TornadoBufferProvider {
 
     protected TornadoBufferProvider(TornadoDeviceContext deviceContext) {
         this.deviceContext = deviceContext;
-        this.usedBuffers = initializeBufferHashMap();
-        this.freeBuffers = initializeBufferHashMap();
-        currentMemoryAvailable = TornadoOptions.DEVICE_AVAILABLE_MEMORY;
-    }
-
-    private HashMap<Access, ArrayList<BufferContainer>> initializeBufferHashMap() {
-        HashMap<Access, ArrayList<BufferContainer>> bufferAccesses = new HashMap<>();
+        this.bufferPools = new EnumMap<>(Access.class);
         for (Access access : Access.values()) {
-            ArrayList<BufferContainer> bufferList = new ArrayList<>();
-            bufferAccesses.put(access, bufferList);
+            bufferPools.put(access, new SizeClassBufferPool(access));
         }
-        return bufferAccesses;
+        this.currentMemoryAvailable = new AtomicLong(DEVICE_AVAILABLE_MEMORY);
+        this.nativeAllocations = new LongAdder();
+        this.reusedAllocations = new LongAdder();
+        this.nativeReleases = new LongAdder();
     }
 
     /**
@@ -85,110 +96,72 @@ public abstract class TornadoBufferProvider {
      * @return True if a buffer to reuse is available, or false otherwise.
      */
     public boolean reuseBufferForBatchProcessing(long batchSize, Access access, int numberOfBuffersForAccessType) {
-        boolean matchFound = false;
-        if (!usedBuffers.get(access).isEmpty()) {
-            for (BufferContainer bufferContainer : usedBuffers.get(access)) {
-                if (usedBuffers.get(access).size() < numberOfBuffersForAccessType) {
-                    return false;
-                }
-                long size = bufferContainer.size;
-                matchFound = (size == batchSize + ARRAY_HEADER);
-                if (matchFound) {
-                    logger.debug("Reuse buffer %s from the used-list for batch processing. Batch Size = %s, Access = %s %n", bufferContainer, batchSize, access);
-                }
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            boolean matchFound = pool.isLastUsedBufferOfSize(batchSize + ARRAY_HEADER, numberOfBuffersForAccessType);
+            if (matchFound) {
+                logger.debug("Reuse buffer from the used-list for batch processing. Batch Size = %s, Access = %s %n", batchSize, access);
             }
+            return matchFound;
         }
-        return matchFound;
     }
 
     protected abstract long allocateBuffer(long size, Access access);
 
     protected abstract void releaseBuffer(long buffer);
 
-    private synchronized long allocate(long size, Access access) {
-        long buffer = allocateBuffer(size, access);
-        currentMemoryAvailable -= size;
-        BufferContainer bufferInfo = new BufferContainer(buffer, size, access);
-        usedBuffers.get(access).add(bufferInfo);
-        logger.debug("Buffer %s has been allocated and included in the usedBuffers list with access: %s", bufferInfo, access);
-        return bufferInfo.buffer;
+    private boolean reserveDeviceMemory(long size) {
+        long available = currentMemoryAvailable.get();
+        while (size <= available) {
+            if (currentMemoryAvailable.compareAndSet(available, available - size)) {
+                return true;
+            }
+            available = currentMemoryAvailable.get();
+        }
+        return false;
     }
 
-    private synchronized void freeBuffers(long size, Access access) {
-        // Attempts to free buffers of given size.
-        long remainingSize = size;
-        while (!freeBuffers.get(access).isEmpty() && remainingSize > 0) {
-            BufferContainer bufferInfo = freeBuffers.get(access).removeFirst();
-            TornadoInternalError.guarantee(!usedBuffers.get(access).contains(bufferInfo), "This buffer should not be used");
-            remainingSize -= bufferInfo.size;
-            currentMemoryAvailable += bufferInfo.size;
-            releaseBuffer(bufferInfo.buffer);
+    private long allocate(SizeClassBufferPool pool, long capacity, long sizeInBytes, Access access) {
+        long buffer;
+        try {
+            buffer = allocateBuffer(capacity, access);
+        } catch (RuntimeException e) {
+            currentMemoryAvailable.addAndGet(capacity);
+            throw e;
         }
+        nativeAllocations.increment();
+        pool.addUsed(buffer, capacity, sizeInBytes);
+        logger.debug("Buffer %s of %s bytes has been allocated and included in the usedBuffers list with access: %s", buffer, capacity, access);
+        return buffer;
     }
 
-    public synchronized long deallocate(Access access) {
+    private long releaseFreeBuffers(SizeClassBufferPool pool, long size) {
         // Attempts to free buffers of given size.
         long spaceDeallocated = 0;
-        while (!freeBuffers.get(access).isEmpty()) {
-            BufferContainer bufferInfo = freeBuffers.get(access).removeFirst();
-            TornadoInternalError.guarantee(!usedBuffers.get(access).contains(bufferInfo), "This buffer should not be used");
-            currentMemoryAvailable += bufferInfo.size;
-            spaceDeallocated += bufferInfo.size;
-            releaseBuffer(bufferInfo.buffer);
+        BufferContainer bufferInfo;
+        while (spaceDeallocated < size && (bufferInfo = pool.pollLargestFree()) != null) {
+            releaseBuffer(bufferInfo.buffer());
+            nativeReleases.increment();
+            currentMemoryAvailable.addAndGet(bufferInfo.capacity());
+            spaceDeallocated += bufferInfo.capacity();
         }
         return spaceDeallocated;
     }
 
-    private synchronized BufferContainer markBufferUsed(int freeBufferIndex, Access access) {
-        BufferContainer buffer = freeBuffers.get(access).get(freeBufferIndex);
-        usedBuffers.get(access).add(buffer);
-        freeBuffers.get(access).remove(buffer);
-        return buffer;
-    }
-
-    /**
-     * First check if there is an available buffer of a given size. Perform a
-     * sequential search through the freeBuffers to get the buffer with the smaller
-     * size than can fulfill the allocation. The number of allocated buffers is
-     * usually low, so searching sequentially should not take a lot of time.
-     *
-     * @param sizeInBytes
-     *     Size in bytes for the requested buffer.
-     * @return returns the index position of a free buffer within the free buffer
-     *     list. It returns -1 if a free buffer slot is not found.
-     */
-    private synchronized int bufferIndexOfAFreeSpace(long sizeInBytes, Access access) {
-        int minBufferIndex = -1;
-        for (int i = 0; i < freeBuffers.get(access).size(); i++) {
-            BufferContainer bufferInfo = freeBuffers.get(access).get(i);
-            if (bufferInfo.size >= sizeInBytes && (minBufferIndex == -1 || bufferInfo.size < freeBuffers.get(access).get(minBufferIndex).size)) {
-                minBufferIndex = i;
-            }
+    public long deallocate(Access access) {
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            return releaseFreeBuffers(pool, Long.MAX_VALUE);
         }
-        return minBufferIndex;
     }
 
     /**
-     * There is no buffer to fulfill the size. Start freeing unused buffers and try
-     * to allocate.
-     *
-     * @param sizeInBytes
-     *     Size in bytes for the requested buffer.
-     * @return It returns a buffer native pointer.
-     */
-    private synchronized long freeUnusedNativeBufferAndAssignRegion(long sizeInBytes, Access access) {
-        freeBuffers(sizeInBytes, access);
-        if (sizeInBytes <= currentMemoryAvailable) {
-            return allocate(sizeInBytes, access);
-        } else {
-            throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory." + OUT_OF_MEMORY_MESSAGE);
-        }
-    }
-
-    /**
-     * Method that finds a suitable buffer for a requested buffer size. If a free
-     * memory buffer is found, it performs the native buffer allocation on the
-     * target device. Otherwise, it throws an exception.
+     * Method that finds a suitable buffer for a requested buffer size. A free
+     * buffer of the same size class is reused first. Otherwise, if there is
+     * enough device memory, it performs the native buffer allocation on the
+     * target device. If there is not, it reuses the best-fit free buffer, or
+     * releases free buffers and allocates. If none of them succeed, it throws
+     * an exception.
      *
      * @param sizeInBytes
      *     Size in bytes for the requested buffer.
@@ -197,44 +170,53 @@ public abstract class TornadoBufferProvider {
      * @throws {@link
      *     TornadoOutOfMemoryException}
      */
-    public synchronized long getOrAllocateBufferWithSize(long sizeInBytes, Access access) {
-        TornadoTargetDevice device = deviceContext.getDevice();
-        if (sizeInBytes <= currentMemoryAvailable && sizeInBytes < device.getDeviceMaxAllocationSize()) {
+    public long getOrAllocateBufferWithSize(long sizeInBytes, Access access) {
+        final long maxAllocationSize = deviceContext.getDevice().getDeviceMaxAllocationSize();
+        if (sizeInBytes >= maxAllocationSize) {
+            throw new TornadoOutOfMemoryException("[ERROR] Unable to allocate " + sizeInBytes + " bytes of memory." + OUT_OF_MEMORY_MESSAGE);
+        }
+        final long capacity = SizeClassBufferPool.sizeClassOf(sizeInBytes, DEVICE_BUFFER_SIZE_CLASS_LIMIT, maxAllocationSize);
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            // Reuse a free buffer of the same size class.
+            long buffer = pool.takeBestFit(sizeInBytes, capacity);
+            if (buffer != -1) {
+                reusedAllocations.increment();
+                return buffer;
+            }
             // Allocate if there is enough device memory.
-            return allocate(sizeInBytes, access);
-        } else if (sizeInBytes < device.getDeviceMaxAllocationSize()) {
-            int minBufferIndex = bufferIndexOfAFreeSpace(sizeInBytes, access);
-            // If a buffer was found, mark it as used and return it.
-            if (minBufferIndex != -1) {
-                return markBufferUsed(minBufferIndex, access).buffer;
-            } else {
-                return freeUnusedNativeBufferAndAssignRegion(sizeInBytes, access);
+            if (reserveDeviceMemory(capacity)) {
+                return allocate(pool, capacity, sizeInBytes, access);
+            }
+            // If a larger free buffer is found, mark it as used and return it.
+            buffer = pool.takeBestFit(sizeInBytes, Long.MAX_VALUE);
+            if (buffer != -1) {
+                reusedAllocations.increment();
+                return buffer;
+            }
+            // There is no buffer to fulfill the size. Start freeing unused buffers and try to allocate.
+            releaseFreeBuffers(pool, capacity);
+            if (reserveDeviceMemory(capacity)) {
+                return allocate(pool, capacity, sizeInBytes, access);
+            } else if (capacity != sizeInBytes && reserveDeviceMemory(sizeInBytes)) {
+                return allocate(pool, sizeInBytes, sizeInBytes, access);
             }
-        } else {
-            throw new TornadoOutOfMemoryException("[ERROR] Unable to allocate " + sizeInBytes + " bytes of memory." + OUT_OF_MEMORY_MESSAGE);
         }
+        throw new TornadoOutOfMemoryException("Unable to allocate " + sizeInBytes + " bytes of memory." + OUT_OF_MEMORY_MESSAGE);
     }
 
     /**
-     * Removes the buffer from the {@link #usedBuffers} list and add it to
-     * the @{@link #freeBuffers} list.
+     * Removes the buffer from the list of used buffers and add it to the free
+     * buffers of its capacity.
      */
-    public synchronized void markBufferReleased(long buffer, Access access) {
-        int foundIndex = -1;
-        for (int i = 0; i < usedBuffers.get(access).size(); i++) {
-            // find the buffer slot to mark it as free
-            if (usedBuffers.get(access).get(i) != null && usedBuffers.get(access).get(i).buffer == buffer) {
-                foundIndex = i;
-                break;
+    public void markBufferReleased(long buffer, Access access) {
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            BufferContainer removedBuffer = pool.release(buffer);
+            if (removedBuffer != null) {
+                logger.debug("Buffer %s has been released and included in the freeBuffers list for access: %s", removedBuffer, access);
             }
         }
-
-        if (foundIndex != -1) {
-            // if found, we mark it as free by inserting it into the free list
-            BufferContainer removedBuffer = usedBuffers.get(access).remove(foundIndex);
-            freeBuffers.get(access).add(removedBuffer);
-            logger.debug("Buffer %s has been released and included in the freeBuffers list for access: %s", removedBuffer, access);
-        }
     }
 
     /**
@@ -245,29 +227,36 @@ public abstract class TornadoBufferProvider {
      * @return boolean.
      */
     public boolean isNumFreeBuffersAvailable(int numBuffers, Access access) {
-        return freeBuffers.get(access).size() >= numBuffers;
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            return pool.getNumFreeBuffers() >= numBuffers;
+        }
     }
 
-    public synchronized void resetBuffers(Access access) {
-        freeBuffers(DEVICE_AVAILABLE_MEMORY, access);
+    public void resetBuffers(Access access) {
+        SizeClassBufferPool pool = bufferPools.get(access);
+        synchronized (pool) {
+            releaseFreeBuffers(pool, DEVICE_AVAILABLE_MEMORY);
+        }
     }
 
-    private record BufferContainer(long buffer, long size, Access access) {
-
-        @Override
-        public boolean equals(Object object) {
-            if (this == object) {
-                return true;
-            }
-            if (!(object instanceof BufferContainer that)) {
-                return false;
+    /**
+     * It returns a snapshot of the allocation counters and of the bytes in use
+     * and kept in the free lists for all access types.
+     *
+     * @return {@link BufferProviderStatistics}
+     */
+    public BufferProviderStatistics getStatistics() {
+        long bytesInUse = 0;
+        long bytesRequested = 0;
+        long bytesFree = 0;
+        for (SizeClassBufferPool pool : bufferPools.values()) {
+            synchronized (pool) {
+                bytesInUse += pool.getBytesInUse();
+                bytesRequested += pool.getBytesRequested();
+                bytesFree += pool.getBytesFree();
             }
-            return buffer == that.buffer && size == that.size;
-        }
-
-        @Override
-        public int hashCode() {
-            return (int) buffer;
         }
+        return new BufferProviderStatistics(nativeAllocations.sum(), reusedAllocations.sum(), nativeReleases.sum(), bytesInUse, bytesRequested, bytesFree);
     }
 }
@@ -0,0 +1,366 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.common.code;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+import uk.ac.manchester.tornado.runtime.domain.Domain;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskDataContext;
+
+/**
+ * Backend-neutral persistent cache of the kernels generated by the TornadoVM
+ * JIT compiler. An entry stores the generated code (OpenCL C, PTX or SPIR-V),
+ * the kernel name and the parallel domain of the task, and it is keyed by a
+ * hash of:
+ *
+ * <ul>
+ * <li>the bytecode of the task method and of every inlined or non-inlined
+ * callee,</li>
+ * <li>the values that the task specialisation folds into the kernel: scalar
+ * arguments, array lengths, final fields of captured objects and the batch
+ * configuration,</li>
+ * <li>the device descriptor and the backend compiler flags,</li>
+ * <li>every <code>tornado.*</code> system property, and the build of the
+ * backend.</li>
+ * </ul>
+ *
+ * On a hit, the driver installs the stored code and skips the Graal
+ * compilation of the task. It is enabled with
+ * <code>-Dtornado.kernel.cache.enable=True</code>, and the directory is set
+ * with <code>-Dtornado.kernel.cache.dir=[path]</code>.
+ */
+public final class PersistentKernelCache {
+
+    private static final int MAGIC = 0x544B4348;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_DOMAIN = -1;
+    private static final int MAX_FIELD_DEPTH = 4;
+    private static final String FILE_EXTENSION = ".kernel";
+    private static final String KERNEL_CACHE_PREFIX = "tornado.kernel.cache";
+
+    private static final TornadoLogger logger = new TornadoLogger(PersistentKernelCache.class);
+
+    private PersistentKernelCache() {
+    }
+
+    /**
+     * Code and metadata of a cached kernel.
+     *
+     * @param name
+     *     Name of the kernel entry point.
+     * @param domain
+     *     Parallel domain of the task, or null for a sequential kernel.
+     * @param code
+     *     Generated code.
+     */
+    public record Entry(String name, DomainTree domain, byte[] code) {
+    }
+
+    public static boolean isEnabled() {
+        return TornadoOptions.KERNEL_CACHE_ENABLE;
+    }
+
+    /**
+     * Builds the key of a task for the device.
+     *
+     * @return the key, or null if the task cannot be cached (e.g. an argument
+     *     cannot be inspected).
+     */
+    public static String computeKey(TornadoXPUDevice device, Class<?> backendClass, Sketch sketch, CompilableTask task) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        final TaskDataContext meta = task.meta();
+        update(digest, "format=" + FORMAT_VERSION);
+        update(digest, "build=" + buildStamp(backendClass));
+        update(digest, "device=" + device.getTornadoVMBackend() + ":" + device.getPlatformName() + ":" + device.getDescription());
+        update(digest, "flags=" + meta.getCompilerFlags(device.getTornadoVMBackend()));
+        updateTornadoProperties(digest);
+
+        StructuredGraph graph = (StructuredGraph) sketch.getGraph();
+        updateMethods(digest, graph.method(), graph, meta, new HashSet<>());
+
+        update(digest, "task=" + task.getId());
+        update(digest, "threads=" + meta.getNumThreads() + ":" + meta.isGridSchedulerEnabled());
+        update(digest, "batch=" + task.getBatchThreads() + ":" + task.getBatchNumber() + ":" + task.getBatchSize());
+        Map<Object, Long> elementsPerThread = task.getBatchElementsPerThread();
+        Object[] args = task.getArguments();
+        for (int i = 0; i < args.length; i++) {
+            StringBuilder sb = new StringBuilder("arg" + i + "=");
+            if (!fingerprint(args[i], sb, 0, new IdentityHashMap<>())) {
+                return null;
+            }
+            if (elementsPerThread != null && args[i] != null) {
+                sb.append(":elements=").append(elementsPerThread.get(args[i]));
+            }
+            update(digest, sb.toString());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the cached kernel for the key, or null on a miss.
+     */
+    public static Entry lookup(String key) {
+        if (key == null) {
+            return null;
+        }
+        Path path = Paths.get(TornadoOptions.KERNEL_CACHE_DIR, key + FILE_EXTENSION);
+        if (!Files.isRegularFile(path)) {
+            logger.debug("[kernel-cache] miss %s", key);
+            return null;
+        }
+        try (InputStream input = Files.newInputStream(path); DataInputStream stream = new DataInputStream(input)) {
+            if (stream.readInt() != MAGIC || stream.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String name = stream.readUTF();
+            DomainTree domain = null;
+            int depth = stream.readInt();
+            if (depth != NO_DOMAIN) {
+                domain = new DomainTree(depth);
+                for (int i = 0; i < depth; i++) {
+                    domain.set(i, new IntDomain(stream.readInt(), stream.readInt(), stream.readInt()));
+                }
+            }
+            byte[] code = new byte[stream.readInt()];
+            stream.readFully(code);
+            logger.debug("[kernel-cache] hit %s (%s)", key, name);
+            return new Entry(name, domain, code);
+        } catch (IOException e) {
+            logger.warn("[kernel-cache] unable to read %s: %s", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a kernel. The entry is written to a temporary file and moved into
+     * place, so concurrent JVMs never read a partial entry.
+     */
+    public static void store(String key, String name, DomainTree domain, byte[] code) {
+        if (key == null || code == null || !isStorable(domain)) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(code.length + 128);
+        try (DataOutputStream stream = new DataOutputStream(bytes)) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(FORMAT_VERSION);
+            stream.writeUTF(name);
+            if (domain == null) {
+                stream.writeInt(NO_DOMAIN);
+            } else {
+                stream.writeInt(domain.getDepth());
+                for (int i = 0; i < domain.getDepth(); i++) {
+                    IntDomain intDomain = (IntDomain) domain.get(i);
+                    stream.writeInt(intDomain.getOffset());
+                    stream.writeInt(intDomain.getStep());
+                    stream.writeInt(intDomain.cardinality());
+                }
+            }
+            stream.writeInt(code.length);
+            stream.write(code);
+        } catch (IOException e) {
+            return;
+        }
+
+        Path directory = Paths.get(TornadoOptions.KERNEL_CACHE_DIR);
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                bytes.writeTo(output);
+            }
+            Files.move(temporary, directory.resolve(key + FILE_EXTENSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("[kernel-cache] stored %s (%s)", key, name);
+        } catch (IOException e) {
+            logger.warn("[kernel-cache] unable to store %s: %s", key, e.getMessage());
+        }
+    }
+
+    private static boolean isStorable(DomainTree domain) {
+        if (domain == null) {
+            return true;
+        }
+        for (int i = 0; i < domain.getDepth(); i++) {
+            Domain level = domain.get(i);
+            if (!(level instanceof IntDomain)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void updateTornadoProperties(MessageDigest digest) {
+        Map<String, String> properties = new TreeMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("tornado.") && !name.startsWith(KERNEL_CACHE_PREFIX)) {
+                properties.put(name, System.getProperty(name));
+            }
+        }
+        properties.forEach((name, value) -> update(digest, name + "=" + value));
+    }
+
+    private static void updateMethods(MessageDigest digest, ResolvedJavaMethod method, StructuredGraph graph, TaskDataContext meta, Set<ResolvedJavaMethod> visited) {
+        if (!visited.add(method)) {
+            return;
+        }
+        updateMethod(digest, method);
+        if (graph == null) {
+            return;
+        }
+        if (graph.getMethods() != null) {
+            for (ResolvedJavaMethod inlined : graph.getMethods()) {
+                updateMethod(digest, inlined);
+            }
+        }
+        for (Invoke invoke : graph.getInvokes()) {
+            ResolvedJavaMethod callee = invoke.callTarget().targetMethod();
+            StructuredGraph calleeGraph;
+            try {
+                calleeGraph = (StructuredGraph) TornadoSketcher.lookup(callee, meta.getBackendIndex(), meta.getDeviceIndex()).getGraph();
+            } catch (TornadoInternalError e) {
+                // The callee is not sketched (e.g. an intrinsic): its bytecode is enough
+                calleeGraph = null;
+            }
+            updateMethods(digest, callee, calleeGraph, meta, visited);
+        }
+    }
+
+    private static void updateMethod(MessageDigest digest, ResolvedJavaMethod method) {
+        update(digest, method.format("%H.%n(%P)%R"));
+        byte[] code = method.getCode();
+        if (code != null) {
+            digest.update(code);
+        }
+    }
+
+    /**
+     * Appends the values of an argument that the task specialisation can fold
+     * into the kernel.
+     *
+     * @return false if the argument cannot be inspected.
+     */
+    private static boolean fingerprint(Object object, StringBuilder sb, int depth, Map<Object, Boolean> visited) {
+        if (object == null) {
+            sb.append("null;");
+            return true;
+        }
+        Class<?> type = object.getClass();
+        sb.append(type.getName());
+        if (RuntimeUtilities.isBoxedPrimitiveClass(type) || object instanceof String || object instanceof Enum<?>) {
+            sb.append('(').append(object).append(");");
+            return true;
+        } else if (type.isArray()) {
+            sb.append('[').append(Array.getLength(object)).append("];");
+            return true;
+        } else if (object instanceof TornadoNativeArray nativeArray) {
+            sb.append('[').append(nativeArray.getSizeLong()).append("];");
+            return true;
+        } else if (depth >= MAX_FIELD_DEPTH || visited.put(object, Boolean.TRUE) != null) {
+            sb.append(';');
+            return true;
+        }
+
+        sb.append('{');
+        for (Class<?> klass = type; klass != null && klass != Object.class; klass = klass.getSuperclass()) {
+            for (Field field : klass.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    sb.append(field.getName()).append('=');
+                    if (!fingerprint(field.get(object), sb, depth + 1, visited)) {
+                        return false;
+                    }
+                } catch (IllegalAccessException | InaccessibleObjectException e) {
+                    return false;
+                }
+            }
+        }
+        sb.append("};");
+        return true;
+    }
+
+    private static String buildStamp(Class<?> backendClass) {
+        CodeSource codeSource = backendClass.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return "unknown";
+        }
+        try {
+            File file = new File(codeSource.getLocation().toURI());
+            return file.getName() + ":" + file.length() + ":" + file.lastModified();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return codeSource.getLocation().toString();
+        }
+    }
+}
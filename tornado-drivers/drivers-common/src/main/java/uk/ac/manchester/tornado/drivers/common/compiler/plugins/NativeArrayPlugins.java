@@ -0,0 +1,92 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.common.compiler.plugins;
+
+import java.util.List;
+
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaField;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.exceptions.TornadoCompilationException;
+import uk.ac.manchester.tornado.api.types.arrays.ByteArray;
+import uk.ac.manchester.tornado.api.types.arrays.CharArray;
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.HalfFloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.Int8Array;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.LongArray;
+import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
+
+/**
+ * Plugins for the methods of the native arrays that are shared by all the
+ * backends.
+ */
+public final class NativeArrayPlugins {
+
+    private static final List<Class<?>> NATIVE_ARRAYS = List.of(ByteArray.class, CharArray.class, DoubleArray.class, FloatArray.class, HalfFloatArray.class, Int8Array.class, IntArray.class,
+            LongArray.class, ShortArray.class);
+
+    private static final String NUMBER_OF_ELEMENTS = "numberOfElements";
+
+    private NativeArrayPlugins() {
+    }
+
+    /**
+     * Replaces {@code getSize()} with a read of the {@code numberOfElements}
+     * field. On the host, {@code getSize()} throws for the arrays with more than
+     * {@link Integer#MAX_VALUE} elements; in the kernels, the task
+     * specialisation folds the field and bails out for those arrays instead.
+     */
+    public static void registerGetSizePlugins(InvocationPlugins plugins) {
+        for (Class<?> nativeArray : NATIVE_ARRAYS) {
+            Registration r = new Registration(plugins, nativeArray);
+            r.register(new InvocationPlugin("getSize", Receiver.class) {
+                @Override
+                public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                    ValueNode array = receiver.get(true);
+                    b.addPush(JavaKind.Int, LoadFieldNode.create(b.getAssumptions(), array, numberOfElements(targetMethod)));
+                    return true;
+                }
+            });
+        }
+    }
+
+    private static ResolvedJavaField numberOfElements(ResolvedJavaMethod getSize) {
+        for (ResolvedJavaField field : getSize.getDeclaringClass().getInstanceFields(true)) {
+            if (field.getName().equals(NUMBER_OF_ELEMENTS)) {
+                return field;
+            }
+        }
+        throw new TornadoCompilationException("Field " + NUMBER_OF_ELEMENTS + " not found in " + getSize.getDeclaringClass().toJavaName());
+    }
+}
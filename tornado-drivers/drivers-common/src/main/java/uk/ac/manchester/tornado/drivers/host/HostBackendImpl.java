@@ -0,0 +1,239 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import java.util.List;
+
+import org.graalvm.compiler.core.common.memory.BarrierType;
+import org.graalvm.compiler.core.common.memory.MemoryOrderMode;
+import org.graalvm.compiler.core.common.spi.MetaAccessExtensionProvider;
+import org.graalvm.compiler.hotspot.meta.HotSpotStampProvider;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.extended.JavaReadNode;
+import org.graalvm.compiler.nodes.extended.JavaWriteNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+import org.graalvm.compiler.nodes.loop.LoopsDataProviderImpl;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
+import org.graalvm.compiler.nodes.spi.LoweringProvider;
+import org.graalvm.compiler.nodes.spi.Replacements;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.util.Providers;
+import org.graalvm.compiler.printer.GraalDebugHandlersFactory;
+import org.graalvm.compiler.replacements.StandardGraphBuilderPlugins;
+import org.graalvm.compiler.replacements.classfile.ClassfileBytecodeProvider;
+import org.graalvm.compiler.word.WordTypes;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.runtime.JVMCIBackend;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoDeviceNotFound;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoMemorySegment;
+import uk.ac.manchester.tornado.drivers.common.compiler.plugins.NativeArrayPlugins;
+import uk.ac.manchester.tornado.drivers.providers.TornadoMetaAccessExtensionProvider;
+import uk.ac.manchester.tornado.drivers.providers.TornadoPlatformConfigurationProvider;
+import uk.ac.manchester.tornado.drivers.providers.TornadoWordTypes;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorBackend;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+import uk.ac.manchester.tornado.runtime.graal.backend.XPUBackend;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoConstantFieldProvider;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoForeignCallsProvider;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoReplacements;
+import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSnippetReflectionProvider;
+
+/**
+ * Backend that runs the tasks on the cores of the host with Java threads. It
+ * exposes a single device, {@link HostTornadoDevice}.
+ *
+ * <p>
+ * The backend does not generate code. The Graal providers are only used to
+ * build the sketches of the tasks, from which the TornadoVM runtime obtains the
+ * accesses of the parameters.
+ * </p>
+ */
+public final class HostBackendImpl implements TornadoAcceleratorBackend {
+
+    private static final HotSpotStampProvider stampProvider = new HotSpotStampProvider();
+    private static final TornadoSnippetReflectionProvider snippetReflection = new TornadoSnippetReflectionProvider();
+    private static final TornadoForeignCallsProvider foreignCalls = new TornadoForeignCallsProvider();
+    private static final TornadoConstantFieldProvider constantFieldProvider = new TornadoConstantFieldProvider();
+
+    private final Providers providers;
+    private final HostSuitesProvider suites;
+    private final HostTornadoDevice device;
+
+    public HostBackendImpl(final OptionValues options, final HotSpotJVMCIRuntime vmRuntime) {
+        JVMCIBackend jvmciBackend = vmRuntime.getHostJVMCIBackend();
+        MetaAccessProvider metaAccess = jvmciBackend.getMetaAccess();
+        TargetDescription target = jvmciBackend.getTarget();
+
+        TornadoPlatformConfigurationProvider platformConfigurationProvider = new TornadoPlatformConfigurationProvider();
+        MetaAccessExtensionProvider metaAccessExtensionProvider = new TornadoMetaAccessExtensionProvider();
+        HostLoweringProvider lowerer = new HostLoweringProvider(target);
+        WordTypes wordTypes = new TornadoWordTypes(metaAccess, target.wordJavaKind);
+
+        Providers p = new Providers(metaAccess, jvmciBackend.getCodeCache(), jvmciBackend.getConstantReflection(), constantFieldProvider, foreignCalls, lowerer, null, stampProvider,
+                platformConfigurationProvider, metaAccessExtensionProvider, snippetReflection, wordTypes, new LoopsDataProviderImpl());
+        ClassfileBytecodeProvider bytecodeProvider = new ClassfileBytecodeProvider(metaAccess, snippetReflection);
+        TornadoReplacements replacements = new TornadoReplacements(new GraalDebugHandlersFactory(snippetReflection), p, snippetReflection, bytecodeProvider, target);
+        Plugins plugins = createGraphBuilderPlugins(replacements, lowerer);
+        replacements.setGraphBuilderPlugins(plugins);
+
+        providers = p.copyWith(replacements);
+        suites = new HostSuitesProvider(options, plugins);
+        device = new HostTornadoDevice();
+    }
+
+    private static Plugins createGraphBuilderPlugins(Replacements replacements, LoweringProvider loweringProvider) {
+        InvocationPlugins invocationPlugins = new InvocationPlugins();
+        Plugins plugins = new Plugins(invocationPlugins);
+        StandardGraphBuilderPlugins.registerInvocationPlugins(snippetReflection, //
+                invocationPlugins, //
+                replacements, //
+                false, //
+                false, //
+                false, //
+                loweringProvider);
+        registerMemoryAccessPlugins(invocationPlugins);
+        NativeArrayPlugins.registerGetSizePlugins(invocationPlugins);
+        return plugins;
+    }
+
+    /**
+     * Replaces the accesses to native arrays with plain reads and writes, as the
+     * other backends do, so the sketcher does not inline the bounds checks of
+     * the memory segments.
+     */
+    private static void registerMemoryAccessPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, TornadoMemorySegment.class);
+        for (JavaKind kind : JavaKind.values()) {
+            if (kind != JavaKind.Object && kind != JavaKind.Void && kind != JavaKind.Illegal) {
+                r.register(new InvocationPlugin("get" + kind.name() + "AtIndex", Receiver.class, int.class, int.class) {
+                    @Override
+                    public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode baseIndex) {
+                        AddressNode addressNode = address(b, receiver, index, baseIndex, kind);
+                        b.addPush(kind, new JavaReadNode(kind, addressNode, LocationIdentity.any(), BarrierType.NONE, MemoryOrderMode.PLAIN, false));
+                        return true;
+                    }
+                });
+                r.register(new InvocationPlugin("setAtIndex", Receiver.class, int.class, kind.toJavaClass(), int.class) {
+                    @Override
+                    public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode index, ValueNode value, ValueNode baseIndex) {
+                        AddressNode addressNode = address(b, receiver, index, baseIndex, kind);
+                        b.add(new JavaWriteNode(kind, addressNode, LocationIdentity.any(), value, BarrierType.NONE, false));
+                        return true;
+                    }
+                });
+            }
+        }
+    }
+
+    private static AddressNode address(GraphBuilderContext b, Receiver receiver, ValueNode index, ValueNode baseIndex, JavaKind kind) {
+        AddNode absoluteIndexNode = b.append(new AddNode(index, baseIndex));
+        MulNode mulNode = b.append(new MulNode(absoluteIndexNode, ConstantNode.forInt(kind.getByteCount())));
+        return b.append(new OffsetAddressNode(receiver.get(true), mulNode));
+    }
+
+    @Override
+    public TornadoXPUDevice getDefaultDevice() {
+        return device;
+    }
+
+    @Override
+    public void setDefaultDevice(int index) {
+        // The backend has a single device
+        getDevice(index);
+    }
+
+    @Override
+    public int getNumDevices() {
+        return 1;
+    }
+
+    @Override
+    public TornadoXPUDevice getDevice(int index) {
+        if (index != 0) {
+            throw new TornadoDeviceNotFound("[ERROR] device required not found: " + index + " - Max: " + getNumDevices());
+        }
+        return device;
+    }
+
+    @Override
+    public List<TornadoDevice> getAllDevices() {
+        return List.of(device);
+    }
+
+    @Override
+    public TornadoDeviceType getTypeDefaultDevice() {
+        return device.getDeviceType();
+    }
+
+    @Override
+    public String getName() {
+        return "Host";
+    }
+
+    @Override
+    public int getNumPlatforms() {
+        return 1;
+    }
+
+    @Override
+    public TornadoVMBackendType getBackendType() {
+        return TornadoVMBackendType.JAVA;
+    }
+
+    /**
+     * The Host Backend does not generate code, so there is no Graal backend.
+     */
+    @Override
+    public XPUBackend<?> getDefaultBackend() {
+        return null;
+    }
+
+    @Override
+    public Providers getProviders() {
+        return providers;
+    }
+
+    @Override
+    public HostSuitesProvider getSuitesProvider() {
+        return suites;
+    }
+}
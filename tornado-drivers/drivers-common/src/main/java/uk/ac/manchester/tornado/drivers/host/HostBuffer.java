@@ -0,0 +1,121 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.memory.XPUBuffer;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+
+/**
+ * Buffer of the Host Backend. Tasks run on the host and read the Java objects
+ * directly, so the buffer does not hold a copy of the data and every transfer is
+ * a no-op.
+ */
+final class HostBuffer implements XPUBuffer {
+
+    private final Object reference;
+    private long subRegionSize;
+
+    HostBuffer(Object reference) {
+        this.reference = reference;
+    }
+
+    @Override
+    public long toBuffer() {
+        return 0;
+    }
+
+    @Override
+    public void setBuffer(XPUBufferWrapper bufferWrapper) {
+    }
+
+    @Override
+    public long getBufferOffset() {
+        return 0;
+    }
+
+    @Override
+    public void read(long executionPlanId, Object reference) {
+    }
+
+    @Override
+    public int read(long executionPlanId, Object reference, long hostOffset, long partialReadSize, int[] events, boolean useDeps) {
+        return -1;
+    }
+
+    @Override
+    public void write(long executionPlanId, Object reference) {
+    }
+
+    @Override
+    public int enqueueRead(long executionPlanId, Object reference, long hostOffset, int[] events, boolean useDeps) {
+        return -1;
+    }
+
+    @Override
+    public List<Integer> enqueueWrite(long executionPlanId, Object reference, long batchSize, long hostOffset, int[] events, boolean useDeps) {
+        return List.of();
+    }
+
+    @Override
+    public void allocate(Object reference, long batchSize, Access access) {
+    }
+
+    @Override
+    public void markAsFreeBuffer() {
+    }
+
+    @Override
+    public long size() {
+        return reference instanceof TornadoNativeArray nativeArray ? nativeArray.getNumBytesOfSegment() : 0;
+    }
+
+    @Override
+    public void setSizeSubRegion(long batchSize) {
+        this.subRegionSize = batchSize;
+    }
+
+    @Override
+    public long getSizeSubRegionSize() {
+        return subRegionSize;
+    }
+
+    @Override
+    public long deallocate() {
+        return 0;
+    }
+
+    @Override
+    public void mapOnDeviceMemoryRegion(long executionPlanId, XPUBuffer srcPointer, long offset) {
+        throw new TornadoRuntimeException("[UNSUPPORTED] Mapping device regions is not supported by the Host Backend");
+    }
+
+    @Override
+    public int getSizeOfType() {
+        return reference instanceof TornadoNativeArray nativeArray ? nativeArray.getElementSize() : 0;
+    }
+}
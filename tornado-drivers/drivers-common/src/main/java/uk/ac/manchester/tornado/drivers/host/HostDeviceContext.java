@@ -0,0 +1,153 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.memory.TornadoMemoryProvider;
+import uk.ac.manchester.tornado.runtime.EmptyEvent;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Device context of the Host Backend. It keeps the installed code of each
+ * execution plan and the events of the last launches.
+ */
+public class HostDeviceContext implements TornadoDeviceContext {
+
+    private final HostTargetDevice device;
+    private final Map<Long, Map<String, HostInstalledCode>> codeCache;
+    private final Event[] events;
+    private int eventIndex;
+    private boolean wasReset;
+
+    HostDeviceContext(HostTargetDevice device) {
+        this.device = device;
+        this.codeCache = new ConcurrentHashMap<>();
+        this.events = new Event[TornadoOptions.EVENT_WINDOW];
+    }
+
+    synchronized int registerEvent(Event event) {
+        int id = eventIndex;
+        events[id] = event;
+        eventIndex = (eventIndex + 1) % events.length;
+        return id;
+    }
+
+    synchronized Event resolveEvent(int event) {
+        if (event < 0 || event >= events.length || events[event] == null) {
+            return new EmptyEvent();
+        }
+        return events[event];
+    }
+
+    void install(long executionPlanId, String taskId, HostInstalledCode code) {
+        codeCache.computeIfAbsent(executionPlanId, planId -> new ConcurrentHashMap<>()).put(taskId, code);
+    }
+
+    HostInstalledCode getInstalledCode(long executionPlanId, String taskId) {
+        Map<String, HostInstalledCode> planCache = codeCache.get(executionPlanId);
+        return planCache == null ? null : planCache.get(taskId);
+    }
+
+    @Override
+    public TornadoTargetDevice getDevice() {
+        return device;
+    }
+
+    @Override
+    public TornadoMemoryProvider getMemoryManager() {
+        return device::getDeviceGlobalMemorySize;
+    }
+
+    @Override
+    public boolean wasReset() {
+        return wasReset;
+    }
+
+    @Override
+    public void reset(long executionPlanId) {
+        Map<String, HostInstalledCode> planCache = codeCache.remove(executionPlanId);
+        if (planCache != null) {
+            planCache.values().forEach(HostInstalledCode::invalidate);
+        }
+        wasReset = true;
+    }
+
+    @Override
+    public void setResetToFalse() {
+        wasReset = false;
+    }
+
+    @Override
+    public boolean isPlatformFPGA() {
+        return false;
+    }
+
+    @Override
+    public boolean isPlatformXilinxFPGA() {
+        return false;
+    }
+
+    @Override
+    public boolean isFP64Supported() {
+        return true;
+    }
+
+    @Override
+    public boolean isCached(long executionPlanId, String methodName, SchedulableTask task) {
+        return getInstalledCode(executionPlanId, task.getId()) != null;
+    }
+
+    @Override
+    public int getDeviceIndex() {
+        return 0;
+    }
+
+    @Override
+    public int getDevicePlatform() {
+        return 0;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return device.getDeviceName();
+    }
+
+    @Override
+    public int getDriverIndex() {
+        return TornadoCoreRuntime.getTornadoRuntime().getBackendIndex(HostBackendImpl.class);
+    }
+
+    @Override
+    public Set<Long> getRegisteredPlanIds() {
+        return codeCache.keySet();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.api.memory.XPUBuffer;
+import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
+import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
+import uk.ac.manchester.tornado.runtime.fallback.JavaFallbackRunner;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskDataContext;
+
+/**
+ * Installed code of the Host Backend. There is no kernel: each launch runs the
+ * Java method of the task on the threads of the host and returns when all
+ * threads have finished.
+ */
+final class HostInstalledCode implements TornadoInstalledCode {
+
+    private final CompilableTask task;
+    private final HostDeviceContext deviceContext;
+    private boolean valid;
+
+    HostInstalledCode(CompilableTask task, HostDeviceContext deviceContext) {
+        this.task = task;
+        this.deviceContext = deviceContext;
+        this.valid = true;
+    }
+
+    private int launch(TaskDataContext meta, long batchThreads) {
+        if (batchThreads != 0) {
+            throw new TornadoBailoutRuntimeException("[UNSUPPORTED] Batch processing is not supported by the Host Backend: " + task.getFullName());
+        }
+        WorkerGrid workerGrid = meta.isWorkerGridAvailable() ? meta.getWorkerGrid(meta.getId()) : null;
+        final long start = System.nanoTime();
+        JavaFallbackRunner.run(task.getFullName(), task.getMethod(), task.getArguments(), workerGrid);
+        final long end = System.nanoTime();
+        return deviceContext.registerEvent(new HostEvent(task.getId(), start, end));
+    }
+
+    @Override
+    public int launchWithDependencies(long executionPlanId, KernelStackFrame callWrapper, XPUBuffer atomicSpace, TaskDataContext meta, long batchThreads, int[] waitEvents) {
+        // Launches are synchronous, so all events are already complete
+        return launch(meta, batchThreads);
+    }
+
+    @Override
+    public int launchWithoutDependencies(long executionPlanId, KernelStackFrame callWrapper, XPUBuffer atomicSpace, TaskDataContext meta, long batchThreads) {
+        return launch(meta, batchThreads);
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public void invalidate() {
+        valid = false;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Describes the cores of the host as seen by the Host Backend. The number of
+ * compute units is the number of threads of the Java fallback pool (see
+ * {@link TornadoOptions#BAILOUT_PARALLEL_THREADS}). Global and local memory are
+ * allocated in the Java heap.
+ */
+public class HostTargetDevice implements TornadoTargetDevice {
+
+    /**
+     * Maximum number of work-items of a work-group. Work-groups that synchronise
+     * run each work-item on a virtual thread.
+     */
+    private static final int MAX_WORK_GROUP_SIZE = 1024;
+
+    private final String deviceName;
+
+    public HostTargetDevice() {
+        this.deviceName = String.format("Host %s (%d threads)", System.getProperty("os.arch"), TornadoOptions.BAILOUT_PARALLEL_THREADS);
+    }
+
+    @Override
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    @Override
+    public long getDeviceGlobalMemorySize() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    @Override
+    public long getDeviceLocalMemorySize() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    @Override
+    public int getDeviceMaxComputeUnits() {
+        return TornadoOptions.BAILOUT_PARALLEL_THREADS;
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkItemSizes() {
+        return new long[] { MAX_WORK_GROUP_SIZE, MAX_WORK_GROUP_SIZE, MAX_WORK_GROUP_SIZE };
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkGroupSize() {
+        return new long[] { MAX_WORK_GROUP_SIZE };
+    }
+
+    @Override
+    public int getMaxThreadsPerBlock() {
+        return MAX_WORK_GROUP_SIZE;
+    }
+
+    @Override
+    public int getDeviceMaxClockFrequency() {
+        // Not available from Java
+        return 0;
+    }
+
+    @Override
+    public long getDeviceMaxConstantBufferSize() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    @Override
+    public long getDeviceMaxAllocationSize() {
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    @Override
+    public String getDeviceInfo() {
+        return String.format("Name: %s\nJava VM: %s %s\nCompute Units: %d\nMax Work Group Size: %d", deviceName, System.getProperty("java.vm.name"), System.getProperty("java.vm.version"),
+                getDeviceMaxComputeUnits(), MAX_WORK_GROUP_SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return deviceName;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.host;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.Event;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.memory.DeviceBufferState;
+import uk.ac.manchester.tornado.api.memory.TornadoMemoryProvider;
+import uk.ac.manchester.tornado.api.memory.XPUBuffer;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
+import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+import uk.ac.manchester.tornado.runtime.common.XPUDeviceBufferState;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+
+/**
+ * Device of the Host Backend. Tasks run on the cores of the host with the Java
+ * threads of the fallback runners, so no native driver is needed:
+ *
+ * <ul>
+ * <li>Loops annotated with {@link uk.ac.manchester.tornado.api.annotations.Parallel}
+ * are split in blocks, one per thread.</li>
+ * <li>Kernels that use the {@link uk.ac.manchester.tornado.api.KernelContext}
+ * run one work-group per thread. Barriers and local memory are emulated for
+ * each work-group.</li>
+ * </ul>
+ *
+ * <p>
+ * The device shares the memory with the host, so buffers hold references to the
+ * Java objects and data transfers do not copy any data.
+ * </p>
+ */
+public class HostTornadoDevice implements TornadoXPUDevice {
+
+    private final HostTargetDevice device;
+    private final HostDeviceContext deviceContext;
+
+    HostTornadoDevice() {
+        this.device = new HostTargetDevice();
+        this.deviceContext = new HostDeviceContext(device);
+    }
+
+    @Override
+    public TornadoSchedulingStrategy getPreferredSchedule() {
+        return TornadoSchedulingStrategy.PER_CPU_BLOCK;
+    }
+
+    @Override
+    public KernelStackFrame createKernelStackFrame(long executionPlanId, int numArgs, Access access) {
+        return new HostKernelStackFrame(numArgs);
+    }
+
+    @Override
+    public XPUBuffer createOrReuseAtomicsBuffer(int[] arr, Access access) {
+        // Atomic classes of Java are used directly by the host threads
+        return null;
+    }
+
+    @Override
+    public TornadoInstalledCode installCode(long executionPlanId, SchedulableTask task) {
+        if (!(task instanceof CompilableTask compilableTask)) {
+            throw new TornadoBailoutRuntimeException("[UNSUPPORTED] Prebuilt tasks are not supported by the Host Backend: " + task.getFullName());
+        }
+        HostInstalledCode code = deviceContext.getInstalledCode(executionPlanId, task.getId());
+        if (code == null || !code.isValid()) {
+            code = new HostInstalledCode(compilableTask, deviceContext);
+            deviceContext.install(executionPlanId, task.getId(), code);
+        }
+        return code;
+    }
+
+    @Override
+    public boolean isFullJITMode(long executionPlanId, SchedulableTask task) {
+        return false;
+    }
+
+    @Override
+    public TornadoInstalledCode getCodeFromCache(long executionPlanId, SchedulableTask task) {
+        return deviceContext.getInstalledCode(executionPlanId, task.getId());
+    }
+
+    @Override
+    public int[] checkAtomicsForTask(SchedulableTask task) {
+        return null;
+    }
+
+    @Override
+    public int[] checkAtomicsForTask(SchedulableTask task, int[] array, int paramIndex, Object value) {
+        return array;
+    }
+
+    @Override
+    public int[] updateAtomicRegionAndObjectState(SchedulableTask task, int[] array, int paramIndex, Object value, XPUDeviceBufferState objectState) {
+        return array;
+    }
+
+    @Override
+    public int getAtomicsGlobalIndexForTask(SchedulableTask task, int paramIndex) {
+        return -1;
+    }
+
+    @Override
+    public boolean checkAtomicsParametersForTask(SchedulableTask task) {
+        return false;
+    }
+
+    @Override
+    public void enableThreadSharing() {
+    }
+
+    @Override
+    public void setAtomicRegion(XPUBuffer bufferAtomics) {
+    }
+
+    @Override
+    public long allocate(Object object, long batchSize, DeviceBufferState state, Access access) {
+        if (!state.hasObjectBuffer()) {
+            state.setXPUBuffer(new HostBuffer(object));
+        }
+        // No device memory is allocated
+        return 0;
+    }
+
+    @Override
+    public long allocateObjects(Object[] objects, long batchSize, DeviceBufferState[] states, Access[] accesses) {
+        for (int i = 0; i < objects.length; i++) {
+            allocate(objects[i], batchSize, states[i], accesses[i]);
+        }
+        return 0;
+    }
+
+    @Override
+    public long deallocate(DeviceBufferState state) {
+        if (state.isLockedBuffer()) {
+            return 0;
+        }
+        state.setContents(false);
+        state.setXPUBuffer(null);
+        return 0;
+    }
+
+    @Override
+    public List<Integer> ensurePresent(long executionPlanId, Object object, DeviceBufferState objectState, int[] events, long batchSize, long hostOffset) {
+        objectState.setContents(true);
+        return null;
+    }
+
+    @Override
+    public List<Integer> streamIn(long executionPlanId, Object object, long batchSize, long hostOffset, DeviceBufferState objectState, int[] events) {
+        objectState.setContents(true);
+        return null;
+    }
+
+    @Override
+    public int streamOut(long executionPlanId, Object object, long hostOffset, DeviceBufferState objectState, int[] events) {
+        return -1;
+    }
+
+    @Override
+    public int streamOutBlocking(long executionPlanId, Object object, long hostOffset, DeviceBufferState objectState, int[] events) {
+        return -1;
+    }
+
+    @Override
+    public Event resolveEvent(long executionPlanId, int event) {
+        return deviceContext.resolveEvent(event);
+    }
+
+    @Override
+    public void ensureLoaded(long executionPlanId) {
+    }
+
+    @Override
+    public void flushEvents(long executionPlanId) {
+    }
+
+    @Override
+    public int enqueueBarrier(long executionPlanId) {
+        return -1;
+    }
+
+    @Override
+    public int enqueueBarrier(long executionPlanId, int[] events) {
+        return -1;
+    }
+
+    @Override
+    public int enqueueMarker(long executionPlanId) {
+        return -1;
+    }
+
+    @Override
+    public int enqueueMarker(long executionPlanId, int[] events) {
+        return -1;
+    }
+
+    @Override
+    public void sync(long executionPlanId) {
+    }
+
+    @Override
+    public void flush(long executionPlanId) {
+    }
+
+    @Override
+    public void clean() {
+        Set<Long> ids = new HashSet<>(deviceContext.getRegisteredPlanIds());
+        ids.forEach(deviceContext::reset);
+    }
+
+    @Override
+    public void dumpEvents(long executionPlanId) {
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "host";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format("%s %s", device.getDeviceName(), getDeviceType());
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Host";
+    }
+
+    @Override
+    public TornadoDeviceContext getDeviceContext() {
+        return deviceContext;
+    }
+
+    @Override
+    public TornadoTargetDevice getPhysicalDevice() {
+        return device;
+    }
+
+    @Override
+    public TornadoMemoryProvider getMemoryProvider() {
+        return deviceContext.getMemoryManager();
+    }
+
+    @Override
+    public TornadoDeviceType getDeviceType() {
+        return TornadoDeviceType.CPU;
+    }
+
+    @Override
+    public long getMaxAllocMemory() {
+        return device.getDeviceMaxAllocationSize();
+    }
+
+    @Override
+    public long getMaxGlobalMemory() {
+        return device.getDeviceGlobalMemorySize();
+    }
+
+    @Override
+    public long getDeviceLocalMemorySize() {
+        return device.getDeviceLocalMemorySize();
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkgroupDimensions() {
+        return device.getDeviceMaxWorkItemSizes();
+    }
+
+    @Override
+    public String getDeviceOpenCLCVersion() {
+        return "N/A";
+    }
+
+    @Override
+    public Object getDeviceInfo() {
+        return device.getDeviceInfo();
+    }
+
+    @Override
+    public int getBackendIndex() {
+        return TornadoCoreRuntime.getTornadoRuntime().getBackendIndex(HostBackendImpl.class);
+    }
+
+    @Override
+    public int getAvailableProcessors() {
+        return device.getDeviceMaxComputeUnits();
+    }
+
+    @Override
+    public Object getAtomic() {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public void setAtomicsMapping(ConcurrentHashMap<Object, Integer> mappingAtomics) {
+    }
+
+    @Override
+    public TornadoVMBackendType getTornadoVMBackend() {
+        return TornadoVMBackendType.JAVA;
+    }
+
+    @Override
+    public boolean isSPIRVSupported() {
+        return false;
+    }
+
+    @Override
+    public void mapDeviceRegion(long executionPlanId, Object destArray, Object srcArray, DeviceBufferState deviceStateSrc, DeviceBufferState deviceStateDest, long offset) {
+        throw new TornadoRuntimeException("[UNSUPPORTED] Mapping device regions is not supported by the Host Backend");
+    }
+
+    @Override
+    public String toString() {
+        return String.format(" [" + getPlatformName() + "] -- " + device.getDeviceName());
+    }
+}
@@ -29,6 +29,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -64,6 +65,7 @@ import uk.ac.manchester.tornado.api.types.arrays.IntArray;
 import uk.ac.manchester.tornado.api.types.arrays.LongArray;
 import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.drivers.common.code.PersistentKernelCache;
 import uk.ac.manchester.tornado.drivers.opencl.OCLBackendImpl;
 import uk.ac.manchester.tornado.drivers.opencl.OCLCodeCache;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
@@ -90,6 +92,7 @@ import uk.ac.manchester.tornado.drivers.opencl.mm.OCLMultiDimArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
 import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -263,10 +266,31 @@ public class OCLTornadoDevice implements TornadoXPUDevice {
         final Access[] taskAccess = taskMeta.getArgumentsAccess();
         System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
 
+        // FPGA kernels are built offline, so they are not stored in the persistent kernel cache
+        final String kernelCacheKey = PersistentKernelCache.isEnabled() && !OCLBackend.isDeviceAnFPGAAccelerator(deviceContext)
+                ? PersistentKernelCache.computeKey(this, OCLCompiler.class, sketch, executable)
+                : null;
+
         try {
             OCLProviders providers = (OCLProviders) getBackend().getProviders();
             TornadoProfiler profiler = task.getProfiler();
             profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            final PersistentKernelCache.Entry cachedKernel = PersistentKernelCache.lookup(kernelCacheKey);
+            if (cachedKernel != null) {
+                taskMeta.setCompiledGraph(resolvedMethod);
+                if (taskMeta.getDomain() == null) {
+                    taskMeta.setDomain(cachedKernel.domain());
+                }
+                profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+                profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+
+                profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                OCLInstalledCode installedCode = deviceContext.installCode(executionPlanId, taskMeta, task.getId(), cachedKernel.name(), cachedKernel.code());
+                profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+                return installedCode;
+            }
+
             final OCLCompilationResult result = OCLCompiler.compileSketchForDevice(sketch, executable, providers, getBackend(), executable.getProfiler());
 
             // Update atomics buffer for inner methods that are not inlined
@@ -287,6 +311,11 @@ public class OCLTornadoDevice implements TornadoXPUDevice {
             profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
 
+            // Kernels with atomics depend on the mappings registered during compilation, so they are not cached
+            if (kernelCacheKey != null && !TornadoAtomicIntegerNode.globalAtomics.containsKey(resolvedMethod) && Arrays.stream(methods).noneMatch(TornadoAtomicIntegerNode.globalAtomics::containsKey)) {
+                PersistentKernelCache.store(kernelCacheKey, result.getName(), taskMeta.getDomain(), result.getTargetCode());
+            }
+
             profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             // Compile the code
             OCLInstalledCode installedCode;
@@ -829,6 +858,11 @@ public class OCLTornadoDevice implements TornadoXPUDevice {
         atomicsBuffer = bufferAtomics;
     }
 
+    @Override
+    public BufferProviderStatistics getBufferProviderStatistics() {
+        return getDeviceContext().getBufferProvider().getStatistics();
+    }
+
     @Override
     public TornadoVMBackendType getTornadoVMBackend() {
         return TornadoVMBackendType.OPENCL;
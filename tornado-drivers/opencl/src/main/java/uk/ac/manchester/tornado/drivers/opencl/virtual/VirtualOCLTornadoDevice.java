@@ -207,6 +207,7 @@ public class VirtualOCLTornadoDevice implements TornadoXPUDevice {
             if (taskMeta.isPrintKernelEnabled()) {
                 RuntimeUtilities.dumpKernel(result.getTargetCode());
             }
+            RuntimeUtilities.dumpVirtualKernel(taskMeta.getId(), "cl", result.getTargetCode());
 
             return null;
         } catch (Exception e) {
@@ -24,6 +24,8 @@
 
 package uk.ac.manchester.tornado.drivers.ptx;
 
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_DEVICE_ENABLED;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -38,6 +40,7 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoDeviceNotFound;
 import uk.ac.manchester.tornado.drivers.ptx.graal.PTXHotSpotBackendFactory;
 import uk.ac.manchester.tornado.drivers.ptx.graal.backend.PTXBackend;
+import uk.ac.manchester.tornado.drivers.ptx.virtual.VirtualPTXPlatform;
 import uk.ac.manchester.tornado.runtime.TornadoAcceleratorBackend;
 import uk.ac.manchester.tornado.runtime.TornadoVMConfigAccess;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
@@ -52,7 +55,7 @@ public final class PTXBackendImpl implements TornadoAcceleratorBackend {
 
     public PTXBackendImpl(final OptionValues options, final HotSpotJVMCIRuntime vmRuntime, TornadoVMConfigAccess vmConfig) {
 
-        int deviceCount = PTX.getPlatform().getDeviceCount();
+        int deviceCount = getPlatformDeviceCount();
         logger = new TornadoLogger(this.getClass());
         backends = new PTXBackend[deviceCount];
         logger.info("CUDA: Has %d devices...", deviceCount);
@@ -65,8 +68,20 @@ public final class PTXBackendImpl implements TornadoAcceleratorBackend {
         }
     }
 
+    /**
+     * The virtual platform does not load the CUDA driver, so it is used instead of
+     * {@link PTX#getPlatform()} when virtual devices are enabled.
+     */
+    private static int getPlatformDeviceCount() {
+        return VIRTUAL_DEVICE_ENABLED ? VirtualPTXPlatform.getPlatform().getDeviceCount() : PTX.getPlatform().getDeviceCount();
+    }
+
+    private static PTXDevice getPlatformDevice(int deviceIndex) {
+        return VIRTUAL_DEVICE_ENABLED ? VirtualPTXPlatform.getPlatform().getDevice(deviceIndex) : PTX.getPlatform().getDevice(deviceIndex);
+    }
+
     private void installDevice(int deviceIndex, OptionValues options, HotSpotJVMCIRuntime vmRuntime, TornadoVMConfigAccess vmConfig) {
-        PTXDevice device = PTX.getPlatform().getDevice(deviceIndex);
+        PTXDevice device = getPlatformDevice(deviceIndex);
         logger.info("Creating backend for %s", device.getDeviceName());
         backends[deviceIndex] = PTXHotSpotBackendFactory.createJITCompiler(options, vmRuntime, vmConfig, device);
     }
@@ -117,7 +132,7 @@ public final class PTXBackendImpl implements TornadoAcceleratorBackend {
 
     @Override
     public int getNumDevices() {
-        return PTX.getPlatform().getDeviceCount();
+        return getPlatformDeviceCount();
     }
 
     @Override
@@ -43,6 +43,15 @@ public class PTXContext {
 
     }
 
+    /**
+     * Creates a context that is not backed by a CUDA context, for the virtual
+     * devices.
+     */
+    protected PTXContext(PTXDeviceContext deviceContext) {
+        ptxContext = 0;
+        this.deviceContext = deviceContext;
+    }
+
     private native static long cuCtxCreate(long deviceIndex);
 
     private native static long cuCtxDestroy(long cuContext);
@@ -24,6 +24,7 @@
 package uk.ac.manchester.tornado.drivers.ptx;
 
 import java.nio.ByteOrder;
+import java.util.function.Function;
 
 import uk.ac.manchester.tornado.api.TornadoTargetDevice;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
@@ -71,6 +72,36 @@ public class PTXDevice implements TornadoTargetDevice {
         maxAllocationSize = cuMemGetInfo();
     }
 
+    /**
+     * Creates a device from its description instead of querying the CUDA driver.
+     * It is used by the virtual devices, which generate code without a GPU.
+     *
+     * @param cudaVersion
+     *     Version of the CUDA driver (e.g., 11070), which selects the PTX ISA.
+     * @param contextFactory
+     *     Creates the context of the device.
+     */
+    protected PTXDevice(int deviceIndex, String name, CUDAComputeCapability computeCapability, int cudaVersion, long[] maxWorkItemSizes, long[] maxGridSizes, int maxThreadsPerBlock,
+            long localMemorySize, long totalDeviceMemory, int numComputeUnits, Function<PTXDevice, PTXContext> contextFactory) {
+        this.deviceIndex = deviceIndex;
+        this.cuDevice = -1;
+        this.name = name;
+        // All CUDA devices have 64KB of constant memory
+        this.constantBufferSize = 64 * 1024;
+        this.totalDeviceMemory = totalDeviceMemory;
+        this.localMemorySize = localMemorySize;
+        this.numComputeUnits = numComputeUnits;
+        this.maxFrequency = 0;
+        this.maxWorkItemSizes = maxWorkItemSizes;
+        this.maxGridSizes = maxGridSizes;
+        this.maxThreadsPerBlock = maxThreadsPerBlock;
+        this.ptxVersion = CUDAVersion.getMaxPTXVersion(cudaVersion);
+        this.computeCapability = computeCapability;
+        this.targetArchitecture = ptxVersion.getArchitecture(computeCapability);
+        this.maxAllocationSize = totalDeviceMemory;
+        this.context = contextFactory.apply(this);
+    }
+
     private static native long cuDeviceGet(int deviceId);
 
     private static native String cuDeviceGetName(long cuDevice);
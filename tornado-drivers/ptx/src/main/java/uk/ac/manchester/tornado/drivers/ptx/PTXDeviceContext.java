@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import uk.ac.manchester.tornado.api.TornadoDeviceContext;
 import uk.ac.manchester.tornado.api.WorkerGrid;
@@ -77,10 +78,14 @@ public class PTXDeviceContext implements TornadoDeviceContext {
     private final Map<Long, PTXCodeCache> codeCache;
 
     public PTXDeviceContext(PTXDevice device) {
+        this(device, PTXNvidiaPowerMetricHandler::new);
+    }
+
+    protected PTXDeviceContext(PTXDevice device, Function<PTXDeviceContext, PowerMetric> powerMetricFactory) {
         this.device = device;
         streamTable = new ConcurrentHashMap<>();
         this.scheduler = new PTXScheduler(device);
-        this.powerMetricHandler = new PTXNvidiaPowerMetricHandler(this);
+        this.powerMetricHandler = powerMetricFactory.apply(this);
         codeCache = new ConcurrentHashMap<>();
         memoryManager = new PTXMemoryManager(this);
         bufferProvider = new PTXBufferProvider(this);
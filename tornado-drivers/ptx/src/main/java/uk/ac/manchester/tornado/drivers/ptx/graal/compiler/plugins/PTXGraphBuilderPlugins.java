@@ -65,6 +65,7 @@ import uk.ac.manchester.tornado.api.types.arrays.IntArray;
 import uk.ac.manchester.tornado.api.types.arrays.LongArray;
 import uk.ac.manchester.tornado.api.types.arrays.TornadoMemorySegment;
 import uk.ac.manchester.tornado.api.utils.QuantizationUtils;
+import uk.ac.manchester.tornado.drivers.common.compiler.plugins.NativeArrayPlugins;
 import uk.ac.manchester.tornado.drivers.ptx.graal.PTXArchitecture;
 import uk.ac.manchester.tornado.drivers.ptx.graal.lir.PTXKind;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.AtomAddNodeTemplate;
@@ -113,6 +114,7 @@ public class PTXGraphBuilderPlugins {
         PTXVectorPlugins.registerPlugins(ps, plugins);
         PTXHalfFloatPlugin.registerPlugins(ps, plugins);
         registerMemoryAccessPlugins(plugins, metaAccessProvider);
+        NativeArrayPlugins.registerGetSizePlugins(plugins);
         registerKernelContextPlugins(plugins);
         registerQuantizationUtilsPlugins(plugins);
     }
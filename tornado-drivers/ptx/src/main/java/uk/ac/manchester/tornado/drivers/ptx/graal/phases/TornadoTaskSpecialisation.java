@@ -60,9 +60,11 @@ import jdk.vm.ci.meta.ResolvedJavaField;
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.types.HalfFloat;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
 import uk.ac.manchester.tornado.drivers.common.compiler.phases.analysis.TornadoValueTypeReplacement;
 import uk.ac.manchester.tornado.drivers.common.compiler.phases.loops.TornadoLoopUnroller;
 import uk.ac.manchester.tornado.drivers.ptx.graal.nodes.PTXKernelContextAccessNode;
+import uk.ac.manchester.tornado.runtime.common.BatchCompilationConfig;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
@@ -77,6 +79,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private final DeadCodeEliminationPhase deadCodeElimination;
     private final TornadoLoopUnroller loopUnroll;
     private long batchThreads;
+    private BatchCompilationConfig batchCompilationConfig;
     private int index;
     private boolean gridScheduling;
     private boolean printOnce = true;
@@ -213,12 +216,7 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
                 node.replaceAtUsages(kernelContextAccessNode);
                 index++;
             } else {
-                final ConstantNode constant;
-                if (batchThreads <= 0) {
-                    constant = ConstantNode.forInt(length);
-                } else {
-                    constant = ConstantNode.forInt((int) batchThreads);
-                }
+                final ConstantNode constant = ConstantNode.forInt(batchedLength(node, value, length));
                 node.replaceAtUsages(graph.addOrUnique(constant));
             }
             arrayLength.clearInputs();
@@ -232,7 +230,11 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
                     if (batchThreads <= 0) {
                         constant = lookupPrimField(graph, node, value, field.getName(), field.getJavaKind());
                     } else {
-                        constant = ConstantNode.forInt((int) batchThreads);
+                        int length = lookupPrimField(graph, node, value, field.getName(), field.getJavaKind()).asJavaConstant().asInt();
+                        constant = ConstantNode.forInt(batchedLength(node, value, length));
+                    }
+                    if (value instanceof TornadoNativeArray && constant.asJavaConstant().asInt() == TornadoNativeArray.OVERSIZED) {
+                        throw new TornadoBailoutRuntimeException("[UNSUPPORTED] Arrays with more than 2^31 elements must be processed in batches");
                     }
                 } else {
                     constant = lookupPrimField(graph, node, value, field.getName(), field.getJavaKind());
@@ -281,6 +283,30 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         };
     }
 
+
+    /**
+     * In batch processing, the length of an argument processed in batches is
+     * the length of its batch, and the rest of the arguments keep their length.
+     * The bound of the parallel loop must be an argument processed in batches
+     * with one element per thread.
+     */
+    private int batchedLength(Node node, Object value, int length) {
+        if (batchThreads <= 0) {
+            return length;
+        }
+        final boolean isParallelLoopBound = isParameterInvolvedInParallelLoopBound(node);
+        if (!batchCompilationConfig.isBatched(value)) {
+            if (isParallelLoopBound) {
+                throw new TornadoBailoutRuntimeException("[UNSUPPORTED] The parallel loop bound is given by an object that is not processed in batches");
+            }
+            return length;
+        }
+        if (isParallelLoopBound && !batchCompilationConfig.isIterationSpace(value)) {
+            throw new TornadoBailoutRuntimeException("[UNSUPPORTED] The parallel loop bound is given by an object with more than one element per iteration");
+        }
+        return (int) batchCompilationConfig.getBatchLength(value);
+    }
+
     private boolean isParameterInvolvedInParallelLoopBound(Node parameterNode) {
         AtomicBoolean parameterInLoopBound = new AtomicBoolean(false);
         parameterNode.usages().snapshot().forEach(node -> {
@@ -350,7 +376,8 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         int iterations = 0;
         int lastNodeCount = graph.getNodeCount();
         boolean hasWork = true;
-        this.batchThreads = context.getBatchCompilationConfig().getBatchThreads();
+        this.batchCompilationConfig = context.getBatchCompilationConfig();
+        this.batchThreads = batchCompilationConfig.getBatchThreads();
         this.gridScheduling = context.isGridSchedulerEnabled();
 
         while (hasWork) {
@@ -59,6 +59,7 @@ import uk.ac.manchester.tornado.api.types.arrays.IntArray;
 import uk.ac.manchester.tornado.api.types.arrays.LongArray;
 import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.drivers.common.code.PersistentKernelCache;
 import uk.ac.manchester.tornado.drivers.ptx.PTX;
 import uk.ac.manchester.tornado.drivers.ptx.PTXBackendImpl;
 import uk.ac.manchester.tornado.drivers.ptx.PTXDevice;
@@ -81,6 +82,7 @@ import uk.ac.manchester.tornado.drivers.ptx.mm.PTXMultiDimArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.ptx.mm.PTXVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
 import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -103,12 +105,16 @@ public class PTXTornadoDevice implements TornadoXPUDevice {
     private final TornadoLogger logger;
 
     public PTXTornadoDevice(final int deviceIndex) {
+        this(deviceIndex, PTX.getPlatform().getDevice(deviceIndex));
+    }
+
+    protected PTXTornadoDevice(final int deviceIndex, PTXDevice device) {
         this.deviceIndex = deviceIndex;
         driver = TornadoCoreRuntime.getTornadoRuntime().getBackend(PTXBackendImpl.class);
         if (driver == null) {
             throw new RuntimeException("TornadoVM PTX Driver not found");
         }
-        device = PTX.getPlatform().getDevice(deviceIndex);
+        this.device = device;
         this.logger = new TornadoLogger(this.getClass());
     }
 
@@ -179,11 +185,29 @@ public class PTXTornadoDevice implements TornadoXPUDevice {
         try {
             PTXCompilationResult result;
             if (!deviceContext.isCached(executionPlanId, resolvedMethod.getName(), executable)) {
-                PTXProviders providers = (PTXProviders) getBackend().getProviders();
+                final String kernelCacheKey = PersistentKernelCache.isEnabled() ? PersistentKernelCache.computeKey(this, PTXCompiler.class, sketch, executable) : null;
                 profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+                final PersistentKernelCache.Entry cachedKernel = PersistentKernelCache.lookup(kernelCacheKey);
+                if (cachedKernel != null) {
+                    taskMeta.setCompiledGraph(resolvedMethod);
+                    if (taskMeta.getDomain() == null) {
+                        taskMeta.setDomain(cachedKernel.domain());
+                    }
+                    profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+                    profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+
+                    profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                    TornadoInstalledCode installedCode = deviceContext.installCode(taskMeta, executionPlanId, cachedKernel.name(), cachedKernel.code(), resolvedMethod.getName(), taskMeta
+                            .isPrintKernelEnabled());
+                    profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                    profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+                    return installedCode;
+                }
+                PTXProviders providers = (PTXProviders) getBackend().getProviders();
                 result = PTXCompiler.compileSketchForDevice(sketch, executable, providers, getBackend(), executable.getProfiler());
                 profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
                 profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+                PersistentKernelCache.store(kernelCacheKey, result.getName(), taskMeta.getDomain(), result.getTargetCode());
             } else {
                 result = new PTXCompilationResult(PTXCodeUtil.buildKernelName(resolvedMethod.getName(), executable), taskMeta);
             }
@@ -718,6 +742,11 @@ public class PTXTornadoDevice implements TornadoXPUDevice {
 
     }
 
+    @Override
+    public BufferProviderStatistics getBufferProviderStatistics() {
+        return getDeviceContext().getBufferProvider().getStatistics();
+    }
+
     @Override
     public String toString() {
         return getPlatformName() + " -- " + device.getDeviceName();
@@ -0,0 +1,42 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.ptx.virtual;
+
+import uk.ac.manchester.tornado.drivers.ptx.PTXDevice;
+
+/**
+ * PTX device described by a JSON file instead of the CUDA driver.
+ */
+public class VirtualPTXDevice extends PTXDevice {
+
+    public VirtualPTXDevice(int deviceIndex, VirtualPTXDeviceDescriptor info) {
+        super(deviceIndex, info.getDeviceName(), info.getComputeCapability(), info.getCudaVersion(), info.getMaxWorkItemSizes(), info.getMaxGridSizes(), info.getMaxThreadsPerBlock(), info
+                .getSharedMemorySize(), info.getGlobalMemorySize(), info.getMultiProcessorCount(), VirtualPTXContext::new);
+    }
+
+    @Override
+    public String getDeviceInfo() {
+        return String.format("%s %s", getDeviceName(), getTargetArchitecture());
+    }
+}
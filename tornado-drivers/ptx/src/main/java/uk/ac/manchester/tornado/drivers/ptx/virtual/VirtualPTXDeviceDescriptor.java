@@ -0,0 +1,88 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.ptx.virtual;
+
+import uk.ac.manchester.tornado.drivers.ptx.CUDAComputeCapability;
+
+public class VirtualPTXDeviceDescriptor {
+
+    private final String deviceName;
+    private final CUDAComputeCapability computeCapability;
+    private final int cudaVersion;
+    private final int maxThreadsPerBlock;
+    private final long[] maxWorkItemSizes;
+    private final long[] maxGridSizes;
+    private final long sharedMemorySize;
+    private final long globalMemorySize;
+    private final int multiProcessorCount;
+
+    public VirtualPTXDeviceDescriptor(String deviceName, CUDAComputeCapability computeCapability, int cudaVersion, int maxThreadsPerBlock, long[] maxWorkItemSizes, long[] maxGridSizes,
+            long sharedMemorySize, long globalMemorySize, int multiProcessorCount) {
+        this.deviceName = deviceName;
+        this.computeCapability = computeCapability;
+        this.cudaVersion = cudaVersion;
+        this.maxThreadsPerBlock = maxThreadsPerBlock;
+        this.maxWorkItemSizes = maxWorkItemSizes;
+        this.maxGridSizes = maxGridSizes;
+        this.sharedMemorySize = sharedMemorySize;
+        this.globalMemorySize = globalMemorySize;
+        this.multiProcessorCount = multiProcessorCount;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public CUDAComputeCapability getComputeCapability() {
+        return computeCapability;
+    }
+
+    public int getCudaVersion() {
+        return cudaVersion;
+    }
+
+    public int getMaxThreadsPerBlock() {
+        return maxThreadsPerBlock;
+    }
+
+    public long[] getMaxWorkItemSizes() {
+        return maxWorkItemSizes;
+    }
+
+    public long[] getMaxGridSizes() {
+        return maxGridSizes;
+    }
+
+    public long getSharedMemorySize() {
+        return sharedMemorySize;
+    }
+
+    public long getGlobalMemorySize() {
+        return globalMemorySize;
+    }
+
+    public int getMultiProcessorCount() {
+        return multiProcessorCount;
+    }
+}
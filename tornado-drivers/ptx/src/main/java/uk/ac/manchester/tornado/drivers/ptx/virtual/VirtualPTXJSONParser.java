@@ -0,0 +1,127 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.ptx.virtual;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_PTX_DEVICE_FILE;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.drivers.ptx.CUDAComputeCapability;
+
+/**
+ * Reads the description of a virtual PTX device (see
+ * etc/virtual-ptx-device-template.json).
+ */
+public class VirtualPTXJSONParser {
+
+    private static final Pattern pattern = Pattern.compile(" |\",|\"|\t|\\r|]|\\[");
+
+    private enum JsonKey {
+        deviceName,
+        computeCapability,
+        cudaVersion,
+        maxThreadsPerBlock,
+        maxWorkItemSizes,
+        maxGridSizes,
+        sharedMemorySize,
+        globalMemorySize,
+        multiProcessorCount;
+    }
+
+    public static VirtualPTXDeviceDescriptor getDeviceDescriptor() {
+        String json = readVirtualDeviceJson().replace("\r", "");
+        HashMap<JsonKey, String> jsonEntries = new HashMap<>();
+        for (String line : json.split("\n")) {
+            Matcher matcher = pattern.matcher(line);
+            String[] keyValue = matcher.replaceAll("").split(":");
+            String key = keyValue[0];
+            String value = keyValue.length > 1 ? keyValue[1] : null;
+            if (value != null) {
+                value = value.charAt(value.length() - 1) == ',' ? value.substring(0, value.length() - 1) : value;
+                jsonEntries.put(JsonKey.valueOf(key), value);
+            }
+        }
+
+        String deviceName = (String) getEntryForKey(JsonKey.deviceName, jsonEntries);
+        CUDAComputeCapability computeCapability = (CUDAComputeCapability) getEntryForKey(JsonKey.computeCapability, jsonEntries);
+        int cudaVersion = (int) getEntryForKey(JsonKey.cudaVersion, jsonEntries);
+        int maxThreadsPerBlock = (int) getEntryForKey(JsonKey.maxThreadsPerBlock, jsonEntries);
+        long[] maxWorkItemSizes = (long[]) getEntryForKey(JsonKey.maxWorkItemSizes, jsonEntries);
+        long[] maxGridSizes = (long[]) getEntryForKey(JsonKey.maxGridSizes, jsonEntries);
+        long sharedMemorySize = (long) getEntryForKey(JsonKey.sharedMemorySize, jsonEntries);
+        long globalMemorySize = (long) getEntryForKey(JsonKey.globalMemorySize, jsonEntries);
+        int multiProcessorCount = (int) getEntryForKey(JsonKey.multiProcessorCount, jsonEntries);
+
+        return new VirtualPTXDeviceDescriptor(deviceName, computeCapability, cudaVersion, maxThreadsPerBlock, maxWorkItemSizes, maxGridSizes, sharedMemorySize, globalMemorySize,
+                multiProcessorCount);
+    }
+
+    private static Object getEntryForKey(JsonKey jsonKey, Map<JsonKey, String> jsonEntries) {
+        TornadoInternalError.guarantee(jsonEntries.containsKey(jsonKey), "Virtual device file %s does not specify %s", VIRTUAL_PTX_DEVICE_FILE, jsonKey.name());
+        switch (jsonKey) {
+            case deviceName:
+                return jsonEntries.get(jsonKey);
+            case computeCapability:
+                // SM version, e.g., 8.6 for sm_86
+                String[] version = jsonEntries.get(jsonKey).split("\\.");
+                return new CUDAComputeCapability(Integer.parseInt(version[0]), version.length > 1 ? Integer.parseInt(version[1]) : 0);
+            case maxWorkItemSizes:
+            case maxGridSizes:
+                long[] values = new long[3];
+                String[] numbers = jsonEntries.get(jsonKey).split(",");
+                values[0] = Long.parseLong(numbers[0]);
+                values[1] = Long.parseLong(numbers[1]);
+                values[2] = Long.parseLong(numbers[2]);
+                return values;
+            case cudaVersion:
+            case maxThreadsPerBlock:
+            case multiProcessorCount:
+                return Integer.parseInt(jsonEntries.get(jsonKey));
+            case sharedMemorySize:
+            case globalMemorySize:
+                return Long.parseLong(jsonEntries.get(jsonKey));
+        }
+        throw new RuntimeException("Virtual device JSON parser failed ! Unknown json key: " + jsonKey.name());
+    }
+
+    private static String readVirtualDeviceJson() {
+        Path path = Paths.get(VIRTUAL_PTX_DEVICE_FILE);
+        TornadoInternalError.guarantee(path.toFile().exists(), "Virtual device file does not exist: %s", VIRTUAL_PTX_DEVICE_FILE);
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            return new String(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to read from %s", VIRTUAL_PTX_DEVICE_FILE), e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.ptx.virtual;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.drivers.ptx.PTXDevice;
+
+/**
+ * Platform with a single PTX device described by
+ * {@link uk.ac.manchester.tornado.runtime.common.TornadoOptions#VIRTUAL_PTX_DEVICE_FILE}.
+ * The CUDA driver is not loaded.
+ */
+public class VirtualPTXPlatform {
+
+    private static VirtualPTXPlatform platform;
+
+    private final PTXDevice[] devices;
+
+    private VirtualPTXPlatform() {
+        VirtualPTXDeviceDescriptor info = VirtualPTXJSONParser.getDeviceDescriptor();
+        devices = new PTXDevice[] { new VirtualPTXDevice(0, info) };
+    }
+
+    public static synchronized VirtualPTXPlatform getPlatform() {
+        if (platform == null) {
+            platform = new VirtualPTXPlatform();
+        }
+        return platform;
+    }
+
+    public int getDeviceCount() {
+        return devices.length;
+    }
+
+    public PTXDevice getDevice(int deviceIndex) {
+        if (deviceIndex >= devices.length) {
+            throw new TornadoBailoutRuntimeException("[ERROR] Device index is invalid " + deviceIndex);
+        }
+        return devices[deviceIndex];
+    }
+
+    public String getName() {
+        return "Virtual PTX";
+    }
+}
@@ -108,6 +108,7 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.types.arrays.Int8Array;
 import uk.ac.manchester.tornado.api.types.arrays.TornadoMemorySegment;
 import uk.ac.manchester.tornado.api.utils.QuantizationUtils;
+import uk.ac.manchester.tornado.drivers.common.compiler.plugins.NativeArrayPlugins;
 import uk.ac.manchester.tornado.drivers.common.logging.Logger;
 import uk.ac.manchester.tornado.drivers.spirv.graal.SPIRVArchitecture;
 import uk.ac.manchester.tornado.drivers.spirv.graal.lir.SPIRVKind;
@@ -153,6 +154,7 @@ public class SPIRVGraphBuilderPlugins {
         SPIRVHalfFloatPlugins.registerPlugins(plugins, invocationPlugins);
         // Register plugins for Off-Heap Arrays with Panama
         registerMemoryAccessPlugins(invocationPlugins, metaAccessProvider);
+        NativeArrayPlugins.registerGetSizePlugins(invocationPlugins);
         registerQuantizationUtilsPlugins(invocationPlugins);
     }
 
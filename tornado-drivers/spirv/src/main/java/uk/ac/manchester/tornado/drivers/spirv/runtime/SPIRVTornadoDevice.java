@@ -50,6 +50,7 @@ import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
 import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.drivers.common.code.PersistentKernelCache;
 import uk.ac.manchester.tornado.drivers.opencl.mm.OCLAtomicsBuffer;
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVBackend;
 import uk.ac.manchester.tornado.drivers.spirv.SPIRVBackendImpl;
@@ -70,6 +71,7 @@ import uk.ac.manchester.tornado.drivers.spirv.mm.SPIRVMultiDimArrayWrapper;
 import uk.ac.manchester.tornado.drivers.spirv.mm.SPIRVShortArrayWrapper;
 import uk.ac.manchester.tornado.drivers.spirv.mm.SPIRVVectorWrapper;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
 import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -167,14 +169,33 @@ public class SPIRVTornadoDevice implements TornadoXPUDevice {
 
         System.arraycopy(sketchAccess, 0, taskAccess, 0, sketchAccess.length);
 
+        final String kernelCacheKey = PersistentKernelCache.isEnabled() ? PersistentKernelCache.computeKey(this, SPIRVCompiler.class, sketch, task) : null;
+
         try {
+            profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+            final PersistentKernelCache.Entry cachedKernel = PersistentKernelCache.lookup(kernelCacheKey);
+            if (cachedKernel != null) {
+                taskMeta.setCompiledGraph(resolvedMethod);
+                if (taskMeta.getDomain() == null) {
+                    taskMeta.setDomain(cachedKernel.domain());
+                }
+                profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
+                profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+
+                profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                TornadoInstalledCode installedCode = deviceContext.installBinary(executionPlanId, taskMeta, task.getId(), cachedKernel.name(), cachedKernel.code());
+                profiler.stop(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
+                profiler.sum(ProfilerType.TOTAL_DRIVER_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId()));
+                return installedCode;
+            }
+
             SPIRVCompilationResult result;
             // Compile the code and insert the SPIR-V binary into the code cache
             SPIRVProviders providers = (SPIRVProviders) getBackend().getProviders();
-            profiler.start(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             result = SPIRVCompiler.compileSketchForDevice(sketch, task, providers, getBackend(), task.getProfiler());
             profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
+            PersistentKernelCache.store(kernelCacheKey, result.getName(), taskMeta.getDomain(), result.getSPIRVBinary());
 
             profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
             TornadoInstalledCode installedCode = deviceContext.installBinary(executionPlanId, result);
@@ -238,6 +259,11 @@ public class SPIRVTornadoDevice implements TornadoXPUDevice {
         throw new RuntimeException("Unsupported");
     }
 
+    @Override
+    public BufferProviderStatistics getBufferProviderStatistics() {
+        return getDeviceContext().getBufferProvider().getStatistics();
+    }
+
     private XPUBuffer createArrayWrapper(Class<?> klass, SPIRVDeviceContext device, long batchSize, Access access) {
         if (klass == int[].class) {
             return new SPIRVIntArrayWrapper(device, batchSize, access);
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.spirv.virtual;
+
+import java.nio.ByteOrder;
+
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVDevice;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVRuntimeType;
+
+/**
+ * SPIR-V device described by
+ * {@link uk.ac.manchester.tornado.runtime.common.TornadoOptions#VIRTUAL_SPIRV_DEVICE_FILE}
+ * instead of being queried from the Level Zero or OpenCL runtimes.
+ */
+public class VirtualSPIRVDevice extends SPIRVDevice {
+
+    private final VirtualSPIRVDeviceDescriptor info;
+
+    public VirtualSPIRVDevice(int platformIndex, int deviceIndex, VirtualSPIRVDeviceDescriptor info) {
+        super(platformIndex, deviceIndex);
+        this.info = info;
+    }
+
+    @Override
+    public boolean isDeviceDoubleFPSupported() {
+        return info.isDoubleFPSupported();
+    }
+
+    @Override
+    public String getDeviceExtensions() {
+        return "";
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public String getName() {
+        return "SPIRV Virtual - " + info.getDeviceName();
+    }
+
+    @Override
+    public VirtualSPIRVDeviceDescriptor getDeviceRuntime() {
+        return info;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return info.getDeviceName();
+    }
+
+    @Override
+    public long getDeviceGlobalMemorySize() {
+        return info.getGlobalMemorySize();
+    }
+
+    @Override
+    public long getDeviceLocalMemorySize() {
+        return info.getLocalMemorySize();
+    }
+
+    @Override
+    public int getDeviceMaxComputeUnits() {
+        return info.getMaxComputeUnits();
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkItemSizes() {
+        return info.getMaxWorkItemSizes();
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkGroupSize() {
+        return new long[] { info.getMaxWorkGroupSize() };
+    }
+
+    @Override
+    public int getMaxThreadsPerBlock() {
+        return (int) info.getMaxWorkGroupSize();
+    }
+
+    @Override
+    public int getDeviceMaxClockFrequency() {
+        return 0;
+    }
+
+    @Override
+    public long getDeviceMaxConstantBufferSize() {
+        return 0;
+    }
+
+    @Override
+    public long getDeviceMaxAllocationSize() {
+        return info.getGlobalMemorySize();
+    }
+
+    @Override
+    public String getDeviceInfo() {
+        return String.format("%s %s", info.getDeviceName(), info.getRuntime());
+    }
+
+    @Override
+    public long[] getDeviceMaxWorkgroupDimensions() {
+        return info.getMaxWorkItemSizes();
+    }
+
+    @Override
+    public String getDeviceOpenCLCVersion() {
+        return "";
+    }
+
+    @Override
+    public long getMaxAllocMemory() {
+        return info.getGlobalMemorySize();
+    }
+
+    @Override
+    public TornadoDeviceType getTornadoDeviceType() {
+        return info.getDeviceType();
+    }
+
+    @Override
+    public String getPlatformName() {
+        return VirtualSPIRVPlatform.PLATFORM_NAME;
+    }
+
+    @Override
+    public boolean isSPIRVSupported() {
+        return true;
+    }
+
+    @Override
+    public SPIRVRuntimeType getSPIRVRuntime() {
+        return info.getRuntime();
+    }
+}
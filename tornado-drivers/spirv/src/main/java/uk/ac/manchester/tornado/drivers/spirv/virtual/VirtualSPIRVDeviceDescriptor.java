@@ -0,0 +1,89 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.spirv.virtual;
+
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVRuntimeType;
+
+public class VirtualSPIRVDeviceDescriptor {
+
+    private final String deviceName;
+    private final SPIRVRuntimeType runtime;
+    private final TornadoDeviceType deviceType;
+    private final boolean doubleFPSupport;
+    private final long[] maxWorkItemSizes;
+    private final long maxWorkGroupSize;
+    private final long localMemorySize;
+    private final long globalMemorySize;
+    private final int maxComputeUnits;
+
+    public VirtualSPIRVDeviceDescriptor(String deviceName, SPIRVRuntimeType runtime, TornadoDeviceType deviceType, boolean doubleFPSupport, long[] maxWorkItemSizes, long maxWorkGroupSize,
+            long localMemorySize, long globalMemorySize, int maxComputeUnits) {
+        this.deviceName = deviceName;
+        this.runtime = runtime;
+        this.deviceType = deviceType;
+        this.doubleFPSupport = doubleFPSupport;
+        this.maxWorkItemSizes = maxWorkItemSizes;
+        this.maxWorkGroupSize = maxWorkGroupSize;
+        this.localMemorySize = localMemorySize;
+        this.globalMemorySize = globalMemorySize;
+        this.maxComputeUnits = maxComputeUnits;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public SPIRVRuntimeType getRuntime() {
+        return runtime;
+    }
+
+    public TornadoDeviceType getDeviceType() {
+        return deviceType;
+    }
+
+    public boolean isDoubleFPSupported() {
+        return doubleFPSupport;
+    }
+
+    public long[] getMaxWorkItemSizes() {
+        return maxWorkItemSizes;
+    }
+
+    public long getMaxWorkGroupSize() {
+        return maxWorkGroupSize;
+    }
+
+    public long getLocalMemorySize() {
+        return localMemorySize;
+    }
+
+    public long getGlobalMemorySize() {
+        return globalMemorySize;
+    }
+
+    public int getMaxComputeUnits() {
+        return maxComputeUnits;
+    }
+}
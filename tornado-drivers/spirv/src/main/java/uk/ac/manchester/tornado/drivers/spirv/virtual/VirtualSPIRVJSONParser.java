@@ -0,0 +1,128 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.spirv.virtual;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_SPIRV_DEVICE_FILE;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVRuntimeType;
+
+/**
+ * Reads the description of a virtual SPIR-V device (see
+ * etc/virtual-spirv-device-template.json).
+ */
+public class VirtualSPIRVJSONParser {
+
+    private static final Pattern pattern = Pattern.compile(" |\",|\"|\t|\\r|]|\\[");
+
+    private enum JsonKey {
+        deviceName,
+        runtime,
+        deviceType,
+        doubleFPSupport,
+        maxWorkItemSizes,
+        maxWorkGroupSize,
+        localMemorySize,
+        globalMemorySize,
+        maxComputeUnits;
+    }
+
+    public static VirtualSPIRVDeviceDescriptor getDeviceDescriptor() {
+        String json = readVirtualDeviceJson().replace("\r", "");
+        HashMap<JsonKey, String> jsonEntries = new HashMap<>();
+        for (String line : json.split("\n")) {
+            Matcher matcher = pattern.matcher(line);
+            String[] keyValue = matcher.replaceAll("").split(":");
+            String key = keyValue[0];
+            String value = keyValue.length > 1 ? keyValue[1] : null;
+            if (value != null) {
+                value = value.charAt(value.length() - 1) == ',' ? value.substring(0, value.length() - 1) : value;
+                jsonEntries.put(JsonKey.valueOf(key), value);
+            }
+        }
+
+        String deviceName = (String) getEntryForKey(JsonKey.deviceName, jsonEntries);
+        SPIRVRuntimeType runtime = (SPIRVRuntimeType) getEntryForKey(JsonKey.runtime, jsonEntries);
+        TornadoDeviceType deviceType = (TornadoDeviceType) getEntryForKey(JsonKey.deviceType, jsonEntries);
+        boolean doubleFPSupport = (boolean) getEntryForKey(JsonKey.doubleFPSupport, jsonEntries);
+        long[] maxWorkItemSizes = (long[]) getEntryForKey(JsonKey.maxWorkItemSizes, jsonEntries);
+        long maxWorkGroupSize = (long) getEntryForKey(JsonKey.maxWorkGroupSize, jsonEntries);
+        long localMemorySize = (long) getEntryForKey(JsonKey.localMemorySize, jsonEntries);
+        long globalMemorySize = (long) getEntryForKey(JsonKey.globalMemorySize, jsonEntries);
+        int maxComputeUnits = (int) getEntryForKey(JsonKey.maxComputeUnits, jsonEntries);
+
+        return new VirtualSPIRVDeviceDescriptor(deviceName, runtime, deviceType, doubleFPSupport, maxWorkItemSizes, maxWorkGroupSize, localMemorySize, globalMemorySize, maxComputeUnits);
+    }
+
+    private static Object getEntryForKey(JsonKey jsonKey, Map<JsonKey, String> jsonEntries) {
+        TornadoInternalError.guarantee(jsonEntries.containsKey(jsonKey), "Virtual device file %s does not specify %s", VIRTUAL_SPIRV_DEVICE_FILE, jsonKey.name());
+        switch (jsonKey) {
+            case deviceName:
+                return jsonEntries.get(jsonKey);
+            case runtime:
+                // OPENCL or LEVEL_ZERO
+                return SPIRVRuntimeType.valueOf(jsonEntries.get(jsonKey));
+            case deviceType:
+                return TornadoDeviceType.valueOf(jsonEntries.get(jsonKey));
+            case doubleFPSupport:
+                return Boolean.parseBoolean(jsonEntries.get(jsonKey));
+            case maxWorkItemSizes:
+                long[] maxWorkItemSizes = new long[3];
+                String[] numbers = jsonEntries.get(jsonKey).split(",");
+                maxWorkItemSizes[0] = Long.parseLong(numbers[0]);
+                maxWorkItemSizes[1] = Long.parseLong(numbers[1]);
+                maxWorkItemSizes[2] = Long.parseLong(numbers[2]);
+                return maxWorkItemSizes;
+            case maxComputeUnits:
+                return Integer.parseInt(jsonEntries.get(jsonKey));
+            case maxWorkGroupSize:
+            case localMemorySize:
+            case globalMemorySize:
+                return Long.parseLong(jsonEntries.get(jsonKey));
+        }
+        throw new RuntimeException("Virtual device JSON parser failed ! Unknown json key: " + jsonKey.name());
+    }
+
+    private static String readVirtualDeviceJson() {
+        Path path = Paths.get(VIRTUAL_SPIRV_DEVICE_FILE);
+        TornadoInternalError.guarantee(path.toFile().exists(), "Virtual device file does not exist: %s", VIRTUAL_SPIRV_DEVICE_FILE);
+
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            return new String(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to read from %s", VIRTUAL_SPIRV_DEVICE_FILE), e);
+        }
+    }
+}
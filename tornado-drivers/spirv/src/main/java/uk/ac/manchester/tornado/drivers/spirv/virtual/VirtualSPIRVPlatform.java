@@ -0,0 +1,74 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.spirv.virtual;
+
+import java.util.List;
+
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVContext;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVDevice;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVPlatform;
+import uk.ac.manchester.tornado.drivers.spirv.SPIRVRuntimeType;
+
+/**
+ * Platform with a single virtual SPIR-V device. The runtime of the device
+ * (Level Zero or OpenCL) is taken from the device description.
+ */
+public class VirtualSPIRVPlatform implements SPIRVPlatform {
+
+    static final String PLATFORM_NAME = "Virtual SPIR-V";
+
+    private final SPIRVRuntimeType runtime;
+    private final List<SPIRVDevice> spirvDevices;
+
+    public VirtualSPIRVPlatform(int platformIndex) {
+        VirtualSPIRVDeviceDescriptor info = VirtualSPIRVJSONParser.getDeviceDescriptor();
+        this.runtime = info.getRuntime();
+        this.spirvDevices = List.of(new VirtualSPIRVDevice(platformIndex, 0, info));
+    }
+
+    @Override
+    public int getNumDevices() {
+        return spirvDevices.size();
+    }
+
+    @Override
+    public SPIRVDevice getDevice(int deviceIndex) {
+        return spirvDevices.get(deviceIndex);
+    }
+
+    @Override
+    public SPIRVContext createContext() {
+        return new VirtualSPIRVContext(this, spirvDevices);
+    }
+
+    @Override
+    public SPIRVDevice[] getDevices() {
+        return spirvDevices.toArray(new SPIRVDevice[0]);
+    }
+
+    @Override
+    public SPIRVRuntimeType getRuntime() {
+        return runtime;
+    }
+}
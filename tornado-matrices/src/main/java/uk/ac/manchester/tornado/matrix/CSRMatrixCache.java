@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.matrix;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+
+/**
+ * Binary cache of a matrix in CSR format, stored next to the Matrix Market file
+ * with the {@code .f32.csr} or {@code .f64.csr} extension. The arrays are
+ * stored in the native byte order with room for the array header before each of
+ * them, so they are memory-mapped without copies (see
+ * {@link FloatArray#mapFile}).
+ *
+ * <p>
+ * The cache is used while it is newer than the Matrix Market file. It can be
+ * disabled with {@code -Dtornado.matrices.cache=False}.
+ * </p>
+ */
+final class CSRMatrixCache {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tornado.matrices.cache", "True"));
+    private static final String EXTENSION = ".csr";
+
+    // "TCSR" in the native byte order, so a file from a different platform is ignored
+    private static final int MAGIC = 0x54435352;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final long WRITE_BLOCK_BYTES = 1L << 30;
+
+    private CSRMatrixCache() {
+    }
+
+    private record Header(int valueBytes, int nRows, int n, long rowsOffset, long colsOffset, long valsOffset) {
+
+        private static long align(long offset) {
+            return (offset + Long.BYTES - 1) & -Long.BYTES;
+        }
+
+        static Header of(int valueBytes, int nRows, int n) {
+            long rowsOffset = align(HEADER_BYTES + TornadoNativeArray.ARRAY_HEADER);
+            long colsOffset = align(rowsOffset + (long) (nRows + 1) * Integer.BYTES + TornadoNativeArray.ARRAY_HEADER);
+            long valsOffset = align(colsOffset + (long) n * Integer.BYTES + TornadoNativeArray.ARRAY_HEADER);
+            return new Header(valueBytes, nRows, n, rowsOffset, colsOffset, valsOffset);
+        }
+
+        long fileSize() {
+            return valsOffset + (long) n * valueBytes;
+        }
+
+        ByteBuffer toBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(valueBytes).putInt(nRows).putInt(n).putInt(0);
+            buffer.putLong(rowsOffset).putLong(colsOffset).putLong(valsOffset);
+            return buffer.clear();
+        }
+
+        static Header fromBuffer(ByteBuffer buffer) {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            int valueBytes = buffer.getInt();
+            int nRows = buffer.getInt();
+            int n = buffer.getInt();
+            buffer.getInt();
+            return new Header(valueBytes, nRows, n, buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+
+        <T> CSRMatrix<T> mapIndices(Path path) throws IOException {
+            CSRMatrix<T> mat = new CSRMatrix<>();
+            mat.n = n;
+            mat.size = nRows;
+            mat.rows = IntArray.mapFile(path, rowsOffset, nRows + 1, MapMode.PRIVATE);
+            mat.cols = IntArray.mapFile(path, colsOffset, n, MapMode.PRIVATE);
+            return mat;
+        }
+    }
+
+    static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    private static Path cachePath(Path source, int valueBytes) {
+        return source.resolveSibling(source.getFileName() + ".f" + (valueBytes * Byte.SIZE) + EXTENSION);
+    }
+
+    /**
+     * @return The header of the cache, or null if there is no valid cache for
+     *     the file.
+     */
+    private static Header readHeader(Path source, Path cache, int valueBytes) throws IOException {
+        if (!Files.isRegularFile(cache) || Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(source)) < 0) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.nativeOrder());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+            Header header = Header.fromBuffer(buffer.flip());
+            if (header == null || header.valueBytes() != valueBytes || !header.equals(Header.of(valueBytes, header.nRows(), header.n())) || channel.size() < header.fileSize()) {
+                return null;
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Maps the cache of a matrix with single-precision values.
+     *
+     * @return The matrix, or null if there is no valid cache for the file.
+     */
+    static CSRMatrix<FloatArray> loadF(Path source) throws IOException {
+        Path cache = cachePath(source, Float.BYTES);
+        Header header = readHeader(source, cache, Float.BYTES);
+        if (header == null) {
+            return null;
+        }
+        CSRMatrix<FloatArray> mat = header.mapIndices(cache);
+        mat.vals = FloatArray.mapFile(cache, header.valsOffset(), header.n(), MapMode.PRIVATE);
+        return mat;
+    }
+
+    /**
+     * Maps the cache of a matrix with double-precision values.
+     *
+     * @return The matrix, or null if there is no valid cache for the file.
+     */
+    static CSRMatrix<DoubleArray> loadD(Path source) throws IOException {
+        Path cache = cachePath(source, Double.BYTES);
+        Header header = readHeader(source, cache, Double.BYTES);
+        if (header == null) {
+            return null;
+        }
+        CSRMatrix<DoubleArray> mat = header.mapIndices(cache);
+        mat.vals = DoubleArray.mapFile(cache, header.valsOffset(), header.n(), MapMode.PRIVATE);
+        return mat;
+    }
+
+    private static void write(FileChannel channel, MemorySegment segment, long offset) throws IOException {
+        for (long written = 0; written < segment.byteSize();) {
+            long blockSize = Math.min(WRITE_BLOCK_BYTES, segment.byteSize() - written);
+            ByteBuffer buffer = segment.asSlice(written, blockSize).asByteBuffer();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, offset + written);
+            }
+        }
+    }
+
+    /**
+     * Writes the cache of a matrix. The file is written under a temporary name
+     * and then renamed, so a partially written cache is never read.
+     */
+    static void store(Path source, CSRMatrix<? extends TornadoNativeArray> mat) throws IOException {
+        Path cache = cachePath(source, mat.vals.getElementSize());
+        Path temporary = cache.resolveSibling(cache.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        Header header = Header.of(mat.vals.getElementSize(), mat.size, mat.n);
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = header.toBuffer();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position());
+                }
+                write(channel, mat.rows.getSegment(), header.rowsOffset());
+                write(channel, mat.cols.getSegment(), header.colsOffset());
+                write(channel, mat.vals.getSegment(), header.valsOffset());
+            }
+            Files.move(temporary, cache, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
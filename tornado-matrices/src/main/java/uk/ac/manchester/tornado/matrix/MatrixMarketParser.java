@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.matrix;
+
+import static java.lang.String.format;
+import static java.lang.System.out;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+
+/**
+ * Parser for sparse matrices stored in the Matrix Market coordinate format.
+ *
+ * <p>
+ * The body of the file is split into chunks at line boundaries, and the chunks
+ * are parsed in parallel in two passes. The first pass counts the non-zeros of
+ * each row. The second pass writes each entry directly into its row of the CSR
+ * arrays (counting sort on the row index). Finally, the entries of each row are
+ * sorted by column.
+ * </p>
+ *
+ * <p>
+ * A chunk has at least 1 MiB, so small files are parsed in a single chunk. The
+ * size can be changed with {@code -Dtornado.matrices.chunk.bytes=<bytes>}; it
+ * is read on each parse.
+ * </p>
+ */
+final class MatrixMarketParser {
+
+    private static final String MIN_CHUNK_BYTES_PROPERTY = "tornado.matrices.chunk.bytes";
+    private static final int DEFAULT_MIN_CHUNK_BYTES = 1 << 20;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // Linear congruential generator of java.util.Random, so pattern matrices
+    // get the same values as with new Random(7)
+    private static final long PATTERN_SEED = 7;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private final MemorySegment data;
+    private boolean pattern;
+    private boolean symmetric;
+    private int nRows;
+    private int nCols;
+    private long[] chunks;
+
+    private IntArray rows;
+    private IntArray cols;
+    private FloatArray floatValues;
+    private DoubleArray doubleValues;
+
+    private MatrixMarketParser(MemorySegment data) {
+        this.data = data;
+    }
+
+    /**
+     * Parses a matrix with single-precision values.
+     *
+     * @param data
+     *     Contents of the Matrix Market file.
+     * @return The matrix in CSR format, or null if the file does not contain a
+     *     sparse matrix.
+     * @throws IOException
+     *     if the file is not a valid Matrix Market file.
+     */
+    static CSRMatrix<FloatArray> parseF(MemorySegment data) throws IOException {
+        MatrixMarketParser parser = new MatrixMarketParser(data);
+        if (!parser.parseHeader()) {
+            return null;
+        }
+        CSRMatrix<FloatArray> mat = parser.parseEntries(false);
+        mat.vals = parser.floatValues;
+        return mat;
+    }
+
+    /**
+     * Parses a matrix with double-precision values.
+     *
+     * @param data
+     *     Contents of the Matrix Market file.
+     * @return The matrix in CSR format, or null if the file does not contain a
+     *     sparse matrix.
+     * @throws IOException
+     *     if the file is not a valid Matrix Market file.
+     */
+    static CSRMatrix<DoubleArray> parseD(MemorySegment data) throws IOException {
+        MatrixMarketParser parser = new MatrixMarketParser(data);
+        if (!parser.parseHeader()) {
+            return null;
+        }
+        CSRMatrix<DoubleArray> mat = parser.parseEntries(true);
+        mat.vals = parser.doubleValues;
+        return mat;
+    }
+
+    private byte byteAt(long position) {
+        return data.get(ValueLayout.JAVA_BYTE, position);
+    }
+
+    private long endOfLine(long position) {
+        while (position < data.byteSize() && byteAt(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    private String line(long start, long end) {
+        return new String(data.asSlice(start, end - start).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.US_ASCII).trim();
+    }
+
+    /**
+     * Reads the banner, comments and size line, and splits the rest of the file
+     * into chunks.
+     *
+     * @return false if the file does not contain a sparse matrix.
+     */
+    private boolean parseHeader() throws IOException {
+        long end = endOfLine(0);
+        String[] opts = line(0, end).split("\\s+");
+        // id object format field symmetry
+        if (opts.length < 5 || !opts[0].equalsIgnoreCase("%%MatrixMarket")) {
+            throw new IOException("missing Matrix Market banner");
+        }
+
+        if (!opts[1].equalsIgnoreCase("matrix")) {
+            out.printf("Matrix file doesnot contain matrix\n");
+            return false;
+        }
+
+        if (!opts[2].equalsIgnoreCase("coordinate")) {
+            out.printf("Matrix representation is dense\n");
+            return false;
+        }
+
+        pattern = opts[3].equalsIgnoreCase("pattern");
+        symmetric = opts[4].equalsIgnoreCase("symmetric");
+
+        String sizeLine;
+        long start;
+        do {
+            start = end + 1;
+            if (start >= data.byteSize()) {
+                throw new IOException("missing size line");
+            }
+            end = endOfLine(start);
+            sizeLine = line(start, end);
+        } while (sizeLine.isEmpty() || sizeLine.startsWith("%"));
+
+        opts = sizeLine.split("\\s+");
+        if (opts.length < 3) {
+            throw new IOException("invalid size line: " + sizeLine);
+        }
+        nRows = Integer.parseInt(opts[0]);
+        nCols = Integer.parseInt(opts[1]);
+        if (symmetric && nRows != nCols) {
+            throw new IOException(format("symmetric matrix is not square: %d x %d", nRows, nCols));
+        }
+
+        long bodyStart = Math.min(end + 1, data.byteSize());
+        long bodySize = data.byteSize() - bodyStart;
+        long minChunkBytes = Math.max(1, Integer.getInteger(MIN_CHUNK_BYTES_PROPERTY, DEFAULT_MIN_CHUNK_BYTES));
+        int nChunks = (int) Math.max(1, Math.min(4L * Runtime.getRuntime().availableProcessors(), bodySize / minChunkBytes));
+        chunks = new long[nChunks + 1];
+        chunks[0] = bodyStart;
+        chunks[nChunks] = data.byteSize();
+        for (int i = 1; i < nChunks; i++) {
+            // Move each boundary to the start of the next line
+            long position = Math.max(chunks[i - 1], bodyStart + bodySize * i / nChunks);
+            while (position < data.byteSize() && byteAt(position - 1) != '\n') {
+                position++;
+            }
+            chunks[i] = position;
+        }
+        return true;
+    }
+
+    private <T> CSRMatrix<T> parseEntries(boolean isDouble) throws IOException {
+        final int nChunks = chunks.length - 1;
+
+        // First pass: number of entries of each chunk and of each row
+        final long[] chunkEntries = new long[nChunks + 1];
+        final AtomicIntegerArray rowCursors = new AtomicIntegerArray(nRows);
+        IntStream.range(0, nChunks).parallel().forEach(chunk -> {
+            Tokenizer tokenizer = new Tokenizer(data, chunks[chunk], chunks[chunk + 1]);
+            long count = 0;
+            while (tokenizer.nextLine()) {
+                int row = tokenizer.nextIndex(nRows);
+                int col = tokenizer.nextIndex(nCols);
+                rowCursors.incrementAndGet(row);
+                if (symmetric && row != col) {
+                    rowCursors.incrementAndGet(col);
+                }
+                tokenizer.skipLine();
+                count++;
+            }
+            chunkEntries[chunk + 1] = count;
+        });
+
+        long nElements = 0;
+        rows = new IntArray(nRows + 1);
+        rows.set(0, 0);
+        for (int r = 0; r < nRows; r++) {
+            int count = rowCursors.get(r);
+            rowCursors.set(r, (int) nElements);
+            nElements += count;
+            if (nElements > Integer.MAX_VALUE) {
+                throw new IOException("too many non-zeros for a CSR matrix with int indices");
+            }
+            rows.set(r + 1, (int) nElements);
+        }
+        for (int chunk = 0; chunk < nChunks; chunk++) {
+            chunkEntries[chunk + 1] += chunkEntries[chunk];
+        }
+
+        cols = new IntArray((int) nElements);
+        if (isDouble) {
+            doubleValues = new DoubleArray((int) nElements);
+        } else {
+            floatValues = new FloatArray((int) nElements);
+        }
+
+        // Second pass: scatter the entries into their rows
+        IntStream.range(0, nChunks).parallel().forEach(chunk -> {
+            Tokenizer tokenizer = new Tokenizer(data, chunks[chunk], chunks[chunk + 1]);
+            long seed = pattern ? skipSeed(chunkEntries[chunk]) : 0;
+            while (tokenizer.nextLine()) {
+                int row = tokenizer.nextIndex(nRows);
+                int col = tokenizer.nextIndex(nCols);
+                double value;
+                if (pattern) {
+                    seed = (seed * MULTIPLIER + ADDEND) & MASK;
+                    value = ((int) (seed >>> 24) / ((float) (1 << 24))) * 256.0f;
+                } else {
+                    value = tokenizer.nextDouble();
+                }
+                tokenizer.skipLine();
+                set(rowCursors.getAndIncrement(row), col, value);
+                if (symmetric && row != col) {
+                    set(rowCursors.getAndIncrement(col), row, value);
+                }
+            }
+        });
+
+        // The order within a row depends on the scheduling of the chunks
+        IntStream.range(0, nRows).parallel().forEach(row -> sortRow(rows.get(row), rows.get(row + 1)));
+
+        CSRMatrix<T> mat = new CSRMatrix<>();
+        mat.n = (int) nElements;
+        mat.size = nRows;
+        mat.rows = rows;
+        mat.cols = cols;
+        return mat;
+    }
+
+    /**
+     * @return The state of new Random(7) after {@code steps} calls to nextFloat.
+     */
+    private static long skipSeed(long steps) {
+        long multiplier = MULTIPLIER;
+        long addend = ADDEND;
+        long seed = (PATTERN_SEED ^ MULTIPLIER) & MASK;
+        while (steps > 0) {
+            if ((steps & 1) != 0) {
+                seed = (seed * multiplier + addend) & MASK;
+            }
+            addend = ((multiplier + 1) * addend) & MASK;
+            multiplier = (multiplier * multiplier) & MASK;
+            steps >>>= 1;
+        }
+        return seed;
+    }
+
+    private void set(int index, int col, double value) {
+        cols.set(index, col);
+        if (floatValues != null) {
+            floatValues.set(index, (float) value);
+        } else {
+            doubleValues.set(index, value);
+        }
+    }
+
+    private void swap(int i, int j) {
+        int col = cols.get(i);
+        cols.set(i, cols.get(j));
+        cols.set(j, col);
+        if (floatValues != null) {
+            float value = floatValues.get(i);
+            floatValues.set(i, floatValues.get(j));
+            floatValues.set(j, value);
+        } else {
+            double value = doubleValues.get(i);
+            doubleValues.set(i, doubleValues.get(j));
+            doubleValues.set(j, value);
+        }
+    }
+
+    private void sortRow(int start, int end) {
+        if (end - start <= INSERTION_SORT_THRESHOLD) {
+            for (int i = start + 1; i < end; i++) {
+                for (int j = i; j > start && cols.get(j - 1) > cols.get(j); j--) {
+                    swap(j - 1, j);
+                }
+            }
+            return;
+        }
+
+        // Sort the columns with the position of each entry in the low bits
+        final int length = end - start;
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = ((long) cols.get(start + i) << 32) | i;
+        }
+        Arrays.sort(keys);
+        if (floatValues != null) {
+            float[] values = new float[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = floatValues.get(start + i);
+            }
+            for (int i = 0; i < length; i++) {
+                floatValues.set(start + i, values[(int) keys[i]]);
+            }
+        } else {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = doubleValues.get(start + i);
+            }
+            for (int i = 0; i < length; i++) {
+                doubleValues.set(start + i, values[(int) keys[i]]);
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            cols.set(start + i, (int) (keys[i] >>> 32));
+        }
+    }
+
+    /**
+     * Reads the entries of a chunk without allocating a string per line.
+     */
+    private static final class Tokenizer {
+
+        private final MemorySegment data;
+        private final long end;
+        private long position;
+
+        Tokenizer(MemorySegment data, long start, long end) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        private byte current() {
+            return data.get(ValueLayout.JAVA_BYTE, position);
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        private void skipBlanks() {
+            while (position < end && isBlank(current())) {
+                position++;
+            }
+        }
+
+        /**
+         * Moves to the first token of the next entry, skipping empty lines and
+         * comments.
+         *
+         * @return false at the end of the chunk.
+         */
+        boolean nextLine() {
+            while (position < end) {
+                byte b = current();
+                if (b == '\n' || isBlank(b)) {
+                    position++;
+                } else if (b == '%') {
+                    skipLine();
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void skipLine() {
+            while (position < end && current() != '\n') {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException invalidEntry() {
+            return new IllegalArgumentException(format("invalid entry at byte %d", position));
+        }
+
+        /**
+         * @return The zero-based index of a one-based index in [1, limit].
+         */
+        int nextIndex(int limit) {
+            skipBlanks();
+            long value = 0;
+            long start = position;
+            while (position < end && current() >= '0' && current() <= '9' && value <= limit) {
+                value = value * 10 + (current() - '0');
+                position++;
+            }
+            if (position == start || value < 1 || value > limit) {
+                throw invalidEntry();
+            }
+            return (int) value - 1;
+        }
+
+        /**
+         * Parses decimals with up to 15 significant digits and a small exponent
+         * exactly with a single floating-point operation, and falls back to
+         * {@link Double#parseDouble} for anything else.
+         */
+        double nextDouble() {
+            skipBlanks();
+            final long start = position;
+            boolean negative = false;
+            if (position < end && (current() == '-' || current() == '+')) {
+                negative = current() == '-';
+                position++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int significantDigits = 0;
+            int exponent = 0;
+            boolean isFraction = false;
+            for (; position < end; position++) {
+                byte b = current();
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                    if (isFraction) {
+                        exponent--;
+                    }
+                } else if (b == '.' && !isFraction) {
+                    isFraction = true;
+                } else {
+                    break;
+                }
+            }
+            if (digits > 0 && position < end && (current() == 'e' || current() == 'E')) {
+                position++;
+                boolean negativeExponent = false;
+                if (position < end && (current() == '-' || current() == '+')) {
+                    negativeExponent = current() == '-';
+                    position++;
+                }
+                int e = 0;
+                int exponentDigits = 0;
+                while (position < end && current() >= '0' && current() <= '9') {
+                    e = Math.min(e * 10 + (current() - '0'), 10000);
+                    exponentDigits++;
+                    position++;
+                }
+                if (exponentDigits == 0) {
+                    digits = 0;
+                }
+                exponent += negativeExponent ? -e : e;
+            }
+            boolean isEndOfToken = position >= end || isBlank(current()) || current() == '\n';
+            if (digits > 0 && isEndOfToken && significantDigits <= MAX_FAST_DIGITS && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+
+            while (position < end && !isBlank(current()) && current() != '\n') {
+                position++;
+            }
+            if (position == start) {
+                throw invalidEntry();
+            }
+            String token = new String(data.asSlice(start, position - start).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.US_ASCII);
+            return Double.parseDouble(token);
+        }
+    }
+}
@@ -17,183 +17,63 @@
  */
 package uk.ac.manchester.tornado.matrix;
 
-import static java.lang.Float.parseFloat;
-import static java.lang.Integer.parseInt;
-import static java.lang.String.format;
 import static java.lang.System.err;
 import static java.lang.System.out;
-import static java.util.Collections.sort;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
 import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
 import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
 
+/**
+ * Loads sparse matrices in the Matrix Market coordinate format into CSR
+ * matrices. Files are parsed in parallel (see {@link MatrixMarketParser}), and
+ * the result is stored in a binary cache next to the file that is
+ * memory-mapped by the following loads (see {@link CSRMatrixCache}).
+ */
 public class SparseMatrixUtils {
 
     private static final boolean VERBOSE = false;
 
-    public static CSRMatrix<DoubleArray> loadMatrixD(final String path) {
-        boolean pattern = false;
-        boolean symmetric = false;
-
-        final CSRMatrix<DoubleArray> mat = new CSRMatrix<>();
-
-        Random rand = null;
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-
-            String line = br.readLine();
-
-            String[] opts = line.split(" ");
-            // id object format field symmetry
-
-            if (!opts[1].equalsIgnoreCase("matrix")) {
-                System.out.printf("Matrix file doesnot contain matrix\n");
-                br.close();
-                return null;
-            }
-
-            if (!opts[2].equalsIgnoreCase("coordinate")) {
-                System.out.printf("Matrix representation is dense\n");
-                br.close();
-                return null;
-            }
-
-            if (opts[3].equalsIgnoreCase("pattern")) {
-                pattern = true;
-                rand = new Random();
-                // System.out.printf("Matrix pattern unimplemented\n");
-                // return;
-            }
-
-            if (opts[4].equalsIgnoreCase("symmetric")) {
-                symmetric = true;
-            }
-
-            while ((line = br.readLine()) != null) {
-                if (!line.startsWith("%")) {
-                    break;
-                }
-            }
-
-            opts = line.split(" ");
-
-            final int nRows = Integer.parseInt(opts[0]);
-            final int nCols = Integer.parseInt(opts[1]);
-            int nElements = Integer.parseInt(opts[2]);
-
-            class Coordinate implements Comparable<Coordinate> {
-
-                int x;
-                int y;
-                float val;
-
-                Coordinate(final int a, final int b, final float c) {
-                    x = a;
-                    y = b;
-                    val = c;
-                }
-
-                Coordinate(final String[] opts) {
-                    x = parseInt(opts[0]) - 1;
-                    y = parseInt(opts[1]) - 1;
-                    val = parseFloat(opts[2]);
-                }
-
-                @Override
-                public int compareTo(final Coordinate c) {
-                    int val = 0;
-                    if (x != c.x) {
-                        val = x - c.x;
-                    } else {
-                        val = y - c.y;
-                    }
-
-                    return val;
-                }
-
-                @Override
-                public String toString() {
-                    return String.format("[ %d, %d, %10.2f ]", x, y, val);
-                }
-            }
-
-            if (VERBOSE) {
-                System.out.printf("Matrix: rows=%d, cols=%d, elements=%d\n", nRows, nCols, nElements);
-            }
-
-            List<Coordinate> coords;
-            if (symmetric) {
-                coords = new ArrayList<>(2 * nElements);
-            } else {
-                coords = new ArrayList<>(nElements);
-            }
-
-            int index = 0;
-            while ((line = br.readLine()) != null) {
-                opts = line.split(" ");
-                if (pattern) {
-                    final Coordinate c = new Coordinate(parseInt(opts[0]) - 1, parseInt(opts[1]) - 1, rand.nextFloat() * 256.0f);
-                    coords.add(c);
-                } else {
-                    coords.add(new Coordinate(opts));
-                }
-
-                index++;
+    private static MemorySegment mapFile(FileChannel channel, Arena arena) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+    }
 
-                if (symmetric) {
-                    final Coordinate last = coords.get(index - 1);
-                    if (last.x != last.y) {
-                        coords.add(new Coordinate(last.y, last.x, last.val));
-                        index++;
-                    }
+    public static CSRMatrix<DoubleArray> loadMatrixD(final String path) {
+        final Path file = Path.of(path);
+        try {
+            CSRMatrix<DoubleArray> mat = CSRMatrixCache.isEnabled() ? CSRMatrixCache.loadD(file) : null;
+            if (mat == null) {
+                try (Arena arena = Arena.ofShared(); FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mat = MatrixMarketParser.parseD(mapFile(channel, arena));
                 }
+                storeCache(file, mat);
             }
-
-            sort(coords);
-            nElements = index;
-            mat.n = nElements;
-            mat.size = nRows;
-            mat.vals = new DoubleArray(nElements);
-            mat.cols = new IntArray(nElements);
-            mat.rows = new IntArray(nRows + 1);
-            mat.rows.set(0, 0);
-            mat.rows.set(nRows, nElements);
-            int r = 0;
-            for (int i = 0; i < nElements; i++) {
-
-                final Coordinate c = coords.get(i);
-
-                while (c.x != r) {
-                    mat.rows.set(++r, i);
-                }
-                mat.vals.set(i, c.val);
-                mat.cols.set(i, c.y);
+            if (VERBOSE && mat != null) {
+                out.printf("Matrix: rows=%d, elements=%d\n", mat.size, mat.n);
             }
-            coords.clear();
-        } catch (final FileNotFoundException e) {
-            System.out.printf("Unable to open matrix %s\n", path);
-        } catch (final IOException e) {
+            return mat;
+        } catch (final NoSuchFileException e) {
+            out.printf("Unable to open matrix %s\n", path);
+        } catch (final IOException | IllegalArgumentException e) {
             e.printStackTrace();
         }
-
-        return mat;
-
+        return new CSRMatrix<>();
     }
 
     public static CSRMatrix<FloatArray> loadMatrixF(InputStream inStream) {
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inStream))) {
-            return loadMatrixF(br);
-        } catch (IOException e) {
+        try (inStream) {
+            return MatrixMarketParser.parseF(MemorySegment.ofArray(inStream.readAllBytes()));
+        } catch (IOException | IllegalArgumentException e) {
             err.printf("unable to read matrix from input steam: %s\n", e.getMessage());
             e.printStackTrace();
         }
@@ -201,160 +81,38 @@ public class SparseMatrixUtils {
     }
 
     public static CSRMatrix<FloatArray> loadMatrixF(final String path) {
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-            return loadMatrixF(br);
-        } catch (IOException e) {
+        final Path file = Path.of(path);
+        try {
+            CSRMatrix<FloatArray> mat = CSRMatrixCache.isEnabled() ? CSRMatrixCache.loadF(file) : null;
+            if (mat == null) {
+                try (Arena arena = Arena.ofShared(); FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mat = MatrixMarketParser.parseF(mapFile(channel, arena));
+                }
+                storeCache(file, mat);
+            }
+            if (VERBOSE && mat != null) {
+                out.printf("Matrix: rows=%d, elements=%d\n", mat.size, mat.n);
+            }
+            return mat;
+        } catch (IOException | IllegalArgumentException e) {
             err.printf("unable to read matrix from file: %s (%s)\n", path, e.getMessage());
             e.printStackTrace();
         }
         return null;
     }
 
-    private static CSRMatrix<FloatArray> loadMatrixF(BufferedReader br) throws IOException {
-        boolean pattern = false;
-        boolean symmetric = false;
-
-        final CSRMatrix<FloatArray> mat = new CSRMatrix<>();
-
-        Random rand = null;
-
-        String line = br.readLine();
-
-        String[] opts = line.split(" ");
-        // id object format field symmetry
-
-        if (!opts[1].equalsIgnoreCase("matrix")) {
-            out.printf("Matrix file doesnot contain matrix\n");
-            br.close();
-            return null;
-        }
-
-        if (!opts[2].equalsIgnoreCase("coordinate")) {
-            out.printf("Matrix representation is dense\n");
-            br.close();
-            return null;
-        }
-
-        if (opts[3].equalsIgnoreCase("pattern")) {
-            pattern = true;
-            rand = new Random();
-            rand.setSeed(7);
-        }
-
-        if (opts[4].equalsIgnoreCase("symmetric")) {
-            symmetric = true;
-        }
-
-        while ((line = br.readLine()) != null) {
-            if (!line.startsWith("%")) {
-                break;
-            }
-        }
-
-        opts = line.split(" ");
-
-        final int nRows = parseInt(opts[0]);
-        final int nCols = parseInt(opts[1]);
-        int nElements = parseInt(opts[2]);
-
-        class Coordinate implements Comparable<Coordinate> {
-
-            int x;
-            int y;
-            float val;
-
-            Coordinate(final int a, final int b, final float c) {
-                x = a;
-                y = b;
-                val = c;
-            }
-
-            Coordinate(final String[] opts) {
-                x = parseInt(opts[0]) - 1;
-                y = parseInt(opts[1]) - 1;
-                val = parseFloat(opts[2]);
-            }
-
-            @Override
-            public int compareTo(final Coordinate c) {
-                int val;
-                if (x != c.x) {
-                    val = x - c.x;
-                } else {
-                    val = y - c.y;
-                }
-
-                return val;
-            }
-
-            @Override
-            public String toString() {
-                return format("[ %d, %d, %10.2f ]", x, y, val);
-            }
-        }
-
-        if (VERBOSE) {
-            out.printf("Matrix: rows=%d, cols=%d, elements=%d\n", nRows, nCols, nElements);
-        }
-
-        List<Coordinate> coords;
-        if (symmetric) {
-            coords = new ArrayList<>(2 * nElements);
-        } else {
-            coords = new ArrayList<>(nElements);
-        }
-
-        int index = 0;
-        while ((line = br.readLine()) != null) {
-            opts = line.split(" ");
-            if (pattern) {
-                final Coordinate c = new Coordinate(parseInt(opts[0]) - 1, parseInt(opts[1]) - 1, rand.nextFloat() * 256.0f);
-                coords.add(c);
-            } else {
-                coords.add(new Coordinate(opts));
-            }
-
-            index++;
-
-            if (symmetric) {
-                final Coordinate last = coords.get(index - 1);
-                if (last.x != last.y) {
-                    coords.add(new Coordinate(last.y, last.x, last.val));
-                    index++;
-                }
-            }
+    private static void storeCache(Path file, CSRMatrix<? extends TornadoNativeArray> mat) {
+        if (mat == null || !CSRMatrixCache.isEnabled()) {
+            return;
         }
-
-        br.close();
-
-        sort(coords);
-
-        nElements = index;
-
-        mat.n = nElements;
-        mat.size = nRows;
-        mat.vals = new FloatArray(nElements);
-        mat.cols = new IntArray(nElements);
-        mat.rows = new IntArray(nRows + 1);
-
-        mat.rows.set(0, 0);
-        mat.rows.set(nRows, nElements);
-
-        int r = 0;
-
-        for (int i = 0; i < nElements; i++) {
-
-            final Coordinate c = coords.get(i);
-
-            while (c.x != r) {
-                mat.rows.set(++r, i);
+        try {
+            CSRMatrixCache.store(file, mat);
+        } catch (IOException e) {
+            // The cache is optional, e.g. the directory of the matrix may be read-only
+            if (VERBOSE) {
+                out.printf("Unable to cache matrix %s: %s\n", file, e.getMessage());
             }
-            mat.vals.set(i, c.val);
-            mat.cols.set(i, c.y);
         }
-
-        coords.clear();
-        return mat;
     }
 
     public static class CSRMatrix<T> {
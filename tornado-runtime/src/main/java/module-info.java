@@ -19,6 +19,7 @@ open module tornado.runtime {
     exports uk.ac.manchester.tornado.runtime.common.exceptions;
     exports uk.ac.manchester.tornado.runtime.directives;
     exports uk.ac.manchester.tornado.runtime.domain;
+    exports uk.ac.manchester.tornado.runtime.fallback;
     exports uk.ac.manchester.tornado.runtime.graal;
     exports uk.ac.manchester.tornado.runtime.graal.backend;
     exports uk.ac.manchester.tornado.runtime.graal.compiler;
@@ -28,6 +29,7 @@ open module tornado.runtime {
     exports uk.ac.manchester.tornado.runtime.graal.phases;
     exports uk.ac.manchester.tornado.runtime.graph;
     exports uk.ac.manchester.tornado.runtime.graph.nodes;
+    exports uk.ac.manchester.tornado.runtime.metrics;
     exports uk.ac.manchester.tornado.runtime.profiler;
     exports uk.ac.manchester.tornado.runtime.sketcher;
     exports uk.ac.manchester.tornado.runtime.tasks;
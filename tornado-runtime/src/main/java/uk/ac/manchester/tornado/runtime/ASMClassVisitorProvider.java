@@ -23,9 +23,87 @@
  */
 package uk.ac.manchester.tornado.runtime;
 
+import java.lang.reflect.Method;
+
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.runtime.common.ParallelAnnotationProvider;
 
 public interface ASMClassVisitorProvider {
     ParallelAnnotationProvider[] getParallelAnnotations(ResolvedJavaMethod method);
+
+    /**
+     * Builds a class that contains a copy of a static task method in which the
+     * outermost loop annotated with {@link uk.ac.manchester.tornado.api.annotations.Parallel}
+     * is partitioned across Java threads. The copied method receives three extra
+     * int parameters: the worker id, the number of workers and the block size.
+     *
+     * @param method
+     *     Static method to rewrite.
+     * @param className
+     *     Binary name (internal form) of the generated class. It must belong to
+     *     the same package as the declaring class of the method.
+     * @return the class file of the generated class, or null if the method cannot
+     *     be partitioned.
+     */
+    byte[] getParallelPartitionedClass(Method method, String className);
+
+    /**
+     * Builds a class with a static method that runs the bodies of several static
+     * task methods in a single loop. Each method must consist of a single loop
+     * annotated with {@link uk.ac.manchester.tornado.api.annotations.Parallel},
+     * and all loops must have the same iteration space. The objects that are not
+     * live-out and are only accessed at the index of the loop are kept in local
+     * variables and removed from the parameters of the fused method. The
+     * generated class implements the {@code TornadoFunctions.TaskN} interface
+     * that matches the fused method.
+     *
+     * @param methods
+     *     Static task methods, in execution order.
+     * @param parameterMapping
+     *     For each method, the index of the fused parameter passed to each of its
+     *     parameters.
+     * @param arguments
+     *     Values of the fused parameters.
+     * @param isLiveOut
+     *     For each fused parameter, true if the object is used outside the fused
+     *     methods.
+     * @param className
+     *     Binary name (internal form) of the generated class. It must belong to
+     *     the same package as the declaring class of the methods.
+     * @param methodName
+     *     Name of the fused method, which is also the name of the kernel.
+     * @return the generated class, or null if the methods cannot be fused.
+     */
+    FusedClass getFusedClass(Method[] methods, int[][] parameterMapping, Object[] arguments, boolean[] isLiveOut, String className, String methodName);
+
+    /**
+     * Class built by {@link #getFusedClass}.
+     *
+     * @param classFile
+     *     Class file of the generated class.
+     * @param parameters
+     *     Indices of the fused parameters received by the fused method, in order.
+     */
+    record FusedClass(byte[] classFile, int[] parameters) {
+    }
+
+    /**
+     * Builds a class that runs a static task method with the SIMD instructions of
+     * the host, through the Java Vector API. The method must have a single loop
+     * annotated with {@link uk.ac.manchester.tornado.api.annotations.Parallel}
+     * whose iterations are element-wise operations on float arrays. The generated
+     * class has two static methods, {@code lowerBound} and {@code upperBound},
+     * that take the parameters of the task method and return the iteration space
+     * of the loop, and a static method with the name of the task method and two
+     * extra int parameters that runs the iterations in {@code [from, to)}.
+     *
+     * @param method
+     *     Static method to vectorize.
+     * @param className
+     *     Binary name (internal form) of the generated class. It must belong to
+     *     the same package as the declaring class of the method.
+     * @return the class file of the generated class, or null if the method cannot
+     *     be vectorized.
+     */
+    byte[] getVectorizedClass(Method method, String className);
 }
@@ -2,7 +2,7 @@
  * This file is part of Tornado: A heterogeneous programming framework:
  * https://github.com/beehive-lab/tornadovm
  *
- * Copyright (c) 2013-2023, APT Group, Department of Computer Science,
+ * Copyright (c) 2013-2024, APT Group, Department of Computer Science,
  * The University of Manchester. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
@@ -31,6 +31,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import uk.ac.manchester.tornado.api.GridScheduler;
@@ -62,6 +64,16 @@ public class TornadoVM {
 
     private final TornadoVMInterpreter[] tornadoVMInterpreters;
 
+    /**
+     * Single-thread executor of each interpreter for the concurrent execution on
+     * multiple devices. They are created on the first concurrent execution and
+     * reused until {@link #close()}, so each interpreter always runs on the same
+     * thread.
+     */
+    private ExecutorService[] interpreterExecutors;
+
+    private final List<Future<?>> interpreterFutures = new ArrayList<>();
+
     /**
      * It constructs a new TornadoVM instance.
      *
@@ -109,7 +121,7 @@ public class TornadoVM {
         Arrays.stream(tornadoVMInterpreters).forEach(tornadoVMInterpreter -> tornadoVMInterpreter.setTimeProfiler(timeProfiler));
 
         if (shouldInterpreterRunInParallel(isParallel)) {
-            return executeInterpreterThreadManager(isParallel);
+            return executeInterpreterThreadManager();
         } else {
             return executeInterpreterSingleThreaded();
         }
@@ -129,23 +141,18 @@ public class TornadoVM {
     }
 
     /**
-     * It executes the interpreter manager either in concurrently in multiple
-     * threads or in single-threaded mode.
+     * It executes each interpreter in its own thread and waits for all of them.
      *
      * @return An {@link Event} indicating the completion of execution.
      */
-    private Event executeInterpreterThreadManager(boolean isParallel) {
-        // Create a thread pool with a fixed number of threads
-        int numberOfJavaThreads = calculateNumberOfJavaThreads(isParallel);
-        ExecutorService executor = Executors.newFixedThreadPool(numberOfJavaThreads);
-
-        // Create a list to hold the futures of each execution
-        List<Future<?>> futures = new ArrayList<>();
-
-        // Submit each task to the thread pool
-        for (TornadoVMInterpreter tornadoVMInterpreter : tornadoVMInterpreters) {
-            Future<?> future = executor.submit(tornadoVMInterpreter::execute);
-            futures.add(future);
+    private Event executeInterpreterThreadManager() {
+        ExecutorService[] executors = getInterpreterExecutors();
+
+        // Submit each interpreter to its own thread
+        List<Future<?>> futures = interpreterFutures;
+        futures.clear();
+        for (int i = 0; i < tornadoVMInterpreters.length; i++) {
+            futures.add(executors[i].submit(tornadoVMInterpreters[i]::execute));
         }
         // Wait for all tasks to complete
         try {
@@ -166,13 +173,54 @@ public class TornadoVM {
                 throw new RuntimeException(e);
             }
         } finally {
-            // Shutdown the executor after all tasks have completed
-            executor.shutdown();
+            futures.clear();
         }
 
         return new EmptyEvent();
     }
 
+    private synchronized ExecutorService[] getInterpreterExecutors() {
+        if (interpreterExecutors == null) {
+            interpreterExecutors = new ExecutorService[tornadoVMInterpreters.length];
+            for (int i = 0; i < interpreterExecutors.length; i++) {
+                interpreterExecutors[i] = Executors.newSingleThreadExecutor(createThreadFactory("tornadovm-interpreter-" + i));
+            }
+        }
+        return interpreterExecutors;
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        if (TornadoOptions.CONCURRENT_INTERPRETERS_VIRTUAL_THREADS) {
+            return Thread.ofVirtual().name(name).factory();
+        }
+        // Daemon threads do not keep the JVM alive if the execution plan is not closed
+        return Thread.ofPlatform().name(name).daemon(true).factory();
+    }
+
+    /**
+     * It shuts down the threads of the concurrent interpreters and waits for
+     * them to terminate, so the threads are freed when this method returns. The
+     * wait is short: {@link #execute} waits for all the interpreters, so the
+     * threads are idle unless an execution failed with an interrupt. A later
+     * concurrent execution creates new threads.
+     */
+    public synchronized void close() {
+        if (interpreterExecutors != null) {
+            for (ExecutorService executor : interpreterExecutors) {
+                executor.shutdown();
+            }
+            try {
+                for (ExecutorService executor : interpreterExecutors) {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                interpreterExecutors = null;
+            }
+        }
+    }
+
     private boolean shouldRunConcurrently(boolean isTaskGraphConcurrent) {
         return (isTaskGraphConcurrent || TornadoOptions.CONCURRENT_INTERPRETERS) && (executionContext.getValidContextSize() > 1);
     }
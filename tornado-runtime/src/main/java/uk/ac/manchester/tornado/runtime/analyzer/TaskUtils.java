@@ -29,6 +29,8 @@ import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guara
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.shouldNotReachHere;
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.unimplemented;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -38,6 +40,7 @@ import org.graalvm.compiler.bytecode.Bytecodes;
 import jdk.vm.ci.meta.ConstantPool;
 import jdk.vm.ci.meta.JavaMethod;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
 import uk.ac.manchester.tornado.api.common.PrebuiltTaskPackage;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task;
@@ -53,6 +56,7 @@ import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task7;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider;
 import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
@@ -66,6 +70,24 @@ public class TaskUtils {
 
     private static boolean useToJavaMethod = false;
 
+    private static class ProviderHolder {
+        private static final ASMClassVisitorProvider PROVIDER = loadProvider();
+
+        private static ASMClassVisitorProvider loadProvider() {
+            String tornadoAnnotationImplementation = System.getProperty("tornado.load.annotation.implementation");
+            if (tornadoAnnotationImplementation == null) {
+                return null;
+            }
+            try {
+                Class<?> klass = Class.forName(tornadoAnnotationImplementation);
+                Constructor<?> constructor = klass.getConstructor();
+                return (ASMClassVisitorProvider) constructor.newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+                return null;
+            }
+        }
+    }
+
     public static CompilableTask scalaTask(String id, Object object, Object... args) {
         Class<?> type = object.getClass();
         Method entryPoint = null;
@@ -197,6 +219,28 @@ public class TaskUtils {
         return null;
     }
 
+    /**
+     * @return The implementation of the bytecode transformations, or null if the
+     *     annotation module has not been loaded.
+     */
+    public static ASMClassVisitorProvider getASMClassVisitorProvider() {
+        return ProviderHolder.PROVIDER;
+    }
+
+    /**
+     * @return true if a parameter of the method is annotated with {@link Reduce}.
+     */
+    public static boolean hasReduceParameters(Method method) {
+        for (Annotation[] parameterAnnotations : method.getParameterAnnotations()) {
+            for (Annotation annotation : parameterAnnotations) {
+                if (annotation instanceof Reduce) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public static CompilableTask createTask(Method method, ScheduleContext meta, String id, Task code) {
         return createTask(meta, id, method, code, true);
     }
@@ -0,0 +1,129 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.autotuning;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Persisted local work sizes found by the autotuning. The entries are stored in
+ * a properties file (see {@link TornadoOptions#AUTOTUNING_FILE}), with one line
+ * per task, device and problem size, so they can be reviewed, edited or shared
+ * between machines with the same device.
+ */
+final class AutoTuningStore {
+
+    private static final TornadoLogger logger = new TornadoLogger(AutoTuningStore.class);
+
+    /**
+     * Value of the entries that use the local work sizes of the backend scheduler.
+     */
+    private static final String DEFAULT_VALUE = "default";
+
+    private static final Path FILE = Paths.get(TornadoOptions.AUTOTUNING_FILE);
+
+    private static Properties entries;
+
+    private AutoTuningStore() {
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(FILE)) {
+            try (InputStream input = Files.newInputStream(FILE)) {
+                properties.load(input);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("[autotuning] unable to read %s: %s", FILE, e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * @return The local work sizes stored for the key, {@link LocalWorkAutoTuner#DEFAULT_LOCAL_WORK}
+     *     if the default ones are the best, or null if there is no valid entry.
+     */
+    static synchronized long[] get(String key) {
+        if (entries == null) {
+            entries = load();
+        }
+        String value = entries.getProperty(key);
+        if (value == null) {
+            return null;
+        } else if (value.equals(DEFAULT_VALUE)) {
+            return LocalWorkAutoTuner.DEFAULT_LOCAL_WORK;
+        }
+        String[] values = value.split(",");
+        if (values.length != 3) {
+            return null;
+        }
+        long[] localWork = new long[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                localWork[i] = Long.parseLong(values[i].trim());
+                if (localWork[i] <= 0) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return localWork;
+    }
+
+    /**
+     * Stores the local work sizes for the key. The file is read again before it is
+     * written, so the entries stored by other processes are kept.
+     */
+    static synchronized void put(String key, long[] localWork) {
+        entries = load();
+        StringBuilder value = new StringBuilder(localWork == LocalWorkAutoTuner.DEFAULT_LOCAL_WORK ? DEFAULT_VALUE : "");
+        for (int i = 0; i < localWork.length; i++) {
+            value.append(i == 0 ? "" : ",").append(localWork[i]);
+        }
+        entries.setProperty(key, value.toString());
+
+        try {
+            Path directory = FILE.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "autotuning", ".tmp");
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                entries.store(output, "TornadoVM local work sizes: <task>|<backend>:<device>|<problem size>=<x,y,z>|default");
+            }
+            Files.move(temporary, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("[autotuning] stored %s=%s", key, value);
+        } catch (IOException e) {
+            logger.warn("[autotuning] unable to store %s: %s", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.autotuning;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEBUG;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskDataContext;
+
+/**
+ * Searches the local work sizes of the parallel tasks run by a TornadoVM
+ * interpreter. For each task, the first execution uses the local work sizes of
+ * the backend scheduler, and each of the next executions tries another
+ * configuration that fits on the device and divides the global work sizes. The
+ * configuration with the lowest kernel time is kept for the rest of the
+ * executions and stored with {@link AutoTuningStore}, keyed by the task, the
+ * device and the problem size.
+ *
+ * <p>
+ * The global work sizes are not tuned: they are given by the iteration space of
+ * the parallel loops.
+ * </p>
+ */
+public final class LocalWorkAutoTuner {
+
+    private static final int MIN_GROUP_SIZE = 16;
+
+    /**
+     * Configuration that uses the local work sizes of the backend scheduler.
+     */
+    static final long[] DEFAULT_LOCAL_WORK = new long[0];
+
+    private final TornadoXPUDevice device;
+    private final String deviceKey;
+    private int iterations;
+
+    private final HashMap<String, TaskTuning> tunings = new HashMap<>();
+    private final HashMap<String, TaskDataContext> tunedTasks = new HashMap<>();
+
+    /**
+     * State of the search for a task and a problem size.
+     */
+    private static final class TaskTuning {
+        private final String key;
+        private final List<long[]> candidates = new ArrayList<>();
+        // Configuration of the current execution: -1 for the default one
+        private int current = -1;
+        private long[] best = DEFAULT_LOCAL_WORK;
+        private long bestTime = Long.MAX_VALUE;
+        private long elapsedTime;
+        private boolean isLaunched;
+        private boolean isDone;
+
+        private TaskTuning(String key) {
+            this.key = key;
+        }
+    }
+
+    public LocalWorkAutoTuner(TornadoXPUDevice device, int iterations) {
+        this.device = device;
+        this.deviceKey = device.getTornadoVMBackend() + ":" + device.getPhysicalDevice().getDeviceName();
+        this.iterations = iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Reductions and kernels that use the {@link KernelContext} depend on the
+     * local work sizes, so they are not tuned.
+     */
+    private boolean isTunable(SchedulableTask task, TaskDataContext meta) {
+        if (!(task instanceof CompilableTask compilableTask) || !meta.isParallel() || meta.isWorkerGridAvailable() || device.getDeviceType() == TornadoDeviceType.FPGA) {
+            return false;
+        }
+        if (meta.isLocalWorkDefined() && !tunedTasks.containsKey(meta.getId())) {
+            // Local work sizes given with -D<task>.local.dims
+            return false;
+        }
+        for (Object argument : task.getArguments()) {
+            if (argument instanceof KernelContext) {
+                return false;
+            }
+        }
+        return !TaskUtils.hasReduceParameters(compilableTask.getMethod());
+    }
+
+    private String keyOf(TaskDataContext meta) {
+        StringBuilder key = new StringBuilder(meta.getId()).append('|').append(deviceKey).append('|');
+        for (int i = 0; i < meta.getDims(); i++) {
+            key.append(i == 0 ? "" : "x").append(meta.getDomain().get(i).cardinality());
+        }
+        return key.toString();
+    }
+
+    private static void apply(TaskDataContext meta, long[] localWork) {
+        if (localWork == DEFAULT_LOCAL_WORK) {
+            meta.setLocalWorkToNotDefined();
+        } else {
+            meta.setLocalWork(localWork);
+        }
+    }
+
+    /**
+     * Sets the local work sizes of the task before it is launched.
+     *
+     * @return True if the kernel time of the launch has to be recorded with
+     *     {@link #record}.
+     */
+    public boolean beforeLaunch(SchedulableTask task, TaskDataContext meta) {
+        if (!isTunable(task, meta)) {
+            return false;
+        }
+        tunedTasks.put(meta.getId(), meta);
+        final String key = keyOf(meta);
+        TaskTuning tuning = tunings.get(key);
+        if (tuning == null) {
+            tuning = new TaskTuning(key);
+            long[] stored = AutoTuningStore.get(key);
+            if (stored != null) {
+                tuning.best = stored;
+                tuning.isDone = true;
+            }
+            tunings.put(key, tuning);
+        }
+        if (tuning.isDone) {
+            apply(meta, tuning.best);
+            return false;
+        }
+        apply(meta, tuning.current == -1 ? DEFAULT_LOCAL_WORK : tuning.candidates.get(tuning.current));
+        return true;
+    }
+
+    /**
+     * Records the kernel time of a launch of the task.
+     */
+    public void record(TaskDataContext meta, long elapsedTime) {
+        TaskTuning tuning = tunings.get(keyOf(meta));
+        if (tuning == null || tuning.isDone) {
+            return;
+        }
+        if (tuning.current == -1 && !tuning.isLaunched) {
+            // The global work sizes are known after the first launch
+            tuning.candidates.addAll(createCandidates(meta));
+        }
+        tuning.elapsedTime += elapsedTime;
+        tuning.isLaunched = true;
+    }
+
+    /**
+     * Moves the tasks launched in the execution to their next configuration.
+     */
+    public void endExecution() {
+        for (TaskTuning tuning : tunings.values()) {
+            if (tuning.isDone || !tuning.isLaunched) {
+                continue;
+            }
+            if (tuning.elapsedTime < tuning.bestTime) {
+                tuning.bestTime = tuning.elapsedTime;
+                tuning.best = tuning.current == -1 ? DEFAULT_LOCAL_WORK : tuning.candidates.get(tuning.current);
+            }
+            tuning.elapsedTime = 0;
+            tuning.isLaunched = false;
+            tuning.current++;
+            if (tuning.current == tuning.candidates.size()) {
+                tuning.isDone = true;
+                if (DEBUG) {
+                    String localWork = tuning.best == DEFAULT_LOCAL_WORK ? "default" : Arrays.toString(tuning.best);
+                    System.out.println("[DEBUG] Autotuning " + tuning.key + ": local work " + localWork + ", " + tuning.bestTime + " ns");
+                }
+                AutoTuningStore.put(tuning.key, tuning.best);
+            }
+        }
+    }
+
+    /**
+     * Restores the local work sizes of the backend scheduler for the tuned
+     * tasks.
+     */
+    public void restoreDefaults() {
+        tunedTasks.values().forEach(TaskDataContext::setLocalWorkToNotDefined);
+        tunedTasks.clear();
+    }
+
+    private List<long[]> createCandidates(TaskDataContext meta) {
+        final long[] globalWork = meta.getGlobalWork();
+        final long[] maxWorkItemSizes = device.getDeviceMaxWorkgroupDimensions();
+        final long maxGroupSize = device.getPhysicalDevice().getMaxThreadsPerBlock();
+        final int dims = Math.min(meta.getDims(), 2);
+
+        List<long[]> candidates = new ArrayList<>();
+        for (long x = 1; x <= Math.min(maxWorkItemSizes[0], globalWork[0]); x *= 2) {
+            for (long y = 1; y <= (dims == 2 ? Math.min(maxWorkItemSizes[1], globalWork[1]) : 1); y *= 2) {
+                long groupSize = x * y;
+                boolean isDivisor = globalWork[0] % x == 0 && (dims == 1 || globalWork[1] % y == 0);
+                if (groupSize >= MIN_GROUP_SIZE && groupSize <= maxGroupSize && isDivisor) {
+                    candidates.add(new long[] { x, y, 1 });
+                }
+            }
+        }
+
+        // The default configuration takes one of the iterations
+        final int maxCandidates = Math.max(iterations - 1, 0);
+        if (candidates.size() <= maxCandidates) {
+            return candidates;
+        }
+        List<long[]> sample = new ArrayList<>();
+        for (int i = 0; i < maxCandidates; i++) {
+            sample.add(candidates.get(i * candidates.size() / maxCandidates));
+        }
+        return sample;
+    }
+}
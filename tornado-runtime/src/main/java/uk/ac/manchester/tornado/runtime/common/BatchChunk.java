@@ -0,0 +1,105 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+/**
+ * A batch of the iteration space of a task-graph. It provides the offset and
+ * the size, in bytes, of each object for the TornadoVM bytecodes that allocate
+ * and transfer the batch.
+ *
+ * <p>
+ * Objects that are not processed in batches have an offset and a size of 0,
+ * which means that they are allocated and transferred whole.
+ * </p>
+ */
+public final class BatchChunk {
+
+    /**
+     * Bytecodes of a task-graph that is not processed in batches.
+     */
+    public static final BatchChunk NO_BATCH = new BatchChunk(null, 0, 0, true, true);
+
+    private final BatchConfiguration configuration;
+    private final long firstIteration;
+    private final long numberOfThreads;
+    private final boolean isFirst;
+    private final boolean isLast;
+
+    /**
+     * @param configuration
+     *     {@link BatchConfiguration} of the task-graph, or null if every
+     *     object is transferred whole.
+     * @param firstIteration
+     *     Index of the first iteration of the batch.
+     * @param numberOfThreads
+     *     Number of iterations of the batch.
+     * @param isFirst
+     *     True for the first batch of the task-graph.
+     * @param isLast
+     *     True for the last batch of the task-graph.
+     */
+    BatchChunk(BatchConfiguration configuration, long firstIteration, long numberOfThreads, boolean isFirst, boolean isLast) {
+        this.configuration = configuration;
+        this.firstIteration = firstIteration;
+        this.numberOfThreads = numberOfThreads;
+        this.isFirst = isFirst;
+        this.isLast = isLast;
+    }
+
+    public boolean isBatched(int objectIndex) {
+        return configuration != null && configuration.isBatched(objectIndex);
+    }
+
+    /**
+     * @return Offset, in bytes, of the object for this batch.
+     */
+    public long offsetOf(int objectIndex) {
+        return isBatched(objectIndex) ? firstIteration * configuration.getBytesPerIteration(objectIndex) : 0;
+    }
+
+    /**
+     * @return Size, in bytes, of the object for this batch, or 0 if the object
+     *     is transferred whole.
+     */
+    public long sizeOf(int objectIndex) {
+        return isBatched(objectIndex) ? numberOfThreads * configuration.getBytesPerIteration(objectIndex) : 0;
+    }
+
+    public long getFirstIteration() {
+        return firstIteration;
+    }
+
+    public long getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    public boolean isFirst() {
+        return isFirst;
+    }
+
+    public boolean isLast() {
+        return isLast;
+    }
+
+}
@@ -23,6 +23,8 @@
  */
 package uk.ac.manchester.tornado.runtime.common;
 
+import java.util.Map;
+
 /**
  * This class encapsulates all the information related to batch processing
  * that is necessary during compilation.
@@ -32,11 +34,17 @@ public class BatchCompilationConfig {
     private long batchThreads;
     private int batchNumber;
     private long batchSize;
+    private Map<Object, Long> elementsPerThread;
 
     public BatchCompilationConfig(long batchThreads, int batchNumber, long batchSize) {
+        this(batchThreads, batchNumber, batchSize, null);
+    }
+
+    public BatchCompilationConfig(long batchThreads, int batchNumber, long batchSize, Map<Object, Long> elementsPerThread) {
         this.batchThreads = batchThreads;
         this.batchNumber = batchNumber;
         this.batchSize = batchSize;
+        this.elementsPerThread = elementsPerThread;
     }
 
     public long getBatchThreads() {
@@ -50,4 +58,34 @@ public class BatchCompilationConfig {
     public long getBatchSize() {
         return batchSize;
     }
+
+    /**
+     * @param argument
+     *     Argument of the task.
+     * @return True if the argument is processed in batches. If the number of
+     *     elements per thread of the arguments is unknown, all arguments are
+     *     processed in batches.
+     */
+    public boolean isBatched(Object argument) {
+        return elementsPerThread == null || elementsPerThread.containsKey(argument);
+    }
+
+    /**
+     * @param argument
+     *     Argument of the task processed in batches.
+     * @return The number of elements of the argument in each batch.
+     */
+    public long getBatchLength(Object argument) {
+        return elementsPerThread == null ? batchThreads : batchThreads * elementsPerThread.get(argument);
+    }
+
+    /**
+     * @param argument
+     *     Argument of the task processed in batches.
+     * @return True if the argument holds one element per thread, so its size can
+     *     be used as the bound of a parallel loop.
+     */
+    public boolean isIterationSpace(Object argument) {
+        return elementsPerThread == null || elementsPerThread.get(argument) == 1;
+    }
 }
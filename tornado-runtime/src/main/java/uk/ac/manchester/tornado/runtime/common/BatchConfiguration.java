@@ -24,25 +24,60 @@
 package uk.ac.manchester.tornado.runtime.common;
 
 import java.lang.reflect.Array;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
-import uk.ac.manchester.tornado.api.types.arrays.ByteArray;
-import uk.ac.manchester.tornado.api.types.arrays.CharArray;
-import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
-import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
-import uk.ac.manchester.tornado.api.types.arrays.IntArray;
-import uk.ac.manchester.tornado.api.types.arrays.LongArray;
-import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
 import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.enums.DataTypeSize;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
+import uk.ac.manchester.tornado.runtime.sketcher.AffineIndex;
+import uk.ac.manchester.tornado.runtime.sketcher.ArgumentIndexing;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 
 /**
  * It presents the configuration for processing data in batches. This class
  * provides methods to compute chunk sizes based on the batch size and input
  * objects.
+ *
+ * <p>
+ * The iteration space of the task-graph is given by the smallest array that is
+ * written by the tasks with an index of the outermost parallel loop, divided by
+ * the number of elements between two iterations. Each array that the tasks
+ * index with the parallel loop holds {@code k} consecutive elements per
+ * iteration (e.g., the rows of a matrix), and it is split in batches with its
+ * own offsets and sizes. The kernels index the batches from their first
+ * element, so every access must be {@code k * i + c}, with {@code c} between
+ * {@code 0} and {@code k - 1} for any value of the inner loops (see
+ * {@link AffineIndex}); otherwise (e.g., a stencil that reads {@code in[i + 1]}),
+ * the configuration fails. The rest of the objects (e.g., the vector of a
+ * matrix-vector multiplication) are not processed in batches: they are
+ * transferred whole, once, and they stay on the device until the last batch.
+ * If an array is indexed both with and without the parallel loop, or it is
+ * passed to a method that is not inlined, the configuration fails instead of
+ * guessing its shape.
+ * </p>
+ *
+ * <p>
+ * The batch size sets the maximum size of a batch for any of the arrays, so the
+ * number of iterations per batch is given by the array with the largest number
+ * of bytes per iteration.
+ * </p>
+ *
+ * <p>
+ * If the execution context has an iteration range, only the iterations of that
+ * range are split in batches, and the offsets of the batches start at the first
+ * iteration of the range. Without a batch size, the whole range is a single
+ * batch.
+ * </p>
  */
 /**
  * How to test?
@@ -55,93 +90,340 @@ import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
  */
 public class BatchConfiguration {
 
+    private static final long NOT_BATCHED = 0;
+
+    private final long iterationSpace;
+    private final long firstIteration;
     private final int totalChunks;
-    private final int remainingChunkSize;
-    private final short numBytesType;
+    private final long remainingIterations;
+    private final long iterationsPerChunk;
+    private final long[] bytesPerIteration;
+    private final Map<Object, Long> elementsPerIteration;
 
     /**
      * Constructs a BatchConfiguration object with the specified parameters.
      *
+     * @param iterationSpace
+     *     The number of iterations of the whole task-graph.
+     * @param firstIteration
+     *     The first iteration of the first chunk.
      * @param totalChunks
-     *     The total number of chunks.
-     * @param remainingChunkSize
-     *     The size of the remaining chunk.
-     * @param numBytesType
-     *     The number of bytes for the data type.
+     *     The total number of chunks with {@code iterationsPerChunk}
+     *     iterations.
+     * @param remainingIterations
+     *     The number of iterations of the last chunk.
+     * @param iterationsPerChunk
+     *     The number of iterations of each chunk.
+     * @param bytesPerIteration
+     *     The number of bytes per iteration of each object of the
+     *     task-graph, or 0 if the object is not processed in batches.
+     * @param elementsPerIteration
+     *     The number of elements per iteration of each object processed in
+     *     batches.
      */
-    public BatchConfiguration(int totalChunks, int remainingChunkSize, short numBytesType) {
+    public BatchConfiguration(long iterationSpace, long firstIteration, int totalChunks, long remainingIterations, long iterationsPerChunk, long[] bytesPerIteration,
+            Map<Object, Long> elementsPerIteration) {
+        this.iterationSpace = iterationSpace;
+        this.firstIteration = firstIteration;
         this.totalChunks = totalChunks;
-        this.remainingChunkSize = remainingChunkSize;
-        this.numBytesType = numBytesType;
+        this.remainingIterations = remainingIterations;
+        this.iterationsPerChunk = iterationsPerChunk;
+        this.bytesPerIteration = bytesPerIteration;
+        this.elementsPerIteration = elementsPerIteration;
     }
 
+    /**
+     * @param context
+     *     Execution context of the task-graph.
+     * @param batchSize
+     *     Maximum size of a batch in bytes, or
+     *     {@link TornadoExecutionContext#INIT_VALUE} to process the iteration
+     *     range of the context in a single batch.
+     * @return {@link BatchConfiguration}
+     */
     public static BatchConfiguration computeChunkSizes(TornadoExecutionContext context, long batchSize) {
-        // Get the size of the batch
-        long totalSize = 0;
-
-        HashSet<Long> inputSizes = new HashSet<>();
-        LinkedHashSet<Byte> elementSizes = new LinkedHashSet<>();
+        final List<Object> objects = context.getObjects();
+        final long[] numElements = new long[objects.size()];
+        final byte[] elementSizes = new byte[objects.size()];
+        final Map<Object, ObjectIndexing> indexing = findObjectIndexing(context);
 
-        for (Object o : context.getObjects()) {
+        // The iteration space is given by the smallest array written by the tasks with the parallel index
+        long iterationSpace = Long.MAX_VALUE;
+        for (int i = 0; i < objects.size(); i++) {
+            Object o = objects.get(i);
             if (o.getClass().isArray()) {
                 Class<?> componentType = o.getClass().getComponentType();
                 DataTypeSize dataTypeSize = DataTypeSize.findDataTypeSize(componentType);
                 if (dataTypeSize == null) {
                     throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
                 }
-                long size = Array.getLength(o);
-                totalSize = size * dataTypeSize.getSize();
-
-                elementSizes.add(dataTypeSize.getSize());
-                inputSizes.add(totalSize);
+                numElements[i] = Array.getLength(o);
+                elementSizes[i] = dataTypeSize.getSize();
             } else if (o instanceof TornadoNativeArray tornadoNativeArray) {
-                totalSize = tornadoNativeArray.getNumBytesOfSegment();
-                inputSizes.add(totalSize);
-                byte elementSize = switch (tornadoNativeArray) {
-                    case IntArray _ -> DataTypeSize.INT.getSize();
-                    case FloatArray _ -> DataTypeSize.FLOAT.getSize();
-                    case DoubleArray _ -> DataTypeSize.DOUBLE.getSize();
-                    case LongArray _ -> DataTypeSize.LONG.getSize();
-                    case ShortArray _ -> DataTypeSize.SHORT.getSize();
-                    case ByteArray _ -> DataTypeSize.BYTE.getSize();
-                    case CharArray _ -> DataTypeSize.CHAR.getSize();
-                    default -> throw new TornadoRuntimeException("Unsupported array type: " + o.getClass());
-                };
-                elementSizes.add(elementSize);
+                numElements[i] = tornadoNativeArray.getSizeLong();
+                elementSizes[i] = (byte) tornadoNativeArray.getElementSize();
+            } else {
+                // Any other object is transferred whole
+                continue;
+            }
+            ObjectIndexing objectIndexing = indexing.get(o);
+            if (isWritten(context.getObjectsAccesses().get(o)) && objectIndexing != null && objectIndexing.indexing == ArgumentIndexing.PARALLEL && numElements[i] > 0) {
+                iterationSpace = Math.min(iterationSpace, objectIndexing.iterations(numElements[i], elementSizes[i]));
+            }
+        }
+
+        if (iterationSpace == Long.MAX_VALUE) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Batch processing requires an output array indexed by the parallel loop");
+        }
+
+        long[] bytesPerIteration = new long[objects.size()];
+        Map<Object, Long> elementsPerIteration = new IdentityHashMap<>();
+        long maxBytesPerIteration = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            if (elementSizes[i] == 0) {
+                bytesPerIteration[i] = NOT_BATCHED;
+                continue;
+            }
+            boolean isMultiple = numElements[i] >= iterationSpace && numElements[i] % iterationSpace == 0;
+            ObjectIndexing objectIndexing = indexing.getOrDefault(objects.get(i), ObjectIndexing.NOT_INDEXED);
+            if (objectIndexing.indexing == ArgumentIndexing.UNKNOWN) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Unable to decide whether the array at position " + i + " (" + numElements[i]
+                        + " elements) is processed in batches: it is indexed both with and without the parallel loop, or it is passed to a method that is not inlined");
+            } else if (objectIndexing.indexing == ArgumentIndexing.PARALLEL) {
+                if (!isMultiple) {
+                    throw new TornadoRuntimeException("[UNSUPPORTED] The array at position " + i + " (" + numElements[i] + " elements) is indexed by the parallel loop, but its size is not a multiple of the iteration space ("
+                            + iterationSpace + " iterations)");
+                }
+                long elements = numElements[i] / iterationSpace;
+                if (!objectIndexing.isWithinIteration(elements * elementSizes[i])) {
+                    throw new TornadoRuntimeException("[UNSUPPORTED] The array at position " + i + " (" + numElements[i] + " elements) is not indexed as k * i + c, with 0 <= c < k = " + elements
+                            + ", so each batch may need elements of other batches");
+                }
+                bytesPerIteration[i] = elements * elementSizes[i];
+                elementsPerIteration.put(objects.get(i), elements);
+                maxBytesPerIteration = Math.max(maxBytesPerIteration, bytesPerIteration[i]);
             } else {
-                throw new TornadoRuntimeException("Unsupported type: " + o.getClass());
+                bytesPerIteration[i] = NOT_BATCHED;
             }
         }
 
-        if (inputSizes.size() > 1) {
-            throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different sizes not currently supported");
+        long firstIteration = 0;
+        long rangeIterations = iterationSpace;
+        if (context.hasIterationRange()) {
+            firstIteration = context.getIterationRangeStart();
+            rangeIterations = context.getIterationRangeEnd() - firstIteration;
+            if (firstIteration < 0 || rangeIterations < 0 || context.getIterationRangeEnd() > iterationSpace) {
+                throw new TornadoRuntimeException("[ERROR] Iteration range [" + firstIteration + ", " + context.getIterationRangeEnd() + ") out of the iteration space (" + iterationSpace + ")");
+            }
         }
 
-        if (elementSizes.size() > 1) {
-            throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different element sizes not currently supported");
+        long iterationsPerChunk = batchSize == TornadoExecutionContext.INIT_VALUE ? Math.max(1, rangeIterations) : batchSize / maxBytesPerIteration;
+        if (iterationsPerChunk == 0) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] The batch size (" + batchSize + " bytes) is smaller than one iteration (" + maxBytesPerIteration + " bytes)");
         }
 
-        int totalChunks = (int) (totalSize / batchSize);
-        int remainingChunkSize = (int) (totalSize % batchSize);
+        // The kernels index the arrays with int, so each chunk must fit in the int range
+        for (int i = 0; i < objects.size(); i++) {
+            if (bytesPerIteration[i] == NOT_BATCHED) {
+                if (numElements[i] > Integer.MAX_VALUE) {
+                    throw new TornadoRuntimeException("[UNSUPPORTED] An array with more than 2^31 elements (" + numElements[i] + ") must be processed in batches");
+                }
+            } else if (Math.min(iterationsPerChunk, rangeIterations) * elementsPerIteration.get(objects.get(i)) > Integer.MAX_VALUE) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] The batch size (" + batchSize + " bytes) gives chunks with more than 2^31 elements");
+            }
+        }
+
+        int totalChunks = (int) (rangeIterations / iterationsPerChunk);
+        long remainingIterations = rangeIterations % iterationsPerChunk;
 
         if (TornadoOptions.DEBUG) {
             System.out.println("Batch Size: " + batchSize);
+            System.out.println("Iterations per chunk: " + iterationsPerChunk);
             System.out.println("Total chunks: " + totalChunks);
-            System.out.println("remainingChunkSize: " + remainingChunkSize);
+            System.out.println("remainingIterations: " + remainingIterations);
+        }
+        return new BatchConfiguration(iterationSpace, firstIteration, totalChunks, remainingIterations, iterationsPerChunk, bytesPerIteration, elementsPerIteration);
+    }
+
+    /**
+     * Merges, for each object, how the tasks that use it index it, and the
+     * ranges of bytes of each iteration of the accesses of the tasks. The
+     * arguments of pre-built tasks are unknown.
+     */
+    private static Map<Object, ObjectIndexing> findObjectIndexing(TornadoExecutionContext context) {
+        Map<Object, ObjectIndexing> indexing = new IdentityHashMap<>();
+        for (SchedulableTask task : context.getTasks()) {
+            ArgumentIndexing[] argumentsIndexing = null;
+            AffineIndex[][] argumentsIndices = null;
+            if (task instanceof CompilableTask compilableTask) {
+                ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(compilableTask.getMethod());
+                Sketch sketch = TornadoSketcher.lookup(resolvedMethod, task.meta().getBackendIndex(), task.meta().getDeviceIndex());
+                argumentsIndexing = sketch.getArgumentsIndexing();
+                argumentsIndices = sketch.getArgumentsIndices();
+            }
+            Object[] arguments = task.getArguments();
+            for (int i = 0; i < arguments.length; i++) {
+                ArgumentIndexing argumentIndexing = argumentsIndexing != null && i < argumentsIndexing.length ? argumentsIndexing[i] : ArgumentIndexing.UNKNOWN;
+                AffineIndex[] argumentIndices = argumentsIndices != null && i < argumentsIndices.length ? argumentsIndices[i] : null;
+                indexing.computeIfAbsent(arguments[i], argument -> new ObjectIndexing()).merge(argumentIndexing, argumentIndices, arguments);
+            }
         }
-        return new BatchConfiguration(totalChunks, remainingChunkSize, elementSizes.getFirst());
+        return indexing;
+    }
+
+    private static boolean isWritten(Access access) {
+        return access == Access.WRITE_ONLY || access == Access.READ_WRITE;
+    }
+
+    /**
+     * @return The number of iterations of the whole task-graph, which is given
+     *     by the smallest array written by the tasks.
+     */
+    public long getIterationSpace() {
+        return iterationSpace;
     }
 
     public int getTotalChunks() {
         return totalChunks;
     }
 
-    public int getRemainingChunkSize() {
-        return remainingChunkSize;
+    public long getRemainingIterations() {
+        return remainingIterations;
+    }
+
+    public long getIterationsPerChunk() {
+        return iterationsPerChunk;
     }
 
-    public short getNumBytesType() {
-        return numBytesType;
+    /**
+     * @param objectIndex
+     *     Index of the object in the execution context.
+     * @return True if the object is split in batches, false if it is transferred
+     *     whole.
+     */
+    public boolean isBatched(int objectIndex) {
+        return bytesPerIteration[objectIndex] != NOT_BATCHED;
+    }
+
+    /**
+     * @param objectIndex
+     *     Index of the object in the execution context.
+     * @return The number of bytes of the object that each iteration uses, or 0
+     *     if the object is transferred whole.
+     */
+    public long getBytesPerIteration(int objectIndex) {
+        return bytesPerIteration[objectIndex];
+    }
+
+    /**
+     * It returns the number of elements per iteration of each object processed
+     * in batches. The kernels are specialised with these values, so the size of
+     * each batched array becomes the number of threads of the batch times its
+     * elements per iteration, and the rest of the arrays keep their size.
+     *
+     * @return An identity map from object to its number of elements per
+     *     iteration.
+     */
+    public Map<Object, Long> getElementsPerIteration() {
+        return elementsPerIteration;
+    }
+
+    /**
+     * @return The number of batches, including the last batch with the
+     *     remaining elements.
+     */
+    public int getNumberOfChunks() {
+        return totalChunks + (remainingIterations != 0 ? 1 : 0);
+    }
+
+    /**
+     * It returns the number of batches that the pipelined batch mode keeps on
+     * the device at the same time. It is never larger than the number of
+     * batches, and a value of 1 means that batches are processed one after
+     * the other.
+     *
+     * @param requestedChunksInFlight
+     *     Number of batches in flight requested by the execution plan.
+     * @return The number of batches in flight.
+     */
+    public int getChunksInFlight(int requestedChunksInFlight) {
+        return Math.max(1, Math.min(requestedChunksInFlight, getNumberOfChunks()));
+    }
+
+    /**
+     * It splits the iteration space in batches. If the whole iteration space
+     * fits in a single batch, the returned batch transfers every object whole.
+     *
+     * @return List of {@link BatchChunk} in execution order.
+     */
+    public List<BatchChunk> getChunks() {
+        final int numberOfChunks = getNumberOfChunks();
+        List<BatchChunk> chunks = new ArrayList<>(numberOfChunks);
+        for (int i = 0; i < totalChunks; i++) {
+            chunks.add(new BatchChunk(this, firstIteration + i * iterationsPerChunk, iterationsPerChunk, i == 0, i == numberOfChunks - 1));
+        }
+        // Last chunk
+        if (remainingIterations != 0) {
+            boolean isWholeIterationSpace = totalChunks == 0 && remainingIterations == iterationSpace;
+            BatchConfiguration configuration = isWholeIterationSpace ? null : this;
+            chunks.add(new BatchChunk(configuration, firstIteration + totalChunks * iterationsPerChunk, remainingIterations, totalChunks == 0, true));
+        }
+        return chunks;
+    }
+
+    /**
+     * How the tasks index an object, and the ranges of bytes of each iteration
+     * of their accesses, or null if an access is not affine or its terms do not
+     * depend only on the arguments of its task.
+     */
+    private static final class ObjectIndexing {
+
+        private static final ObjectIndexing NOT_INDEXED = new ObjectIndexing();
+
+        private ArgumentIndexing indexing = ArgumentIndexing.NONE;
+        private List<AffineIndex.Range> ranges = new ArrayList<>();
+
+        private void merge(ArgumentIndexing argumentIndexing, AffineIndex[] indices, Object[] arguments) {
+            indexing = indexing.merge(argumentIndexing);
+            if (ranges == null) {
+                return;
+            } else if (indices == null) {
+                ranges = null;
+                return;
+            }
+            for (AffineIndex index : indices) {
+                AffineIndex.Range range = index.resolve(arguments);
+                if (range == null) {
+                    ranges = null;
+                    return;
+                }
+                ranges.add(range);
+            }
+        }
+
+        /**
+         * @return The number of iterations of a written array, given by the bytes
+         *     between two iterations, or its number of elements if the accesses do
+         *     not agree on the bytes per iteration.
+         */
+        private long iterations(long numElements, int elementSize) {
+            if (ranges != null && !ranges.isEmpty()) {
+                long stride = ranges.getFirst().stride();
+                boolean isUniform = stride > 0 && (numElements * elementSize) % stride == 0 && ranges.stream().allMatch(range -> range.stride() == stride);
+                if (isUniform) {
+                    return numElements * elementSize / stride;
+                }
+            }
+            return numElements;
+        }
+
+        /**
+         * @return True if each iteration {@code i} only accesses the bytes
+         *     {@code [i * bytesPerIteration, (i + 1) * bytesPerIteration)}.
+         */
+        private boolean isWithinIteration(long bytesPerIteration) {
+            return ranges != null && ranges.stream().allMatch(range -> (range.first() == range.end()) || (range.stride() == bytesPerIteration && range.first() >= 0 && range.end() <= bytesPerIteration));
+        }
     }
 
 }
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+/**
+ * Snapshot of the counters kept by the device buffer provider of a
+ * {@link TornadoXPUDevice}.
+ *
+ * @param nativeAllocations
+ *     Number of buffers allocated natively on the device.
+ * @param reusedAllocations
+ *     Number of requests served with a buffer from the free list.
+ * @param nativeReleases
+ *     Number of buffers released natively on the device.
+ * @param bytesInUse
+ *     Capacity, in bytes, of the buffers currently in use.
+ * @param bytesRequested
+ *     Bytes requested for the buffers currently in use.
+ * @param bytesFree
+ *     Capacity, in bytes, of the buffers kept in the free lists.
+ */
+public record BufferProviderStatistics(long nativeAllocations, long reusedAllocations, long nativeReleases, long bytesInUse, long bytesRequested, long bytesFree) {
+
+    public static final BufferProviderStatistics EMPTY = new BufferProviderStatistics(0, 0, 0, 0, 0, 0);
+
+    /**
+     * @return Bytes allocated on the device that are not used by the buffers
+     *     in use, because of size-class rounding or best-fit reuse.
+     */
+    public long fragmentationBytes() {
+        return bytesInUse - bytesRequested;
+    }
+}
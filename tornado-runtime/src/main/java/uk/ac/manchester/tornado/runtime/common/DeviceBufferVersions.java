@@ -0,0 +1,100 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import uk.ac.manchester.tornado.api.memory.XPUBuffer;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+
+/**
+ * Keeps, for each device buffer, the modification version of the native array
+ * that was last copied into it (see
+ * {@link TornadoNativeArray#getModificationVersion()}). A host-to-device copy
+ * can be skipped when the buffer already holds the current version of the
+ * array. Buffers are weakly referenced, so the entries are dropped with the
+ * buffers.
+ */
+public final class DeviceBufferVersions {
+
+    /**
+     * Version of the buffers that must always be copied, such as buffers mapped
+     * onto the memory of other buffers.
+     */
+    private static final long UNTRACKED = -1;
+
+    private static final Map<XPUBuffer, Long> VERSIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private DeviceBufferVersions() {
+    }
+
+    /**
+     * @return True if the buffer holds the given version of its native array.
+     */
+    public static boolean isUpToDate(XPUBuffer buffer, long version) {
+        Long bufferVersion = VERSIONS.get(buffer);
+        return bufferVersion != null && bufferVersion != UNTRACKED && bufferVersion == version;
+    }
+
+    /**
+     * Records that the given version of the native array has been copied into the
+     * buffer.
+     */
+    public static void update(XPUBuffer buffer, long version) {
+        VERSIONS.merge(buffer, version, (current, value) -> current == UNTRACKED ? UNTRACKED : value);
+    }
+
+    /**
+     * Records that the content of the buffer has been modified on the device, so
+     * the next copy to the buffer cannot be skipped.
+     */
+    public static void invalidate(XPUBuffer buffer) {
+        VERSIONS.computeIfPresent(buffer, (key, value) -> value == UNTRACKED ? UNTRACKED : null);
+    }
+
+    /**
+     * Records a copy of the buffer into the host object. The host copy of a native
+     * array has been overwritten, so the other buffers that hold the array are
+     * stale. After a copy of the whole buffer, the buffer holds the new version of
+     * the array.
+     */
+    public static void updateFromDevice(Object object, XPUDeviceBufferState deviceBufferState, boolean isWholeBuffer) {
+        if (TornadoOptions.SKIP_UNMODIFIED_TRANSFERS && object instanceof TornadoNativeArray nativeArray) {
+            nativeArray.markModified();
+            if (isWholeBuffer && deviceBufferState.getPartialCopySize() == 0) {
+                update(deviceBufferState.getXPUBuffer(), nativeArray.getModificationVersion());
+            }
+        }
+    }
+
+    /**
+     * Disables the tracking of the buffer. It is used for buffers that share
+     * device memory with other buffers, which can be written without notice.
+     */
+    public static void disable(XPUBuffer buffer) {
+        VERSIONS.put(buffer, UNTRACKED);
+    }
+}
@@ -24,6 +24,7 @@
 package uk.ac.manchester.tornado.runtime.common;
 
 import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.PRINT_SOURCE_DIRECTORY;
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.VIRTUAL_DEVICE_DUMP_DIRECTORY;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -39,6 +40,9 @@ import java.math.RoundingMode;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 
@@ -478,6 +482,30 @@ public final class RuntimeUtilities {
         }
     }
 
+    /**
+     * Stores the code generated by a virtual device in
+     * {@link TornadoOptions#VIRTUAL_DEVICE_DUMP_DIRECTORY}, if set.
+     *
+     * @param taskName
+     *     Full name of the task (e.g., s0.t0), used as file name.
+     * @param extension
+     *     Extension of the file (e.g., ptx).
+     * @param code
+     *     Generated kernel.
+     */
+    public static void dumpVirtualKernel(String taskName, String extension, byte[] code) {
+        if (VIRTUAL_DEVICE_DUMP_DIRECTORY.isEmpty()) {
+            return;
+        }
+        Path directory = Paths.get(VIRTUAL_DEVICE_DUMP_DIRECTORY);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new TornadoRuntimeException("Unable to create the directory " + directory + ": " + e.getMessage());
+        }
+        writeToFile(directory.resolve(taskName + "." + extension).toString(), code);
+    }
+
     public static String getTornadoInstanceIP() {
         String localIP = null;
         try {
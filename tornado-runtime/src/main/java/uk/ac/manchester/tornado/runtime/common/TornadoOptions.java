@@ -98,6 +98,23 @@ public class TornadoOptions {
      * the rest of the backends.
      */
     public static final int SPIRV_BACKEND_PRIORITY = Integer.parseInt(Tornado.getProperty("tornado.spirv.priority", "11"));
+    /**
+     * Priority of the Host Backend. The higher the number, the more priority over
+     * the rest of the backends.
+     */
+    public static final int HOST_BACKEND_PRIORITY = Integer.parseInt(Tornado.getProperty("tornado.host.priority", "-1"));
+    /**
+     * Loads the Host Backend, which runs the tasks with Java threads on the cores
+     * of the host. It does not need any native driver. This option is False by
+     * default.
+     */
+    public static final boolean HOST_BACKEND = getBooleanValue("tornado.host.backend", FALSE);
+    /**
+     * Runs the element-wise parallel loops of the tasks that execute on the host
+     * with the Java Vector API. The results of transcendental functions can differ
+     * by a few ulps from the scalar version. This option is True by default.
+     */
+    public static final boolean HOST_VECTORIZATION = getBooleanValue("tornado.host.vectorize", TRUE);
     /**
      * Check if the FPGA emulation mode has been set.
      */
@@ -106,6 +123,14 @@ public class TornadoOptions {
      * Option to set the device maximum memory usage. It is set to 4GB by default.
      */
     public static final long DEVICE_AVAILABLE_MEMORY = RuntimeUtilities.parseSize(System.getProperty("tornado.device.memory", "4GB"));
+    /**
+     * Option to set the largest buffer size that is rounded up to a power-of-two
+     * size class by the device buffer provider. Buffers in the same size class
+     * are interchangeable and are reused without a new native allocation.
+     * Larger buffers keep their exact size. It is set to 1MB by default, and 0
+     * disables size classes.
+     */
+    public static final long DEVICE_BUFFER_SIZE_CLASS_LIMIT = RuntimeUtilities.parseSize(System.getProperty("tornado.device.buffer.sizeclass.limit", "1MB"));
     /**
      * Option to enable exceptions for the OpenCL generated code. This is
      * experimental.
@@ -126,6 +151,20 @@ public class TornadoOptions {
      * reductions.
      */
     public static final boolean EXPERIMENTAL_REDUCE = getBooleanValue("tornado.experimental.reduce", TRUE);
+
+    /**
+     * Option to fuse consecutive element-wise tasks of a task-graph into a single
+     * kernel. It is disabled by default.
+     */
+    public static final boolean TASK_FUSION = getBooleanValue("tornado.experimental.fusion", FALSE);
+
+    /**
+     * Option to skip the host-to-device copies of native arrays that have not been
+     * modified on the host since their last copy to the same device buffer. It is
+     * disabled by default.
+     */
+    public static final boolean SKIP_UNMODIFIED_TRANSFERS = getBooleanValue("tornado.skip.unmodified.transfers", FALSE);
+
     /**
      * Temporal option for disabling null checks for Apache-Flink.
      */
@@ -176,7 +215,8 @@ public class TornadoOptions {
      */
     public static final int SPIRV_ARRAY_ALIGNMENT = Integer.parseInt(getProperty("tornado.spirv.array.align", "128"));
     /**
-     * Enables OpenCL code generation based on a virtual device. Default is False.
+     * Enables code generation based on a virtual device for the OpenCL, PTX and
+     * SPIR-V backends. Kernels are compiled but not executed. Default is False.
      */
     public static final boolean VIRTUAL_DEVICE_ENABLED = getBooleanValue("tornado.virtual.device", FALSE);
     /**
@@ -184,6 +224,21 @@ public class TornadoOptions {
      * virtual-device.json.
      */
     public static final String VIRTUAL_DEVICE_FILE = Tornado.getProperty("tornado.device.desc", "etc/virtual-device-template.json");
+    /**
+     * Specifies the virtual PTX device properties file. Default value is
+     * virtual-ptx-device-template.json.
+     */
+    public static final String VIRTUAL_PTX_DEVICE_FILE = Tornado.getProperty("tornado.ptx.device.desc", "etc/virtual-ptx-device-template.json");
+    /**
+     * Specifies the virtual SPIR-V device properties file. Default value is
+     * virtual-spirv-device-template.json.
+     */
+    public static final String VIRTUAL_SPIRV_DEVICE_FILE = Tornado.getProperty("tornado.spirv.device.desc", "etc/virtual-spirv-device-template.json");
+    /**
+     * Directory in which the virtual devices store each generated kernel, in a
+     * file named after the task. Default is empty (kernels are not stored).
+     */
+    public static final String VIRTUAL_DEVICE_DUMP_DIRECTORY = getProperty("tornado.virtual.device.dump.dir", "");
     /**
      * Option to redirect profiler output.
      */
@@ -193,6 +248,22 @@ public class TornadoOptions {
      * phase in the Low-Tier.
      */
     public static final boolean DUMP_LOW_TIER_WITH_IGV = getBooleanValue("tornado.debug.lowtier", FALSE);
+    /**
+     * Enable the persistent kernel cache. Kernels generated by the JIT compiler
+     * (OpenCL C, PTX or SPIR-V) are stored on disk, keyed by a hash of the task
+     * bytecode, its callees, the device and the compiler options, and re-used
+     * across JVM runs without invoking Graal. This option is False by default.
+     */
+    public static final boolean KERNEL_CACHE_ENABLE = getBooleanValue("tornado.kernel.cache.enable", FALSE);
+    /**
+     * Directory of the persistent kernel cache.
+     */
+    public static final String KERNEL_CACHE_DIR = getProperty("tornado.kernel.cache.dir", System.getProperty("user.home") + "/.tornadovm/kernel-cache");
+    /**
+     * File where the autotuning of the local work sizes stores the best
+     * configuration of each task, device and problem size.
+     */
+    public static final String AUTOTUNING_FILE = getProperty("tornado.autotuning.file", System.getProperty("user.home") + "/.tornadovm/autotuning.properties");
     /**
      * In the case of a TornadoVM runtime, JIT compiler or driver failure (OpenCL,
      * PTX or SPIRV), this option allows users to automatically execute the code
@@ -200,6 +271,22 @@ public class TornadoOptions {
      * code. This option is True by default.
      */
     public static final boolean RECOVER_BAILOUT = getBooleanValue("tornado.recover.bailout", TRUE);
+    /**
+     * When a task-graph bails out to Java, tasks with {@link uk.ac.manchester.tornado.api.annotations.Parallel} loops
+     * or a {@link uk.ac.manchester.tornado.api.KernelContext} are partitioned across the cores of the host. It can be
+     * overridden per task with <code>-D[taskGraph].[task].bailout.parallel=[True|False]</code>. This option is True
+     * by default.
+     */
+    public static final boolean BAILOUT_PARALLEL = getBooleanValue("tornado.bailout.parallel", TRUE);
+    /**
+     * Number of Java threads used to run the parallel bailout. It is set to the number of available processors by default.
+     */
+    public static final int BAILOUT_PARALLEL_THREADS = getIntValue("tornado.bailout.parallel.threads", Integer.toString(Runtime.getRuntime().availableProcessors()));
+    /**
+     * Number of consecutive loop iterations assigned to a Java thread when running the parallel bailout. It is set
+     * to 64 by default.
+     */
+    public static final int BAILOUT_PARALLEL_BLOCK_SIZE = getIntValue("tornado.bailout.parallel.block", "64");
     /**
      * Option to log the IP of the current machine on the profiler logs.
      */
@@ -317,6 +404,19 @@ public class TornadoOptions {
      */
     public static final boolean CONCURRENT_INTERPRETERS = Boolean.parseBoolean(System.getProperty("tornado.concurrent.devices", FALSE));
 
+    /**
+     * Option to run the concurrent interpreters in virtual threads instead of
+     * platform threads. False by default.
+     */
+    public static final boolean CONCURRENT_INTERPRETERS_VIRTUAL_THREADS = getBooleanValue("tornado.concurrent.devices.virtual", FALSE);
+
+    /**
+     * Maximum number of TornadoVM instances that a task-graph keeps for its
+     * devices and batch configurations. The least recently used instance is
+     * closed when a new one exceeds the limit. 8 by default.
+     */
+    public static final int MAX_TORNADO_VMS_PER_TASK_GRAPH = Math.max(2, getIntValue("tornado.vm.cache.size", "8"));
+
     /**
      * Panama Object Header in TornadoVM.
      */
@@ -329,6 +429,27 @@ public class TornadoOptions {
      */
     public static final int MAX_EVENTS = getIntValue("tornado.max.events", "32768");
 
+    /**
+     * Option to record the metrics of the runtime (latency histograms of the
+     * kernels, transfers, compilations and task-graphs, and counters) in the
+     * {@link uk.ac.manchester.tornado.runtime.metrics.MetricsRegistry}, which
+     * exposes them through JMX. False by default.
+     */
+    public static final boolean METRICS = getBooleanValue("tornado.metrics", FALSE);
+
+    /**
+     * Class of a {@link uk.ac.manchester.tornado.runtime.metrics.MetricsExporter}
+     * that receives the metrics every {@link #METRICS_EXPORT_PERIOD}
+     * milliseconds. Not set by default.
+     */
+    public static final String METRICS_EXPORTER = getProperty("tornado.metrics.exporter", null);
+
+    /**
+     * Period, in milliseconds, of the exporter set with
+     * {@code tornado.metrics.exporter}. 60 seconds by default.
+     */
+    public static final long METRICS_EXPORT_PERIOD = Long.parseLong(getProperty("tornado.metrics.export.period", "60000"));
+
     /**
      * Partitions the iteration space into blocks. When running on CPUs, the number of blocks is equal to the
      * number of CPU visible cores at runtime. False by default.
@@ -183,6 +183,16 @@ public interface TornadoXPUDevice extends TornadoDevice {
      */
     void setAtomicRegion(XPUBuffer bufferAtomics);
 
+    /**
+     * It returns the allocation and fragmentation counters of the buffer
+     * provider that manages the device memory.
+     *
+     * @return {@link BufferProviderStatistics}
+     */
+    default BufferProviderStatistics getBufferProviderStatistics() {
+        return BufferProviderStatistics.EMPTY;
+    }
+
     /**
      * It returns from the sketch of a task whether the loop index is written in the output buffer.
      * 
@@ -0,0 +1,237 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.fallback;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.function.Supplier;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.types.HalfFloat;
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.LongArray;
+
+/**
+ * {@link KernelContext} used to run a kernel with Java threads. Each instance
+ * represents one work-item at a time. When the kernel synchronises, all
+ * work-items of the same work-group share a {@link WorkGroup}, which emulates
+ * local memory and barriers. Atomic operations are serialised per array.
+ */
+final class HostKernelContext extends KernelContext {
+
+    private static final Field[] GLOBAL_IDS = fields("globalIdx", "globalIdy", "globalIdz");
+    private static final Field[] LOCAL_IDS = fields("localIdx", "localIdy", "localIdz");
+    private static final Field[] GROUP_IDS = fields("groupIdx", "groupIdy", "groupIdz");
+    private static final Field[] GLOBAL_SIZES = fields("globalGroupSizeX", "globalGroupSizeY", "globalGroupSizeZ");
+    private static final Field[] LOCAL_SIZES = fields("localGroupSizeX", "localGroupSizeY", "localGroupSizeZ");
+
+    private final WorkGroup workGroup;
+    private int localArrayIndex;
+
+    HostKernelContext(long[] globalWork, long[] localWork, WorkGroup workGroup) {
+        this.workGroup = workGroup;
+        for (int dim = 0; dim < 3; dim++) {
+            set(GLOBAL_SIZES[dim], globalWork[dim]);
+            set(LOCAL_SIZES[dim], localWork[dim]);
+        }
+    }
+
+    private static Field[] fields(String... names) {
+        Field[] fields = new Field[names.length];
+        try {
+            for (int i = 0; i < names.length; i++) {
+                fields[i] = KernelContext.class.getDeclaredField(names[i]);
+                fields[i].setAccessible(true);
+            }
+        } catch (NoSuchFieldException e) {
+            throw new TornadoRuntimeException(e);
+        }
+        return fields;
+    }
+
+    private void set(Field field, long value) {
+        try {
+            field.set(this, (int) value);
+        } catch (IllegalAccessException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    /**
+     * Sets the identifiers of the work-item to run next.
+     */
+    void setWorkItem(long[] globalOffset, long[] groupId, long[] localId, long[] localWork) {
+        for (int dim = 0; dim < 3; dim++) {
+            set(GROUP_IDS[dim], groupId[dim]);
+            set(LOCAL_IDS[dim], localId[dim]);
+            set(GLOBAL_IDS[dim], globalOffset[dim] + groupId[dim] * localWork[dim] + localId[dim]);
+        }
+        localArrayIndex = 0;
+    }
+
+    @Override
+    public void localBarrier() {
+        if (workGroup != null) {
+            workGroup.await();
+        }
+    }
+
+    @Override
+    public void globalBarrier() {
+        localBarrier();
+    }
+
+    private <T> T localArray(Supplier<T> allocator) {
+        return workGroup == null ? allocator.get() : workGroup.getLocalArray(localArrayIndex++, allocator);
+    }
+
+    @Override
+    public int[] allocateIntLocalArray(int size) {
+        return localArray(() -> new int[size]);
+    }
+
+    @Override
+    public byte[] allocateByteLocalArray(int size) {
+        return localArray(() -> new byte[size]);
+    }
+
+    @Override
+    public HalfFloat[] allocateHalfFloatLocalArray(int size) {
+        return localArray(() -> new HalfFloat[size]);
+    }
+
+    @Override
+    public long[] allocateLongLocalArray(int size) {
+        return localArray(() -> new long[size]);
+    }
+
+    @Override
+    public float[] allocateFloatLocalArray(int size) {
+        return localArray(() -> new float[size]);
+    }
+
+    @Override
+    public double[] allocateDoubleLocalArray(int size) {
+        return localArray(() -> new double[size]);
+    }
+
+    @Override
+    public void atomicAdd(IntArray array, int index, int val) {
+        synchronized (array) {
+            array.set(index, array.get(index) + val);
+        }
+    }
+
+    @Override
+    public void atomicAdd(int[] array, int index, int val) {
+        synchronized (array) {
+            array[index] += val;
+        }
+    }
+
+    @Override
+    public void atomicAdd(LongArray array, int index, long val) {
+        synchronized (array) {
+            array.set(index, array.get(index) + val);
+        }
+    }
+
+    @Override
+    public void atomicAdd(FloatArray array, int index, float val) {
+        synchronized (array) {
+            array.set(index, array.get(index) + val);
+        }
+    }
+
+    @Override
+    public void atomicAdd(DoubleArray array, int index, double val) {
+        synchronized (array) {
+            array.set(index, array.get(index) + val);
+        }
+    }
+
+    /**
+     * State shared by the work-items of a work-group: the barrier and the arrays
+     * allocated in local memory.
+     */
+    static final class WorkGroup {
+
+        private final Phaser barrier;
+        private final List<Object> localArrays;
+        private volatile Throwable failure;
+
+        WorkGroup(int numWorkItems) {
+            this.barrier = new Phaser(numWorkItems);
+            this.localArrays = new ArrayList<>();
+        }
+
+        private void await() {
+            if (barrier.arriveAndAwaitAdvance() < 0) {
+                throw new TornadoRuntimeException("[ERROR] Work-group aborted: " + failure);
+            }
+        }
+
+        /**
+         * Called when a work-item finishes, so that the rest of the work-items of the
+         * group do not wait for it in subsequent barriers.
+         */
+        void done() {
+            barrier.arriveAndDeregister();
+        }
+
+        /**
+         * Work-items allocate local arrays in the same order, so the n-th allocation
+         * of every work-item returns the same array.
+         */
+        @SuppressWarnings("unchecked")
+        private synchronized <T> T getLocalArray(int index, Supplier<T> allocator) {
+            if (index == localArrays.size()) {
+                localArrays.add(allocator.get());
+            }
+            return (T) localArrays.get(index);
+        }
+
+        /**
+         * Records the first failure of a work-item and releases the rest of the
+         * work-items waiting on the barrier.
+         */
+        void fail(Throwable throwable) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = throwable;
+                }
+            }
+            barrier.forceTermination();
+        }
+
+        Throwable getFailure() {
+            return failure;
+        }
+    }
+}
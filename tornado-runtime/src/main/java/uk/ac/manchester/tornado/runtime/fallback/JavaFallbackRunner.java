@@ -0,0 +1,363 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.fallback;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEBUG;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task1;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task10;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task11;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task12;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task13;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task14;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task15;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task2;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task3;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task4;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task5;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task6;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task7;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Runs the tasks of a task-graph with plain Java when TornadoVM bails out.
+ *
+ * <p>
+ * Tasks that express parallelism, either with {@link Parallel} loops or with a
+ * {@link KernelContext} and a {@link WorkerGrid}, are partitioned across the
+ * cores of the host with a {@link ForkJoinPool}. The rest of the tasks, and
+ * the tasks for which the parallel fallback is disabled with
+ * <code>-D[taskGraph].[task].bailout.parallel=False</code>, run sequentially
+ * on the calling thread.
+ * </p>
+ */
+public final class JavaFallbackRunner {
+
+    private static final String PARALLEL_FALLBACK_SUFFIX = ".bailout.parallel";
+    private static final Map<Method, MethodHandle> METHOD_HANDLES = new ConcurrentHashMap<>();
+
+    private JavaFallbackRunner() {
+    }
+
+    /**
+     * Pool shared by all task-graphs that bail out. It is created the first time a
+     * task runs in parallel.
+     */
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(TornadoOptions.BAILOUT_PARALLEL_THREADS);
+    }
+
+    static ForkJoinPool getPool() {
+        return PoolHolder.POOL;
+    }
+
+    static int getNumWorkers() {
+        return TornadoOptions.BAILOUT_PARALLEL_THREADS;
+    }
+
+    /**
+     * It checks if the parallel Java fallback is enabled for a task. The
+     * task-level option takes precedence over
+     * {@link TornadoOptions#BAILOUT_PARALLEL}.
+     *
+     * @param taskGraphName
+     *     Name of the task-graph.
+     * @param taskId
+     *     Name of the task within the task-graph.
+     * @return boolean
+     */
+    public static boolean isParallelFallbackEnabled(String taskGraphName, String taskId) {
+        String taskValue = Tornado.getProperty(taskGraphName + "." + taskId + PARALLEL_FALLBACK_SUFFIX);
+        return taskValue != null ? Boolean.parseBoolean(taskValue) : TornadoOptions.BAILOUT_PARALLEL;
+    }
+
+    /**
+     * Runs a task with Java. If the parallel fallback is enabled for the task and
+     * the task can be partitioned, the work is distributed across the Java
+     * threads of the fallback pool. Otherwise, the task runs sequentially.
+     *
+     * @param taskGraphName
+     *     Name of the task-graph that contains the task.
+     * @param taskPackage
+     *     Task to run.
+     * @param gridScheduler
+     *     Grid scheduler of the task-graph. It can be null.
+     * @return true if the task has been executed in parallel, false if it has run
+     *     sequentially.
+     */
+    public static boolean run(String taskGraphName, TaskPackage taskPackage, GridScheduler gridScheduler) {
+        if (!taskPackage.isPrebuiltTask() && getNumWorkers() > 1 && isParallelFallbackEnabled(taskGraphName, taskPackage.getId())) {
+            if (runInParallel(taskGraphName, taskPackage, gridScheduler)) {
+                return true;
+            }
+        }
+        runSequential(taskPackage.getTaskType(), taskPackage.getTaskParameters());
+        return false;
+    }
+
+    /**
+     * Runs a task sequentially with Java, using the given parameters instead of
+     * the parameters of the task package.
+     *
+     * @param taskPackage
+     *     Task to run.
+     * @param taskParameters
+     *     Parameters of the task. The first element is the lambda of the task.
+     */
+    public static void runSequential(TaskPackage taskPackage, Object[] taskParameters) {
+        runSequential(taskPackage.getTaskType(), taskParameters);
+    }
+
+    /**
+     * Runs the method of a task with Java. Unlike
+     * {@link #run(String, TaskPackage, GridScheduler)}, the task is given by its
+     * method and the arguments of the method, so it can be used by backends that
+     * execute tasks on the host. The work is distributed across the Java threads
+     * of the fallback pool if the method can be partitioned. Element-wise
+     * {@link Parallel} loops over float arrays also use the SIMD instructions of
+     * the host (see {@link TornadoOptions#HOST_VECTORIZATION}).
+     *
+     * @param taskName
+     *     Full name of the task.
+     * @param method
+     *     Method of the task.
+     * @param arguments
+     *     Arguments of the method. For lambdas, the captured variables come first.
+     * @param workerGrid
+     *     Grid associated with the task. It can be null.
+     * @return true if the task has been executed in parallel or with the Java Vector
+     *     API, false if it has run sequentially.
+     */
+    public static boolean run(String taskName, Method method, Object[] arguments, WorkerGrid workerGrid) {
+        int kernelContextIndex = findKernelContext(arguments, 0);
+        if (kernelContextIndex == -1 && VectorLoopRunner.run(method, arguments)) {
+            if (DEBUG) {
+                System.out.println("[DEBUG] Task " + taskName + " executed with the Java Vector API and " + getNumWorkers() + " threads");
+            }
+            return true;
+        }
+
+        boolean isParallel = false;
+        if (getNumWorkers() > 1) {
+            if (kernelContextIndex != -1) {
+                isParallel = workerGrid != null && KernelContextRunner.run(method, arguments, kernelContextIndex, workerGrid, parameters -> invoke(method, parameters));
+            } else {
+                isParallel = ParallelLoopRunner.run(method, arguments);
+            }
+        }
+        if (!isParallel) {
+            invoke(method, arguments);
+        } else if (DEBUG) {
+            System.out.println("[DEBUG] Task " + taskName + " executed in Java with " + getNumWorkers() + " threads");
+        }
+        return isParallel;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        Class<?> hostClass = method.getDeclaringClass();
+        try {
+            JavaFallbackRunner.class.getModule().addReads(hostClass.getModule());
+            return MethodHandles.privateLookupIn(hostClass, MethodHandles.lookup()).unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    /**
+     * Invokes a method sequentially. For instance methods, the receiver is the
+     * first argument.
+     */
+    static void invoke(Method method, Object[] arguments) {
+        MethodHandle methodHandle = METHOD_HANDLES.computeIfAbsent(method, JavaFallbackRunner::unreflect);
+        try {
+            methodHandle.invokeWithArguments(arguments);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    private static boolean runInParallel(String taskGraphName, TaskPackage taskPackage, GridScheduler gridScheduler) {
+        String taskName = taskGraphName + "." + taskPackage.getId();
+        Object[] taskParameters = taskPackage.getTaskParameters();
+        int kernelContextIndex = findKernelContext(taskParameters, 1);
+        boolean isParallel;
+        if (kernelContextIndex != -1) {
+            WorkerGrid workerGrid = (gridScheduler != null) ? gridScheduler.get(taskName) : null;
+            isParallel = workerGrid != null && KernelContextRunner.run(taskPackage, kernelContextIndex, workerGrid);
+        } else {
+            isParallel = ParallelLoopRunner.run(taskPackage);
+        }
+        if (DEBUG && isParallel) {
+            System.out.println("[DEBUG] Task " + taskName + " executed in Java with " + getNumWorkers() + " threads");
+        }
+        return isParallel;
+    }
+
+    /**
+     * Invokes a method handle on a thread of the fallback pool.
+     */
+    static ForkJoinTask<?> submit(MethodHandle methodHandle, Object[] arguments) {
+        return getPool().submit(() -> {
+            try {
+                methodHandle.invokeWithArguments(arguments);
+            } catch (Throwable t) {
+                throw propagate(t);
+            }
+        });
+    }
+
+    /**
+     * Waits for all workers, even if some of them fail, and rethrows the first
+     * failure.
+     */
+    static void joinAll(ForkJoinTask<?>[] workers) {
+        RuntimeException failure = null;
+        for (ForkJoinTask<?> worker : workers) {
+            try {
+                worker.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static int findKernelContext(Object[] parameters, int from) {
+        for (int i = from; i < parameters.length; i++) {
+            if (parameters[i] instanceof KernelContext) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        } else if (throwable instanceof Error error) {
+            throw error;
+        }
+        return new TornadoRuntimeException((Exception) throwable);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void runSequential(int type, Object[] taskParameters) {
+        switch (type) {
+            case 0 -> {
+                @SuppressWarnings("rawtypes") Task task = (Task) taskParameters[0];
+                task.apply();
+            }
+            case 1 -> {
+                @SuppressWarnings("rawtypes") Task1 task1 = (Task1) taskParameters[0];
+                task1.apply(taskParameters[1]);
+            }
+            case 2 -> {
+                @SuppressWarnings("rawtypes") Task2 task2 = (Task2) taskParameters[0];
+                task2.apply(taskParameters[1], taskParameters[2]);
+            }
+            case 3 -> {
+                @SuppressWarnings("rawtypes") Task3 task3 = (Task3) taskParameters[0];
+                task3.apply(taskParameters[1], taskParameters[2], taskParameters[3]);
+            }
+            case 4 -> {
+                @SuppressWarnings("rawtypes") Task4 task4 = (Task4) taskParameters[0];
+                task4.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4]);
+            }
+            case 5 -> {
+                @SuppressWarnings("rawtypes") Task5 task5 = (Task5) taskParameters[0];
+                task5.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5]);
+            }
+            case 6 -> {
+                @SuppressWarnings("rawtypes") Task6 task6 = (Task6) taskParameters[0];
+                task6.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6]);
+            }
+            case 7 -> {
+                @SuppressWarnings("rawtypes") Task7 task7 = (Task7) taskParameters[0];
+                task7.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7]);
+            }
+            case 8 -> {
+                @SuppressWarnings("rawtypes") Task8 task8 = (Task8) taskParameters[0];
+                task8.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8]);
+            }
+            case 9 -> {
+                @SuppressWarnings("rawtypes") Task9 task9 = (Task9) taskParameters[0];
+                task9.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9]);
+            }
+            case 10 -> {
+                @SuppressWarnings("rawtypes") Task10 task10 = (Task10) taskParameters[0];
+                task10.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10]);
+            }
+            case 11 -> {
+                @SuppressWarnings("rawtypes") Task11 task11 = (Task11) taskParameters[0];
+                task11.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10], taskParameters[11]);
+            }
+            case 12 -> {
+                @SuppressWarnings("rawtypes") Task12 task12 = (Task12) taskParameters[0];
+                task12.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10], taskParameters[11], taskParameters[12]);
+            }
+            case 13 -> {
+                @SuppressWarnings("rawtypes") Task13 task13 = (Task13) taskParameters[0];
+                task13.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10], taskParameters[11], taskParameters[12], taskParameters[13]);
+            }
+            case 14 -> {
+                @SuppressWarnings("rawtypes") Task14 task14 = (Task14) taskParameters[0];
+                task14.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10], taskParameters[11], taskParameters[12], taskParameters[13], taskParameters[14]);
+            }
+            case 15 -> {
+                @SuppressWarnings("rawtypes") Task15 task15 = (Task15) taskParameters[0];
+                task15.apply(taskParameters[1], taskParameters[2], taskParameters[3], taskParameters[4], taskParameters[5], taskParameters[6], taskParameters[7], taskParameters[8],
+                        taskParameters[9], taskParameters[10], taskParameters[11], taskParameters[12], taskParameters[13], taskParameters[14], taskParameters[15]);
+            }
+            default -> throw new TornadoRuntimeException("Sequential Runner not supported yet. Number of parameters: " + type);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.fallback;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import org.graalvm.compiler.bytecode.BytecodeStream;
+import org.graalvm.compiler.bytecode.Bytecodes;
+
+import jdk.vm.ci.meta.ConstantPool;
+import jdk.vm.ci.meta.JavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+
+/**
+ * Runs a task that uses a {@link KernelContext} on the Java threads of the
+ * fallback pool, following the shape of its {@link WorkerGrid}.
+ *
+ * <p>
+ * Work-groups are distributed across the pool. If the kernel does not use
+ * barriers or local memory, the work-items of a work-group run one after the
+ * other on the same thread. Otherwise, each work-item of a work-group runs on
+ * its own virtual thread, so that barriers can be honoured.
+ * </p>
+ */
+final class KernelContextRunner {
+
+    private static final Set<String> SYNCHRONISATION_METHODS = Set.of("localBarrier", "globalBarrier", "allocateIntLocalArray", "allocateByteLocalArray", "allocateHalfFloatLocalArray",
+            "allocateLongLocalArray", "allocateFloatLocalArray", "allocateDoubleLocalArray");
+    private static final String KERNEL_CONTEXT_TYPE = "Luk/ac/manchester/tornado/api/KernelContext;";
+    private static final String EXECUTION_CONTEXT_TYPE = "Luk/ac/manchester/tornado/api/ExecutionContext;";
+
+    private KernelContextRunner() {
+    }
+
+    private static long[] toThreeDimensions(long[] values, long defaultValue) {
+        long[] result = { defaultValue, defaultValue, defaultValue };
+        if (values != null) {
+            System.arraycopy(values, 0, result, 0, Math.min(values.length, 3));
+        }
+        return result;
+    }
+
+    private static boolean usesWorkGroupSynchronisation(ResolvedJavaMethod method, Set<ResolvedJavaMethod> visited) {
+        if (!visited.add(method) || !method.hasBytecodes()) {
+            return false;
+        }
+        ConstantPool constantPool = method.getConstantPool();
+        BytecodeStream stream = new BytecodeStream(method.getCode());
+        while (stream.currentBCI() < stream.endBCI()) {
+            int opcode = stream.currentBC();
+            if (opcode == Bytecodes.INVOKEVIRTUAL || opcode == Bytecodes.INVOKEINTERFACE || opcode == Bytecodes.INVOKESTATIC) {
+                char cpi = stream.readCPI();
+                constantPool.loadReferencedType(cpi, opcode);
+                JavaMethod target = constantPool.lookupMethod(cpi, opcode);
+                String holder = target.getDeclaringClass().getName();
+                if ((holder.equals(KERNEL_CONTEXT_TYPE) || holder.equals(EXECUTION_CONTEXT_TYPE)) && SYNCHRONISATION_METHODS.contains(target.getName())) {
+                    return true;
+                }
+                if (opcode == Bytecodes.INVOKESTATIC && target instanceof ResolvedJavaMethod resolvedTarget && usesWorkGroupSynchronisation(resolvedTarget, visited)) {
+                    return true;
+                }
+            }
+            stream.next();
+        }
+        return false;
+    }
+
+    /**
+     * Runs the kernel in parallel.
+     *
+     * @param taskPackage
+     *     Task to run.
+     * @param kernelContextIndex
+     *     Index of the {@link KernelContext} within the task parameters.
+     * @param workerGrid
+     *     Grid associated with the task.
+     * @return true if the task has been executed, false if the grid cannot be
+     *     emulated.
+     */
+    static boolean run(TaskPackage taskPackage, int kernelContextIndex, WorkerGrid workerGrid) {
+        Method method = TaskUtils.resolveMethodHandle(taskPackage.getTaskParameters()[0]);
+        return run(method, taskPackage.getTaskParameters(), kernelContextIndex, workerGrid, parameters -> JavaFallbackRunner.runSequential(taskPackage.getTaskType(), parameters));
+    }
+
+    /**
+     * Runs the kernel in parallel.
+     *
+     * @param method
+     *     Method of the kernel.
+     * @param parameters
+     *     Parameters passed to the body for each work-item.
+     * @param kernelContextIndex
+     *     Index of the {@link KernelContext} within the parameters.
+     * @param workerGrid
+     *     Grid associated with the task.
+     * @param body
+     *     Runs one work-item with the given parameters.
+     * @return true if the task has been executed, false if the grid cannot be
+     *     emulated.
+     */
+    static boolean run(Method method, Object[] parameters, int kernelContextIndex, WorkerGrid workerGrid, Consumer<Object[]> body) {
+        ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method);
+        boolean synchronises = usesWorkGroupSynchronisation(resolvedMethod, new HashSet<>());
+
+        long[] globalWork = toThreeDimensions(workerGrid.getGlobalWork(), 1);
+        long[] localWork = toThreeDimensions(workerGrid.getLocalWork(), 1);
+        long[] globalOffset = toThreeDimensions(workerGrid.getGlobalOffset(), 0);
+        for (int dim = 0; dim < 3; dim++) {
+            if (localWork[dim] <= 0 || globalWork[dim] % localWork[dim] != 0) {
+                if (synchronises) {
+                    return false;
+                }
+                // Without synchronisation, the shape of the work-groups is not observable
+                localWork = new long[] { 1, 1, 1 };
+                break;
+            }
+        }
+
+        long[] numGroups = new long[3];
+        for (int dim = 0; dim < 3; dim++) {
+            numGroups[dim] = globalWork[dim] / localWork[dim];
+        }
+        long totalGroups = numGroups[0] * numGroups[1] * numGroups[2];
+        long groupsPerTask = Math.max(1, totalGroups / (4L * JavaFallbackRunner.getNumWorkers()));
+
+        GridExecution execution = new GridExecution(parameters, body, kernelContextIndex, globalWork, localWork, globalOffset, numGroups, synchronises);
+        JavaFallbackRunner.getPool().invoke(new WorkGroupRange(execution, 0, totalGroups, groupsPerTask));
+        return true;
+    }
+
+    private record GridExecution(Object[] parameters, Consumer<Object[]> body, int kernelContextIndex, long[] globalWork, long[] localWork, long[] globalOffset, long[] numGroups,
+            boolean synchronises) {
+
+        private Object[] parametersWith(HostKernelContext context) {
+            Object[] workItemParameters = parameters.clone();
+            workItemParameters[kernelContextIndex] = context;
+            return workItemParameters;
+        }
+
+        private long[] groupCoordinates(long group) {
+            return new long[] { group % numGroups[0], (group / numGroups[0]) % numGroups[1], group / (numGroups[0] * numGroups[1]) };
+        }
+
+        private long[] localCoordinates(long item) {
+            return new long[] { item % localWork[0], (item / localWork[0]) % localWork[1], item / (localWork[0] * localWork[1]) };
+        }
+
+        private int workGroupSize() {
+            return (int) (localWork[0] * localWork[1] * localWork[2]);
+        }
+
+        private void runSequentialWorkGroups(long fromGroup, long toGroup) {
+            HostKernelContext context = new HostKernelContext(globalWork, localWork, null);
+            Object[] workItemParameters = parametersWith(context);
+            int workGroupSize = workGroupSize();
+            for (long group = fromGroup; group < toGroup; group++) {
+                long[] groupId = groupCoordinates(group);
+                for (int item = 0; item < workGroupSize; item++) {
+                    context.setWorkItem(globalOffset, groupId, localCoordinates(item), localWork);
+                    body.accept(workItemParameters);
+                }
+            }
+        }
+
+        private void runSynchronisedWorkGroup(long group) {
+            int workGroupSize = workGroupSize();
+            long[] groupId = groupCoordinates(group);
+            HostKernelContext.WorkGroup workGroup = new HostKernelContext.WorkGroup(workGroupSize);
+            Thread[] workItems = new Thread[workGroupSize];
+            for (int item = 0; item < workGroupSize; item++) {
+                HostKernelContext context = new HostKernelContext(globalWork, localWork, workGroup);
+                context.setWorkItem(globalOffset, groupId, localCoordinates(item), localWork);
+                Object[] workItemParameters = parametersWith(context);
+                workItems[item] = Thread.ofVirtual().start(() -> {
+                    try {
+                        body.accept(workItemParameters);
+                        workGroup.done();
+                    } catch (Throwable t) {
+                        workGroup.fail(t);
+                    }
+                });
+            }
+            for (Thread workItem : workItems) {
+                try {
+                    workItem.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw JavaFallbackRunner.propagate(e);
+                }
+            }
+            if (workGroup.getFailure() != null) {
+                throw JavaFallbackRunner.propagate(workGroup.getFailure());
+            }
+        }
+    }
+
+    private static final class WorkGroupRange extends RecursiveAction {
+
+        private final GridExecution execution;
+        private final long fromGroup;
+        private final long toGroup;
+        private final long groupsPerTask;
+
+        WorkGroupRange(GridExecution execution, long fromGroup, long toGroup, long groupsPerTask) {
+            this.execution = execution;
+            this.fromGroup = fromGroup;
+            this.toGroup = toGroup;
+            this.groupsPerTask = groupsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toGroup - fromGroup > groupsPerTask) {
+                long middle = fromGroup + (toGroup - fromGroup) / 2;
+                invokeAll(new WorkGroupRange(execution, fromGroup, middle, groupsPerTask), new WorkGroupRange(execution, middle, toGroup, groupsPerTask));
+            } else if (execution.synchronises()) {
+                for (long group = fromGroup; group < toGroup; group++) {
+                    execution.runSynchronisedWorkGroup(group);
+                }
+            } else {
+                execution.runSequentialWorkGroups(fromGroup, toGroup);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.fallback;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEBUG;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Runs a task with {@link Parallel} loops on the Java threads of the fallback
+ * pool. The task method is copied into a new class in which the outermost
+ * parallel loop is split in blocks of
+ * {@link TornadoOptions#BAILOUT_PARALLEL_BLOCK_SIZE} iterations that are
+ * distributed across the threads in a round-robin fashion.
+ */
+final class ParallelLoopRunner {
+
+    private static final String PARTITIONED_CLASS_SUFFIX = "$$TornadoParallel$";
+    private static final Map<Method, Optional<MethodHandle>> PARTITIONED_METHODS = new ConcurrentHashMap<>();
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    private ParallelLoopRunner() {
+    }
+
+    private static Optional<MethodHandle> buildPartitionedMethod(Method method) {
+        ASMClassVisitorProvider provider = TaskUtils.getASMClassVisitorProvider();
+        if (provider == null) {
+            return Optional.empty();
+        }
+        Class<?> hostClass = method.getDeclaringClass();
+        String className = hostClass.getName().replace('.', '/') + PARTITIONED_CLASS_SUFFIX + CLASS_COUNTER.getAndIncrement();
+        byte[] classFile = provider.getParallelPartitionedClass(method, className);
+        if (classFile == null) {
+            return Optional.empty();
+        }
+
+        try {
+            ParallelLoopRunner.class.getModule().addReads(hostClass.getModule());
+            MethodHandles.Lookup hostLookup = MethodHandles.privateLookupIn(hostClass, MethodHandles.lookup());
+            Class<?> partitionedClass = hostLookup.defineClass(classFile);
+            hostLookup.ensureInitialized(partitionedClass);
+            MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).appendParameterTypes(int.class, int.class, int.class);
+            return Optional.of(hostLookup.findStatic(partitionedClass, method.getName(), methodType));
+        } catch (IllegalAccessException | NoSuchMethodException | LinkageError e) {
+            if (DEBUG) {
+                System.out.println("[DEBUG] Parallel Java fallback not available for " + method + ": " + e.getMessage());
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs the task in parallel.
+     *
+     * @param taskPackage
+     *     Task to run.
+     * @return true if the task has been executed, false if the task cannot be
+     *     partitioned.
+     */
+    static boolean run(TaskPackage taskPackage) {
+        Object[] taskParameters = taskPackage.getTaskParameters();
+        Method method = TaskUtils.resolveMethodHandle(taskParameters[0]);
+        return run(method, Arrays.copyOfRange(taskParameters, 1, taskParameters.length));
+    }
+
+    /**
+     * Runs a method in parallel.
+     *
+     * @param method
+     *     Method of the task.
+     * @param arguments
+     *     Arguments of the method.
+     * @return true if the method has been executed, false if the method cannot be
+     *     partitioned.
+     */
+    static boolean run(Method method, Object[] arguments) {
+        // Lambdas that capture variables pass extra arguments to the task method
+        if (method.getParameterCount() != arguments.length || TaskUtils.hasReduceParameters(method)) {
+            return false;
+        }
+
+        MethodHandle partitionedMethod = PARTITIONED_METHODS.computeIfAbsent(method, ParallelLoopRunner::buildPartitionedMethod).orElse(null);
+        if (partitionedMethod == null) {
+            return false;
+        }
+
+        final int numWorkers = JavaFallbackRunner.getNumWorkers();
+        final int numArguments = arguments.length;
+        ForkJoinTask<?>[] workers = new ForkJoinTask<?>[numWorkers];
+        for (int workerId = 0; workerId < numWorkers; workerId++) {
+            Object[] workerArguments = Arrays.copyOf(arguments, numArguments + 3);
+            workerArguments[numArguments] = workerId;
+            workerArguments[numArguments + 1] = numWorkers;
+            workerArguments[numArguments + 2] = Math.max(1, TornadoOptions.BAILOUT_PARALLEL_BLOCK_SIZE);
+            workers[workerId] = JavaFallbackRunner.submit(partitionedMethod, workerArguments);
+        }
+
+        JavaFallbackRunner.joinAll(workers);
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.fallback;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEBUG;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Runs a task whose {@link Parallel} loop is element-wise with the Java Vector
+ * API (see {@link ASMClassVisitorProvider#getVectorizedClass}). The iteration
+ * space is split in contiguous chunks, one per thread of the fallback pool, and
+ * each thread runs its chunk with the SIMD instructions of the host.
+ */
+final class VectorLoopRunner {
+
+    private static final String VECTORIZED_CLASS_SUFFIX = "$$TornadoVector$";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final Map<Method, Optional<VectorizedMethod>> VECTORIZED_METHODS = new ConcurrentHashMap<>();
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+    /**
+     * Chunks are a multiple of the number of elements in a vector, so only the last
+     * chunk has a scalar tail.
+     */
+    private static final int CHUNK_ALIGNMENT = 64;
+
+    private VectorLoopRunner() {
+    }
+
+    private record VectorizedMethod(MethodHandle lowerBound, MethodHandle upperBound, MethodHandle body) {
+    }
+
+    private static boolean canReadVectorModule(Class<?> hostClass) {
+        // The generated class lives in the module of the task
+        Optional<Module> vectorModule = ModuleLayer.boot().findModule(VECTOR_MODULE);
+        return vectorModule.isPresent() && hostClass.getModule().canRead(vectorModule.get());
+    }
+
+    private static Optional<VectorizedMethod> buildVectorizedMethod(Method method) {
+        ASMClassVisitorProvider provider = TaskUtils.getASMClassVisitorProvider();
+        Class<?> hostClass = method.getDeclaringClass();
+        if (provider == null || !canReadVectorModule(hostClass)) {
+            return Optional.empty();
+        }
+        String className = hostClass.getName().replace('.', '/') + VECTORIZED_CLASS_SUFFIX + CLASS_COUNTER.getAndIncrement();
+        byte[] classFile = provider.getVectorizedClass(method, className);
+        if (classFile == null) {
+            return Optional.empty();
+        }
+
+        try {
+            VectorLoopRunner.class.getModule().addReads(hostClass.getModule());
+            MethodHandles.Lookup hostLookup = MethodHandles.privateLookupIn(hostClass, MethodHandles.lookup());
+            Class<?> vectorizedClass = hostLookup.defineClass(classFile);
+            hostLookup.ensureInitialized(vectorizedClass);
+            MethodType boundType = MethodType.methodType(int.class, method.getParameterTypes());
+            MethodType bodyType = MethodType.methodType(void.class, method.getParameterTypes()).appendParameterTypes(int.class, int.class);
+            return Optional.of(new VectorizedMethod( //
+                    hostLookup.findStatic(vectorizedClass, "lowerBound", boundType), //
+                    hostLookup.findStatic(vectorizedClass, "upperBound", boundType), //
+                    hostLookup.findStatic(vectorizedClass, method.getName(), bodyType)));
+        } catch (IllegalAccessException | NoSuchMethodException | LinkageError e) {
+            if (DEBUG) {
+                System.out.println("[DEBUG] Java Vector API not available for " + method + ": " + e.getMessage());
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Runs a method with the Java Vector API.
+     *
+     * @param method
+     *     Method of the task.
+     * @param arguments
+     *     Arguments of the method.
+     * @return true if the method has been executed, false if the method cannot be
+     *     vectorized.
+     */
+    static boolean run(Method method, Object[] arguments) {
+        // Lambdas that capture variables pass extra arguments to the task method
+        if (!TornadoOptions.HOST_VECTORIZATION || method.getParameterCount() != arguments.length || TaskUtils.hasReduceParameters(method)) {
+            return false;
+        }
+
+        VectorizedMethod vectorizedMethod = VECTORIZED_METHODS.computeIfAbsent(method, VectorLoopRunner::buildVectorizedMethod).orElse(null);
+        if (vectorizedMethod == null) {
+            return false;
+        }
+
+        final int lowerBound;
+        final int upperBound;
+        try {
+            lowerBound = (int) vectorizedMethod.lowerBound().invokeWithArguments(arguments);
+            upperBound = (int) vectorizedMethod.upperBound().invokeWithArguments(arguments);
+        } catch (Throwable t) {
+            throw JavaFallbackRunner.propagate(t);
+        }
+        final long span = (long) upperBound - lowerBound;
+        if (span <= 0) {
+            return true;
+        }
+
+        final int numWorkers = JavaFallbackRunner.getNumWorkers();
+        final long chunk = ((span + numWorkers - 1) / numWorkers + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
+        final int numArguments = arguments.length;
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (long from = lowerBound; from < upperBound; from += chunk) {
+            Object[] workerArguments = Arrays.copyOf(arguments, numArguments + 2);
+            workerArguments[numArguments] = (int) from;
+            workerArguments[numArguments + 1] = (int) Math.min(upperBound, from + chunk);
+            workers.add(JavaFallbackRunner.submit(vectorizedMethod.body(), workerArguments));
+        }
+        JavaFallbackRunner.joinAll(workers.toArray(new ForkJoinTask<?>[0]));
+        return true;
+    }
+}
@@ -30,7 +30,10 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntimeProvider;
+import uk.ac.manchester.tornado.runtime.graal.phases.sketcher.TornadoBatchFunctionAnalysis;
 import uk.ac.manchester.tornado.runtime.graal.phases.sketcher.TornadoDataflowAnalysis;
+import uk.ac.manchester.tornado.runtime.sketcher.AffineIndex;
+import uk.ac.manchester.tornado.runtime.sketcher.ArgumentIndexing;
 
 
 public class TornadoSketchTierContext extends HighTierContext {
@@ -42,6 +45,20 @@ public class TornadoSketchTierContext extends HighTierContext {
      * It includes accesses of arguments passed to non-inlined callees of the {@link #method}.
      */
     private final Access[] argumentAccess;
+
+    /**
+     * Contains how the {@link #method} indexes its arguments. The array gets populated in the
+     * {@link TornadoBatchFunctionAnalysis} phase.
+     */
+    private final ArgumentIndexing[] argumentIndexing;
+
+    /**
+     * Contains, for each argument, the position of every access of the
+     * {@link #method} as an affine function of the outermost parallel loop, or
+     * null if an access is not affine. The array gets populated in the
+     * {@link TornadoBatchFunctionAnalysis} phase.
+     */
+    private final AffineIndex[][] argumentIndices;
     private boolean batchWriteThreadIndex;
 
     private TornadoDevice device;
@@ -52,6 +69,8 @@ public class TornadoSketchTierContext extends HighTierContext {
         this.method = method;
         int parameterCount = method.getParameters().length;
         this.argumentAccess = new Access[method.isStatic() ? parameterCount : parameterCount + 1];
+        this.argumentIndexing = new ArgumentIndexing[argumentAccess.length];
+        this.argumentIndices = new AffineIndex[argumentAccess.length][];
         device = TornadoRuntimeProvider.getTornadoRuntime().getBackend(backendIndex).getDevice(deviceIndex);
     }
 
@@ -67,6 +86,14 @@ public class TornadoSketchTierContext extends HighTierContext {
         return argumentAccess;
     }
 
+    public ArgumentIndexing[] getArgumentIndexing() {
+        return argumentIndexing;
+    }
+
+    public AffineIndex[][] getArgumentIndices() {
+        return argumentIndices;
+    }
+
     public void setBatchWriteThreadIndex() {
         this.batchWriteThreadIndex = true;
     }
@@ -21,26 +21,70 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases.sketcher;
 
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.core.common.type.ObjectStamp;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.CallTargetNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
 import org.graalvm.compiler.nodes.FrameState;
 import org.graalvm.compiler.nodes.GraphState;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PiNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.IntegerConvertNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NegateNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
 import org.graalvm.compiler.nodes.extended.JavaReadNode;
 import org.graalvm.compiler.nodes.extended.JavaWriteNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
 import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
 import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
 import org.graalvm.compiler.phases.BasePhase;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AbstractParallelNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ThreadIdFixedWithNextNode;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoSketchTierContext;
+import uk.ac.manchester.tornado.runtime.sketcher.AffineIndex;
+import uk.ac.manchester.tornado.runtime.sketcher.ArgumentIndexing;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 
 /**
  * This phase analyses the graph to deduct if the loop index is written in the output buffer.
  * This information is necessary for batch processing, because in that case the kernel
  * will need to be recompiled to offset the value written based on the number of the batch.
+ *
+ * <p>
+ * It also finds, for each argument, whether its elements are indexed with the
+ * outermost parallel loop (see {@link ArgumentIndexing}), and the position of
+ * each access as an affine function of that loop (see {@link AffineIndex}).
+ * Batch processing only splits the arrays that are indexed with the parallel
+ * loop, and only if each iteration uses its own range of the array.
+ * </p>
  */
 public class TornadoBatchFunctionAnalysis extends BasePhase<TornadoSketchTierContext> {
 
@@ -59,6 +103,89 @@ public class TornadoBatchFunctionAnalysis extends BasePhase<TornadoSketchTierCon
                 }
             }
         }
+
+        ArgumentIndexing[] argumentIndexing = context.getArgumentIndexing();
+        AffineIndex[][] argumentIndices = context.getArgumentIndices();
+        AffineIndexBuilder affineIndexBuilder = new AffineIndexBuilder(graph);
+        for (int i = 0; i < argumentIndexing.length; i++) {
+            ParameterNode param = graph.getParameter(i);
+            argumentIndexing[i] = ArgumentIndexing.NONE;
+            argumentIndices[i] = new AffineIndex[0];
+            if (param != null && param.stamp(NodeView.DEFAULT) instanceof ObjectStamp) {
+                List<AffineIndex> indices = new ArrayList<>();
+                argumentIndexing[i] = analyseIndexing(param, affineIndexBuilder, indices);
+                argumentIndices[i] = indices.contains(null) ? null : indices.toArray(new AffineIndex[0]);
+            }
+        }
+    }
+
+    /**
+     * @param indices
+     *     It receives the affine index of each access to the parameter, or null
+     *     for the accesses that are not affine.
+     */
+    private static ArgumentIndexing analyseIndexing(ParameterNode parameter, AffineIndexBuilder affineIndexBuilder, List<AffineIndex> indices) {
+        ArgumentIndexing indexing = ArgumentIndexing.NONE;
+        Queue<Node> nodesToProcess = new ArrayDeque<>();
+        Set<Node> visited = new HashSet<>();
+        nodesToProcess.add(parameter);
+        while (!nodesToProcess.isEmpty()) {
+            Node currentNode = nodesToProcess.remove();
+            for (Node usage : currentNode.usages()) {
+                if (!visited.add(usage)) {
+                    continue;
+                }
+                if (usage instanceof OffsetAddressNode address && address.getBase() == currentNode) {
+                    indexing = indexing.merge(indexingOf(address.getOffset()));
+                    indices.add(affineIndexBuilder.ofAddress(address));
+                } else if (usage instanceof AccessIndexedNode accessIndexed && accessIndexed.array() == currentNode) {
+                    indexing = indexing.merge(indexingOf(accessIndexed.index()));
+                    indices.add(affineIndexBuilder.ofArrayIndex(accessIndexed));
+                } else if (usage instanceof CallTargetNode) {
+                    // The callee may index the argument with any value
+                    return ArgumentIndexing.UNKNOWN;
+                } else if (usage instanceof PiNode || (usage instanceof LoadFieldNode loadField && loadField.stamp(NodeView.DEFAULT) instanceof ObjectStamp)) {
+                    nodesToProcess.add(usage);
+                }
+            }
+        }
+        return indexing;
+    }
+
+    /**
+     * Follows the inputs of an index to find whether it is derived from the
+     * induction variable of the outermost parallel loop. Values loaded from
+     * memory (e.g., from an index map) do not depend on the loop.
+     */
+    private static ArgumentIndexing indexingOf(ValueNode index) {
+        Queue<Node> nodesToProcess = new ArrayDeque<>();
+        Set<Node> visited = new HashSet<>();
+        nodesToProcess.add(index);
+        boolean isParallel = false;
+        while (!nodesToProcess.isEmpty()) {
+            Node node = nodesToProcess.remove();
+            if (!visited.add(node)) {
+                continue;
+            }
+            if (node instanceof AbstractParallelNode parallelNode) {
+                if (parallelNode.index() != 0) {
+                    return ArgumentIndexing.UNKNOWN;
+                }
+                isParallel = true;
+            } else if (node instanceof ThreadIdFixedWithNextNode threadId) {
+                if (threadId.getDimension() != 0) {
+                    return ArgumentIndexing.UNKNOWN;
+                }
+                isParallel = true;
+            } else if (!(node instanceof FixedNode || node instanceof MemoryAccess || node instanceof ConstantNode || node instanceof ParameterNode)) {
+                for (Node input : node.inputs()) {
+                    if (input instanceof ValueNode) {
+                        nodesToProcess.add(input);
+                    }
+                }
+            }
+        }
+        return isParallel ? ArgumentIndexing.PARALLEL : ArgumentIndexing.INVARIANT;
     }
 
     private static boolean isIndexUsedInJavaWrite(Node indexUsage, Set<Node> visited) {
@@ -79,4 +206,277 @@ public class TornadoBatchFunctionAnalysis extends BasePhase<TornadoSketchTierCon
         return false;
     }
 
+    /**
+     * A polynomial of the values of the graph. Each monomial is a product of
+     * nodes in a fixed order, and it maps to its coefficient. The empty product is
+     * the constant term.
+     */
+    private static final class NodePolynomial {
+
+        private static final int MAX_MONOMIALS = 32;
+
+        private final Map<List<Node>, Long> monomials = new HashMap<>();
+
+        static NodePolynomial constant(long value) {
+            NodePolynomial polynomial = new NodePolynomial();
+            polynomial.add(List.of(), value);
+            return polynomial;
+        }
+
+        static NodePolynomial of(Node node) {
+            NodePolynomial polynomial = new NodePolynomial();
+            polynomial.add(List.of(node), 1);
+            return polynomial;
+        }
+
+        private void add(List<Node> monomial, long coefficient) {
+            Long sum = Math.addExact(monomials.getOrDefault(monomial, 0L), coefficient);
+            if (sum == 0) {
+                monomials.remove(monomial);
+            } else {
+                monomials.put(monomial, sum);
+            }
+            if (monomials.size() > MAX_MONOMIALS) {
+                throw new ArithmeticException("Too many monomials");
+            }
+        }
+
+        NodePolynomial add(NodePolynomial other, long scale) {
+            NodePolynomial result = new NodePolynomial();
+            monomials.forEach(result::add);
+            other.monomials.forEach((monomial, coefficient) -> result.add(monomial, Math.multiplyExact(coefficient, scale)));
+            return result;
+        }
+
+        NodePolynomial multiply(NodePolynomial other) {
+            NodePolynomial result = new NodePolynomial();
+            for (Map.Entry<List<Node>, Long> left : monomials.entrySet()) {
+                for (Map.Entry<List<Node>, Long> right : other.monomials.entrySet()) {
+                    List<Node> monomial = new ArrayList<>(left.getKey());
+                    monomial.addAll(right.getKey());
+                    // The order of the factors only merges equal monomials
+                    monomial.sort(Comparator.comparingInt(System::identityHashCode));
+                    result.add(monomial, Math.multiplyExact(left.getValue(), right.getValue()));
+                }
+            }
+            return result;
+        }
+
+        Map<List<Node>, Long> monomials() {
+            return monomials;
+        }
+    }
+
+    /**
+     * Builds the affine index of the accesses of a graph. The variables of the
+     * index are the induction variable of the outermost parallel loop and the
+     * counters of the inner counted loops, and the rest of its values must be
+     * constants, scalar parameters or sizes of array parameters.
+     */
+    private static final class AffineIndexBuilder {
+
+        /**
+         * Field read by the plugins of {@code getSize()} of the native arrays.
+         */
+        private static final String NUMBER_OF_ELEMENTS = "numberOfElements";
+
+        private static final int MAX_DEPTH = 64;
+
+        private final StructuredGraph graph;
+        private Map<Node, LoopCounter> counters;
+
+        AffineIndexBuilder(StructuredGraph graph) {
+            this.graph = graph;
+        }
+
+        /**
+         * The offset of a native array access is in bytes, and it includes the
+         * header of the array.
+         */
+        AffineIndex ofAddress(OffsetAddressNode address) {
+            int accessBytes = 0;
+            for (Node usage : address.usages()) {
+                if (usage instanceof JavaReadNode read) {
+                    accessBytes = Math.max(accessBytes, read.getReadKind().getByteCount());
+                } else if (usage instanceof JavaWriteNode write) {
+                    accessBytes = Math.max(accessBytes, write.getWriteKind().getByteCount());
+                } else {
+                    return null;
+                }
+            }
+            try {
+                NodePolynomial offset = polynomialOf(address.getOffset(), 0).add(NodePolynomial.constant(TornadoOptions.PANAMA_OBJECT_HEADER_SIZE), -1);
+                return accessBytes == 0 ? null : toAffineIndex(offset, accessBytes);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        /**
+         * The index of a Java array access is in elements.
+         */
+        AffineIndex ofArrayIndex(AccessIndexedNode accessIndexed) {
+            int elementBytes = accessIndexed.elementKind().getByteCount();
+            try {
+                NodePolynomial offset = new NodePolynomial().add(polynomialOf(accessIndexed.index(), 0), elementBytes);
+                return toAffineIndex(offset, elementBytes);
+            } catch (ArithmeticException e) {
+                return null;
+            }
+        }
+
+        private NodePolynomial polynomialOf(ValueNode node, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new ArithmeticException("Expression too deep");
+            }
+            return switch (node) {
+                case ConstantNode constant when constant.getStackKind().isNumericInteger() -> NodePolynomial.constant(constant.asJavaConstant().asLong());
+                case AddNode add -> polynomialOf(add.getX(), depth + 1).add(polynomialOf(add.getY(), depth + 1), 1);
+                case SubNode sub -> polynomialOf(sub.getX(), depth + 1).add(polynomialOf(sub.getY(), depth + 1), -1);
+                case MulNode mul -> polynomialOf(mul.getX(), depth + 1).multiply(polynomialOf(mul.getY(), depth + 1));
+                case LeftShiftNode shift when shift.getY().isJavaConstant() && shift.getY().asJavaConstant().asLong() >= 0 && shift.getY().asJavaConstant().asLong() < Long.SIZE - 1 ->
+                        new NodePolynomial().add(polynomialOf(shift.getX(), depth + 1), 1L << shift.getY().asJavaConstant().asLong());
+                case NegateNode negate -> new NodePolynomial().add(polynomialOf(negate.getValue(), depth + 1), -1);
+                case IntegerConvertNode<?> convert -> polynomialOf(convert.getValue(), depth + 1);
+                case PiNode pi when pi.object() != null -> polynomialOf(pi.object(), depth + 1);
+                default -> NodePolynomial.of(node);
+            };
+        }
+
+        private AffineIndex toAffineIndex(NodePolynomial polynomial, int accessBytes) {
+            Map<List<AffineIndex.Symbol>, Long> stride = new HashMap<>();
+            Map<List<AffineIndex.Symbol>, Long> offset = new HashMap<>();
+            Map<Node, Map<List<AffineIndex.Symbol>, Long>> coefficients = new HashMap<>();
+            for (Map.Entry<List<Node>, Long> monomial : polynomial.monomials().entrySet()) {
+                int parallelDegree = 0;
+                List<Node> counterNodes = new ArrayList<>();
+                List<AffineIndex.Symbol> symbols = new ArrayList<>();
+                for (Node node : monomial.getKey()) {
+                    if (isParallelIndex(node)) {
+                        parallelDegree++;
+                    } else if (getCounters().containsKey(node)) {
+                        counterNodes.add(node);
+                    } else {
+                        AffineIndex.Symbol symbol = symbolOf(node);
+                        if (symbol == null) {
+                            return null;
+                        }
+                        symbols.add(symbol);
+                    }
+                }
+                if (parallelDegree == 1 && counterNodes.isEmpty()) {
+                    stride.merge(symbols, monomial.getValue(), Math::addExact);
+                } else if (parallelDegree == 0 && counterNodes.isEmpty()) {
+                    offset.merge(symbols, monomial.getValue(), Math::addExact);
+                } else if (parallelDegree == 0 && counterNodes.size() == 1) {
+                    coefficients.computeIfAbsent(counterNodes.getFirst(), node -> new HashMap<>()).merge(symbols, monomial.getValue(), Math::addExact);
+                } else {
+                    return null;
+                }
+            }
+
+            List<AffineIndex.Counter> counterList = new ArrayList<>();
+            for (Map.Entry<Node, Map<List<AffineIndex.Symbol>, Long>> coefficient : coefficients.entrySet()) {
+                LoopCounter counter = getCounters().get(coefficient.getKey());
+                AffineIndex.Polynomial start = symbolPolynomialOf(counter.start());
+                AffineIndex.Polynomial limit = symbolPolynomialOf(counter.limit());
+                if (start == null || limit == null) {
+                    return null;
+                }
+                counterList.add(new AffineIndex.Counter(new AffineIndex.Polynomial(coefficient.getValue()), start, limit));
+            }
+            return new AffineIndex(new AffineIndex.Polynomial(stride), new AffineIndex.Polynomial(offset), counterList, accessBytes);
+        }
+
+        /**
+         * @return The polynomial of a value that only depends on the arguments,
+         *     or null if it depends on other values.
+         */
+        private AffineIndex.Polynomial symbolPolynomialOf(ValueNode node) {
+            Map<List<AffineIndex.Symbol>, Long> monomials = new HashMap<>();
+            for (Map.Entry<List<Node>, Long> monomial : polynomialOf(node, 0).monomials().entrySet()) {
+                List<AffineIndex.Symbol> symbols = new ArrayList<>();
+                for (Node factor : monomial.getKey()) {
+                    AffineIndex.Symbol symbol = symbolOf(factor);
+                    if (symbol == null) {
+                        return null;
+                    }
+                    symbols.add(symbol);
+                }
+                monomials.merge(symbols, monomial.getValue(), Math::addExact);
+            }
+            return new AffineIndex.Polynomial(monomials);
+        }
+
+        private static boolean isParallelIndex(Node node) {
+            if (node instanceof ValuePhiNode phi && phi.valueCount() > 0 && phi.valueAt(0) instanceof ParallelOffsetNode offset) {
+                return offset.index() == 0;
+            }
+            return node instanceof ThreadIdFixedWithNextNode threadId && threadId.getDimension() == 0;
+        }
+
+        private static AffineIndex.Symbol symbolOf(Node node) {
+            if (node instanceof ParameterNode parameter && parameter.stamp(NodeView.DEFAULT) instanceof IntegerStamp) {
+                return new AffineIndex.Symbol(parameter.index(), false);
+            }
+            ParameterNode array = null;
+            if (node instanceof ArrayLengthNode arrayLength) {
+                array = parameterOf(arrayLength.array());
+            } else if (node instanceof LoadFieldNode loadField && loadField.field().getName().equals(NUMBER_OF_ELEMENTS)) {
+                array = parameterOf(loadField.object());
+            }
+            return array == null ? null : new AffineIndex.Symbol(array.index(), true);
+        }
+
+        private static ParameterNode parameterOf(ValueNode node) {
+            ValueNode value = node;
+            while (value instanceof PiNode pi) {
+                value = pi.object();
+            }
+            return value instanceof ParameterNode parameter ? parameter : null;
+        }
+
+        /**
+         * The counted loops are detected by hand because the limits of the loops
+         * that read the size of a native array are field reads inside the loop,
+         * which are not loop invariant for {@code LoopsData} at this tier.
+         *
+         * @return The counters of the loops that only exit when the counter
+         *     reaches the limit, by their phi.
+         */
+        private Map<Node, LoopCounter> getCounters() {
+            if (counters == null) {
+                counters = new HashMap<>();
+                for (LoopBeginNode loopBegin : graph.getNodes(LoopBeginNode.TYPE)) {
+                    for (IfNode ifNode : graph.getNodes(IfNode.TYPE)) {
+                        if (ifNode.falseSuccessor() instanceof LoopExitNode loopExit && loopExit.loopBegin() == loopBegin && ifNode.condition() instanceof IntegerLessThanNode lessThan
+                                && lessThan.getX() instanceof ValuePhiNode phi && phi.merge() == loopBegin && isCounter(phi) && !isParallelIndex(phi) && loopBegin.loopExits().count() == 1) {
+                            counters.put(phi, new LoopCounter(phi.valueAt(0), lessThan.getY()));
+                        }
+                    }
+                }
+            }
+            return counters;
+        }
+
+        /**
+         * @return True if the phi only increments by a positive constant in the
+         *     single back-edge of its loop.
+         */
+        private static boolean isCounter(ValuePhiNode phi) {
+            if (phi.valueCount() != 2 || !(phi.valueAt(1) instanceof AddNode increment)) {
+                return false;
+            }
+            ValueNode step = increment.getX() == phi ? increment.getY() : increment.getY() == phi ? increment.getX() : null;
+            return step instanceof ConstantNode constant && constant.getStackKind().isNumericInteger() && constant.asJavaConstant().asLong() > 0;
+        }
+
+        /**
+         * A counter that takes the values from {@code start} (included) to
+         * {@code limit} (excluded) in the body of its loop.
+         */
+        private record LoopCounter(ValueNode start, ValueNode limit) {
+        }
+    }
+
 }
@@ -46,6 +46,7 @@ import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
 import uk.ac.manchester.tornado.api.types.collections.TornadoCollectionInterface;
@@ -79,12 +80,16 @@ public class TornadoExecutionContext {
     private List<Object> objects;
     private List<Object> persistedObjects;
     private Map<String, List<Object>> persistedTaskToObjectsMap;
+    private int persistedObjectsVersion;
 
     private List<LocalObjectState> objectState;
     private List<TornadoXPUDevice> devices;
     private TornadoXPUDevice[] taskToDeviceMapTable;
     private int nextTask;
     private long batchSize;
+    private int batchChunksInFlight;
+    private long iterationRangeStart;
+    private long iterationRangeEnd;
     private long executionPlanMemoryLimit;
     private Set<TornadoXPUDevice> lastDevices;
     private boolean redeployOnDevice;
@@ -94,6 +99,8 @@ public class TornadoExecutionContext {
     private boolean isPrintKernel;
 
     private long executionPlanId;  // This is set at runtime. Thus, no need to clone this value.
+    private TimelineTracer timelineTracer; // Also set at runtime, from the execution plan.
+    private int autoTuningIterations; // Also set at runtime, from the execution plan.
     private long currentDeviceMemoryUsage;
 
     public TornadoExecutionContext(String id) {
@@ -113,6 +120,9 @@ public class TornadoExecutionContext {
         Arrays.fill(taskToDeviceMapTable, null);
         nextTask = 0;
         batchSize = INIT_VALUE;
+        batchChunksInFlight = 1;
+        iterationRangeStart = INIT_VALUE;
+        iterationRangeEnd = INIT_VALUE;
         executionPlanMemoryLimit = INIT_VALUE;
         lastDevices = new HashSet<>();
         currentDeviceMemoryUsage = 0;
@@ -156,6 +166,48 @@ public class TornadoExecutionContext {
         this.batchSize = size;
     }
 
+    /**
+     * @return Number of batches kept on the device at the same time when
+     *     batch processing is enabled. A value greater than 1 enables the
+     *     pipelined batch mode.
+     */
+    public int getBatchChunksInFlight() {
+        return batchChunksInFlight;
+    }
+
+    public void setBatchChunksInFlight(int chunksInFlight) {
+        this.batchChunksInFlight = chunksInFlight;
+    }
+
+    /**
+     * It restricts the execution to the iterations {@code [start, end)} of the
+     * iteration space (see {@link uk.ac.manchester.tornado.runtime.common.BatchConfiguration}).
+     * Only that range of the arrays processed in batches is transferred, and the
+     * results are copied back to the same range of the host arrays. This is used
+     * to split a task-graph across several devices.
+     *
+     * @param start
+     *     First iteration, inclusive.
+     * @param end
+     *     Last iteration, exclusive.
+     */
+    public void setIterationRange(long start, long end) {
+        this.iterationRangeStart = start;
+        this.iterationRangeEnd = end;
+    }
+
+    public boolean hasIterationRange() {
+        return iterationRangeStart != INIT_VALUE;
+    }
+
+    public long getIterationRangeStart() {
+        return iterationRangeStart;
+    }
+
+    public long getIterationRangeEnd() {
+        return iterationRangeEnd;
+    }
+
     public long getExecutionPlanMemoryLimit() {
         return executionPlanMemoryLimit;
     }
@@ -268,6 +320,7 @@ public class TornadoExecutionContext {
     public void addPersistedObject(Object object) {
         if (object != null) {
             persistedObjects.add(object);
+            persistedObjectsVersion++;
         }
     }
 
@@ -633,6 +686,33 @@ public class TornadoExecutionContext {
         this.profiler = timeProfiler;
     }
 
+    /**
+     * Sets the tracer that records the timeline of the execution plan, or
+     * {@code null} when the timeline is not traced.
+     *
+     * @param timelineTracer
+     *     {@link TimelineTracer}
+     */
+    public void setTimelineTracer(TimelineTracer timelineTracer) {
+        this.timelineTracer = timelineTracer;
+    }
+
+    public TimelineTracer getTimelineTracer() {
+        return timelineTracer;
+    }
+
+    /**
+     * Sets the number of executions used to search the local work sizes of each
+     * task, or zero when the autotuning is disabled.
+     */
+    public void setAutoTuningIterations(int autoTuningIterations) {
+        this.autoTuningIterations = autoTuningIterations;
+    }
+
+    public int getAutoTuningIterations() {
+        return autoTuningIterations;
+    }
+
     @Override
     public TornadoExecutionContext clone() {
         TornadoExecutionContext newExecutionContext = new TornadoExecutionContext(this.getId());
@@ -652,6 +732,7 @@ public class TornadoExecutionContext {
         newExecutionContext.persistedObjects = new ArrayList<>(persistedObjects);
 
         newExecutionContext.persistedTaskToObjectsMap = new HashMap<>(persistedTaskToObjectsMap);
+        newExecutionContext.persistedObjectsVersion = persistedObjectsVersion;
 
         List<LocalObjectState> objectStateCopy = new ArrayList<>();
         for (LocalObjectState localObjectState : objectState) {
@@ -693,6 +774,17 @@ public class TornadoExecutionContext {
 
     public void addPersistedObject(String taskgraphUniqueName, Object value) {
         persistedTaskToObjectsMap.computeIfAbsent(taskgraphUniqueName, k -> new ArrayList<>()).add(value);
+        persistedObjectsVersion++;
+    }
+
+    /**
+     * It returns a counter that changes every time an object is persisted, so
+     * callers can cache the lookups in the persisted objects.
+     *
+     * @return The version of the persisted objects.
+     */
+    public int getPersistedObjectsVersion() {
+        return persistedObjectsVersion;
     }
 
     public Map<String, List<Object>> getPersistedTaskToObjectsMap() {
@@ -29,6 +29,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
 
+import uk.ac.manchester.tornado.runtime.common.BatchChunk;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
@@ -86,27 +87,29 @@ public class TornadoVMBytecodeBuilder {
         bitcodeASM.end();
     }
 
-    void emitAsyncNode(AbstractNode node, int dependencyBC, long offset, long batchSize, long nThreads) {
+    void emitAsyncNode(AbstractNode node, int dependencyBC, BatchChunk chunk) {
         if (node instanceof AllocateMultipleBuffersNode allocateMultipleBuffersNode) {
-            bitcodeASM.allocate(allocateMultipleBuffersNode.getValues(), batchSize);
+            bitcodeASM.allocate(allocateMultipleBuffersNode.getValues(), chunk);
         } else if (node instanceof OnDeviceObjectNode onDeviceObjectNode) {
             bitcodeASM.onDevice(onDeviceObjectNode.getValue().getIndex(), dependencyBC);
         } else if (node instanceof CopyInNode copyInNode) {
-            bitcodeASM.transferToDeviceOnce(copyInNode.getValue().getIndex(), dependencyBC, offset, batchSize);
+            final int objectIndex = copyInNode.getValue().getIndex();
+            bitcodeASM.transferToDeviceOnce(objectIndex, dependencyBC, chunk.offsetOf(objectIndex), chunk.sizeOf(objectIndex));
         } else if (node instanceof AllocateNode allocateNode) {
             new TornadoLogger().info("[%s]: Skipping deprecated node %s", getClass().getSimpleName(), AllocateNode.class.getSimpleName());
         } else if (node instanceof CopyOutNode copyOutNode) {
-            ObjectNode value = copyOutNode.getValue().getValue();
-            bitcodeASM.transferToHost(value.getIndex(), dependencyBC, offset, batchSize);
+            final int objectIndex = copyOutNode.getValue().getValue().getIndex();
+            bitcodeASM.transferToHost(objectIndex, dependencyBC, chunk.offsetOf(objectIndex), chunk.sizeOf(objectIndex));
         } else if (node instanceof StreamInNode streamInNode) {
-            bitcodeASM.transferToDeviceAlways(streamInNode.getValue().getIndex(), dependencyBC, offset, batchSize);
+            final int objectIndex = streamInNode.getValue().getIndex();
+            bitcodeASM.transferToDeviceAlways(objectIndex, dependencyBC, chunk.offsetOf(objectIndex), chunk.sizeOf(objectIndex));
         } else if (node instanceof DeallocateNode deallocateNode) {
             bitcodeASM.deallocate((deallocateNode.getValue().getIndex()));
         } else if (node instanceof PersistedObjectNode persistedObjectNode) {
             bitcodeASM.persist(persistedObjectNode.getValue().getIndex(), dependencyBC);
         } else if (node instanceof TaskNode taskNodee) {
             final TaskNode taskNode = taskNodee;
-            bitcodeASM.launch(taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, offset, nThreads);
+            bitcodeASM.launch(taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, chunk.getFirstIteration(), chunk.getNumberOfThreads());
             emitArgList(taskNode);
         }
     }
@@ -153,6 +156,31 @@ public class TornadoVMBytecodeBuilder {
         return bitcodeASM.getLastCopyOutPosition();
     }
 
+    /**
+     * It discards the bytecodes emitted from the given position onwards. The
+     * discarded bytecodes can be read from {@link #getCode()} before they are
+     * overwritten.
+     *
+     * @param position
+     *     New end of the bytecode buffer.
+     */
+    void truncate(int position) {
+        bitcodeASM.truncate(position);
+    }
+
+    /**
+     * It appends a segment of bytecodes previously emitted by this builder.
+     *
+     * @param bytecodes
+     *     Bytecodes to append.
+     * @param copyOutOffset
+     *     Offset within the segment of its last copy-out, or -1 if the segment
+     *     does not contain one.
+     */
+    void emitCode(byte[] bytecodes, int copyOutOffset) {
+        bitcodeASM.put(bytecodes, copyOutOffset);
+    }
+
     private static class TornadoVMBytecodeAssembler {
         private final ByteBuffer buffer;
         private int lastCopyOutPosition;
@@ -197,12 +225,14 @@ public class TornadoVMBytecodeBuilder {
             buffer.putInt(index);
         }
 
-        public void allocate(List<AbstractNode> values, long batchSize) {
+        public void allocate(List<AbstractNode> values, BatchChunk chunk) {
+            // Objects that are not processed in batches are allocated whole with the first batch
+            List<AbstractNode> objects = chunk.isFirst() ? values : values.stream().filter(node -> chunk.isBatched(node.getIndex())).toList();
             buffer.put(TornadoVMBytecodes.ALLOC.value);
-            buffer.putLong(batchSize);
-            buffer.putInt(values.size());
-            for (AbstractNode node : values) {
+            buffer.putInt(objects.size());
+            for (AbstractNode node : objects) {
                 buffer.putInt(node.getIndex());
+                buffer.putLong(chunk.sizeOf(node.getIndex()));
             }
         }
 
@@ -263,6 +293,17 @@ public class TornadoVMBytecodeBuilder {
             buffer.putInt(dep);
         }
 
+        void truncate(int position) {
+            buffer.position(position);
+        }
+
+        void put(byte[] bytecodes, int copyOutOffset) {
+            if (copyOutOffset != -1) {
+                lastCopyOutPosition = buffer.position() + copyOutOffset;
+            }
+            buffer.put(bytecodes);
+        }
+
         void constantArg(int index) {
             buffer.put(TornadoVMBytecodes.PUSH_CONSTANT_ARGUMENT.value);
             buffer.putInt(index);
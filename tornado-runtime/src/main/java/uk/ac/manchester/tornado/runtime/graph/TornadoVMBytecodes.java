@@ -35,8 +35,10 @@ public enum TornadoVMBytecodes {
      * Format:
      *
      * <code>
-     * ALLOC(dest, numObjects, objects)
+     * ALLOC(numObjects, [object, batchSize]*)
      * </code>
+     * <p>
+     * The batch size of each object is 0 if the object is allocated whole.
      */
     ALLOC((byte) 10),
 
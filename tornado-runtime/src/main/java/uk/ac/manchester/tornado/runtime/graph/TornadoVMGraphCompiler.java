@@ -2,7 +2,7 @@
  * This file is part of Tornado: A heterogeneous programming framework:
  * https://github.com/beehive-lab/tornadovm
  *
- * Copyright (c) 2013-2020, 2023 APT Group, Department of Computer Science,
+ * Copyright (c) 2013-2020, 2023-2024, APT Group, Department of Computer Science,
  * The University of Manchester. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
@@ -23,16 +23,24 @@
 package uk.ac.manchester.tornado.runtime.graph;
 
 import java.nio.BufferOverflowException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.List;
 
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.BatchChunk;
 import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextOpNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.CopyOutNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.DeallocateNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
+import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
 
 public class TornadoVMGraphCompiler {
     /**
@@ -61,6 +69,13 @@ public class TornadoVMGraphCompiler {
 
         intermediateTornadoGraph.analyzeDependencies();
 
+        final boolean isBatchEnabled = executionContext.getBatchSize() != TornadoExecutionContext.INIT_VALUE || executionContext.hasIterationRange();
+        final BatchConfiguration batchConfiguration = isBatchEnabled ? BatchConfiguration.computeChunkSizes(executionContext, executionContext.getBatchSize()) : null;
+        final int chunksInFlight = isBatchEnabled ? batchConfiguration.getChunksInFlight(executionContext.getBatchChunksInFlight()) : 1;
+
+        // Each batch in flight uses its own event lists. The last list is used by the final barrier.
+        final int barrierDependency = intermediateTornadoGraph.getNumberOfDependencies() * chunksInFlight;
+
         new TornadoLogger().debug("Compiling bytecodes...");
 
         for (int i = 0; i < tornadoVMBytecodeResults.length; i++) {
@@ -68,22 +83,26 @@ public class TornadoVMGraphCompiler {
             TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder = new TornadoVMBytecodeBuilder(isSingleContextCompilation);
 
             // Generate Context + BEGIN bytecode
-            tornadoVMBytecodeBuilder.begin(1, 1, intermediateTornadoGraph.getNumberOfDependencies() + 1);
+            tornadoVMBytecodeBuilder.begin(1, 1, barrierDependency + 1);
 
             // Generate bytecodes with no batches
-            if (executionContext.getBatchSize() == TornadoExecutionContext.INIT_VALUE) {
-                scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, 0, 0, 0, i, executionContext);
+            if (!isBatchEnabled) {
+                scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, BatchChunk.NO_BATCH, i, executionContext, 0);
+            } else if (chunksInFlight > 1) {
+                // Generate bytecodes for pipelined batch processing.
+                // The copy-outs of each batch are deferred until the next batches have been launched
+                schedulePipelinedBatchDependentBytecodes(batchConfiguration, chunksInFlight, tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, executionContext);
             } else {
                 // Generate bytecodes for batch processing.
                 // It splits the iteration space and the input arrays into batches
-                scheduleBatchDependentBytecodes(executionContext, tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph);
+                scheduleBatchDependentBytecodes(batchConfiguration, tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, executionContext);
             }
 
             // Last operation -> perform synchronisation
             if (TornadoOptions.ENABLE_STREAM_OUT_BLOCKING) {
-                synchronizeOperationLastByteCode(tornadoVMBytecodeBuilder, intermediateTornadoGraph.getNumberOfDependencies());
+                synchronizeOperationLastByteCode(tornadoVMBytecodeBuilder, barrierDependency);
             } else {
-                tornadoVMBytecodeBuilder.barrier(intermediateTornadoGraph.getNumberOfDependencies());
+                tornadoVMBytecodeBuilder.barrier(barrierDependency);
             }
 
             // Generate END bytecode
@@ -102,7 +121,7 @@ public class TornadoVMGraphCompiler {
 
     private static boolean shouldGenerateSingleBytecode(TornadoExecutionContext executionContext) {
         boolean isSingleDeviceExecution = executionContext.getValidContextSize() == 1;
-        boolean isBatchEnabled = executionContext.getBatchSize() != -1;
+        boolean isBatchEnabled = executionContext.getBatchSize() != -1 || executionContext.hasIterationRange();
 
         if (isBatchEnabled && !isSingleDeviceExecution) {
             throw new TornadoRuntimeException("[UNSUPPORTED] Batches can only be enabled for single device execution");
@@ -111,25 +130,87 @@ public class TornadoVMGraphCompiler {
         return isSingleDeviceExecution;
     }
 
-    private static void scheduleBatchDependentBytecodes(TornadoExecutionContext executionContext, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph,
-            IntermediateTornadoGraph intermediateTornadoGraph) {
-        final long batchSize = executionContext.getBatchSize();
+    private static void scheduleBatchDependentBytecodes(BatchConfiguration batchConfiguration, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph,
+            IntermediateTornadoGraph intermediateTornadoGraph, TornadoExecutionContext executionContext) {
+        for (BatchChunk chunk : batchConfiguration.getChunks()) {
+            scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, chunk, 1, executionContext, 0);
+        }
+    }
 
-        BatchConfiguration batchConfiguration = BatchConfiguration.computeChunkSizes(executionContext, batchSize);
+    /**
+     * It emits the bytecodes of each batch, but it moves the copy-outs that
+     * follow the last launch of a batch after the launches of the next
+     * {@code chunksInFlight - 1} batches. The interpreter assigns a different
+     * set of device buffers (slot) to each batch in flight, and each slot uses
+     * its own event lists, so the copy-in and the kernel of the next batches
+     * only depend on the commands of their own batch.
+     *
+     * <p>
+     * Deallocations are only kept for the last batch, because the buffers of
+     * all slots are released at the end of the pipeline.
+     * </p>
+     */
+    private static void schedulePipelinedBatchDependentBytecodes(BatchConfiguration batchConfiguration, int chunksInFlight, TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph,
+            IntermediateTornadoGraph intermediateTornadoGraph, TornadoExecutionContext executionContext) {
+        final List<BatchChunk> chunks = batchConfiguration.getChunks();
+        final int numDependencies = intermediateTornadoGraph.getNumberOfDependencies();
+        final ArrayDeque<BytecodeSegment> pendingCopyOuts = new ArrayDeque<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            BatchChunk chunk = chunks.get(i);
+            int dependencyOffset = (i % chunksInFlight) * numDependencies;
+            List<EmittedNode> emittedNodes = scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, chunk, 1, executionContext, dependencyOffset);
+            pendingCopyOuts.addLast(extractCopyOutSegment(tornadoVMBytecodeBuilder, emittedNodes, i == chunks.size() - 1));
+            if (pendingCopyOuts.size() == chunksInFlight) {
+                emitSegment(tornadoVMBytecodeBuilder, pendingCopyOuts.pollFirst());
+            }
+        }
+        while (!pendingCopyOuts.isEmpty()) {
+            emitSegment(tornadoVMBytecodeBuilder, pendingCopyOuts.pollFirst());
+        }
+    }
+
+    /**
+     * It removes from the builder the bytecodes emitted after the last launch
+     * of a batch, and returns them.
+     */
+    private static BytecodeSegment extractCopyOutSegment(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, List<EmittedNode> emittedNodes, boolean isLastChunk) {
+        int lastTask = -1;
+        for (int i = 0; i < emittedNodes.size(); i++) {
+            if (emittedNodes.get(i).isTask()) {
+                lastTask = i;
+            }
+        }
+        if (lastTask == -1 || lastTask == emittedNodes.size() - 1) {
+            return new BytecodeSegment(new byte[0], -1);
+        }
 
-        long offset = 0;
-        long numberOfThreads = batchSize / batchConfiguration.getNumBytesType();
-        for (int i = 0; i < batchConfiguration.getTotalChunks(); i++) {
-            offset = (batchSize * i);
-            scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, offset, batchSize, numberOfThreads, 1, executionContext);
+        final byte[] code = tornadoVMBytecodeBuilder.getCode();
+        final int segmentStart = emittedNodes.get(lastTask + 1).start();
+        final int segmentEnd = tornadoVMBytecodeBuilder.getCodeSize();
+        final byte[] segment = new byte[segmentEnd - segmentStart];
+        int size = 0;
+        int copyOutOffset = -1;
+        for (int i = lastTask + 1; i < emittedNodes.size(); i++) {
+            EmittedNode node = emittedNodes.get(i);
+            if (node.isDeallocation() && !isLastChunk) {
+                continue;
+            }
+            int nodeEnd = (i + 1 < emittedNodes.size()) ? emittedNodes.get(i + 1).start() : segmentEnd;
+            if (code[node.start()] == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
+                copyOutOffset = size;
+            }
+            System.arraycopy(code, node.start(), segment, size, nodeEnd - node.start());
+            size += nodeEnd - node.start();
         }
-        // Last chunk
-        if (batchConfiguration.getRemainingChunkSize() != 0) {
-            offset += (batchSize);
-            numberOfThreads = batchConfiguration.getRemainingChunkSize() / batchConfiguration.getNumBytesType();
-            long realBatchSize = batchConfiguration.getTotalChunks() == 0 ? 0 : batchConfiguration.getRemainingChunkSize();
-            long realOffsetSize = batchConfiguration.getTotalChunks() == 0 ? 0 : offset;
-            scheduleAndEmitTornadoVMBytecodes(tornadoVMBytecodeBuilder, graph, intermediateTornadoGraph, realOffsetSize, realBatchSize, numberOfThreads, 1, executionContext);
+        tornadoVMBytecodeBuilder.truncate(segmentStart);
+        return new BytecodeSegment(Arrays.copyOf(segment, size), copyOutOffset);
+    }
+
+    private static void emitSegment(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, BytecodeSegment segment) {
+        try {
+            tornadoVMBytecodeBuilder.emitCode(segment.code(), segment.copyOutOffset());
+        } catch (BufferOverflowException e) {
+            throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. To increase the buffer size, use -Dtornado.tvm.maxbytecodesize=" + TornadoVMBytecodeBuilder.MAX_TORNADO_VM_BYTECODE_SIZE);
         }
     }
 
@@ -143,8 +224,9 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph, long offset,
-            long bufferBatchSize, long nThreads, int id, TornadoExecutionContext executionContext) {
+    private static List<EmittedNode> scheduleAndEmitTornadoVMBytecodes(TornadoVMBytecodeBuilder tornadoVMBytecodeBuilder, TornadoGraph graph, IntermediateTornadoGraph intermediateTornadoGraph,
+            BatchChunk chunk, int id, TornadoExecutionContext executionContext, int dependencyOffset) {
+        final List<EmittedNode> emittedNodes = new ArrayList<>();
         final int[] nodeIds = intermediateTornadoGraph.getNodeIds();
         final BitSet[] dependencies = intermediateTornadoGraph.getDependencies();
 
@@ -175,9 +257,10 @@ public class TornadoVMGraphCompiler {
                     if (outstandingDeps.isEmpty()) {
                         final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
 
-                        if (shouldEmitAsyncNodeForTheCurrentContext(id, asyncNode, tornadoVMBytecodeBuilder.isSingleContext(), executionContext)) {
+                        if (shouldEmitAsyncNodeForTheCurrentContext(id, asyncNode, tornadoVMBytecodeBuilder.isSingleContext(), executionContext) && isRequiredForBatch(asyncNode, chunk)) {
+                            emittedNodes.add(new EmittedNode(tornadoVMBytecodeBuilder.getCodeSize(), asyncNode instanceof TaskNode, asyncNode instanceof DeallocateNode));
                             try {
-                                tornadoVMBytecodeBuilder.emitAsyncNode(asyncNode, (dependencies[i].isEmpty()) ? -1 : depLists[i], offset, bufferBatchSize, nThreads);
+                                tornadoVMBytecodeBuilder.emitAsyncNode(asyncNode, (dependencies[i].isEmpty()) ? -1 : depLists[i] + dependencyOffset, chunk);
                             } catch (BufferOverflowException e) {
                                 throw new TornadoRuntimeException(
                                         "[ERROR] Buffer Overflow exception. To increase the buffer size, use -Dtornado.tvm.maxbytecodesize=" + TornadoVMBytecodeBuilder.MAX_TORNADO_VM_BYTECODE_SIZE);
@@ -189,7 +272,7 @@ public class TornadoVMGraphCompiler {
                                 continue;
                             }
                             if (dependencies[j].get(nodeIds[i]) && depLists[j] != -1) {
-                                tornadoVMBytecodeBuilder.emitAddDependency(depLists[j]);
+                                tornadoVMBytecodeBuilder.emitAddDependency(depLists[j] + dependencyOffset);
                             }
                         }
                         scheduled.set(i);
@@ -198,6 +281,23 @@ public class TornadoVMGraphCompiler {
                 }
             }
         }
+        return emittedNodes;
+    }
+
+    /**
+     * Objects that are not processed in batches are transferred whole: they are
+     * copied in with the first batch, and they are copied out and released with
+     * the last batch.
+     */
+    private static boolean isRequiredForBatch(ContextOpNode asyncNode, BatchChunk chunk) {
+        if (asyncNode instanceof StreamInNode streamInNode) {
+            return chunk.isFirst() || chunk.isBatched(streamInNode.getValue().getIndex());
+        } else if (asyncNode instanceof CopyOutNode copyOutNode) {
+            return chunk.isLast() || chunk.isBatched(copyOutNode.getValue().getValue().getIndex());
+        } else if (asyncNode instanceof DeallocateNode deallocateNode) {
+            return chunk.isLast() || chunk.isBatched(deallocateNode.getValue().getIndex());
+        }
+        return true;
     }
 
     /**
@@ -223,4 +323,10 @@ public class TornadoVMGraphCompiler {
         return singleContext || (id >= 0 && id < executionContext.getDevices().size() && asyncNode.getContext().getDevice() == executionContext.getDevices().get(id));
     }
 
+    private record EmittedNode(int start, boolean isTask, boolean isDeallocation) {
+    }
+
+    private record BytecodeSegment(byte[] code, int copyOutOffset) {
+    }
+
 }
@@ -111,6 +111,17 @@ class DebugInterpreter {
         appendLogBuilder(verbose, logBuilder);
     }
 
+    static void logTransferToDeviceSkipped(Object object, TornadoXPUDevice deviceForInterpreter, long sizeObject, final int eventList, StringBuilder logBuilder) {
+        String verbose = String.format("bc: %s [0x%x] %s on %s, size=%d, skipped: unmodified on host [event list=%d]", //
+                InterpreterUtilities.debugHighLightBC("TRANSFER_HOST_TO_DEVICE_ALWAYS"), //
+                object.hashCode(), //
+                object, //
+                InterpreterUtilities.debugDeviceBC(deviceForInterpreter), //
+                sizeObject, //
+                eventList); //
+        appendLogBuilder(verbose, logBuilder);
+    }
+
     static void logTransferToHostAlways(Object object, TornadoXPUDevice interpreterDevice, long sizeObject, long sizeBatch, //
             long offset, final int eventList, StringBuilder logBuilder) {
         String verbose = String.format("bc: " //
@@ -0,0 +1,171 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.XPUDeviceBufferState;
+import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeResult;
+import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodes;
+
+/**
+ * A TornadoVM bytecode decoded into its operands. The {@link TornadoVMInterpreter} decodes the bytecode of its device once, when it is created, and the dispatch loop runs over the decoded
+ * instructions, so the bytecode buffer is not parsed and the operands are not allocated on every execution.
+ */
+sealed interface TornadoVMInstruction {
+
+    /**
+     * Allocation of the buffers of a set of objects. The scratch arrays hold the objects that are not persisted by another task-graph, and they are rebuilt when the persisted objects change.
+     */
+    final class Alloc implements TornadoVMInstruction {
+        final int[] args;
+        final long[] sizeBatches;
+
+        int persistedObjectsVersion = -1;
+        int[] argsToAlloc;
+        int[] persistedArgs;
+        Object[] objects;
+        Access[] accesses;
+        XPUDeviceBufferState[] states;
+
+        Alloc(int[] args, long[] sizeBatches) {
+            this.args = args;
+            this.sizeBatches = sizeBatches;
+        }
+    }
+
+    record DeAlloc(int objectIndex) implements TornadoVMInstruction {
+    }
+
+    record TransferHostToDeviceOnce(int objectIndex, int eventId, long offset, long sizeBatch) implements TornadoVMInstruction {
+    }
+
+    record TransferHostToDeviceAlways(int objectIndex, int eventId, long offset, long sizeBatch) implements TornadoVMInstruction {
+    }
+
+    record TransferDeviceToHostAlways(int objectIndex, int eventId, long offset, long sizeBatch) implements TornadoVMInstruction {
+    }
+
+    record TransferDeviceToHostAlwaysBlocking(int objectIndex, int eventId, long offset, long sizeBatch) implements TornadoVMInstruction {
+    }
+
+    /**
+     * Launch of a task. {@code localTaskIndex} is the index of the task in the list of tasks of the device.
+     */
+    record Launch(int callWrapperIndex, int taskIndex, int localTaskIndex, int eventId, long offset, long batchThreads, byte[] argTypes, int[] argIndices) implements TornadoVMInstruction {
+        int numArgs() {
+            return argTypes.length;
+        }
+    }
+
+    record AddDependency(int eventList) implements TornadoVMInstruction {
+    }
+
+    record OnDevice(int objectIndex, int eventId) implements TornadoVMInstruction {
+    }
+
+    record Persist(int objectIndex, int eventId) implements TornadoVMInstruction {
+    }
+
+    record Barrier(int eventId) implements TornadoVMInstruction {
+    }
+
+    record End() implements TornadoVMInstruction {
+    }
+
+    /**
+     * Maps the global index of a task to its index in the list of tasks of the device.
+     */
+    @FunctionalInterface
+    interface LocalTaskIndex {
+        int of(int taskIndex);
+    }
+
+    /**
+     * Decodes the bytecode from the current position of the buffer up to, and including, the {@code END} bytecode.
+     *
+     * @param bytecode
+     *     The bytecode, positioned after the {@code BEGIN} bytecode.
+     * @param localTaskIndex
+     *     The mapping from global to local task indices.
+     * @return The decoded instructions.
+     */
+    static TornadoVMInstruction[] decode(TornadoVMBytecodeResult bytecode, LocalTaskIndex localTaskIndex) {
+        List<TornadoVMInstruction> program = new ArrayList<>();
+        while (bytecode.hasRemaining()) {
+            final byte op = bytecode.get();
+            if (op == TornadoVMBytecodes.ALLOC.value()) {
+                final int argSize = bytecode.getInt();
+                final int[] args = new int[argSize];
+                final long[] sizeBatches = new long[argSize];
+                for (int i = 0; i < argSize; i++) {
+                    args[i] = bytecode.getInt();
+                    sizeBatches[i] = bytecode.getLong();
+                }
+                program.add(new Alloc(args, sizeBatches));
+            } else if (op == TornadoVMBytecodes.DEALLOC.value()) {
+                program.add(new DeAlloc(bytecode.getInt()));
+            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ONCE.value()) {
+                program.add(new TransferHostToDeviceOnce(bytecode.getInt(), bytecode.getInt(), bytecode.getLong(), bytecode.getLong()));
+            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()) {
+                program.add(new TransferHostToDeviceAlways(bytecode.getInt(), bytecode.getInt(), bytecode.getLong(), bytecode.getLong()));
+            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
+                program.add(new TransferDeviceToHostAlways(bytecode.getInt(), bytecode.getInt(), bytecode.getLong(), bytecode.getLong()));
+            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
+                program.add(new TransferDeviceToHostAlwaysBlocking(bytecode.getInt(), bytecode.getInt(), bytecode.getLong(), bytecode.getLong()));
+            } else if (op == TornadoVMBytecodes.LAUNCH.value()) {
+                final int callWrapperIndex = bytecode.getInt();
+                final int taskIndex = bytecode.getInt();
+                final int numArgs = bytecode.getInt();
+                final int eventId = bytecode.getInt();
+                final long offset = bytecode.getLong();
+                final long batchThreads = bytecode.getLong();
+                final byte[] argTypes = new byte[numArgs];
+                final int[] argIndices = new int[numArgs];
+                for (int i = 0; i < numArgs; i++) {
+                    argTypes[i] = bytecode.get();
+                    argIndices[i] = bytecode.getInt();
+                }
+                program.add(new Launch(callWrapperIndex, taskIndex, localTaskIndex.of(taskIndex), eventId, offset, batchThreads, argTypes, argIndices));
+            } else if (op == TornadoVMBytecodes.ADD_DEPENDENCY.value()) {
+                program.add(new AddDependency(bytecode.getInt()));
+            } else if (op == TornadoVMBytecodes.ON_DEVICE.value()) {
+                program.add(new OnDevice(bytecode.getInt(), bytecode.getInt()));
+            } else if (op == TornadoVMBytecodes.PERSIST.value()) {
+                program.add(new Persist(bytecode.getInt(), bytecode.getInt()));
+            } else if (op == TornadoVMBytecodes.BARRIER.value()) {
+                program.add(new Barrier(bytecode.getInt()));
+            } else if (op == TornadoVMBytecodes.END.value()) {
+                program.add(new End());
+                break;
+            } else {
+                throw new TornadoRuntimeException(String.format("[ERROR] TornadoVM Bytecode not recognized: 0x%x", op));
+            }
+        }
+        return program.toArray(new TornadoVMInstruction[0]);
+    }
+}
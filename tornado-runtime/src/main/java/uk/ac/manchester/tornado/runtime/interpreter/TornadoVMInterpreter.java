@@ -2,7 +2,7 @@
  * This file is part of Tornado: A heterogeneous programming framework:
  * https://github.com/beehive-lab/tornadovm
  *
- * Copyright (c) 2023, APT Group, Department of Computer Science,
+ * Copyright (c) 2023, 2024, APT Group, Department of Computer Science,
  * The University of Manchester. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
@@ -33,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import uk.ac.manchester.tornado.api.GridScheduler;
 import uk.ac.manchester.tornado.api.KernelContext;
@@ -50,10 +51,15 @@ import uk.ac.manchester.tornado.api.exceptions.TornadoMemoryException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.memory.XPUBuffer;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.runtime.TaskContextInterface;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
 import uk.ac.manchester.tornado.runtime.EmptyEvent;
+import uk.ac.manchester.tornado.runtime.autotuning.LocalWorkAutoTuner;
 import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
+import uk.ac.manchester.tornado.runtime.common.DeviceBufferVersions;
 import uk.ac.manchester.tornado.runtime.common.KernelStackFrame;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -64,7 +70,11 @@ import uk.ac.manchester.tornado.runtime.common.XPUDeviceBufferState;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeResult;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodes;
+import uk.ac.manchester.tornado.runtime.metrics.LatencyHistogram;
+import uk.ac.manchester.tornado.runtime.metrics.MetricsRegistry;
 import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
+import uk.ac.manchester.tornado.runtime.profiler.TracingProfiler;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.DataObjectState;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskDataContext;
@@ -89,14 +99,22 @@ public class TornadoVMInterpreter {
     private final KernelStackFrame[] kernelStackFrame;
     private final int[][] events;
     private final int[] eventsIndexes;
+    private final int[] eventsHighWaterMarks;
     private final TornadoXPUDevice interpreterDevice;
     private final TornadoInstalledCode[] installedCodes;
 
+    /**
+     * Number of batch threads for which each installed code was compiled. The
+     * tasks are shared by all the interpreters of the task-graph, so the batch
+     * threads of the task are those of the last compilation on any of them.
+     */
+    private final long[] compiledBatchThreads;
+
     private final List<Object> constants;
     private final List<SchedulableTask> taskExecutionContexts;
     private final List<SchedulableTask> localTaskList;
     private final TornadoExecutionContext graphExecutionContext;
-    private final TornadoVMBytecodeResult bytecodeResult;
+    private final TornadoVMInstruction[] program;
     private TornadoProfiler timeProfiler;
     private double totalTime;
     private long invocations;
@@ -107,6 +125,59 @@ public class TornadoVMInterpreter {
     private HashMap<Object, Integer> currentBatchNumberPerObject = new HashMap<>();
     private HashMap<Object, Integer> totalEvenBatchesPerObject = new HashMap<>();
 
+    /**
+     * Pipelined batch processing: number of batches in flight, device buffer
+     * states of each slot (slot 0 uses the global state of each object), the
+     * slot of the batch being launched and the number of copy-outs per object.
+     */
+    private BatchConfiguration batchConfiguration;
+    private int batchChunksInFlight = 1;
+    private XPUDeviceBufferState[][] pipelineObjectStates;
+    private int pipelineSlot;
+    private int pipelineChunks;
+    private int[] pipelineCopyOuts;
+
+    /**
+     * Persistence flag of each object, refreshed when the version of the
+     * persisted objects in the execution context changes.
+     */
+    private final boolean[] persistentObjects;
+    private int persistedObjectsVersion = -1;
+
+    private final HashMap<Integer, Integer> threadDeploy = new HashMap<>();
+
+    /**
+     * Timeline trace and metrics: the tracer of the current execution
+     * ({@code null} when the timeline is not traced), the names of the
+     * bytecodes, and the device events enqueued by the current execution. The
+     * device events are resolved at the end of the execution, so neither the
+     * trace nor the metrics serialise the commands.
+     */
+    private TimelineTracer tracer;
+    private String[] traceNames;
+    private final String hostTrack;
+    private final String deviceTrack;
+    private boolean isDeferringEvents;
+    private int[] deferredEvents = new int[16];
+    private TornadoVMBytecodes[] deferredEventBytecodes = new TornadoVMBytecodes[16];
+    private Object[] deferredEventSources = new Object[16];
+    private long[] deferredEventBytes = new long[16];
+    private long[] deferredEventHostTimes = new long[16];
+    private int numDeferredEvents;
+
+    private final boolean isMetricsEnabled;
+    private final HashMap<String, LatencyHistogram> kernelLatencies = new HashMap<>();
+    private final HashMap<String, LatencyHistogram> compileLatencies = new HashMap<>();
+    private LatencyHistogram copyInLatency;
+    private LatencyHistogram copyOutLatency;
+    private LongAdder copyInBytes;
+    private LongAdder copyOutBytes;
+    private LongAdder copyInSkipped;
+    private LongAdder copyInSkippedBytes;
+    private LongAdder compilations;
+
+    private LocalWorkAutoTuner autoTuner;
+
     private TornadoLogger logger = new TornadoLogger(this.getClass());
 
     /**
@@ -124,7 +195,6 @@ public class TornadoVMInterpreter {
     public TornadoVMInterpreter(TornadoExecutionContext graphExecutionContext, TornadoVMBytecodeResult bytecodeResult, TornadoProfiler timeProfiler, TornadoXPUDevice device) {
         this.graphExecutionContext = graphExecutionContext;
         this.timeProfiler = timeProfiler;
-        this.bytecodeResult = bytecodeResult;
 
         assert device != null;
         this.interpreterDevice = device;
@@ -135,15 +205,17 @@ public class TornadoVMInterpreter {
 
         logger.debug("init an instance of a TornadoVM interpreter...");
 
-        this.bytecodeResult.getLong(); // Skips bytes not needed
+        bytecodeResult.getLong(); // Skips bytes not needed
 
         kernelStackFrame = graphExecutionContext.getKernelStackFrame();
-        events = new int[this.bytecodeResult.getInt()][MAX_EVENTS];
+        events = new int[bytecodeResult.getInt()][MAX_EVENTS];
         eventsIndexes = new int[events.length];
+        eventsHighWaterMarks = new int[events.length];
 
         localTaskList = graphExecutionContext.getTasksForDevice(interpreterDevice.getDeviceContext());
 
         installedCodes = new TornadoInstalledCode[localTaskList.size()];
+        compiledBatchThreads = new long[localTaskList.size()];
 
         for (int i = 0; i < events.length; i++) {
             Arrays.fill(events[i], -1);
@@ -156,27 +228,40 @@ public class TornadoVMInterpreter {
         objects = graphExecutionContext.getObjects();
         initBatchDataStructures(graphExecutionContext);
         dataObjectStates = new DataObjectState[objects.size()];
+        persistentObjects = new boolean[objects.size()];
         fetchGlobalStates();
 
-        rewindBufferToBegin();
-
         constants = graphExecutionContext.getConstants();
         taskExecutionContexts = graphExecutionContext.getTasks();
 
-        logger.debug("interpreter for device %s is ready to go", device.toString());
+        rewindBufferToBegin(bytecodeResult);
+        program = TornadoVMInstruction.decode(bytecodeResult, this::globalToLocalTaskIndex);
+        logger.debug("decoded %d bytecodes", program.length);
 
-        this.bytecodeResult.mark();
+        hostTrack = "TornadoVM interpreter " + device.getDeviceName();
+        deviceTrack = device.getDeviceName();
+        isMetricsEnabled = MetricsRegistry.isEnabled();
+        if (isMetricsEnabled) {
+            initMetrics();
+        }
+
+        logger.debug("interpreter for device %s is ready to go", device.toString());
     }
 
     private void initBatchDataStructures(TornadoExecutionContext context) {
         long batchSize = context.getBatchSize();
-        if (batchSize != -1) {
-            BatchConfiguration batchConfiguration = BatchConfiguration.computeChunkSizes(context, batchSize);
+        if (batchSize != -1 || context.hasIterationRange()) {
+            batchConfiguration = BatchConfiguration.computeChunkSizes(context, batchSize);
             int totalChunks = batchConfiguration.getTotalChunks();
             for (Object object : objects) {
                 totalEvenBatchesPerObject.put(object, totalChunks);
                 currentBatchNumberPerObject.put(object, 0);
             }
+            batchChunksInFlight = batchConfiguration.getChunksInFlight(context.getBatchChunksInFlight());
+            if (isPipelinedBatch()) {
+                pipelineObjectStates = new XPUDeviceBufferState[batchChunksInFlight][objects.size()];
+                pipelineCopyOuts = new int[objects.size()];
+            }
         }
     }
 
@@ -193,7 +278,7 @@ public class TornadoVMInterpreter {
         }
     }
 
-    private void rewindBufferToBegin() {
+    private void rewindBufferToBegin(TornadoVMBytecodeResult bytecodeResult) {
         byte op = bytecodeResult.get();
         while (op != TornadoVMBytecodes.BEGIN.value()) {
             TornadoInternalError.guarantee(op == TornadoVMBytecodes.CONTEXT.value(), "invalid code: 0x%x", op);
@@ -273,6 +358,7 @@ public class TornadoVMInterpreter {
         final long t0 = System.nanoTime();
         int lastEvent = -1;
         initWaitEventList();
+        initPipelineCounters();
 
         StringBuilder logBuilder = null;
         if (TornadoOptions.LOG_BYTECODES() && !isWarmup) {
@@ -281,112 +367,57 @@ public class TornadoVMInterpreter {
                     " Running in thread: ")).append(Thread.currentThread().getName()).append("\n");
         }
 
-        while (bytecodeResult.hasRemaining()) {
-            final byte op = bytecodeResult.get();
-            if (op == TornadoVMBytecodes.ALLOC.value()) {
-                final long sizeBatch = bytecodeResult.getLong();
-                final int argSize = bytecodeResult.getInt();
-                final int[] args = new int[argSize];
-                for (int i = 0; i < argSize; i++) {
-                    args[i] = bytecodeResult.getInt();
-                }
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeAlloc(logBuilder, args, sizeBatch);
-            } else if (op == TornadoVMBytecodes.DEALLOC.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeDeAlloc(logBuilder, objectIndex);
-            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ONCE.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies && eventId != -1) ? events[eventId] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferHostToDeviceOnce(logBuilder, objectIndex, offset, eventId, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ALWAYS.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies && eventId != -1) ? events[eventId] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferHostToDeviceAlways(logBuilder, objectIndex, offset, eventId, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies) ? events[eventId] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = transferDeviceToHost(logBuilder, objectIndex, offset, eventId, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long sizeBatch = bytecodeResult.getLong();
-                final int[] waitList = (useDependencies) ? events[eventId] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                transferDeviceToHostBlocking(logBuilder, objectIndex, offset, eventId, sizeBatch, waitList);
-            } else if (op == TornadoVMBytecodes.LAUNCH.value()) {
-                final int callWrapperIndex = bytecodeResult.getInt();
-                final int taskIndex = bytecodeResult.getInt();
-                final int numArgs = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                final long offset = bytecodeResult.getLong();
-                final long batchThreads = bytecodeResult.getLong();
-                XPUExecutionFrame executionFrame = compileTaskFromBytecodeToBinary(callWrapperIndex, numArgs, eventId, taskIndex, batchThreads);
-                if (isWarmup) {
-                    popArgumentsFromCall(numArgs);
-                    continue;
-                }
-                lastEvent = executeLaunch(logBuilder, numArgs, eventId, taskIndex, batchThreads, offset, executionFrame);
-            } else if (op == TornadoVMBytecodes.ADD_DEPENDENCY.value()) {
-                final int eventList = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                executeDependency(logBuilder, lastEvent, eventList);
-            } else if (op == TornadoVMBytecodes.ON_DEVICE.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeOnDevice(logBuilder, objectIndex, eventId);
-            } else if (op == TornadoVMBytecodes.PERSIST.value()) {
-                final int objectIndex = bytecodeResult.getInt();
-                final int eventId = bytecodeResult.getInt();
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executePersist(logBuilder, objectIndex, eventId);
-            } else if (op == TornadoVMBytecodes.BARRIER.value()) {
-                final int eventId = bytecodeResult.getInt();
-                final int[] waitList = (useDependencies && eventId != -1) ? events[eventId] : null;
-                if (isWarmup) {
-                    continue;
-                }
-                lastEvent = executeBarrier(logBuilder, eventId, waitList);
-            } else if (op == TornadoVMBytecodes.END.value()) {
+        updatePersistentObjects();
+
+        tracer = isWarmup ? null : graphExecutionContext.getTimelineTracer();
+        if (!isWarmup) {
+            updateAutoTuner();
+        }
+        isDeferringEvents = !isWarmup && (tracer != null || isMetricsEnabled);
+        numDeferredEvents = 0;
+        long traceStart = 0;
+
+        for (int pc = 0; pc < program.length; pc++) {
+            final TornadoVMInstruction instruction = program[pc];
+            if (instruction instanceof TornadoVMInstruction.End) {
                 if (!isWarmup && TornadoOptions.LOG_BYTECODES()) {
                     logBuilder.append("bc: ").append(InterpreterUtilities.debugHighLightBC("END\n")).append("\n");
                 }
                 break;
-            } else {
-                throwErrorInterpreter(op);
+            }
+            if (isWarmup) {
+                // Warmup only compiles the tasks
+                if (instruction instanceof TornadoVMInstruction.Launch launch) {
+                    compileTaskFromBytecodeToBinary(launch);
+                }
+                continue;
+            }
+            if (tracer != null) {
+                traceStart = System.nanoTime();
+            }
+            switch (instruction) {
+                case TornadoVMInstruction.Alloc alloc -> lastEvent = isBatchEnabled() ? executeBatchAlloc(logBuilder, alloc.args, alloc.sizeBatches) : executeAlloc(logBuilder, alloc);
+                case TornadoVMInstruction.DeAlloc deAlloc -> lastEvent = executeDeAlloc(logBuilder, deAlloc.objectIndex());
+                case TornadoVMInstruction.TransferHostToDeviceOnce transfer -> transferHostToDeviceOnce(logBuilder, transfer.objectIndex(), transfer.offset(), transfer.eventId(), transfer.sizeBatch(),
+                        resolveWaitList(transfer.eventId()));
+                case TornadoVMInstruction.TransferHostToDeviceAlways transfer -> transferHostToDeviceAlways(logBuilder, transfer.objectIndex(), transfer.offset(), transfer.eventId(), transfer
+                        .sizeBatch(), resolveWaitList(transfer.eventId()));
+                case TornadoVMInstruction.TransferDeviceToHostAlways transfer -> lastEvent = transferDeviceToHost(logBuilder, transfer.objectIndex(), transfer.offset(), transfer.eventId(), transfer
+                        .sizeBatch(), useDependencies ? events[transfer.eventId()] : null);
+                case TornadoVMInstruction.TransferDeviceToHostAlwaysBlocking transfer -> transferDeviceToHostBlocking(logBuilder, transfer.objectIndex(), transfer.offset(), transfer.eventId(),
+                        transfer.sizeBatch(), useDependencies ? events[transfer.eventId()] : null);
+                case TornadoVMInstruction.Launch launch -> {
+                    KernelStackFrame stackFrame = compileTaskFromBytecodeToBinary(launch);
+                    lastEvent = executeLaunch(logBuilder, launch, stackFrame);
+                }
+                case TornadoVMInstruction.AddDependency dependency -> executeDependency(logBuilder, lastEvent, dependency.eventList());
+                case TornadoVMInstruction.OnDevice onDevice -> lastEvent = executeOnDevice(logBuilder, onDevice.objectIndex(), onDevice.eventId());
+                case TornadoVMInstruction.Persist persist -> lastEvent = executePersist(logBuilder, persist.objectIndex(), persist.eventId());
+                case TornadoVMInstruction.Barrier barrier -> lastEvent = executeBarrier(logBuilder, barrier.eventId(), resolveWaitList(barrier.eventId()));
+                case TornadoVMInstruction.End end -> throw new TornadoRuntimeException("[ERROR] END bytecode must finish the dispatch loop");
+            }
+            if (tracer != null) {
+                tracer.record(traceNameOf(pc), TimelineTracer.CATEGORY_BYTECODE, hostTrack, traceStart, System.nanoTime());
             }
         }
 
@@ -400,6 +431,14 @@ public class TornadoVMInterpreter {
             if (TornadoOptions.USE_VM_FLUSH) {
                 interpreterDevice.flush(graphExecutionContext.getExecutionPlanId());
             }
+
+            if (isDeferringEvents) {
+                resolveDeferredEvents();
+            }
+
+            if (autoTuner != null) {
+                autoTuner.endExecution();
+            }
         }
 
         final long t1 = System.nanoTime();
@@ -413,8 +452,6 @@ public class TornadoVMInterpreter {
             logger.debug("bc: complete elapsed=%.9f s (%d iterations, %.9f s mean)", elapsed, invocations, (totalTime / invocations));
         }
 
-        bytecodeResult.reset();
-
         if (TornadoOptions.PRINT_BYTECODES) {
             System.out.println(logBuilder);
         }
@@ -426,9 +463,221 @@ public class TornadoVMInterpreter {
         return barrier;
     }
 
+    /**
+     * Clears the wait lists. Only the entries written by the previous execution,
+     * tracked with a high-water mark per list, need to be cleared.
+     */
     private void initWaitEventList() {
-        for (int[] waitList : events) {
-            Arrays.fill(waitList, -1);
+        for (int i = 0; i < events.length; i++) {
+            if (eventsHighWaterMarks[i] > 0) {
+                Arrays.fill(events[i], 0, eventsHighWaterMarks[i], -1);
+                eventsHighWaterMarks[i] = 0;
+            }
+        }
+    }
+
+    private int[] resolveWaitList(int eventId) {
+        return (useDependencies && eventId != -1) ? events[eventId] : null;
+    }
+
+    private String traceNameOf(int pc) {
+        if (traceNames == null) {
+            traceNames = new String[program.length];
+        }
+        if (traceNames[pc] == null) {
+            traceNames[pc] = switch (program[pc]) {
+                case TornadoVMInstruction.Alloc alloc -> TornadoVMBytecodes.ALLOC.name() + " (" + alloc.args.length + " objects)";
+                case TornadoVMInstruction.DeAlloc deAlloc -> traceName(TornadoVMBytecodes.DEALLOC, objects.get(deAlloc.objectIndex()));
+                case TornadoVMInstruction.TransferHostToDeviceOnce transfer -> traceName(TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ONCE, objects.get(transfer.objectIndex()));
+                case TornadoVMInstruction.TransferHostToDeviceAlways transfer -> traceName(TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ALWAYS, objects.get(transfer.objectIndex()));
+                case TornadoVMInstruction.TransferDeviceToHostAlways transfer -> traceName(TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS, objects.get(transfer.objectIndex()));
+                case TornadoVMInstruction.TransferDeviceToHostAlwaysBlocking transfer -> traceName(TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING, objects.get(transfer
+                        .objectIndex()));
+                case TornadoVMInstruction.Launch launch -> TornadoVMBytecodes.LAUNCH.name() + " " + taskExecutionContexts.get(launch.taskIndex()).getId();
+                case TornadoVMInstruction.AddDependency dependency -> TornadoVMBytecodes.ADD_DEPENDENCY.name();
+                case TornadoVMInstruction.OnDevice onDevice -> traceName(TornadoVMBytecodes.ON_DEVICE, objects.get(onDevice.objectIndex()));
+                case TornadoVMInstruction.Persist persist -> traceName(TornadoVMBytecodes.PERSIST, objects.get(persist.objectIndex()));
+                case TornadoVMInstruction.Barrier barrier -> TornadoVMBytecodes.BARRIER.name();
+                case TornadoVMInstruction.End end -> TornadoVMBytecodes.END.name();
+            };
+        }
+        return traceNames[pc];
+    }
+
+    private static String traceName(TornadoVMBytecodes bytecode, Object object) {
+        return bytecode.name() + " " + object.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(object));
+    }
+
+    private static long transferSize(XPUDeviceBufferState objectState, long sizeBatch) {
+        return sizeBatch > 0 ? sizeBatch : objectState.getXPUBuffer().size();
+    }
+
+    private void initMetrics() {
+        final MetricsRegistry registry = MetricsRegistry.getInstance();
+        final String deviceName = interpreterDevice.getDeviceName();
+        registry.registerDevice(interpreterDevice);
+        copyInLatency = registry.histogram(MetricsRegistry.COPY_IN_LATENCY, null, deviceName);
+        copyOutLatency = registry.histogram(MetricsRegistry.COPY_OUT_LATENCY, null, deviceName);
+        copyInBytes = registry.counter(MetricsRegistry.COPY_IN_BYTES, null, deviceName);
+        copyOutBytes = registry.counter(MetricsRegistry.COPY_OUT_BYTES, null, deviceName);
+        copyInSkipped = registry.counter(MetricsRegistry.COPY_IN_SKIPPED, null, deviceName);
+        copyInSkippedBytes = registry.counter(MetricsRegistry.COPY_IN_SKIPPED_BYTES, null, deviceName);
+        compilations = registry.counter(MetricsRegistry.COMPILATIONS, null, deviceName);
+    }
+
+    private LatencyHistogram kernelLatencyOf(String taskName) {
+        LatencyHistogram histogram = kernelLatencies.get(taskName);
+        if (histogram == null) {
+            histogram = MetricsRegistry.getInstance().histogram(MetricsRegistry.KERNEL_LATENCY, taskName, interpreterDevice.getDeviceName());
+            kernelLatencies.put(taskName, histogram);
+        }
+        return histogram;
+    }
+
+    private LatencyHistogram compileLatencyOf(String taskName) {
+        LatencyHistogram histogram = compileLatencies.get(taskName);
+        if (histogram == null) {
+            histogram = MetricsRegistry.getInstance().histogram(MetricsRegistry.COMPILE_LATENCY, taskName, interpreterDevice.getDeviceName());
+            compileLatencies.put(taskName, histogram);
+        }
+        return histogram;
+    }
+
+    private void updateAutoTuner() {
+        final int autoTuningIterations = graphExecutionContext.getAutoTuningIterations();
+        if (autoTuningIterations > 0 && !isBatchEnabled()) {
+            if (autoTuner == null) {
+                autoTuner = new LocalWorkAutoTuner(interpreterDevice, autoTuningIterations);
+            } else {
+                autoTuner.setIterations(autoTuningIterations);
+            }
+        } else if (autoTuner != null) {
+            autoTuner.restoreDefaults();
+            autoTuner = null;
+        }
+    }
+
+    /**
+     * Records the kernel time of a launch for the autotuning. The host time of
+     * the launch is used when the device does not provide the kernel time.
+     */
+    private void recordAutoTuning(TaskDataContext dataContext, int lastEvent, long launchStart) {
+        long elapsedTime = 0;
+        if (lastEvent != -1) {
+            final Event event = interpreterDevice.resolveEvent(graphExecutionContext.getExecutionPlanId(), lastEvent);
+            event.waitForEvents(graphExecutionContext.getExecutionPlanId());
+            elapsedTime = event.getElapsedTime();
+        }
+        autoTuner.record(dataContext, elapsedTime > 0 ? elapsedTime : System.nanoTime() - launchStart);
+    }
+
+    private void deferDeviceEvents(List<Integer> allEvents, TornadoVMBytecodes bytecode, Object source, long bytes) {
+        if (allEvents != null) {
+            for (Integer event : allEvents) {
+                deferDeviceEvent(event, bytecode, source, bytes);
+            }
+        }
+    }
+
+    /**
+     * Keeps a device event to resolve it at the end of the execution.
+     *
+     * @param source
+     *     The object of a transfer, or the name of the task of a launch.
+     */
+    private void deferDeviceEvent(int event, TornadoVMBytecodes bytecode, Object source, long bytes) {
+        if (event == -1) {
+            return;
+        }
+        if (numDeferredEvents == deferredEvents.length) {
+            final int capacity = deferredEvents.length * 2;
+            deferredEvents = Arrays.copyOf(deferredEvents, capacity);
+            deferredEventBytecodes = Arrays.copyOf(deferredEventBytecodes, capacity);
+            deferredEventSources = Arrays.copyOf(deferredEventSources, capacity);
+            deferredEventBytes = Arrays.copyOf(deferredEventBytes, capacity);
+            deferredEventHostTimes = Arrays.copyOf(deferredEventHostTimes, capacity);
+        }
+        deferredEvents[numDeferredEvents] = event;
+        deferredEventBytecodes[numDeferredEvents] = bytecode;
+        deferredEventSources[numDeferredEvents] = source;
+        deferredEventBytes[numDeferredEvents] = bytes;
+        deferredEventHostTimes[numDeferredEvents] = System.nanoTime();
+        numDeferredEvents++;
+    }
+
+    /**
+     * Resolves the device events of the execution, and records them in the
+     * timeline and in the metrics. The timestamps of the events use the clock of
+     * the device, so they are shifted to the host clock with the time at which
+     * the first event was enqueued.
+     */
+    private void resolveDeferredEvents() {
+        final long executionPlanId = graphExecutionContext.getExecutionPlanId();
+        boolean isAligned = false;
+        long offset = 0;
+        for (int i = 0; i < numDeferredEvents; i++) {
+            final Event event = interpreterDevice.resolveEvent(executionPlanId, deferredEvents[i]);
+            event.waitForEvents(executionPlanId);
+            if (event.getStatus() != COMPLETE) {
+                continue;
+            }
+            final TornadoVMBytecodes bytecode = deferredEventBytecodes[i];
+            if (tracer != null) {
+                final long queued = event.getQueuedTime();
+                final long submit = event.getSubmitTime();
+                final long start = event.getStartTime();
+                if (!isAligned) {
+                    offset = deferredEventHostTimes[i] - (queued > 0 ? queued : start);
+                    isAligned = true;
+                }
+                final String name = switch (deferredEventSources[i]) {
+                    case null -> bytecode.name();
+                    case String taskName -> bytecode.name() + " " + taskName;
+                    default -> traceName(bytecode, deferredEventSources[i]);
+                };
+                tracer.record(name, TimelineTracer.CATEGORY_DEVICE, deviceTrack, //
+                        queued > 0 ? queued + offset : TimelineTracer.NOT_AVAILABLE, //
+                        submit > 0 ? submit + offset : TimelineTracer.NOT_AVAILABLE, //
+                        start + offset, event.getEndTime() + offset, deferredEventBytes[i]);
+            }
+            if (isMetricsEnabled) {
+                recordMetrics(bytecode, deferredEventSources[i], deferredEventBytes[i], event.getElapsedTime());
+            }
+        }
+        Arrays.fill(deferredEventSources, 0, numDeferredEvents, null);
+        numDeferredEvents = 0;
+    }
+
+    private void recordMetrics(TornadoVMBytecodes bytecode, Object source, long bytes, long elapsedTime) {
+        switch (bytecode) {
+            case LAUNCH -> kernelLatencyOf((String) source).record(elapsedTime);
+            case TRANSFER_HOST_TO_DEVICE_ONCE, TRANSFER_HOST_TO_DEVICE_ALWAYS -> {
+                copyInLatency.record(elapsedTime);
+                copyInBytes.add(bytes);
+            }
+            case TRANSFER_DEVICE_TO_HOST_ALWAYS, TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING -> {
+                copyOutLatency.record(elapsedTime);
+                copyOutBytes.add(bytes);
+            }
+            default -> {
+                // Barriers are only traced
+            }
+        }
+    }
+
+    private boolean isBatchEnabled() {
+        return batchConfiguration != null;
+    }
+
+    private boolean isPipelinedBatch() {
+        return batchChunksInFlight > 1;
+    }
+
+    private void initPipelineCounters() {
+        pipelineSlot = 0;
+        pipelineChunks = 0;
+        if (isPipelinedBatch()) {
+            Arrays.fill(pipelineCopyOuts, 0);
         }
     }
 
@@ -448,57 +697,81 @@ public class TornadoVMInterpreter {
     }
 
     /**
-     * Counts and classifies objects in the args array by determining which objects are persistent
-     * and which need to be allocated.
+     * Refreshes the persistence flag of each object if an object has been
+     * persisted since the last execution.
+     */
+    private void updatePersistentObjects() {
+        final int version = graphExecutionContext.getPersistedObjectsVersion();
+        if (version != persistedObjectsVersion) {
+            for (int i = 0; i < persistentObjects.length; i++) {
+                persistentObjects[i] = isPersistentObject(objects.get(i));
+            }
+            persistedObjectsVersion = version;
+        }
+    }
+
+    /**
+     * Splits the objects of an allocation into the objects to allocate and the
+     * objects persisted by another task-graph. The result is kept in the
+     * instruction until the persisted objects change.
      *
-     * @param args
-     *     Array of object indices to process from the object store
-     * @return Information about objects to allocate including counts of persistent and non-persistent objects
+     * @param alloc
+     *     The allocation instruction.
      */
-    private ObjectAllocationInfo countAndClassifyObjects(int[] args) {
-        // Count only persistent objects that are actually in the current args array
+    private void classifyObjects(TornadoVMInstruction.Alloc alloc) {
+        if (alloc.persistedObjectsVersion == persistedObjectsVersion) {
+            return;
+        }
+        final int[] args = alloc.args;
         int persistentObjectsInArgs = 0;
         for (int arg : args) {
-            Object dataObject = this.objects.get(arg);
-            if (isPersistentObject(dataObject)) {
+            if (persistentObjects[arg]) {
                 persistentObjectsInArgs++;
             }
         }
-
-        // Calculate allocation based on non-persistent objects in args
-        int objectsToAlloc = args.length - persistentObjectsInArgs;
-
-        return new ObjectAllocationInfo(persistentObjectsInArgs, objectsToAlloc);
+        final int objectsToAlloc = args.length - persistentObjectsInArgs;
+        alloc.argsToAlloc = new int[objectsToAlloc];
+        alloc.persistedArgs = new int[persistentObjectsInArgs];
+        alloc.objects = new Object[objectsToAlloc];
+        alloc.accesses = new Access[objectsToAlloc];
+        alloc.states = new XPUDeviceBufferState[objectsToAlloc];
+        int allocCounter = 0;
+        int persistedCounter = 0;
+        for (int arg : args) {
+            if (persistentObjects[arg]) {
+                alloc.persistedArgs[persistedCounter++] = arg;
+            } else {
+                alloc.argsToAlloc[allocCounter] = arg;
+                alloc.objects[allocCounter] = objects.get(arg);
+                alloc.accesses[allocCounter] = objectAccesses.get(alloc.objects[allocCounter]);
+                allocCounter++;
+            }
+        }
+        alloc.persistedObjectsVersion = persistedObjectsVersion;
     }
 
-    private int executeAlloc(StringBuilder logBuilder, int[] args, long sizeBatch) {
-        // Extract the counting and classification of objects into a separate method
-        ObjectAllocationInfo allocationInfo = countAndClassifyObjects(args);
+    private int executeAlloc(StringBuilder logBuilder, TornadoVMInstruction.Alloc alloc) {
+        classifyObjects(alloc);
 
-        Object[] objects = new Object[allocationInfo.objectsToAlloc];
-        Access[] accesses = new Access[allocationInfo.objectsToAlloc];
-        XPUDeviceBufferState[] objectStates = new XPUDeviceBufferState[allocationInfo.objectsToAlloc];
+        final Object[] objects = alloc.objects;
+        final Access[] accesses = alloc.accesses;
+        final XPUDeviceBufferState[] objectStates = alloc.states;
 
-        int allocCounter = 0;
+        // The device buffer states are resolved on every execution, because they
+        // change when the execution plan is moved to another device
+        for (int i = 0; i < objectStates.length; i++) {
+            objectStates[i] = resolveObjectState(alloc.argsToAlloc[i]);
+        }
         long preAllocatedSizes = 0L;
-
-        for (int arg : args) {
-            Object dataObject = this.objects.get(arg);
-            if (!isPersistentObject(dataObject)) {
-                objects[allocCounter] = this.objects.get(arg);
-                objectStates[allocCounter] = resolveObjectState(arg);
-                accesses[allocCounter] = this.objectAccesses.get(objects[allocCounter]);
-                allocCounter++;
-            } else {
-                XPUDeviceBufferState state = resolveObjectState(arg);
-                preAllocatedSizes += state.getXPUBuffer().size();
-            }
+        for (int arg : alloc.persistedArgs) {
+            preAllocatedSizes += resolveObjectState(arg).getXPUBuffer().size();
         }
 
+        BufferProviderStatistics statisticsBefore = TornadoOptions.isProfilerEnabled() ? interpreterDevice.getBufferProviderStatistics() : null;
+
         // total size of objects pre-allocated and current allocation
-        long allocationSize = interpreterDevice.allocateObjects(objects, sizeBatch, objectStates, accesses);
+        long allocationSize = interpreterDevice.allocateObjects(objects, 0, objectStates, accesses);
         long allocationsTotalSize = allocationSize + preAllocatedSizes;
-        increaseBatchNumber(sizeBatch);
 
         // Dump printing after object allocation, so the XPU-Buffer is created,
         // and we can query the size without having to use Java type analysis
@@ -508,7 +781,7 @@ public class TornadoVMInterpreter {
             for (XPUDeviceBufferState state : objectStates) {
                 long size = state.getXPUBuffer().size();
                 if (!state.isBufferReused()) {
-                    DebugInterpreter.logAllocObject(objects[objIndex], interpreterDevice, size, sizeBatch, logBuilder);
+                    DebugInterpreter.logAllocObject(objects[objIndex], interpreterDevice, size, 0, logBuilder);
                 }
                 objIndex++;
             }
@@ -522,16 +795,62 @@ public class TornadoVMInterpreter {
                 timeProfiler.addValueToMetric(ProfilerType.ALLOCATION_BYTES, TimeProfiler.NO_TASK_NAME, objectState.getXPUBuffer().size());
             }
         }
+        if (statisticsBefore != null) {
+            BufferProviderStatistics statistics = interpreterDevice.getBufferProviderStatistics();
+            timeProfiler.addValueToMetric(ProfilerType.BUFFER_NATIVE_ALLOCATIONS, TimeProfiler.NO_TASK_NAME, statistics.nativeAllocations() - statisticsBefore.nativeAllocations());
+            timeProfiler.addValueToMetric(ProfilerType.BUFFER_REUSED_ALLOCATIONS, TimeProfiler.NO_TASK_NAME, statistics.reusedAllocations() - statisticsBefore.reusedAllocations());
+            timeProfiler.setTimer(ProfilerType.BUFFER_FRAGMENTATION_BYTES, statistics.fragmentationBytes());
+        }
         return -1;
     }
 
-    private void increaseBatchNumber(long sizeBatch) {
-        if (sizeBatch != 0) {
-            for (Object object : objects) {
-                int previousBatch = currentBatchNumberPerObject.get(object);
-                currentBatchNumberPerObject.replace(object, previousBatch, ++previousBatch);
+    /**
+     * Allocation for batch processing. Each object is allocated with its own
+     * batch size, or whole if its batch size is 0. When batches are pipelined,
+     * each batch in flight uses the device buffers of its own slot. An object
+     * keeps its buffer between batches of the same size, and it releases it
+     * before allocating the buffer of a batch with a different size (e.g., the
+     * last batch).
+     */
+    private int executeBatchAlloc(StringBuilder logBuilder, int[] args, long[] sizeBatches) {
+        pipelineSlot = pipelineChunks++ % batchChunksInFlight;
+        long allocationSize = 0L;
+        boolean isBatch = false;
+        for (int i = 0; i < args.length; i++) {
+            final int arg = args[i];
+            final long sizeBatch = sizeBatches[i];
+            isBatch |= sizeBatch != 0;
+            if (persistentObjects[arg]) {
+                continue;
+            }
+            Object object = objects.get(arg);
+            XPUDeviceBufferState objectState = resolveObjectState(arg, pipelineSlot);
+            if (objectState.hasObjectBuffer()) {
+                if (objectState.isLockedBuffer() || sizeBatch == 0 || objectState.getXPUBuffer().size() == sizeBatch) {
+                    objectState.markBufferAsReused();
+                    continue;
+                }
+                long spaceDeallocated = interpreterDevice.deallocate(objectState);
+                graphExecutionContext.setCurrentDeviceMemoryUsage(graphExecutionContext.getCurrentDeviceMemoryUsage() - spaceDeallocated);
+            }
+            long size = interpreterDevice.allocate(object, sizeBatch, objectState, objectAccesses.get(object));
+            allocationSize += size;
+            if (TornadoOptions.LOG_BYTECODES()) {
+                DebugInterpreter.logAllocObject(object, interpreterDevice, size, sizeBatch, logBuilder);
+            }
+            if (TornadoOptions.isProfilerEnabled()) {
+                timeProfiler.addValueToMetric(ProfilerType.ALLOCATION_BYTES, TimeProfiler.NO_TASK_NAME, size);
             }
         }
+        if (isBatch) {
+            increaseBatchNumber();
+        }
+        graphExecutionContext.setCurrentDeviceMemoryUsage(graphExecutionContext.getCurrentDeviceMemoryUsage() + allocationSize);
+        return -1;
+    }
+
+    private void increaseBatchNumber() {
+        currentBatchNumberPerObject.replaceAll((object, batchNumber) -> batchNumber + 1);
     }
 
     private int executeDeAlloc(StringBuilder tornadoVMBytecodeList, final int objectIndex) {
@@ -546,8 +865,15 @@ public class TornadoVMInterpreter {
             }
         }
 
+        long spaceDeallocated = 0L;
+        for (int slot = 1; slot < batchChunksInFlight && batchConfiguration.isBatched(objectIndex); slot++) {
+            XPUDeviceBufferState slotState = resolveObjectState(objectIndex, slot);
+            if (slotState.hasObjectBuffer()) {
+                spaceDeallocated += interpreterDevice.deallocate(slotState);
+            }
+        }
         final XPUDeviceBufferState objectState = resolveObjectState(objectIndex);
-        long spaceDeallocated = interpreterDevice.deallocate(objectState);
+        spaceDeallocated += interpreterDevice.deallocate(objectState);
         // Update current device area use
         if (TornadoOptions.LOG_BYTECODES() && isNotObjectAtomic(object)) {
             boolean materializeDealloc = spaceDeallocated != 0;
@@ -582,7 +908,7 @@ public class TornadoVMInterpreter {
             return;
         }
 
-        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex);
+        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex, pipelineSlot);
 
         // We need to stream-in when using batches, because the whole data is not copied
         List<Integer> allEvents;
@@ -593,6 +919,10 @@ public class TornadoVMInterpreter {
         }
         resetEventIndexes(eventId);
 
+        if (isDeferringEvents) {
+            deferDeviceEvents(allEvents, TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ONCE, object, transferSize(objectState, sizeBatch));
+        }
+
         if (TornadoOptions.LOG_BYTECODES() && isNotObjectAtomic(object)) {
             long sizeObject = objectState.getXPUBuffer().size();
             DebugInterpreter.logTransferToDeviceOnce(allEvents, object, interpreterDevice, sizeObject, sizeBatch, offset, eventId, logBuilder);
@@ -620,11 +950,27 @@ public class TornadoVMInterpreter {
             return;
         }
 
-        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex);
+        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex, pipelineSlot);
+
+        // Copies of a whole native array can be skipped if the device buffer already holds its current content
+        final boolean isVersionTracked = TornadoOptions.SKIP_UNMODIFIED_TRANSFERS && sizeBatch <= 0 && offset == 0 && object instanceof TornadoNativeArray;
+        final long version = isVersionTracked ? ((TornadoNativeArray) object).getModificationVersion() : 0;
+        if (isVersionTracked && objectState.hasContent() && DeviceBufferVersions.isUpToDate(objectState.getXPUBuffer(), version)) {
+            skipTransferHostToDevice(logBuilder, object, objectState, eventId);
+            return;
+        }
+
         List<Integer> allEvents = interpreterDevice.streamIn(graphExecutionContext.getExecutionPlanId(), object, sizeBatch, offset, objectState, eventWaitList);
+        if (isVersionTracked) {
+            DeviceBufferVersions.update(objectState.getXPUBuffer(), version);
+        }
 
         resetEventIndexes(eventId);
 
+        if (isDeferringEvents) {
+            deferDeviceEvents(allEvents, TornadoVMBytecodes.TRANSFER_HOST_TO_DEVICE_ALWAYS, object, transferSize(objectState, sizeBatch));
+        }
+
         if (TornadoOptions.LOG_BYTECODES() && isNotObjectAtomic(object)) {
             long sizeObject = objectState.getXPUBuffer().size();
             DebugInterpreter.logTransferToDeviceAlways(object, interpreterDevice, sizeObject, sizeBatch, offset, eventId, logBuilder);
@@ -647,6 +993,21 @@ public class TornadoVMInterpreter {
         }
     }
 
+    private void skipTransferHostToDevice(StringBuilder logBuilder, Object object, XPUDeviceBufferState objectState, final int eventId) {
+        resetEventIndexes(eventId);
+        final long sizeObject = objectState.getXPUBuffer().size();
+        if (TornadoOptions.LOG_BYTECODES()) {
+            DebugInterpreter.logTransferToDeviceSkipped(object, interpreterDevice, sizeObject, eventId, logBuilder);
+        }
+        if (TornadoOptions.isProfilerEnabled()) {
+            timeProfiler.addValueToMetric(ProfilerType.SKIPPED_COPY_IN_SIZE_BYTES, TimeProfiler.NO_TASK_NAME, sizeObject);
+        }
+        if (isMetricsEnabled) {
+            copyInSkipped.increment();
+            copyInSkippedBytes.add(sizeObject);
+        }
+    }
+
     private int transferDeviceToHost(StringBuilder logBuilder, final int objectIndex, final long offset, final int eventId, final long sizeBatch, final int[] eventWaitList) {
         Object object = objects.get(objectIndex);
 
@@ -654,16 +1015,21 @@ public class TornadoVMInterpreter {
             return 0;
         }
 
-        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex);
+        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex, nextCopyOutSlot(objectIndex));
         if (TornadoOptions.LOG_BYTECODES()) {
             long sizeObject = objectState.getXPUBuffer().size();
             DebugInterpreter.logTransferToHostAlways(object, interpreterDevice, sizeObject, sizeBatch, offset, eventId, logBuilder);
         }
 
         int readEvent = interpreterDevice.streamOutBlocking(graphExecutionContext.getExecutionPlanId(), object, offset, objectState, eventWaitList);
+        DeviceBufferVersions.updateFromDevice(object, objectState, offset == 0 && sizeBatch <= 0);
 
         resetEventIndexes(eventId);
 
+        if (isDeferringEvents) {
+            deferDeviceEvent(readEvent, TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS, object, transferSize(objectState, sizeBatch));
+        }
+
         if (TornadoOptions.isProfilerEnabled() && readEvent != -1) {
             Event event = interpreterDevice.resolveEvent(graphExecutionContext.getExecutionPlanId(), readEvent);
             event.waitForEvents(graphExecutionContext.getExecutionPlanId());
@@ -688,12 +1054,17 @@ public class TornadoVMInterpreter {
             return;
         }
 
-        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex);
+        final XPUDeviceBufferState objectState = resolveObjectState(objectIndex, nextCopyOutSlot(objectIndex));
         if (TornadoOptions.LOG_BYTECODES()) {
             long sizeOfObject = objectState.getXPUBuffer().size();
             DebugInterpreter.logTransferToHostAlwaysBlocking(object, interpreterDevice, logBuilder, sizeOfObject, sizeBatch, offset, eventId);
         }
         final int readEvent = interpreterDevice.streamOutBlocking(graphExecutionContext.getExecutionPlanId(), object, offset, objectState, eventWaitList);
+        DeviceBufferVersions.updateFromDevice(object, objectState, offset == 0 && sizeBatch <= 0);
+
+        if (isDeferringEvents) {
+            deferDeviceEvent(readEvent, TornadoVMBytecodes.TRANSFER_DEVICE_TO_HOST_ALWAYS_BLOCKING, object, transferSize(objectState, sizeBatch));
+        }
 
         if (TornadoOptions.isProfilerEnabled() && readEvent != -1) {
             Event event = interpreterDevice.resolveEvent(graphExecutionContext.getExecutionPlanId(), readEvent);
@@ -711,8 +1082,13 @@ public class TornadoVMInterpreter {
         resetEventIndexes(eventId);
     }
 
-    private boolean isRecompilationNeededForLastBatch(int taskIndex, SchedulableTask task, long batchThreads) {
-        return (!shouldCompile(installedCodes[globalToLocalTaskIndex(taskIndex)]) && task.getBatchThreads() != 0 && task.getBatchThreads() != batchThreads);
+    private boolean isRecompilationNeededForBatchThreads(int localTaskIndex, SchedulableTask task, long batchThreads) {
+        if (shouldCompile(installedCodes[localTaskIndex])) {
+            // The code cache of the device may hold the code compiled by another
+            // interpreter of the task-graph for other batch threads
+            return task.getBatchThreads() != batchThreads;
+        }
+        return compiledBatchThreads[localTaskIndex] != batchThreads;
     }
 
     private boolean currentBatchUsesThreadId(int currentBatch, boolean indexInWrite) {
@@ -722,6 +1098,9 @@ public class TornadoVMInterpreter {
     private void updateBatchThreads(SchedulableTask task, long batchThreads, boolean indexInWrite, int currentBatch) {
         // Set the batch size in the task information
         task.setBatchThreads(batchThreads);
+        if (isBatchEnabled() && task instanceof CompilableTask compilableTask) {
+            compilableTask.setBatchElementsPerThread(batchConfiguration.getElementsPerIteration());
+        }
 
         // The batch size is only set once. This is because, for the calculations of the
         // offset to be correct, we need to propagate the initial batch size, not the size
@@ -742,7 +1121,10 @@ public class TornadoVMInterpreter {
         meta.setCompilerFlags(TornadoVMBackendType.SPIRV, graphExecutionContext.meta().getCompilerFlags(TornadoVMBackendType.SPIRV));
     }
 
-    private XPUExecutionFrame compileTaskFromBytecodeToBinary(final int callWrapperIndex, final int numArgs, final int eventId, final int taskIndex, final long batchThreads) {
+    private KernelStackFrame compileTaskFromBytecodeToBinary(TornadoVMInstruction.Launch launch) {
+        final int taskIndex = launch.taskIndex();
+        final int localTaskIndex = launch.localTaskIndex();
+        final long batchThreads = launch.batchThreads();
 
         if (interpreterDevice.getDeviceContext().wasReset() && finishedWarmup) {
             throw new TornadoFailureException("[ERROR] reset() was called after warmup() on device: " + interpreterDevice + "!");
@@ -750,21 +1132,26 @@ public class TornadoVMInterpreter {
 
         boolean redeployOnDevice = graphExecutionContext.redeployOnDevice();
 
-        final KernelStackFrame kernelStackFrame = resolveCallWrapper(callWrapperIndex, numArgs, this.kernelStackFrame, interpreterDevice, redeployOnDevice);
+        final KernelStackFrame kernelStackFrame = resolveCallWrapper(launch.callWrapperIndex(), launch.numArgs(), this.kernelStackFrame, interpreterDevice, redeployOnDevice);
 
-        final int[] waitList = (useDependencies && eventId != -1) ? events[eventId] : null;
         final SchedulableTask task = taskExecutionContexts.get(taskIndex);
         int currentBatch = task.getBatchNumber();
         TaskContextInterface meta = task.meta();
         updateMeta(meta);
 
         boolean indexInWrite = interpreterDevice.loopIndexInWrite(task);
+        if (indexInWrite && graphExecutionContext.hasIterationRange()) {
+            // The offset of the loop index is only applied to consecutive batches from iteration 0
+            throw new TornadoRuntimeException("[UNSUPPORTED] The task " + task.getFullName() + " writes its loop index, so its iteration space cannot be split across devices");
+        }
         // Check if a different batch size was used for the same kernel or
         // if the loop index is written in the output buffer, and we are not in the first batch.
         // If any is true, then the kernel needs to be recompiled.
-        if (isRecompilationNeededForLastBatch(taskIndex, task, batchThreads) || currentBatchUsesThreadId(currentBatch, indexInWrite)) {
+        if (isRecompilationNeededForBatchThreads(localTaskIndex, task, batchThreads) || currentBatchUsesThreadId(currentBatch, indexInWrite)) {
             task.forceCompilation();
-            installedCodes[globalToLocalTaskIndex(taskIndex)].invalidate();
+            if (installedCodes[localTaskIndex] != null) {
+                installedCodes[localTaskIndex].invalidate();
+            }
         }
 
         updateBatchThreads(task, batchThreads, indexInWrite, currentBatch);
@@ -776,14 +1163,14 @@ public class TornadoVMInterpreter {
             task.setGridScheduler(gridScheduler);
         }
 
-        if (timeProfiler instanceof TimeProfiler) {
+        if (TracingProfiler.isTimeProfiler(timeProfiler)) {
             // Register the backends only when the profiler is enabled
             timeProfiler.registerBackend(task.getId(), task.getDevice().getTornadoVMBackend().name());
             timeProfiler.registerDeviceID(task.getId(), task.meta().getBackendIndex() + ":" + task.meta().getDeviceIndex());
             timeProfiler.registerDeviceName(task.getId(), task.getDevice().getPhysicalDevice().getDeviceName());
         }
 
-        if (shouldCompile(installedCodes[globalToLocalTaskIndex(taskIndex)])) {
+        if (shouldCompile(installedCodes[localTaskIndex])) {
             task.setDevice(interpreterDevice);
             try {
                 task.attachProfiler(timeProfiler);
@@ -794,7 +1181,13 @@ public class TornadoVMInterpreter {
                     task.forceCompilation();
                 }
 
-                installedCodes[globalToLocalTaskIndex(taskIndex)] = interpreterDevice.installCode(graphExecutionContext.getExecutionPlanId(), task);
+                final long compileStart = isMetricsEnabled ? System.nanoTime() : 0;
+                installedCodes[localTaskIndex] = interpreterDevice.installCode(graphExecutionContext.getExecutionPlanId(), task);
+                compiledBatchThreads[localTaskIndex] = batchThreads;
+                if (isMetricsEnabled) {
+                    compileLatencyOf(task.getId()).record(System.nanoTime() - compileStart);
+                    compilations.increment();
+                }
                 profilerUpdateForPreCompiledTask(task);
                 // After the compilation has been completed, increment
                 // the batch number of the task and update it.
@@ -810,29 +1203,44 @@ public class TornadoVMInterpreter {
                 throw new TornadoBailoutRuntimeException("[Internal Error] Unable to compile " + task.getFullName() + "\n" + Arrays.toString(e.getStackTrace()));
             }
         }
-        return new XPUExecutionFrame(kernelStackFrame, waitList);
+        return kernelStackFrame;
     }
 
-    private void popArgumentsFromCall(int numArgs) {
-        for (int i = 0; i < numArgs; i++) {
-            bytecodeResult.get();
-            bytecodeResult.getInt();
+    /**
+     * @return False only if the task is known to read the object without writing
+     *     it.
+     */
+    private static boolean isWrittenByTask(SchedulableTask task, Object object) {
+        final Object[] arguments = task.getArguments();
+        final Access[] accesses = task.getArgumentsAccess();
+        boolean isArgument = false;
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == object) {
+                if (accesses == null || i >= accesses.length || accesses[i] != Access.READ_ONLY) {
+                    return true;
+                }
+                isArgument = true;
+            }
         }
+        return !isArgument;
     }
 
-    private int executeLaunch(StringBuilder logBuilder, final int numArgs, final int eventId, final int taskIndex, final long batchThreads, final long offset, XPUExecutionFrame executionFrame) {
+    private int executeLaunch(StringBuilder logBuilder, TornadoVMInstruction.Launch launch, KernelStackFrame stackFrame) {
+        final int eventId = launch.eventId();
+        final int localTaskIndex = launch.localTaskIndex();
+        final long batchThreads = launch.batchThreads();
+        final long offset = launch.offset();
+        final SchedulableTask task = taskExecutionContexts.get(launch.taskIndex());
+        final int[] waitList = resolveWaitList(eventId);
 
-        final SchedulableTask task = taskExecutionContexts.get(taskIndex);
-        KernelStackFrame stackFrame = executionFrame.stackFrame;
-        int[] waitList = executionFrame.waitList;
-
-        if (installedCodes[globalToLocalTaskIndex(taskIndex)] == null) {
+        if (installedCodes[localTaskIndex] == null) {
             // After warming-up, it is possible to get a null pointer in the task-cache due
             // to lazy compilation for FPGAs. In tha case, we check again the code cache.
-            installedCodes[globalToLocalTaskIndex(taskIndex)] = interpreterDevice.getCodeFromCache(graphExecutionContext.getExecutionPlanId(), task);
+            installedCodes[localTaskIndex] = interpreterDevice.getCodeFromCache(graphExecutionContext.getExecutionPlanId(), task);
+            compiledBatchThreads[localTaskIndex] = task.getBatchThreads();
         }
 
-        final TornadoInstalledCode installedCode = installedCodes[globalToLocalTaskIndex(taskIndex)];
+        final TornadoInstalledCode installedCode = installedCodes[localTaskIndex];
 
         if (installedCode == null) {
             throw new TornadoBailoutRuntimeException("Code generator Failed");
@@ -842,7 +1250,7 @@ public class TornadoVMInterpreter {
 
         atomicsArray = (task instanceof PrebuiltTask prebuiltTask) ? prebuiltTask.getAtomics() : interpreterDevice.checkAtomicsForTask(task);
 
-        HashMap<Integer, Integer> threadDeploy = new HashMap<>();
+        threadDeploy.clear();
         if (gridScheduler != null && gridScheduler.get(task.getId()) != null) {
             WorkerGrid workerGrid = gridScheduler.get(task.getId());
             long[] global = workerGrid.getGlobalWork();
@@ -856,9 +1264,11 @@ public class TornadoVMInterpreter {
 
         XPUBuffer bufferAtomics = null;
 
-        for (int i = 0; i < numArgs; i++) {
-            final byte argType = bytecodeResult.get();
-            final int argIndex = bytecodeResult.getInt();
+        final byte[] argTypes = launch.argTypes();
+        final int[] argIndices = launch.argIndices();
+        for (int i = 0; i < argTypes.length; i++) {
+            final byte argType = argTypes[i];
+            final int argIndex = argIndices[i];
 
             if (argType == TornadoVMBytecodes.PUSH_CONSTANT_ARGUMENT.value()) {
                 // Add a constant argument
@@ -871,8 +1281,10 @@ public class TornadoVMInterpreter {
                     continue;
                 }
 
-                final DataObjectState globalState = resolveGlobalObjectState(argIndex);
-                final XPUDeviceBufferState objectState = globalState.getDeviceBufferState(interpreterDevice);
+                final XPUDeviceBufferState objectState = resolveObjectState(argIndex, pipelineSlot);
+                if (TornadoOptions.SKIP_UNMODIFIED_TRANSFERS && isWrittenByTask(task, objects.get(argIndex))) {
+                    DeviceBufferVersions.invalidate(objectState.getXPUBuffer());
+                }
                 if (!isObjectInAtomicRegion(objectState, interpreterDevice, task)) {
                     // Add a reference (arrays, vector types, panama regions)
                     stackFrame.addCallArgument(objectState.getXPUBuffer().toBuffer(), true);
@@ -914,12 +1326,20 @@ public class TornadoVMInterpreter {
             dataContext.setGridScheduler(gridScheduler);
             dataContext.setThreadInfoEnabled(graphExecutionContext.meta().isThreadInfoEnabled());
 
+            final boolean isAutoTuned = autoTuner != null && autoTuner.beforeLaunch(task, dataContext);
+            final long launchStart = isAutoTuned ? System.nanoTime() : 0;
             try {
                 int lastEvent = useDependencies
                         ? installedCode.launchWithDependencies(graphExecutionContext.getExecutionPlanId(), stackFrame, bufferAtomics, dataContext, batchThreads, waitList)
                         : installedCode.launchWithoutDependencies(graphExecutionContext.getExecutionPlanId(), stackFrame, bufferAtomics, dataContext, batchThreads);
 
                 resetEventIndexes(eventId);
+                if (isDeferringEvents) {
+                    deferDeviceEvent(lastEvent, TornadoVMBytecodes.LAUNCH, task.getId(), TimelineTracer.NOT_AVAILABLE);
+                }
+                if (isAutoTuned) {
+                    recordAutoTuning(dataContext, lastEvent, launchStart);
+                }
                 return lastEvent;
 
             } catch (Exception e) {
@@ -941,6 +1361,7 @@ public class TornadoVMInterpreter {
             TornadoInternalError.guarantee(eventsIndexes[eventId] < events[eventId].length, "event list is too small");
             events[eventId][eventsIndexes[eventId]] = lastEvent;
             eventsIndexes[eventId]++;
+            eventsHighWaterMarks[eventId] = Math.max(eventsHighWaterMarks[eventId], eventsIndexes[eventId]);
         }
     }
 
@@ -952,18 +1373,39 @@ public class TornadoVMInterpreter {
         int lastEvent = interpreterDevice.enqueueMarker(graphExecutionContext.getExecutionPlanId(), waitList);
 
         resetEventIndexes(eventId);
+        if (isDeferringEvents) {
+            deferDeviceEvent(lastEvent, TornadoVMBytecodes.BARRIER, null, TimelineTracer.NOT_AVAILABLE);
+        }
         return lastEvent;
     }
 
-    private void throwErrorInterpreter(byte op) {
-        if (graphExecutionContext.meta().isDebug()) {
-            logger.debug("bc: invalid op 0x%x(%d)", op, op);
+    private XPUDeviceBufferState resolveObjectState(int index) {
+        return dataObjectStates[index].getDeviceBufferState(interpreterDevice);
+    }
+
+    /**
+     * It returns the device buffer state of an object for a slot of the
+     * pipelined batch processing. Slot 0 is the global state of the object.
+     * Objects that are not processed in batches always use the global state.
+     */
+    private XPUDeviceBufferState resolveObjectState(int index, int slot) {
+        if (slot == 0 || !batchConfiguration.isBatched(index)) {
+            return resolveObjectState(index);
+        }
+        XPUDeviceBufferState objectState = pipelineObjectStates[slot][index];
+        if (objectState == null) {
+            objectState = resolveObjectState(index).createSnapshot();
+            pipelineObjectStates[slot][index] = objectState;
         }
-        throw new TornadoRuntimeException("[ERROR] TornadoVM Bytecode not recognized");
+        return objectState;
     }
 
-    private XPUDeviceBufferState resolveObjectState(int index) {
-        return dataObjectStates[index].getDeviceBufferState(interpreterDevice);
+    /**
+     * Copy-outs of pipelined batches are emitted in batch order, so the n-th
+     * copy-out of an object reads the buffers of the n-th batch.
+     */
+    private int nextCopyOutSlot(int objectIndex) {
+        return isPipelinedBatch() ? pipelineCopyOuts[objectIndex]++ % batchChunksInFlight : 0;
     }
 
     private boolean isObjectKernelContext(Object object) {
@@ -1006,16 +1448,12 @@ public class TornadoVMInterpreter {
     }
 
     private void profilerUpdateForPreCompiledTask(SchedulableTask task) {
-        if (task instanceof PrebuiltTask prebuiltTask && timeProfiler instanceof TimeProfiler) {
+        if (task instanceof PrebuiltTask prebuiltTask && TracingProfiler.isTimeProfiler(timeProfiler)) {
             timeProfiler.registerDeviceID(task.getId(), prebuiltTask.meta().getXPUDevice().getBackendIndex() + ":" + prebuiltTask.meta().getDeviceIndex());
             timeProfiler.registerDeviceName(task.getId(), prebuiltTask.meta().getXPUDevice().getPhysicalDevice().getDeviceName());
         }
     }
 
-    private DataObjectState resolveGlobalObjectState(int index) {
-        return dataObjectStates[index];
-    }
-
     private boolean isObjectInAtomicRegion(XPUDeviceBufferState objectState, TornadoXPUDevice device, SchedulableTask task) {
         return objectState.isAtomicRegionPresent() && device.checkAtomicsParametersForTask(task);
     }
@@ -1031,27 +1469,4 @@ public class TornadoVMInterpreter {
     public void clearInstalledCode() {
         Arrays.fill(installedCodes, null);
     }
-
-    /**
-     * Container class that holds information about object allocation counts.
-     * Used to track the number of persistent objects and the number of objects
-     * that need to be allocated.
-     *
-     * @param persistentObjectCount
-     *     Number of persistent objects that don't need allocation
-     * @param objectsToAlloc
-     *     Number of objects that need to be allocated
-     */
-    public record ObjectAllocationInfo(int persistentObjectCount, int objectsToAlloc) {
-    }
-
-    private static class XPUExecutionFrame {
-        private KernelStackFrame stackFrame;
-        private int[] waitList;
-
-        XPUExecutionFrame(KernelStackFrame callWrapper, int[] waitList) {
-            this.stackFrame = callWrapper;
-            this.waitList = waitList;
-        }
-    }
 }
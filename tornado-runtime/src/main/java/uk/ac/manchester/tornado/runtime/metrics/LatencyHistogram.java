@@ -0,0 +1,193 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, as in HDR
+ * histograms: each power of two is split in {@link #SUB_BUCKETS} buckets of
+ * the same width, so the values are recorded with a relative error below
+ * {@code 1 / SUB_BUCKETS} (about 3%) from one nanosecond to the range of a
+ * {@code long}, in a fixed number of buckets.
+ *
+ * <p>
+ * Recording a value neither takes a lock nor allocates: it increments the
+ * counter of its bucket with an atomic operation. The percentiles are computed
+ * when they are read, from the counters at that time.
+ * </p>
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final MetricId id;
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final AtomicLong max;
+
+    LatencyHistogram(MetricId id) {
+        this.id = id;
+        this.buckets = new AtomicLongArray(NUM_BUCKETS);
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return The highest value of a bucket.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * It records a latency.
+     *
+     * @param nanoseconds
+     *     Latency in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanoseconds) {
+        final long value = Math.max(0, nanoseconds);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public MetricId getId() {
+        return id;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        final long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * It returns the value at a percentile. The value is the highest value of the
+     * bucket of the percentile, capped by the maximum recorded value.
+     *
+     * @param percentile
+     *     Percentile, between 0 and 100.
+     * @return The latency in nanoseconds, or 0 if no value was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        final long[] counts = new long[NUM_BUCKETS];
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+        long accumulated = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) {
+                return Math.min(highestValueOf(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * @return A copy of the summary of the histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        return new HistogramSnapshot(getCount(), getMeanNanos(), getP50Nanos(), getP90Nanos(), getP99Nanos(), getP999Nanos(), getMaxNanos());
+    }
+
+    /**
+     * Summary of a {@link LatencyHistogram}, in nanoseconds.
+     */
+    public record HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.metrics;
+
+/**
+ * Identifier of a metric: its name, and the task (or task-graph) and the
+ * device it belongs to. The task and the device are empty for the metrics that
+ * do not belong to one.
+ *
+ * @param name
+ *     Name of the metric, e.g., {@link MetricsRegistry#KERNEL_LATENCY}.
+ * @param task
+ *     Name of the task or the task-graph.
+ * @param device
+ *     Name of the device.
+ */
+public record MetricId(String name, String task, String device) {
+
+    public MetricId {
+        task = task == null ? "" : task;
+        device = device == null ? "" : device;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name);
+        if (!task.isEmpty() || !device.isEmpty()) {
+            builder.append("{");
+            if (!task.isEmpty()) {
+                builder.append("task=").append(task);
+            }
+            if (!device.isEmpty()) {
+                builder.append(task.isEmpty() ? "" : ",").append("device=").append(device);
+            }
+            builder.append("}");
+        }
+        return builder.toString();
+    }
+}
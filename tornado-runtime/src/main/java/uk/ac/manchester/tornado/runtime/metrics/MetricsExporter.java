@@ -0,0 +1,47 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.metrics;
+
+/**
+ * Exporter of the metrics to a monitoring system. The registry calls it
+ * periodically with a snapshot of all metrics, from a daemon thread.
+ *
+ * <p>
+ * An exporter can be registered with
+ * {@link MetricsRegistry#addExporter(MetricsExporter, long)}, or with the
+ * option {@code -Dtornado.metrics.exporter=<class>}, which instantiates the
+ * class with its constructor without parameters.
+ * </p>
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    void export(MetricsRegistry.Snapshot snapshot);
+
+    /**
+     * Called when the exporter is removed from the registry.
+     */
+    default void close() {
+    }
+}
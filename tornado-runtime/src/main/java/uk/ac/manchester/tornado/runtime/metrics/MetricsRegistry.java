@@ -0,0 +1,306 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+
+/**
+ * Registry of the metrics of the TornadoVM runtime: counters, gauges and
+ * latency histograms per task and device. The metrics are recorded when the
+ * option {@code -Dtornado.metrics=True} is set, and they do not need the
+ * profiler: the interpreters resolve the events of the kernels and the
+ * transfers at the end of each execution, so recording the metrics does not
+ * serialise the commands on the device.
+ *
+ * <p>
+ * The counters are {@link LongAdder}s and the histograms are
+ * {@link LatencyHistogram}s, so recording a value does not take a lock. The
+ * code that records metrics on every execution looks them up once and keeps
+ * the reference.
+ * </p>
+ *
+ * <p>
+ * The metrics are exposed through JMX under the domain {@value #JMX_DOMAIN}:
+ * the registry with its counters and gauges, and each histogram as its own
+ * MBean, so a monitoring system can alert on the p99 latency of a kernel. They
+ * can also be sent to other systems with a {@link MetricsExporter}.
+ * </p>
+ */
+public final class MetricsRegistry implements MetricsRegistryMXBean {
+
+    public static final String JMX_DOMAIN = "uk.ac.manchester.tornado";
+
+    public static final String KERNEL_LATENCY = "tornado.kernel.latency";
+    public static final String TASK_GRAPH_LATENCY = "tornado.taskgraph.latency";
+    public static final String COMPILE_LATENCY = "tornado.compile.latency";
+    public static final String COPY_IN_LATENCY = "tornado.copyin.latency";
+    public static final String COPY_OUT_LATENCY = "tornado.copyout.latency";
+    public static final String COMPILATIONS = "tornado.compilations";
+    public static final String COPY_IN_BYTES = "tornado.copyin.bytes";
+    public static final String COPY_IN_SKIPPED = "tornado.copyin.skipped";
+    public static final String COPY_IN_SKIPPED_BYTES = "tornado.copyin.skipped.bytes";
+    public static final String COPY_OUT_BYTES = "tornado.copyout.bytes";
+    public static final String BUFFER_BYTES_IN_USE = "tornado.buffers.bytes.inuse";
+    public static final String BUFFER_BYTES_FREE = "tornado.buffers.bytes.free";
+    public static final String BUFFER_NATIVE_ALLOCATIONS = "tornado.buffers.allocations.native";
+    public static final String BUFFER_REUSED_ALLOCATIONS = "tornado.buffers.allocations.reused";
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentHashMap<MetricId, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricId, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricId, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<MetricsExporter, ScheduledFuture<?>> exporters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> devices = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exporterService;
+
+    private MetricsRegistry() {
+        if (TornadoOptions.METRICS) {
+            registerMBean(this, objectName("Registry", null));
+            if (TornadoOptions.METRICS_EXPORTER != null) {
+                addExporter(createExporter(TornadoOptions.METRICS_EXPORTER), TornadoOptions.METRICS_EXPORT_PERIOD);
+            }
+        }
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if the runtime records the metrics.
+     */
+    public static boolean isEnabled() {
+        return TornadoOptions.METRICS;
+    }
+
+    private static MetricsExporter createExporter(String className) {
+        try {
+            return (MetricsExporter) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new TornadoRuntimeException("[ERROR] The metrics exporter " + className + " cannot be created: " + e);
+        }
+    }
+
+    private static ObjectName objectName(String type, MetricId id) {
+        StringBuilder name = new StringBuilder(JMX_DOMAIN).append(":type=").append(type);
+        if (id != null) {
+            name.append(",name=").append(ObjectName.quote(id.name()));
+            if (!id.task().isEmpty()) {
+                name.append(",task=").append(ObjectName.quote(id.task()));
+            }
+            if (!id.device().isEmpty()) {
+                name.append(",device=").append(ObjectName.quote(id.device()));
+            }
+        }
+        try {
+            return new ObjectName(name.toString());
+        } catch (JMException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    private static void registerMBean(Object mbean, ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            throw new TornadoRuntimeException(e);
+        }
+    }
+
+    /**
+     * It returns the counter of a metric, and it creates it the first time.
+     *
+     * @param name
+     *     Name of the metric.
+     * @param task
+     *     Task or task-graph, or {@code null}.
+     * @param device
+     *     Device, or {@code null}.
+     * @return {@link LongAdder}
+     */
+    public LongAdder counter(String name, String task, String device) {
+        return counters.computeIfAbsent(new MetricId(name, task, device), id -> new LongAdder());
+    }
+
+    /**
+     * It returns the latency histogram of a metric, and it creates it the first
+     * time. The histogram is registered as a JMX MBean.
+     *
+     * @param name
+     *     Name of the metric.
+     * @param task
+     *     Task or task-graph, or {@code null}.
+     * @param device
+     *     Device, or {@code null}.
+     * @return {@link LatencyHistogram}
+     */
+    public LatencyHistogram histogram(String name, String task, String device) {
+        return histograms.computeIfAbsent(new MetricId(name, task, device), id -> {
+            LatencyHistogram histogram = new LatencyHistogram(id);
+            if (TornadoOptions.METRICS) {
+                registerMBean(histogram, objectName("Latency", id));
+            }
+            return histogram;
+        });
+    }
+
+    /**
+     * It registers a gauge, a value that is read when the metrics are
+     * exported. A gauge that is already registered is kept.
+     *
+     * @param name
+     *     Name of the metric.
+     * @param task
+     *     Task or task-graph, or {@code null}.
+     * @param device
+     *     Device, or {@code null}.
+     * @param value
+     *     Supplier of the value.
+     */
+    public void gauge(String name, String task, String device, LongSupplier value) {
+        gauges.putIfAbsent(new MetricId(name, task, device), value);
+    }
+
+    /**
+     * It registers the gauges of the buffers of a device: the bytes in use and
+     * free, and the native and reused allocations.
+     *
+     * @param device
+     *     {@link TornadoXPUDevice}
+     */
+    public void registerDevice(TornadoXPUDevice device) {
+        final String deviceName = device.getDeviceName();
+        if (devices.putIfAbsent(deviceName, Boolean.TRUE) == null) {
+            gauge(BUFFER_BYTES_IN_USE, null, deviceName, () -> device.getBufferProviderStatistics().bytesInUse());
+            gauge(BUFFER_BYTES_FREE, null, deviceName, () -> device.getBufferProviderStatistics().bytesFree());
+            gauge(BUFFER_NATIVE_ALLOCATIONS, null, deviceName, () -> device.getBufferProviderStatistics().nativeAllocations());
+            gauge(BUFFER_REUSED_ALLOCATIONS, null, deviceName, () -> device.getBufferProviderStatistics().reusedAllocations());
+        }
+    }
+
+    /**
+     * It calls an exporter periodically with a snapshot of the metrics.
+     *
+     * @param exporter
+     *     {@link MetricsExporter}
+     * @param periodMillis
+     *     Period between two exports, in milliseconds.
+     */
+    public synchronized void addExporter(MetricsExporter exporter, long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new TornadoRuntimeException("[ERROR] The period of a metrics exporter must be positive: " + periodMillis);
+        }
+        if (exporterService == null) {
+            exporterService = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("tornadovm-metrics-exporter").daemon(true).factory());
+        }
+        exporters.computeIfAbsent(exporter, e -> exporterService.scheduleAtFixedRate(() -> e.export(snapshot()), periodMillis, periodMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * It stops calling an exporter.
+     *
+     * @param exporter
+     *     {@link MetricsExporter}
+     */
+    public synchronized void removeExporter(MetricsExporter exporter) {
+        ScheduledFuture<?> future = exporters.remove(exporter);
+        if (future != null) {
+            future.cancel(false);
+            exporter.close();
+        }
+    }
+
+    /**
+     * @return A copy of the values of all metrics.
+     */
+    public Snapshot snapshot() {
+        Map<MetricId, Long> counterValues = new LinkedHashMap<>();
+        counters.forEach((id, counter) -> counterValues.put(id, counter.sum()));
+        Map<MetricId, Long> gaugeValues = new LinkedHashMap<>();
+        gauges.forEach((id, gauge) -> gaugeValues.put(id, gauge.getAsLong()));
+        Map<MetricId, LatencyHistogram.HistogramSnapshot> histogramValues = new LinkedHashMap<>();
+        histograms.forEach((id, histogram) -> histogramValues.put(id, histogram.snapshot()));
+        return new Snapshot(Collections.unmodifiableMap(counterValues), Collections.unmodifiableMap(gaugeValues), Collections.unmodifiableMap(histogramValues));
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((id, counter) -> values.put(id.toString(), counter.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((id, gauge) -> values.put(id.toString(), gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * It sets all counters and histograms to zero. The gauges are not reset,
+     * because they read their current value.
+     */
+    @Override
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Values of the metrics at a point in time.
+     *
+     * @param counters
+     *     Value of each counter.
+     * @param gauges
+     *     Value of each gauge.
+     * @param histograms
+     *     Summary of each latency histogram.
+     */
+    public record Snapshot(Map<MetricId, Long> counters, Map<MetricId, Long> gauges, Map<MetricId, LatencyHistogram.HistogramSnapshot> histograms) {
+    }
+}
@@ -2,7 +2,7 @@
  * This file is part of Tornado: A heterogeneous programming framework:
  * https://github.com/beehive-lab/tornadovm
  *
- * Copyright (c) 2020, APT Group, Department of Computer Science,
+ * Copyright (c) 2020, 2024, APT Group, Department of Computer Science,
  * The University of Manchester. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
@@ -23,14 +23,41 @@
  */
 package uk.ac.manchester.tornado.runtime.profiler;
 
-import java.util.HashMap;
-import java.util.Set;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 
+/**
+ * Profiler that records the timers and the metrics of a task-graph.
+ *
+ * <p>
+ * The values are stored in preallocated slots of primitive longs, indexed by
+ * {@link ProfilerType#ordinal()}. There is one set of slots for the
+ * task-graph, and one set for each task, which is created the first time that
+ * the task is profiled. After that, recording a value neither takes a lock nor
+ * allocates: the slots of a task are found with a lock-free lookup, and the
+ * values are updated with atomic operations, so the threads that launch tasks
+ * on different devices do not serialise on the profiler.
+ * </p>
+ *
+ * <p>
+ * Each set of slots keeps a bit mask of the types that have been recorded, so
+ * the reports only include the values that were set, as before.
+ * {@link #snapshot()} returns a consistent copy of the values for the code that
+ * reads them while the task-graph is running.
+ * </p>
+ */
 public class TimeProfiler implements TornadoProfiler {
 
     /**
@@ -40,161 +67,239 @@ public class TimeProfiler implements TornadoProfiler {
      */
     public static String NO_TASK_NAME = "noTask";
 
-    private HashMap<ProfilerType, Long> profilerTime;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskTimers;
-    private HashMap<String, HashMap<ProfilerType, String>> taskPowerMetrics;
-    private HashMap<String, HashMap<ProfilerType, Long>> taskSizeMetrics;
-    private HashMap<String, HashMap<ProfilerType, String>> taskDeviceIdentifiers;
-    private HashMap<String, HashMap<ProfilerType, String>> taskMethodNames;
+    private static final ProfilerType[] TYPES = ProfilerType.values();
+
+    static {
+        // The masks of recorded types are stored in a long
+        assert TYPES.length <= Long.SIZE;
+    }
+
+    private final Slots profilerTime;
+    private final ConcurrentHashMap<String, TaskSlots> tasks;
 
-    private HashMap<String, HashMap<ProfilerType, String>> taskBackends;
+    /**
+     * The tasks in the order in which they were first profiled, so the reports
+     * are deterministic.
+     */
+    private final List<TaskSlots> taskOrder;
 
     private StringBuilder indent;
 
     public TimeProfiler() {
-        profilerTime = new HashMap<>();
-        taskTimers = new HashMap<>();
-        taskPowerMetrics = new HashMap<>();
-        taskDeviceIdentifiers = new HashMap<>();
-        taskMethodNames = new HashMap<>();
-        taskSizeMetrics = new HashMap<>();
-        taskBackends = new HashMap<>();
+        profilerTime = new Slots();
+        tasks = new ConcurrentHashMap<>();
+        taskOrder = new CopyOnWriteArrayList<>();
         indent = new StringBuilder("");
     }
 
-    @Override
-    public synchronized void addValueToMetric(ProfilerType type, String taskName, long value) {
-        if (!taskSizeMetrics.containsKey(taskName)) {
-            taskSizeMetrics.put(taskName, new HashMap<>());
+    /**
+     * Values of a set of slots. Bit {@code ordinal} of the mask is set when the
+     * value of the type with that ordinal has been recorded.
+     */
+    private static final class Slots {
+        private static final int MASK = TYPES.length;
+
+        private final AtomicLongArray values = new AtomicLongArray(TYPES.length + 1);
+
+        private void markAsSet(ProfilerType type) {
+            final long bit = 1L << type.ordinal();
+            long mask = values.get(MASK);
+            while ((mask & bit) == 0 && !values.compareAndSet(MASK, mask, mask | bit)) {
+                mask = values.get(MASK);
+            }
+        }
+
+        boolean isSet(ProfilerType type) {
+            return (values.get(MASK) & (1L << type.ordinal())) != 0;
+        }
+
+        boolean isEmpty() {
+            return values.get(MASK) == 0;
+        }
+
+        long get(ProfilerType type) {
+            return values.get(type.ordinal());
+        }
+
+        void set(ProfilerType type, long value) {
+            values.set(type.ordinal(), value);
+            markAsSet(type);
+        }
+
+        void add(ProfilerType type, long value) {
+            values.getAndAdd(type.ordinal(), value);
+            markAsSet(type);
+        }
+
+        /**
+         * Replaces the start time stored by {@link #set} with the elapsed time.
+         */
+        void elapsed(ProfilerType type, long end) {
+            values.set(type.ordinal(), end - values.get(type.ordinal()));
+        }
+
+        void clear() {
+            for (int i = 0; i < values.length(); i++) {
+                values.set(i, 0);
+            }
+        }
+
+        Map<ProfilerType, Long> toMap() {
+            final long mask = values.get(MASK);
+            EnumMap<ProfilerType, Long> map = new EnumMap<>(ProfilerType.class);
+            for (ProfilerType type : TYPES) {
+                if ((mask & (1L << type.ordinal())) != 0) {
+                    map.put(type, values.get(type.ordinal()));
+                }
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Slots of a task: its timers, its size metrics, its power metrics and its
+     * labels (method, device, backend).
+     */
+    private static final class TaskSlots {
+        private final String name;
+        private final Slots timers = new Slots();
+        private final Slots sizes = new Slots();
+        private final AtomicReferenceArray<String> powerMetrics = new AtomicReferenceArray<>(TYPES.length);
+        private final AtomicReferenceArray<String> labels = new AtomicReferenceArray<>(TYPES.length);
+
+        private TaskSlots(String name) {
+            this.name = name;
         }
-        HashMap<ProfilerType, Long> profilerType = taskSizeMetrics.get(taskName);
-        profilerType.put(type, profilerType.get(type) != null ? profilerType.get(type) + value : value);
-        taskSizeMetrics.put(taskName, profilerType);
+    }
+
+    /**
+     * Copy of the values recorded by the profiler.
+     *
+     * @param timers
+     *     The timers of the task-graph.
+     * @param taskTimers
+     *     The timers of each task that has at least one timer.
+     * @param taskSizes
+     *     The size metrics of each task, including {@link #NO_TASK_NAME}
+     *     for the metrics of the task-graph.
+     */
+    public record Snapshot(Map<ProfilerType, Long> timers, Map<String, Map<ProfilerType, Long>> taskTimers, Map<String, Map<ProfilerType, Long>> taskSizes) {
+    }
+
+    private TaskSlots slotsOf(String taskName) {
+        TaskSlots slots = tasks.get(taskName);
+        if (slots == null) {
+            slots = tasks.computeIfAbsent(taskName, name -> {
+                TaskSlots newSlots = new TaskSlots(name);
+                taskOrder.add(newSlots);
+                return newSlots;
+            });
+        }
+        return slots;
     }
 
     @Override
-    public synchronized void start(ProfilerType type) {
-        long start = System.nanoTime();
-        profilerTime.put(type, start);
+    public void addValueToMetric(ProfilerType type, String taskName, long value) {
+        slotsOf(taskName).sizes.add(type, value);
     }
 
     @Override
-    public synchronized void start(ProfilerType type, String taskName) {
-        long start = System.nanoTime();
-        if (!taskTimers.containsKey(taskName)) {
-            taskTimers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, Long> profilerType = taskTimers.get(taskName);
-        profilerType.put(type, start);
-        taskTimers.put(taskName, profilerType);
+    public void start(ProfilerType type) {
+        profilerTime.set(type, System.nanoTime());
     }
 
     @Override
-    public synchronized void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
-        if (!taskMethodNames.containsKey(taskName)) {
-            taskMethodNames.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskMethodNames.get(taskName);
-        profilerType.put(type, methodName);
-        taskMethodNames.put(methodName, profilerType);
+    public void start(ProfilerType type, String taskName) {
+        long start = System.nanoTime();
+        slotsOf(taskName).timers.set(type, start);
     }
 
     @Override
-    public synchronized void registerDeviceName(String taskName, String deviceInfo) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE, deviceInfo);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+    public void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
+        slotsOf(taskName).labels.set(type.ordinal(), methodName);
     }
 
     @Override
-    public synchronized void registerBackend(String taskName, String backend) {
-        if (!taskBackends.containsKey(taskName)) {
-            taskBackends.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskBackends.get(taskName);
+    public void registerDeviceName(String taskName, String deviceInfo) {
+        slotsOf(taskName).labels.set(ProfilerType.DEVICE.ordinal(), deviceInfo);
+    }
 
-        profilerType.put(ProfilerType.BACKEND, backend);
-        taskBackends.put(taskName, profilerType);
+    @Override
+    public void registerBackend(String taskName, String backend) {
+        slotsOf(taskName).labels.set(ProfilerType.BACKEND.ordinal(), backend);
     }
 
     @Override
-    public synchronized void registerDeviceID(String taskName, String deviceID) {
-        if (!taskDeviceIdentifiers.containsKey(taskName)) {
-            taskDeviceIdentifiers.put(taskName, new HashMap<>());
-        }
-        HashMap<ProfilerType, String> profilerType = taskDeviceIdentifiers.get(taskName);
-        profilerType.put(ProfilerType.DEVICE_ID, deviceID);
-        taskDeviceIdentifiers.put(taskName, profilerType);
+    public void registerDeviceID(String taskName, String deviceID) {
+        slotsOf(taskName).labels.set(ProfilerType.DEVICE_ID.ordinal(), deviceID);
     }
 
     @Override
-    public synchronized void stop(ProfilerType type) {
-        long end = System.nanoTime();
-        long start = profilerTime.get(type);
-        long total = end - start;
-        profilerTime.put(type, total);
+    public void stop(ProfilerType type) {
+        profilerTime.elapsed(type, System.nanoTime());
     }
 
     @Override
-    public synchronized void stop(ProfilerType type, String taskName) {
+    public void stop(ProfilerType type, String taskName) {
         long end = System.nanoTime();
-        HashMap<ProfilerType, Long> profiledType = taskTimers.get(taskName);
-        long start = profiledType.get(type);
-        long total = end - start;
-        profiledType.put(type, total);
-        taskTimers.put(taskName, profiledType);
+        slotsOf(taskName).timers.elapsed(type, end);
     }
 
     @Override
     public long getTimer(ProfilerType type) {
-        if (!profilerTime.containsKey(type)) {
-            return 0;
-        }
         return profilerTime.get(type);
     }
 
     @Override
     public long getSize(ProfilerType type) {
         // for all tasks in the task graph, accumulate the size
-        Set<String> strings = taskSizeMetrics.keySet();
         long size = 0;
-        for (String s : taskSizeMetrics.keySet()) {
-            HashMap<ProfilerType, Long> copySizes = taskSizeMetrics.get(s);
-            if (copySizes.containsKey(type)) {
-                size += copySizes.get(type);
-            }
+        for (TaskSlots task : taskOrder) {
+            size += task.sizes.get(type);
         }
         return size;
     }
 
     @Override
     public long getTaskTimer(ProfilerType type, String taskName) {
-        if (!taskTimers.containsKey(taskName)) {
-            return 0;
-        }
-        if (!taskTimers.get(taskName).containsKey(type)) {
-            return 0;
-        }
-        return taskTimers.get(taskName).get(type);
+        TaskSlots task = tasks.get(taskName);
+        return task != null ? task.timers.get(type) : 0;
     }
 
     @Override
-    public synchronized void setTimer(ProfilerType type, long time) {
-        profilerTime.put(type, time);
+    public void setTimer(ProfilerType type, long time) {
+        profilerTime.set(type, time);
+    }
+
+    /**
+     * It returns a copy of the timers and the size metrics recorded so far.
+     * The copy does not change when the profiler records new values.
+     *
+     * @return A {@link Snapshot} of the profiler.
+     */
+    public Snapshot snapshot() {
+        Map<String, Map<ProfilerType, Long>> taskTimers = new LinkedHashMap<>();
+        Map<String, Map<ProfilerType, Long>> taskSizes = new LinkedHashMap<>();
+        for (TaskSlots task : taskOrder) {
+            if (!task.timers.isEmpty()) {
+                taskTimers.put(task.name, Collections.unmodifiableMap(task.timers.toMap()));
+            }
+            if (!task.sizes.isEmpty()) {
+                taskSizes.put(task.name, Collections.unmodifiableMap(task.sizes.toMap()));
+            }
+        }
+        return new Snapshot(Collections.unmodifiableMap(profilerTime.toMap()), Collections.unmodifiableMap(taskTimers), Collections.unmodifiableMap(taskSizes));
     }
 
     @Override
     public synchronized void dump() {
-        for (ProfilerType p : profilerTime.keySet()) {
-            System.out.println("[PROFILER] " + p.getDescription() + ": " + profilerTime.get(p));
+        Snapshot snapshot = snapshot();
+        for (Map.Entry<ProfilerType, Long> timer : snapshot.timers().entrySet()) {
+            System.out.println("[PROFILER] " + timer.getKey().getDescription() + ": " + timer.getValue());
         }
 
-        for (String p : taskTimers.keySet()) {
-            System.out.println("[PROFILER-TASK] " + p + ": " + taskTimers.get(p));
-
+        for (Map.Entry<String, Map<ProfilerType, Long>> task : snapshot.taskTimers().entrySet()) {
+            System.out.println("[PROFILER-TASK] " + task.getKey() + ": " + task.getValue());
         }
     }
 
@@ -214,47 +319,51 @@ public class TimeProfiler implements TornadoProfiler {
         json.append("\n");
     }
 
+    private void appendValue(StringBuilder json, Object key, Object value) {
+        json.append(indent.toString() + "\"" + key + "\"" + ": " + "\"" + value + "\",\n");
+    }
+
     @Override
-    public String createJson(StringBuilder json, String sectionName) {
+    public synchronized String createJson(StringBuilder json, String sectionName) {
         json.append("{\n");
         increaseIndent();
         json.append(indent.toString() + "\"" + sectionName + "\": " + "{\n");
         increaseIndent();
-        for (ProfilerType p : profilerTime.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + profilerTime.get(p) + "\",\n");
+        for (Map.Entry<ProfilerType, Long> timer : profilerTime.toMap().entrySet()) {
+            appendValue(json, timer.getKey(), timer.getValue());
         }
-        if (taskSizeMetrics.containsKey(NO_TASK_NAME)) {
-            HashMap<ProfilerType, Long> noTaskValues = taskSizeMetrics.get(NO_TASK_NAME);
-            for (ProfilerType p : noTaskValues.keySet()) {
-                json.append(indent.toString() + "\"" + p + "\"" + ": " + "\"" + noTaskValues.get(p) + "\",\n");
+        TaskSlots noTask = tasks.get(NO_TASK_NAME);
+        if (noTask != null) {
+            for (Map.Entry<ProfilerType, Long> size : noTask.sizes.toMap().entrySet()) {
+                appendValue(json, size.getKey(), size.getValue());
             }
         }
 
-        final int size = taskTimers.keySet().size();
+        List<TaskSlots> profiledTasks = taskOrder.stream().filter(task -> !task.timers.isEmpty()).toList();
+        final int size = profiledTasks.size();
         int counter = 0;
-        for (String p : taskTimers.keySet()) {
-            json.append(indent.toString() + "\"" + p + "\"" + ": {\n");
+        for (TaskSlots task : profiledTasks) {
+            json.append(indent.toString() + "\"" + task.name + "\"" + ": {\n");
             increaseIndent();
             counter++;
             if (TornadoOptions.LOG_IP) {
-                json.append(indent.toString() + "\"" + "IP" + "\"" + ": " + "\"" + RuntimeUtilities.getTornadoInstanceIP() + "\",\n");
+                appendValue(json, "IP", RuntimeUtilities.getTornadoInstanceIP());
             }
-            json.append(indent.toString() + "\"" + ProfilerType.BACKEND + "\"" + ": " + "\"" + taskBackends.get(p).get(ProfilerType.BACKEND) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.METHOD + "\"" + ": " + "\"" + taskMethodNames.get(p).get(ProfilerType.METHOD) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE_ID + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE_ID) + "\",\n");
-            json.append(indent.toString() + "\"" + ProfilerType.DEVICE + "\"" + ": " + "\"" + taskDeviceIdentifiers.get(p).get(ProfilerType.DEVICE) + "\",\n");
-            if (taskSizeMetrics.containsKey(p)) {
-                for (ProfilerType p1 : taskSizeMetrics.get(p).keySet()) {
-                    json.append(indent.toString() + "\"" + p1 + "\"" + ": " + "\"" + taskSizeMetrics.get(p).get(p1) + "\",\n");
-                }
+            appendValue(json, ProfilerType.BACKEND, task.labels.get(ProfilerType.BACKEND.ordinal()));
+            appendValue(json, ProfilerType.METHOD, task.labels.get(ProfilerType.METHOD.ordinal()));
+            appendValue(json, ProfilerType.DEVICE_ID, task.labels.get(ProfilerType.DEVICE_ID.ordinal()));
+            appendValue(json, ProfilerType.DEVICE, task.labels.get(ProfilerType.DEVICE.ordinal()));
+            for (Map.Entry<ProfilerType, Long> metric : task.sizes.toMap().entrySet()) {
+                appendValue(json, metric.getKey(), metric.getValue());
             }
-            if (taskPowerMetrics.containsKey(p)) {
-                for (ProfilerType p1 : taskPowerMetrics.get(p).keySet()) {
-                    json.append(indent.toString() + "\"" + p1 + "\"" + ": " + "\"" + taskPowerMetrics.get(p).get(p1) + "\",\n");
+            for (ProfilerType type : TYPES) {
+                String power = task.powerMetrics.get(type.ordinal());
+                if (power != null) {
+                    appendValue(json, type, power);
                 }
             }
-            for (ProfilerType p2 : taskTimers.get(p).keySet()) {
-                json.append(indent.toString() + "\"" + p2 + "\"" + ": " + "\"" + taskTimers.get(p).get(p2) + "\",\n");
+            for (Map.Entry<ProfilerType, Long> timer : task.timers.toMap().entrySet()) {
+                appendValue(json, timer.getKey(), timer.getValue());
             }
             json.delete(json.length() - 2, json.length() - 1); // remove last comma
             decreaseIndent();
@@ -281,60 +390,37 @@ public class TimeProfiler implements TornadoProfiler {
 
     @Override
     public synchronized void clean() {
-        taskSizeMetrics.clear();
         profilerTime.clear();
-        taskTimers.clear();
+        for (TaskSlots task : taskOrder) {
+            task.sizes.clear();
+            task.timers.clear();
+        }
         indent = new StringBuilder("");
     }
 
     @Override
-    public synchronized void setTaskTimer(ProfilerType type, String taskID, long timer) {
-        if (!taskTimers.containsKey(taskID)) {
-            taskTimers.put(taskID, new HashMap<>());
-        }
-        taskTimers.get(taskID).put(type, timer);
+    public void setTaskTimer(ProfilerType type, String taskID, long timer) {
+        slotsOf(taskID).timers.set(type, timer);
     }
 
     @Override
-    public synchronized void setTaskPowerUsage(ProfilerType type, String taskID, long power) {
-        if (!taskPowerMetrics.containsKey(taskID)) {
-            taskPowerMetrics.put(taskID, new HashMap<>());
-        }
-        if (power > 0) {
-            taskPowerMetrics.get(taskID).put(type, Long.toString(power));
-        } else {
-            taskPowerMetrics.get(taskID).put(type, "n/a");
-        }
+    public void setTaskPowerUsage(ProfilerType type, String taskID, long power) {
+        slotsOf(taskID).powerMetrics.set(type.ordinal(), power > 0 ? Long.toString(power) : "n/a");
     }
 
     @Override
     public void setSystemPowerConsumption(ProfilerType systemPowerConsumptionType, String taskID, long powerConsumption) {
-        if (!taskPowerMetrics.containsKey(taskID)) {
-            taskPowerMetrics.put(taskID, new HashMap<>());
-        }
-        if (powerConsumption > 0) {
-            taskPowerMetrics.get(taskID).put(systemPowerConsumptionType, Long.toString(powerConsumption));
-        } else {
-            taskPowerMetrics.get(taskID).put(systemPowerConsumptionType, "n/a");
-        }
+        slotsOf(taskID).powerMetrics.set(systemPowerConsumptionType.ordinal(), powerConsumption > 0 ? Long.toString(powerConsumption) : "n/a");
     }
 
     @Override
     public void setSystemVoltage(ProfilerType systemPowerVoltageType, String taskID, long voltage) {
-        if (!taskPowerMetrics.containsKey(taskID)) {
-            taskPowerMetrics.put(taskID, new HashMap<>());
-        }
-        if (voltage > 0) {
-            taskPowerMetrics.get(taskID).put(systemPowerVoltageType, Float.toString(voltage));
-        } else {
-            taskPowerMetrics.get(taskID).put(systemPowerVoltageType, "n/a");
-        }
+        slotsOf(taskID).powerMetrics.set(systemPowerVoltageType.ordinal(), voltage > 0 ? Float.toString(voltage) : "n/a");
     }
 
     @Override
-    public synchronized void sum(ProfilerType acc, long value) {
-        long sum = getTimer(acc) + value;
-        profilerTime.put(acc, sum);
+    public void sum(ProfilerType acc, long value) {
+        profilerTime.add(acc, value);
     }
 
 }
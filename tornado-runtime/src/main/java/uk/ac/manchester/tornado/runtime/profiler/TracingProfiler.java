@@ -0,0 +1,201 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.profiler;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
+import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
+
+/**
+ * Profiler that forwards all values to another profiler, and records the
+ * compilation phases of each task and the execution of the task-graph as spans
+ * of a {@link TimelineTracer}. The backends measure the compilation phases with
+ * the profiler whether it is enabled or not, so the timeline includes them even
+ * when the profiler of the task-graph is the {@link EmptyProfiler}.
+ */
+public class TracingProfiler implements TornadoProfiler {
+
+    private static final ProfilerType[] TYPES = ProfilerType.values();
+
+    private final TornadoProfiler delegate;
+    private final TimelineTracer tracer;
+    private final String taskGraphName;
+
+    /**
+     * Start times of the task timers, indexed by {@link ProfilerType#ordinal()}.
+     */
+    private final ConcurrentHashMap<String, long[]> taskStartTimes;
+    private volatile long taskGraphStartTime;
+
+    public TracingProfiler(TornadoProfiler delegate, TimelineTracer tracer, String taskGraphName) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+        this.taskGraphName = taskGraphName;
+        this.taskStartTimes = new ConcurrentHashMap<>();
+    }
+
+    public TornadoProfiler getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @return true if the profiler records the values, either directly or
+     *     through a {@link TracingProfiler}.
+     */
+    public static boolean isTimeProfiler(TornadoProfiler profiler) {
+        return profiler instanceof TimeProfiler || (profiler instanceof TracingProfiler tracingProfiler && tracingProfiler.delegate instanceof TimeProfiler);
+    }
+
+    private static boolean isTraced(ProfilerType type) {
+        return type == ProfilerType.TASK_COMPILE_GRAAL_TIME || type == ProfilerType.TASK_COMPILE_DRIVER_TIME || type == ProfilerType.TASK_CODE_GENERATION_TIME;
+    }
+
+    @Override
+    public void addValueToMetric(ProfilerType type, String taskName, long value) {
+        delegate.addValueToMetric(type, taskName, value);
+    }
+
+    @Override
+    public void start(ProfilerType type) {
+        if (type == ProfilerType.TOTAL_TASK_GRAPH_TIME) {
+            taskGraphStartTime = System.nanoTime();
+        }
+        delegate.start(type);
+    }
+
+    @Override
+    public void start(ProfilerType type, String taskName) {
+        if (isTraced(type)) {
+            taskStartTimes.computeIfAbsent(taskName, name -> new long[TYPES.length])[type.ordinal()] = System.nanoTime();
+        }
+        delegate.start(type, taskName);
+    }
+
+    @Override
+    public void registerDeviceName(String taskName, String deviceInfo) {
+        delegate.registerDeviceName(taskName, deviceInfo);
+    }
+
+    @Override
+    public void registerBackend(String taskName, String backend) {
+        delegate.registerBackend(taskName, backend);
+    }
+
+    @Override
+    public void registerDeviceID(String taskName, String deviceID) {
+        delegate.registerDeviceID(taskName, deviceID);
+    }
+
+    @Override
+    public void registerMethodHandle(ProfilerType type, String taskName, String methodName) {
+        delegate.registerMethodHandle(type, taskName, methodName);
+    }
+
+    @Override
+    public void stop(ProfilerType type) {
+        if (type == ProfilerType.TOTAL_TASK_GRAPH_TIME) {
+            tracer.record(taskGraphName, TimelineTracer.CATEGORY_TASK_GRAPH, Thread.currentThread().getName(), taskGraphStartTime, System.nanoTime());
+        }
+        delegate.stop(type);
+    }
+
+    @Override
+    public void stop(ProfilerType type, String taskName) {
+        if (isTraced(type)) {
+            final long end = System.nanoTime();
+            long[] startTimes = taskStartTimes.get(taskName);
+            if (startTimes != null) {
+                tracer.record(type.getDescription() + " " + taskName, TimelineTracer.CATEGORY_COMPILE, Thread.currentThread().getName(), startTimes[type.ordinal()], end);
+            }
+        }
+        delegate.stop(type, taskName);
+    }
+
+    @Override
+    public long getTimer(ProfilerType type) {
+        return delegate.getTimer(type);
+    }
+
+    @Override
+    public long getSize(ProfilerType type) {
+        return delegate.getSize(type);
+    }
+
+    @Override
+    public long getTaskTimer(ProfilerType type, String taskName) {
+        return delegate.getTaskTimer(type, taskName);
+    }
+
+    @Override
+    public void setTimer(ProfilerType type, long time) {
+        delegate.setTimer(type, time);
+    }
+
+    @Override
+    public void dump() {
+        delegate.dump();
+    }
+
+    @Override
+    public String createJson(StringBuilder json, String sectionName) {
+        return delegate.createJson(json, sectionName);
+    }
+
+    @Override
+    public void dumpJson(StringBuilder stringBuffer, String id) {
+        delegate.dumpJson(stringBuffer, id);
+    }
+
+    @Override
+    public void clean() {
+        delegate.clean();
+    }
+
+    @Override
+    public void setTaskTimer(ProfilerType type, String taskId, long timer) {
+        delegate.setTaskTimer(type, taskId, timer);
+    }
+
+    @Override
+    public void setTaskPowerUsage(ProfilerType type, String taskId, long power) {
+        delegate.setTaskPowerUsage(type, taskId, power);
+    }
+
+    @Override
+    public void setSystemPowerConsumption(ProfilerType type, String taskId, long powerConsumption) {
+        delegate.setSystemPowerConsumption(type, taskId, powerConsumption);
+    }
+
+    @Override
+    public void setSystemVoltage(ProfilerType type, String taskId, long voltage) {
+        delegate.setSystemVoltage(type, taskId, voltage);
+    }
+
+    @Override
+    public void sum(ProfilerType type, long timer) {
+        delegate.sum(type, timer);
+    }
+}
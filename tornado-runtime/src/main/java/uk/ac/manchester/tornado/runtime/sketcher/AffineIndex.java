@@ -0,0 +1,157 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.sketcher;
+
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+
+/**
+ * The position of an access to an array argument, in bytes from the first
+ * element of the array, as an affine function of the induction variable
+ * {@code i} of the outermost parallel loop:
+ * {@code stride * i + offset + c_0 * j_0 + ... + c_n * j_n}, where each
+ * {@code j} is the counter of an inner loop. The terms are polynomials of the
+ * scalar arguments and of the sizes of the array arguments of the task, so
+ * they are only known when the task is launched (see {@link #resolve}).
+ *
+ * @param stride
+ *     Bytes between the accesses of two consecutive iterations.
+ * @param offset
+ *     Bytes from the access of the iteration to the first element of the
+ *     array when every counter is 0.
+ * @param counters
+ *     The counters of the inner loops that the access depends on.
+ * @param accessBytes
+ *     Number of bytes read or written by the access.
+ */
+public record AffineIndex(Polynomial stride, Polynomial offset, List<Counter> counters, int accessBytes) {
+
+    /**
+     * A value of the task that is known when it is launched.
+     *
+     * @param parameter
+     *     Index of the argument of the task.
+     * @param isSize
+     *     True for the number of elements of an array argument, false for the
+     *     value of a scalar argument.
+     */
+    public record Symbol(int parameter, boolean isSize) {
+
+        OptionalLong evaluate(Object[] arguments) {
+            if (parameter >= arguments.length) {
+                return OptionalLong.empty();
+            }
+            Object argument = arguments[parameter];
+            if (isSize && argument != null && argument.getClass().isArray()) {
+                return OptionalLong.of(Array.getLength(argument));
+            } else if (isSize && argument instanceof TornadoNativeArray nativeArray) {
+                return OptionalLong.of(nativeArray.getSizeLong());
+            } else if (!isSize && (argument instanceof Integer || argument instanceof Long || argument instanceof Short || argument instanceof Byte)) {
+                return OptionalLong.of(((Number) argument).longValue());
+            }
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * A sum of monomials. Each monomial is a product of symbols, and it maps to
+     * its coefficient. The empty product is the constant term.
+     */
+    public record Polynomial(Map<List<Symbol>, Long> monomials) {
+
+        public OptionalLong evaluate(Object[] arguments) {
+            try {
+                long result = 0;
+                for (Map.Entry<List<Symbol>, Long> monomial : monomials.entrySet()) {
+                    long value = monomial.getValue();
+                    for (Symbol symbol : monomial.getKey()) {
+                        OptionalLong symbolValue = symbol.evaluate(arguments);
+                        if (symbolValue.isEmpty()) {
+                            return OptionalLong.empty();
+                        }
+                        value = Math.multiplyExact(value, symbolValue.getAsLong());
+                    }
+                    result = Math.addExact(result, value);
+                }
+                return OptionalLong.of(result);
+            } catch (ArithmeticException e) {
+                return OptionalLong.empty();
+            }
+        }
+    }
+
+    /**
+     * The counter of an inner loop that goes up from {@code start} to
+     * {@code end - 1}, scaled by {@code coefficient} bytes.
+     */
+    public record Counter(Polynomial coefficient, Polynomial start, Polynomial end) {
+    }
+
+    /**
+     * The bytes of the array that the access uses in iteration {@code i} are in
+     * {@code [stride * i + first, stride * i + end)}. If the access is in an
+     * inner loop that does not run, {@code first} and {@code end} are 0.
+     */
+    public record Range(long stride, long first, long end) {
+    }
+
+    /**
+     * @param arguments
+     *     Arguments of the task.
+     * @return The range of bytes of each iteration, or null if a term does not
+     *     depend only on the arguments.
+     */
+    public Range resolve(Object[] arguments) {
+        OptionalLong strideValue = stride.evaluate(arguments);
+        OptionalLong offsetValue = offset.evaluate(arguments);
+        if (strideValue.isEmpty() || offsetValue.isEmpty()) {
+            return null;
+        }
+        try {
+            long first = offsetValue.getAsLong();
+            long last = offsetValue.getAsLong();
+            for (Counter counter : counters) {
+                OptionalLong coefficient = counter.coefficient().evaluate(arguments);
+                OptionalLong start = counter.start().evaluate(arguments);
+                OptionalLong end = counter.end().evaluate(arguments);
+                if (coefficient.isEmpty() || start.isEmpty() || end.isEmpty()) {
+                    return null;
+                } else if (end.getAsLong() <= start.getAsLong()) {
+                    return new Range(strideValue.getAsLong(), 0, 0);
+                }
+                long atStart = Math.multiplyExact(coefficient.getAsLong(), start.getAsLong());
+                long atEnd = Math.multiplyExact(coefficient.getAsLong(), end.getAsLong() - 1);
+                first = Math.addExact(first, Math.min(atStart, atEnd));
+                last = Math.addExact(last, Math.max(atStart, atEnd));
+            }
+            return new Range(strideValue.getAsLong(), first, Math.addExact(last, accessBytes));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+}
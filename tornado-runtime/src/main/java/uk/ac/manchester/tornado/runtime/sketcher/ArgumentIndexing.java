@@ -0,0 +1,67 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.sketcher;
+
+/**
+ * How a task indexes an array argument with respect to the iterations of its
+ * outermost parallel loop. Batch processing uses it to decide which arrays are
+ * split in batches and which ones are transferred whole.
+ */
+public enum ArgumentIndexing {
+
+    /**
+     * The argument is not accessed by index.
+     */
+    NONE,
+
+    /**
+     * Every access uses an index derived from the outermost parallel loop
+     * (e.g., the rows of a matrix).
+     */
+    PARALLEL,
+
+    /**
+     * No access depends on the outermost parallel loop (e.g., the vector of a
+     * matrix-vector multiplication, or a look-up table).
+     */
+    INVARIANT,
+
+    /**
+     * The argument is accessed with both kinds of indices, or it is passed to a
+     * method that is not inlined, so its shape per iteration is unknown.
+     */
+    UNKNOWN;
+
+    /**
+     * Combines the indexing of the same argument in two places of the code.
+     */
+    public ArgumentIndexing merge(ArgumentIndexing other) {
+        if (this == NONE || this == other) {
+            return other;
+        } else if (other == NONE) {
+            return this;
+        }
+        return UNKNOWN;
+    }
+}
@@ -39,9 +39,23 @@ public class Sketch {
      */
     private final Access[] argumentsAccess;
 
-    Sketch(Graph graph, Access[] argumentAccesses, boolean batchWriteThreadIndex) {
+    /**
+     * How the {@link #graph} indexes its arguments with respect to the outermost
+     * parallel loop.
+     */
+    private final ArgumentIndexing[] argumentsIndexing;
+
+    /**
+     * The accesses of the {@link #graph} to each argument as affine functions of
+     * the outermost parallel loop, or null if an access is not affine.
+     */
+    private final AffineIndex[][] argumentsIndices;
+
+    Sketch(Graph graph, Access[] argumentAccesses, ArgumentIndexing[] argumentsIndexing, AffineIndex[][] argumentsIndices, boolean batchWriteThreadIndex) {
         this.graph = graph;
         this.argumentsAccess = argumentAccesses;
+        this.argumentsIndexing = argumentsIndexing;
+        this.argumentsIndices = argumentsIndices;
         this.batchWriteThreadIndex = batchWriteThreadIndex;
     }
 
@@ -53,6 +67,14 @@ public class Sketch {
         return argumentsAccess;
     }
 
+    public ArgumentIndexing[] getArgumentsIndexing() {
+        return argumentsIndexing;
+    }
+
+    public AffineIndex[][] getArgumentsIndices() {
+        return argumentsIndices;
+    }
+
     public boolean getBatchWriteThreadIndex() {
         return this.batchWriteThreadIndex;
     }
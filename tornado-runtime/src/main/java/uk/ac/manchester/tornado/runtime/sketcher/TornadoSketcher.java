@@ -188,7 +188,8 @@ public class TornadoSketcher {
 
             methodAccesses = highTierAccesses;
 
-            return new Sketch(graph.copy(TornadoCoreRuntime.getDebugContext()), methodAccesses, highTierContext.getBatchWriteThreadIndex());
+            return new Sketch(graph.copy(TornadoCoreRuntime.getDebugContext()), methodAccesses, highTierContext.getArgumentIndexing(), highTierContext.getArgumentIndices(),
+                    highTierContext.getBatchWriteThreadIndex());
 
         } catch (Throwable e) {
             logger.fatal("unable to build sketch for method: %s (%s)", resolvedMethod.getName(), e.getMessage());
@@ -24,6 +24,7 @@
 package uk.ac.manchester.tornado.runtime.tasks;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Objects;
 
 import uk.ac.manchester.tornado.api.GridScheduler;
@@ -45,6 +46,7 @@ public class CompilableTask implements SchedulableTask {
     private long batchNumThreads;
     private int batchNumber;
     private long batchSize;
+    private Map<Object, Long> batchElementsPerThread;
 
     private TornadoProfiler profiler;
     private boolean forceCompiler;
@@ -165,6 +167,22 @@ public class CompilableTask implements SchedulableTask {
         return this.batchSize;
     }
 
+    /**
+     * It sets the number of elements per thread of each argument that is
+     * processed in batches. Arguments that are not in the map are transferred
+     * whole.
+     *
+     * @param batchElementsPerThread
+     *     Identity map from argument to its number of elements per thread.
+     */
+    public void setBatchElementsPerThread(Map<Object, Long> batchElementsPerThread) {
+        this.batchElementsPerThread = batchElementsPerThread;
+    }
+
+    public Map<Object, Long> getBatchElementsPerThread() {
+        return batchElementsPerThread;
+    }
+
     @Override
     public void attachProfiler(TornadoProfiler tornadoProfiler) {
         this.profiler = tornadoProfiler;
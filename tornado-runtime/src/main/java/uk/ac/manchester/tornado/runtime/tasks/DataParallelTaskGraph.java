@@ -0,0 +1,477 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.lang.annotation.Annotation;
+import java.lang.foreign.MemorySegment;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
+import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
+import uk.ac.manchester.tornado.api.types.arrays.ByteArray;
+import uk.ac.manchester.tornado.api.types.arrays.CharArray;
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.HalfFloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.Int8Array;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.LongArray;
+import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.fallback.JavaFallbackRunner;
+import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
+
+/**
+ * Splits the iteration space of a task-graph across several targets and runs
+ * the parts at the same time. Each device runs its own copy of the task-graph
+ * restricted to a range of iterations (see
+ * {@link TornadoExecutionContext#setIterationRange}), so only that range of the
+ * arrays processed in batches is transferred, and the outputs are copied back
+ * to disjoint ranges of the host arrays. The host target runs the sequential
+ * Java implementation of the tasks on copies of its range of the arrays.
+ * Since each target indexes its range from the first element, a task-graph
+ * whose tasks read or write elements of other iterations (e.g., a stencil) is
+ * rejected by {@link BatchConfiguration#computeChunkSizes}.
+ *
+ * <p>
+ * The range of each target is proportional to its measured throughput. The
+ * first execution splits the iteration space in equal parts. After each
+ * execution, the throughput of each target is updated with a moving average,
+ * and the ranges are recomputed in multiples of 1/{@value #SPLIT_GRANULES} of
+ * the iteration space. A new range recompiles the kernels of the target, so the
+ * ranges only change when a target gains or loses more than one granule, and
+ * the first execution after a change is not measured.
+ * </p>
+ */
+class DataParallelTaskGraph {
+
+    private static final String SPLIT_TASK_GRAPH_NAME = "split_";
+    private static final int SPLIT_GRANULES = 64;
+    private static final double THROUGHPUT_SMOOTHING = 0.5;
+
+    private final String taskGraphName;
+    private final List<TaskPackage> taskPackages;
+    private final List<Object> objects;
+    private final Map<Object, Access> accesses;
+    private final BatchConfiguration configuration;
+    private final long iterationSpace;
+    private final long granule;
+    private final Part[] parts;
+    private final Future<?>[] futures;
+
+    private ExecutorService executorService;
+    private ExecutorFrame partsFrame;
+
+    DataParallelTaskGraph(String taskGraphName, TornadoExecutionContext executionContext, List<TaskPackage> taskPackages, List<StreamingObject> inputs, List<StreamingObject> outputs,
+            List<ExecutionTarget> targets) {
+        if (targets.isEmpty()) {
+            throw new TornadoRuntimeException("[ERROR] The data-parallel split needs at least one target");
+        }
+        if (new HashSet<>(targets).size() != targets.size()) {
+            throw new TornadoRuntimeException("[ERROR] Each target can only be used once in a data-parallel split: " + targets);
+        }
+        checkTasks(taskPackages);
+
+        this.taskGraphName = taskGraphName;
+        this.taskPackages = taskPackages;
+        this.objects = executionContext.getObjects();
+        this.accesses = executionContext.getObjectsAccesses();
+        this.configuration = BatchConfiguration.computeChunkSizes(executionContext, TornadoExecutionContext.INIT_VALUE);
+        this.iterationSpace = configuration.getIterationSpace();
+        this.granule = Math.max(1, Math.ceilDiv(iterationSpace, SPLIT_GRANULES));
+        checkOutputs();
+
+        parts = new Part[targets.size()];
+        futures = new Future<?>[targets.size()];
+        for (int i = 0; i < parts.length; i++) {
+            ExecutionTarget target = targets.get(i);
+            TornadoTaskGraph taskGraph = null;
+            if (!target.javaSequential()) {
+                if (target.device() == null) {
+                    throw new TornadoRuntimeException("[ERROR] The target " + target + " has no device");
+                }
+                taskGraph = createTaskGraph(i, target.device(), inputs, outputs);
+            }
+            parts[i] = new Part(target, taskGraph);
+        }
+
+        double[] initialWeights = new double[parts.length];
+        Arrays.fill(initialWeights, 1.0);
+        applyRanges(computeSizes(initialWeights));
+    }
+
+    private static void checkTasks(List<TaskPackage> taskPackages) {
+        for (TaskPackage taskPackage : taskPackages) {
+            if (taskPackage.isPrebuiltTask()) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Pre-built task " + taskPackage.getId() + " cannot be split across devices");
+            }
+            Object[] taskParameters = taskPackage.getTaskParameters();
+            for (int i = 1; i < taskParameters.length; i++) {
+                if (taskParameters[i] instanceof KernelContext) {
+                    throw new TornadoRuntimeException("[UNSUPPORTED] Task " + taskPackage.getId() + " uses a KernelContext, so it cannot be split across devices");
+                }
+            }
+            Method method = TaskUtils.resolveMethodHandle(taskParameters[0]);
+            for (Annotation[] parameterAnnotations : method.getParameterAnnotations()) {
+                for (Annotation annotation : parameterAnnotations) {
+                    if (annotation instanceof Reduce) {
+                        throw new TornadoRuntimeException("[UNSUPPORTED] Task " + taskPackage.getId() + " is a reduction, so it cannot be split across devices");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Each target writes its range of the outputs, so every written object must
+     * be split by iterations.
+     */
+    private void checkOutputs() {
+        for (int i = 0; i < objects.size(); i++) {
+            if (isWritten(accesses.get(objects.get(i))) && !configuration.isBatched(i)) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] The output " + objects.get(i).getClass().getSimpleName() + " (index " + i
+                        + ") is not split by iterations, so the task-graph cannot be split across devices");
+            }
+        }
+    }
+
+    private static boolean isWritten(Access access) {
+        return access == Access.WRITE_ONLY || access == Access.READ_WRITE;
+    }
+
+    private TornadoTaskGraph createTaskGraph(int index, TornadoDevice device, List<StreamingObject> inputs, List<StreamingObject> outputs) {
+        TornadoTaskGraph taskGraph = new TornadoTaskGraph(TornadoTaskGraph.GENERATED_TASK_GRAPH_PREFIX + SPLIT_TASK_GRAPH_NAME + taskGraphName + "_" + index);
+        for (StreamingObject input : inputs) {
+            // The range of a device changes with the split, so the arrays split by iterations are copied in every execution
+            int objectIndex = objects.indexOf(input.getObject());
+            boolean isSplit = objectIndex != -1 && configuration.isBatched(objectIndex);
+            taskGraph.transferToDevice(isSplit ? DataTransferMode.EVERY_EXECUTION : input.getMode(), input.getObject());
+        }
+        taskPackages.forEach(taskGraph::addTask);
+        for (StreamingObject output : outputs) {
+            taskGraph.transferToHost(DataTransferMode.EVERY_EXECUTION, output.getObject());
+        }
+        taskGraph.setDevice(device);
+        return taskGraph;
+    }
+
+    /**
+     * It runs the targets at the same time and waits for all of them. The host
+     * arrays are complete when this method returns.
+     *
+     * @param executorFrame
+     *     {@link ExecutorFrame} of the execution plan.
+     */
+    void execute(ExecutorFrame executorFrame) {
+        if (executorService == null) {
+            // Daemon threads, so they do not keep the JVM alive if the plan is not closed
+            executorService = Executors.newFixedThreadPool(parts.length, Thread.ofPlatform().name("tornadovm-split-" + taskGraphName + "-", 0).daemon(true).factory());
+        }
+        if (partsFrame == null || partsFrame.getExecutionPlanId() != executorFrame.getExecutionPlanId()) {
+            partsFrame = new ExecutorFrame(executorFrame.getExecutionPlanId());
+        }
+        partsFrame.setProfilerMode(executorFrame.getProfilerMode());
+        partsFrame.setTimelineTracer(executorFrame.getTimelineTracer(), executorFrame.getTimelineTraceFile());
+
+        for (int i = 0; i < parts.length; i++) {
+            final Part part = parts[i];
+            futures[i] = part.size() > 0 ? executorService.submit(() -> run(part)) : null;
+        }
+
+        RuntimeException failure = null;
+        for (int i = 0; i < futures.length; i++) {
+            if (futures[i] == null) {
+                continue;
+            }
+            try {
+                futures[i].get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = propagate(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new TornadoRuntimeException(e);
+                }
+            }
+            futures[i] = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        rebalance();
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        } else if (throwable instanceof Error error) {
+            throw error;
+        }
+        return new TornadoRuntimeException((Exception) throwable);
+    }
+
+    private void run(Part part) {
+        final long start = System.nanoTime();
+        if (part.taskGraph == null) {
+            runOnHost(part.start, part.end);
+        } else {
+            part.taskGraph.execute(partsFrame);
+        }
+        final long end = System.nanoTime();
+        part.elapsedTime = end - start;
+        TimelineTracer tracer = partsFrame.getTimelineTracer();
+        if (tracer != null) {
+            tracer.record(taskGraphName + " " + part, TimelineTracer.CATEGORY_TASK_GRAPH, Thread.currentThread().getName(), start, end);
+        }
+    }
+
+    /**
+     * It runs the sequential Java implementation of the tasks for the iterations
+     * {@code [start, end)}. As on the devices, the tasks receive the range of
+     * the arrays split by iterations and the whole of the rest of the objects.
+     */
+    private void runOnHost(long start, long end) {
+        Map<Object, Object> ranges = new IdentityHashMap<>();
+        for (int i = 0; i < objects.size(); i++) {
+            if (configuration.isBatched(i)) {
+                Object object = objects.get(i);
+                long elementsPerIteration = configuration.getElementsPerIteration().get(object);
+                ranges.put(object, copyRange(object, (int) (start * elementsPerIteration), (int) ((end - start) * elementsPerIteration)));
+            }
+        }
+
+        for (TaskPackage taskPackage : taskPackages) {
+            Object[] taskParameters = taskPackage.getTaskParameters().clone();
+            for (int i = 1; i < taskParameters.length; i++) {
+                Object range = ranges.get(taskParameters[i]);
+                if (range != null) {
+                    taskParameters[i] = range;
+                }
+            }
+            JavaFallbackRunner.runSequential(taskPackage, taskParameters);
+        }
+
+        for (Map.Entry<Object, Object> entry : ranges.entrySet()) {
+            if (isWritten(accesses.get(entry.getKey()))) {
+                long elementsPerIteration = configuration.getElementsPerIteration().get(entry.getKey());
+                copyBack(entry.getValue(), entry.getKey(), (int) (start * elementsPerIteration));
+            }
+        }
+    }
+
+    private static Object copyRange(Object array, int from, int length) {
+        return switch (array) {
+            case ByteArray byteArray -> byteArray.slice(from, length);
+            case CharArray charArray -> charArray.slice(from, length);
+            case DoubleArray doubleArray -> doubleArray.slice(from, length);
+            case FloatArray floatArray -> floatArray.slice(from, length);
+            case HalfFloatArray halfFloatArray -> halfFloatArray.slice(from, length);
+            case IntArray intArray -> intArray.slice(from, length);
+            case LongArray longArray -> longArray.slice(from, length);
+            case ShortArray shortArray -> shortArray.slice(from, length);
+            case Int8Array int8Array -> int8Array.slice(from, length);
+            default -> {
+                Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+                System.arraycopy(array, from, copy, 0, length);
+                yield copy;
+            }
+        };
+    }
+
+    private static void copyBack(Object range, Object array, int from) {
+        if (range instanceof TornadoNativeArray nativeRange) {
+            TornadoNativeArray nativeArray = (TornadoNativeArray) array;
+            MemorySegment.copy(nativeRange.getSegment(), 0, nativeArray.getSegment(), (long) from * nativeArray.getElementSize(), nativeRange.getNumBytesOfSegment());
+        } else {
+            System.arraycopy(range, 0, array, from, Array.getLength(range));
+        }
+    }
+
+    /**
+     * It updates the throughput of each target with the last execution, and it
+     * moves the ranges if the split proportional to the throughput differs in
+     * more than one granule from the current one. A target without iterations
+     * keeps its last throughput, so it receives at least one granule again and
+     * its throughput is measured anew.
+     */
+    private void rebalance() {
+        double[] weights = new double[parts.length];
+        boolean isMeasured = true;
+        for (int i = 0; i < parts.length; i++) {
+            Part part = parts[i];
+            if (part.size() == 0) {
+                weights[i] = Double.isNaN(part.throughput) ? 0 : part.throughput;
+                continue;
+            }
+            if (part.rangeChanged) {
+                // The first execution with a new range includes the compilation of the kernels
+                part.rangeChanged = false;
+                isMeasured = false;
+                continue;
+            }
+            double throughput = (double) part.size() / Math.max(1, part.elapsedTime);
+            part.throughput = Double.isNaN(part.throughput) ? throughput : THROUGHPUT_SMOOTHING * throughput + (1 - THROUGHPUT_SMOOTHING) * part.throughput;
+            weights[i] = part.throughput;
+        }
+        if (!isMeasured) {
+            return;
+        }
+
+        long[] sizes = computeSizes(weights);
+        for (int i = 0; i < parts.length; i++) {
+            if (Math.abs(sizes[i] - parts[i].size()) > granule || (parts[i].size() == 0 && sizes[i] > 0)) {
+                applyRanges(sizes);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param weights
+     *     Relative throughput of each target. Targets with weight 0 do not
+     *     receive iterations.
+     * @return Number of iterations of each target. Each target with a weight
+     *     receives at least one granule, if there are enough granules.
+     */
+    private long[] computeSizes(double[] weights) {
+        final long totalGranules = Math.ceilDiv(iterationSpace, granule);
+        double totalWeight = 0;
+        int fastest = -1;
+        for (int i = 0; i < weights.length; i++) {
+            totalWeight += weights[i];
+            if (weights[i] > 0 && (fastest == -1 || weights[i] > weights[fastest])) {
+                fastest = i;
+            }
+        }
+
+        long[] granules = new long[weights.length];
+        long assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0 && assigned < totalGranules) {
+                granules[i] = Math.max(1, (long) (weights[i] / totalWeight * totalGranules));
+                assigned += granules[i];
+            }
+        }
+        granules[fastest] += totalGranules - assigned;
+        // The minimum of one granule per target can assign more granules than available
+        for (int i = 0; granules[fastest] < 1 && i < weights.length; i++) {
+            long moved = Math.min(granules[i] - 1, 1 - granules[fastest]);
+            if (i != fastest && moved > 0) {
+                granules[i] -= moved;
+                granules[fastest] += moved;
+            }
+        }
+
+        long[] sizes = new long[weights.length];
+        long start = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sizes[i] = Math.min(granules[i] * granule, iterationSpace - start);
+            start += sizes[i];
+        }
+        return sizes;
+    }
+
+    private void applyRanges(long[] sizes) {
+        long start = 0;
+        for (int i = 0; i < parts.length; i++) {
+            Part part = parts[i];
+            long end = start + sizes[i];
+            if (part.start != start || part.end != end) {
+                part.start = start;
+                part.end = end;
+                part.rangeChanged = true;
+                if (part.taskGraph != null) {
+                    part.taskGraph.setIterationRange(start, end);
+                }
+            }
+            start = end;
+        }
+        if (TornadoOptions.DEBUG) {
+            System.out.println("[DEBUG] Data-parallel split of " + taskGraphName + ": " + Arrays.toString(parts));
+        }
+    }
+
+    /**
+     * It frees the device memory of the targets and stops their threads.
+     */
+    void close() {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+        for (Part part : parts) {
+            if (part.taskGraph != null) {
+                part.taskGraph.freeDeviceMemory();
+            }
+        }
+    }
+
+    private static final class Part {
+        private final ExecutionTarget target;
+        private final TornadoTaskGraph taskGraph;
+        private long start;
+        private long end;
+        private long elapsedTime;
+        private double throughput = Double.NaN;
+        private boolean rangeChanged;
+
+        private Part(ExecutionTarget target, TornadoTaskGraph taskGraph) {
+            this.target = target;
+            this.taskGraph = taskGraph;
+        }
+
+        private long size() {
+            return end - start;
+        }
+
+        @Override
+        public String toString() {
+            return target + "=[" + start + ", " + end + ")";
+        }
+    }
+}
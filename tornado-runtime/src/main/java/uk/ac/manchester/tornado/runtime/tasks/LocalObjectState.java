@@ -25,6 +25,7 @@ package uk.ac.manchester.tornado.runtime.tasks;
 
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.DeviceBufferVersions;
 import uk.ac.manchester.tornado.runtime.common.XPUDeviceBufferState;
 
 /**
@@ -127,6 +128,7 @@ public class LocalObjectState {
         XPUDeviceBufferState deviceState = dataObjectState.getDeviceBufferState(device);
         if (deviceState.isLockedBuffer()) {
             int eventId = device.streamOutBlocking(executionPlanId, object, 0, deviceState, null);
+            DeviceBufferVersions.updateFromDevice(object, deviceState, true);
             return device.resolveEvent(executionPlanId, eventId);
         }
         return null;
@@ -0,0 +1,251 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework:
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import static uk.ac.manchester.tornado.runtime.common.TornadoOptions.DEBUG;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions;
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider;
+import uk.ac.manchester.tornado.runtime.ASMClassVisitorProvider.FusedClass;
+import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+
+/**
+ * Fuses consecutive element-wise tasks of a task-graph into a single task (see
+ * {@link TornadoOptions#TASK_FUSION}). The tasks of a group are static methods
+ * with a single parallel loop over the same iteration space. Their bodies are
+ * copied into a single loop of a new static method, so the group is compiled
+ * and launched as one kernel. The arguments shared by several tasks are passed
+ * once, and the intermediate results that are not live-out of the group are
+ * kept in local variables of the loop, so they need no device buffer.
+ */
+final class TaskFusion {
+
+    private static final String FUSED_CLASS_SUFFIX = "$$TornadoFused$";
+    private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+    private static final int MAX_PARAMETERS = 15;
+
+    private TaskFusion() {
+    }
+
+    /**
+     * Group of consecutive tasks, the class file of their fused method and the
+     * arguments that it receives.
+     */
+    private record FusedGroup(List<TaskPackage> tasks, List<Method> methods, Object[] arguments, byte[] classFile) {
+    }
+
+    /**
+     * @return The task method, or null if the task cannot be fused.
+     */
+    private static Method fusableMethod(TaskPackage taskPackage) {
+        if (taskPackage.isPrebuiltTask() || taskPackage.getNumThreadsToRun() != 0) {
+            return null;
+        }
+        Object[] taskParameters = taskPackage.getTaskParameters();
+        Method method = TaskUtils.resolveMethodHandle(taskParameters[0]);
+        // Lambdas that capture variables pass extra arguments to the task method
+        if (!Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != taskParameters.length - 1 || TaskUtils.hasReduceParameters(method)) {
+            return null;
+        }
+        for (int i = 1; i < taskParameters.length; i++) {
+            if (taskParameters[i] instanceof KernelContext) {
+                return null;
+            }
+        }
+        return method;
+    }
+
+    private static boolean isSameRuntimePackage(Method method, Method other) {
+        Class<?> hostClass = method.getDeclaringClass();
+        Class<?> otherClass = other.getDeclaringClass();
+        return hostClass.getPackageName().equals(otherClass.getPackageName()) && hostClass.getClassLoader() == otherClass.getClassLoader();
+    }
+
+    private static boolean isUsedOutside(Object argument, List<TaskPackage> taskPackages, List<TaskPackage> tasks) {
+        for (TaskPackage taskPackage : taskPackages) {
+            if (tasks.stream().noneMatch(task -> task == taskPackage)) {
+                Object[] taskParameters = taskPackage.getTaskParameters();
+                for (int j = 1; j < taskParameters.length; j++) {
+                    if (taskParameters[j] == argument) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static FusedGroup buildGroup(ASMClassVisitorProvider provider, List<TaskPackage> taskPackages, Set<Object> liveObjects, List<TaskPackage> tasks, List<Method> methods) {
+        // Objects are shared by identity. Scalars are passed by value, so each one gets its own parameter.
+        List<Object> arguments = new ArrayList<>();
+        int[][] parameterMapping = new int[tasks.size()][];
+        for (int k = 0; k < tasks.size(); k++) {
+            Object[] taskParameters = tasks.get(k).getTaskParameters();
+            parameterMapping[k] = new int[taskParameters.length - 1];
+            for (int j = 1; j < taskParameters.length; j++) {
+                Object argument = taskParameters[j];
+                int index = -1;
+                for (int i = 0; i < arguments.size() && !(argument instanceof Number); i++) {
+                    if (arguments.get(i) == argument) {
+                        index = i;
+                        break;
+                    }
+                }
+                if (index == -1) {
+                    index = arguments.size();
+                    arguments.add(argument);
+                }
+                parameterMapping[k][j - 1] = index;
+            }
+        }
+        StringJoiner methodName = new StringJoiner("_", "fused_", "");
+        methods.forEach(method -> methodName.add(method.getName()));
+        Class<?> hostClass = methods.getFirst().getDeclaringClass();
+        String className = hostClass.getName().replace('.', '/') + FUSED_CLASS_SUFFIX + CLASS_COUNTER.getAndIncrement();
+        Object[] argumentValues = arguments.toArray();
+        boolean[] isLiveOut = new boolean[argumentValues.length];
+        for (int i = 0; i < argumentValues.length; i++) {
+            isLiveOut[i] = liveObjects.contains(argumentValues[i]) || isUsedOutside(argumentValues[i], taskPackages, tasks);
+        }
+        FusedClass fusedClass = provider.getFusedClass(methods.toArray(new Method[0]), parameterMapping, argumentValues, isLiveOut, className, methodName.toString());
+        if (fusedClass == null || fusedClass.parameters().length > MAX_PARAMETERS) {
+            return null;
+        }
+        Object[] fusedArguments = new Object[fusedClass.parameters().length];
+        for (int i = 0; i < fusedArguments.length; i++) {
+            fusedArguments[i] = argumentValues[fusedClass.parameters()[i]];
+        }
+        return new FusedGroup(List.copyOf(tasks), List.copyOf(methods), fusedArguments, fusedClass.classFile());
+    }
+
+    private static TaskPackage defineFusedTask(FusedGroup group) {
+        Class<?> hostClass = group.methods().getFirst().getDeclaringClass();
+        StringJoiner id = new StringJoiner("_");
+        group.tasks().forEach(task -> id.add(task.getId()));
+        try {
+            TaskFusion.class.getModule().addReads(hostClass.getModule());
+            MethodHandles.Lookup hostLookup = MethodHandles.privateLookupIn(hostClass, MethodHandles.lookup());
+            Class<?> fusedClass = hostLookup.defineClass(group.classFile());
+            Object code = hostLookup.findConstructor(fusedClass, MethodType.methodType(void.class)).invoke();
+            return createPackage(id.toString(), code, group.arguments());
+        } catch (Throwable e) {
+            if (DEBUG) {
+                System.out.println("[DEBUG] Tasks " + id + " cannot be fused: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static TaskPackage createPackage(String id, Object code, Object[] a) {
+        return switch (a.length) {
+            case 0 -> new TaskPackage(id, (TornadoFunctions.Task) code);
+            case 1 -> new TaskPackage(id, (TornadoFunctions.Task1) code, a[0]);
+            case 2 -> new TaskPackage(id, (TornadoFunctions.Task2) code, a[0], a[1]);
+            case 3 -> new TaskPackage(id, (TornadoFunctions.Task3) code, a[0], a[1], a[2]);
+            case 4 -> new TaskPackage(id, (TornadoFunctions.Task4) code, a[0], a[1], a[2], a[3]);
+            case 5 -> new TaskPackage(id, (TornadoFunctions.Task5) code, a[0], a[1], a[2], a[3], a[4]);
+            case 6 -> new TaskPackage(id, (TornadoFunctions.Task6) code, a[0], a[1], a[2], a[3], a[4], a[5]);
+            case 7 -> new TaskPackage(id, (TornadoFunctions.Task7) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6]);
+            case 8 -> new TaskPackage(id, (TornadoFunctions.Task8) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7]);
+            case 9 -> new TaskPackage(id, (TornadoFunctions.Task9) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8]);
+            case 10 -> new TaskPackage(id, (TornadoFunctions.Task10) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9]);
+            case 11 -> new TaskPackage(id, (TornadoFunctions.Task11) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10]);
+            case 12 -> new TaskPackage(id, (TornadoFunctions.Task12) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10], a[11]);
+            case 13 -> new TaskPackage(id, (TornadoFunctions.Task13) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10], a[11], a[12]);
+            case 14 -> new TaskPackage(id, (TornadoFunctions.Task14) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10], a[11], a[12], a[13]);
+            case 15 -> new TaskPackage(id, (TornadoFunctions.Task15) code, a[0], a[1], a[2], a[3], a[4], a[5], a[6], a[7], a[8], a[9], a[10], a[11], a[12], a[13], a[14]);
+            default -> null;
+        };
+    }
+
+    /**
+     * Fuses the groups of consecutive tasks that can run as a single kernel.
+     *
+     * @param taskPackages
+     *     Tasks of the task-graph, in order.
+     * @param liveObjects
+     *     Objects, compared by identity, that are used outside the tasks, such
+     *     as the objects transferred from or to the host.
+     * @return The new list of tasks, or null if no tasks have been fused.
+     */
+    static List<TaskPackage> fuse(List<TaskPackage> taskPackages, Set<Object> liveObjects) {
+        ASMClassVisitorProvider provider = TaskUtils.getASMClassVisitorProvider();
+        if (provider == null || taskPackages.size() < 2) {
+            return null;
+        }
+
+        List<TaskPackage> fusedTasks = new ArrayList<>();
+        boolean isFused = false;
+        int i = 0;
+        while (i < taskPackages.size()) {
+            Method method = fusableMethod(taskPackages.get(i));
+            List<TaskPackage> tasks = new ArrayList<>(List.of(taskPackages.get(i)));
+            List<Method> methods = new ArrayList<>();
+            if (method != null) {
+                methods.add(method);
+            }
+
+            // Extend the group while the next task can still be fused with it
+            FusedGroup group = null;
+            for (int j = i + 1; method != null && j < taskPackages.size(); j++) {
+                Method next = fusableMethod(taskPackages.get(j));
+                if (next == null || !isSameRuntimePackage(method, next)) {
+                    break;
+                }
+                tasks.add(taskPackages.get(j));
+                methods.add(next);
+                FusedGroup candidate = buildGroup(provider, taskPackages, liveObjects, tasks, methods);
+                if (candidate == null) {
+                    break;
+                }
+                group = candidate;
+            }
+
+            TaskPackage fusedTask = group == null ? null : defineFusedTask(group);
+            if (fusedTask != null) {
+                fusedTasks.add(fusedTask);
+                i += group.tasks().size();
+                isFused = true;
+            } else {
+                fusedTasks.add(taskPackages.get(i));
+                i++;
+            }
+        }
+        return isFused ? fusedTasks : null;
+    }
+}
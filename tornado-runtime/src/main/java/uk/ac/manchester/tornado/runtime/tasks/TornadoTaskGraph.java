@@ -40,6 +40,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -87,6 +89,7 @@ import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoTaskRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.runtime.ExecutorFrame;
@@ -101,20 +104,26 @@ import uk.ac.manchester.tornado.runtime.TornadoVM;
 import uk.ac.manchester.tornado.runtime.analyzer.MetaReduceCodeAnalysis;
 import uk.ac.manchester.tornado.runtime.analyzer.ReduceCodeAnalysis;
 import uk.ac.manchester.tornado.runtime.analyzer.TaskUtils;
+import uk.ac.manchester.tornado.runtime.common.BatchChunk;
 import uk.ac.manchester.tornado.runtime.common.BatchConfiguration;
+import uk.ac.manchester.tornado.runtime.common.DeviceBufferVersions;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.common.TornadoVMClient;
 import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
 import uk.ac.manchester.tornado.runtime.common.XPUDeviceBufferState;
+import uk.ac.manchester.tornado.runtime.fallback.JavaFallbackRunner;
 import uk.ac.manchester.tornado.runtime.graal.compiler.TornadoSuitesProvider;
 import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraph;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphBuilder;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeBuilder;
+import uk.ac.manchester.tornado.runtime.metrics.LatencyHistogram;
+import uk.ac.manchester.tornado.runtime.metrics.MetricsRegistry;
 import uk.ac.manchester.tornado.runtime.profiler.EmptyProfiler;
 import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
+import uk.ac.manchester.tornado.runtime.profiler.TracingProfiler;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
@@ -147,8 +156,8 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
      * One TornadoVM instance per TornadoExecutionPlan.
      */
     private TornadoVM vm;
-    // HashMap to keep an instance of the TornadoVM per Device
-    private Map<TornadoXPUDevice, TornadoVM> vmTable;
+    // Map to keep an instance of the TornadoVM per device and batch configuration
+    private Map<VMConfiguration, TornadoVM> vmTable;
     private Event event;
     private String taskGraphName;
     private List<TaskPackage> taskPackages;
@@ -176,6 +185,16 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     private long executionPlanId;
     private boolean bailout;
     private Access[] accesses;
+    private DataParallelTaskGraph dataParallelTaskGraph;
+    /**
+     * True if the tasks of this task-graph are the result of fusing the tasks of
+     * another task-graph.
+     */
+    private boolean isFused;
+    /**
+     * Latency of each execution, only set when metrics are enabled.
+     */
+    private LatencyHistogram taskGraphLatency;
 
     /**
      * Task Schedule implementation that uses GPU/FPGA and multicore backends. This constructor must be public. It is invoked using the reflection API.
@@ -191,7 +210,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         bytecodeBuilder = null;
         event = null;
         this.taskGraphName = taskScheduleName;
-        vmTable = new HashMap<>();
+        vmTable = createVMTable();
         argumentsLookUp = new HashSet<>();
         taskPackages = new ArrayList<>();
         streamOutObjects = new ArrayList<>();
@@ -297,6 +316,13 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     public TornadoTaskGraph createImmutableTaskGraph() {
 
+        if (TornadoOptions.TASK_FUSION && !isFused) {
+            TornadoTaskGraph fusedTaskGraph = createFusedTaskGraph();
+            if (fusedTaskGraph != null) {
+                return fusedTaskGraph.createImmutableTaskGraph();
+            }
+        }
+
         TornadoTaskGraph newTaskGraph = new TornadoTaskGraph(this.taskGraphName);
 
         newTaskGraph.accesses = this.accesses;
@@ -331,6 +357,53 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         return newTaskGraph;
     }
 
+    /**
+     * It builds a copy of this task-graph in which the consecutive element-wise
+     * tasks are fused into a single task. See {@link TaskFusion}.
+     *
+     * @return The fused task-graph, or null if no tasks can be fused.
+     */
+    private TornadoTaskGraph createFusedTaskGraph() {
+        // Objects consumed from other task-graphs are not replayed in the fused task-graph
+        if (taskPackages.size() < 2 || !executionContext.getPersistedTaskToObjectsMap().isEmpty()) {
+            return null;
+        }
+        for (Object persistedObject : executionContext.getPersistedObjects()) {
+            if (outputModeObjects.stream().noneMatch(output -> output.getObject() == persistedObject && output.getMode() == DataTransferMode.UNDER_DEMAND)) {
+                return null;
+            }
+        }
+
+        // The objects transferred from or to the host cannot be replaced with locals of the fused kernel
+        Set<Object> liveObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        inputModesObjects.forEach(input -> liveObjects.add(input.getObject()));
+        outputModeObjects.forEach(output -> liveObjects.add(output.getObject()));
+        List<TaskPackage> fusedTasks = TaskFusion.fuse(taskPackages, liveObjects);
+        if (fusedTasks == null) {
+            return null;
+        }
+
+        TornadoTaskGraph fusedTaskGraph = new TornadoTaskGraph(taskGraphName);
+        fusedTaskGraph.isFused = true;
+        try {
+            inputModesObjects.forEach(input -> fusedTaskGraph.transferToDevice(input.getMode(), input.getObject()));
+            for (TaskPackage taskPackage : fusedTasks) {
+                if (taskPackage.isPrebuiltTask()) {
+                    fusedTaskGraph.addPrebuiltTask(taskPackage);
+                } else {
+                    fusedTaskGraph.addTask(taskPackage);
+                }
+            }
+            outputModeObjects.forEach(output -> fusedTaskGraph.transferToHost(output.getMode(), output.getObject()));
+        } catch (TornadoBailoutRuntimeException e) {
+            if (DEBUG) {
+                System.out.println("[DEBUG] Task-graph " + taskGraphName + " runs without fusion: " + e.getMessage());
+            }
+            return null;
+        }
+        return fusedTaskGraph;
+    }
+
     @Override
     public void enableProfiler(ProfilerMode profilerMode) {
         this.profilerMode = profilerMode;
@@ -432,6 +505,10 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
         // Then we need to copy the pointers
         deviceDest.mapDeviceRegion(executionPlanId, destArray, srcArray, deviceStateSrc, deviceStateDest, offset);
+
+        // Writes through one of the buffers change the content of the other one
+        DeviceBufferVersions.disable(deviceStateSrc.getXPUBuffer());
+        DeviceBufferVersions.disable(deviceStateDest.getXPUBuffer());
     }
 
     @Override
@@ -566,8 +643,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         List<Object> objectsToSync = executionContext.getPersistedTaskToObjectsMap().get(graphSrc.taskGraphName);
 
         if (objectsToSync == null) {
+            // The objects consumed without a source task-graph are not registered as
+            // persisted by this task-graph, as they still need a buffer here
             objectsToSync = executionContext.getPersistedObjects();
-            executionContext.addPersistedObject(this.taskGraphName, objectsToSync);
         }
 
         for (Object objectToSync : objectsToSync) {
@@ -808,16 +886,27 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private boolean compileComputeGraphToTornadoVMBytecode() {
         CompileInfo compileInfo = extractCompileInfo();
+        final VMConfiguration configuration = new VMConfiguration(meta().getXPUDevice(), executionContext.getBatchSize(), executionContext.getBatchChunksInFlight(), executionContext
+                .getIterationRangeStart(), executionContext.getIterationRangeEnd());
+        if (!compileInfo.compile && !vmTable.containsKey(configuration)) {
+            // The batch configuration changed since the bytecode for this device was built
+            compileInfo = COMPILE_ONLY;
+        }
         if (compileInfo.compile) {
             timeProfiler.start(ProfilerType.TOTAL_BYTE_CODE_GENERATION);
             executionContext.scheduleTaskToDevices();
             TornadoVM tornadoVM = compileGraphAndBuildVM(compileInfo.updateDevice);
-            vmTable.put(meta().getXPUDevice(), tornadoVM);
+            TornadoVM previousVM = vmTable.put(configuration, tornadoVM);
+            if (previousVM != null) {
+                previousVM.close();
+            }
+            evictOtherIterationRanges(configuration);
             timeProfiler.stop(ProfilerType.TOTAL_BYTE_CODE_GENERATION);
         }
         executionContext.addLastDevice(meta().getXPUDevice());
 
-        vm = vmTable.get(meta().getXPUDevice());
+        final TornadoVM previousVM = vm;
+        vm = vmTable.get(configuration);
 
         /*
          * Set the grid scheduler outside the constructor of the {@link
@@ -828,7 +917,8 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
          */
         vm.setGridScheduler(gridScheduler);
 
-        if (updateData) {
+        if (updateData || (previousVM != null && previousVM != vm)) {
+            // The call wrappers are shared by all the TornadoVM instances of the task-graph
             executionContext.newCallWrapper(true);
         } else {
             executionContext.newCallWrapper(compileInfo.updateDevice);
@@ -900,7 +990,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     private void deoptimiseToSequentialJava(TornadoBailoutRuntimeException e) {
         dumpDeoptimisationReason(e);
-        runAllTasksJavaSequential();
+        runAllTasksJava();
     }
 
     @Override
@@ -1127,6 +1217,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     @Override
     public void withPreCompilation(ExecutorFrame executionPackage) {
+        executionContext.setTimelineTracer(executionPackage.getTimelineTracer());
         setupProfiler();
         getDevice().getDeviceContext().setResetToFalse();
         timeProfiler.clean();
@@ -1195,6 +1286,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
     @Override
     public void freeDeviceMemory() {
+        if (dataParallelTaskGraph != null) {
+            dataParallelTaskGraph.close();
+        }
         free();
     }
 
@@ -1226,6 +1320,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
 
         freeIOObjects();
         meta().getXPUDevice().getDeviceContext().reset(executionPlanId);
+        vmTable.values().forEach(TornadoVM::close);
     }
 
     private void freeDeviceMemoryObject(Object object, Access access) {
@@ -1261,7 +1356,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         final TornadoXPUDevice device = meta().getXPUDevice();
         final XPUDeviceBufferState deviceState = dataObjectState.getDeviceBufferState(device);
         if (deviceState.isLockedBuffer()) {
-            return device.resolveEvent(executionPlanId, device.streamOutBlocking(executionPlanId, object, 0, deviceState, null));
+            int eventId = device.streamOutBlocking(executionPlanId, object, 0, deviceState, null);
+            DeviceBufferVersions.updateFromDevice(object, deviceState, true);
+            return device.resolveEvent(executionPlanId, eventId);
         }
         return null;
     }
@@ -1274,7 +1371,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         final XPUDeviceBufferState deviceState = dataObjectState.getDeviceBufferState(device);
         deviceState.setPartialCopySize(partialCopySize);
         if (deviceState.isLockedBuffer()) {
-            return device.resolveEvent(executionPlanId, device.streamOutBlocking(executionPlanId, object, offset, deviceState, null));
+            int eventId = device.streamOutBlocking(executionPlanId, object, offset, deviceState, null);
+            DeviceBufferVersions.updateFromDevice(object, deviceState, false);
+            return device.resolveEvent(executionPlanId, eventId);
         }
         return null;
     }
@@ -1287,24 +1386,20 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         final XPUDeviceBufferState deviceBufferState = dataObjectState.getDeviceBufferState(device);
         if (deviceBufferState.isLockedBuffer()) {
             deviceBufferState.getXPUBuffer().setSizeSubRegion(bufferSize);
-            return device.resolveEvent(executionPlanId, device.streamOutBlocking(executionPlanId, object, hostOffset, deviceBufferState, null));
+            int eventId = device.streamOutBlocking(executionPlanId, object, hostOffset, deviceBufferState, null);
+            DeviceBufferVersions.updateFromDevice(object, deviceBufferState, false);
+            return device.resolveEvent(executionPlanId, eventId);
         }
         return null;
     }
 
     private Event syncParameter(Object object) {
         Event eventParameter = null;
-        if (batchSizeBytes != TornadoExecutionContext.INIT_VALUE) {
-            BatchConfiguration batchConfiguration = BatchConfiguration.computeChunkSizes(executionContext, batchSizeBytes);
-            long hostOffset = 0;
-            for (int i = 0; i < batchConfiguration.getTotalChunks(); i++) {
-                hostOffset = (batchSizeBytes * i);
-                eventParameter = syncObjectInnerLazy(object, hostOffset, batchSizeBytes);
-            }
-            // Last chunk
-            if (batchConfiguration.getRemainingChunkSize() != 0) {
-                hostOffset += batchSizeBytes;
-                eventParameter = syncObjectInnerLazy(object, hostOffset, batchConfiguration.getRemainingChunkSize());
+        BatchConfiguration batchConfiguration = batchSizeBytes != TornadoExecutionContext.INIT_VALUE ? BatchConfiguration.computeChunkSizes(executionContext, batchSizeBytes) : null;
+        final int objectIndex = executionContext.getObjects().indexOf(object);
+        if (batchConfiguration != null && objectIndex != -1 && batchConfiguration.isBatched(objectIndex)) {
+            for (BatchChunk chunk : batchConfiguration.getChunks()) {
+                eventParameter = syncObjectInnerLazy(object, chunk.offsetOf(objectIndex), chunk.sizeOf(objectIndex));
             }
         } else {
             eventParameter = syncObjectInner(object);
@@ -1523,6 +1618,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         } else {
             this.timeProfiler = new EmptyProfiler();
         }
+        if (executionContext.getTimelineTracer() != null) {
+            this.timeProfiler = new TracingProfiler(timeProfiler, executionContext.getTimelineTracer(), taskGraphName);
+        }
         executionContext.withProfiler(timeProfiler);
         for (SchedulableTask task : executionContext.getTasks()) {
             logTaskMethodHandle(task);
@@ -1533,7 +1631,7 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         if (!TornadoOptions.RECOVER_BAILOUT) {
             throw new TornadoBailoutRuntimeException("[TornadoVM] Error - Recover option disabled");
         } else {
-            runAllTasksJavaSequential();
+            runAllTasksJava();
         }
     }
 
@@ -1582,6 +1680,21 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         return this;
     }
 
+    /**
+     * Runs all tasks with their sequential Java implementation, e.g., when a
+     * device policy selects the host.
+     */
+    private TornadoTaskGraphInterface executeJavaSequential() {
+        isFinished = false;
+        setupProfiler();
+        timeProfiler.clean();
+        timeProfiler.start(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+        runAllTasksJava();
+        timeProfiler.stop(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+        cleanUp();
+        return this;
+    }
+
     private void checkProfilerOn(ExecutorFrame executorFrame) {
         if (executorFrame.getProfilerMode() != null) {
             enableProfiler(executorFrame.getProfilerMode());
@@ -1590,12 +1703,45 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         }
     }
 
+    /**
+     * Runs the task-graph split across the targets of the data-parallel split.
+     */
+    private TornadoTaskGraphInterface executeDataParallel(ExecutorFrame executorFrame) {
+        isFinished = false;
+        setupProfiler();
+        timeProfiler.clean();
+        timeProfiler.start(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+        dataParallelTaskGraph.execute(executorFrame);
+        timeProfiler.stop(ProfilerType.TOTAL_TASK_GRAPH_TIME);
+        cleanUp();
+        return this;
+    }
+
     @Override
     public TornadoTaskGraphInterface execute(ExecutorFrame executorFrame) {
         executionPlanId = executorFrame.getExecutionPlanId();
+        executionContext.setTimelineTracer(executorFrame.getTimelineTracer());
+        executionContext.setAutoTuningIterations(executorFrame.getAutoTuningIterations());
         checkProfilerOn(executorFrame);
-        return execute();
+        if (!MetricsRegistry.isEnabled()) {
+            return dispatchExecution(executorFrame);
+        }
+        if (taskGraphLatency == null) {
+            taskGraphLatency = MetricsRegistry.getInstance().histogram(MetricsRegistry.TASK_GRAPH_LATENCY, taskGraphName, null);
+        }
+        final long start = System.nanoTime();
+        TornadoTaskGraphInterface taskGraph = dispatchExecution(executorFrame);
+        taskGraphLatency.record(System.nanoTime() - start);
+        return taskGraph;
+    }
 
+    private TornadoTaskGraphInterface dispatchExecution(ExecutorFrame executorFrame) {
+        if (executorFrame.isJavaSequential()) {
+            return executeJavaSequential();
+        } else if (dataParallelTaskGraph != null) {
+            return executeDataParallel(executorFrame);
+        }
+        return execute();
     }
 
     private boolean isTaskNamePresent(String taskName) {
@@ -1612,100 +1758,9 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
         return gridTaskNames.stream().anyMatch(this::isTaskNamePresent);
     }
 
-    @SuppressWarnings("unchecked")
-    private void runSequentialCodeInThread(TaskPackage taskPackage) {
-        int type = taskPackage.getTaskType();
-        switch (type) {
-            case 0 -> {
-                @SuppressWarnings("rawtypes") Task task = (Task) taskPackage.getTaskParameters()[0];
-                task.apply();
-            }
-            case 1 -> {
-                @SuppressWarnings("rawtypes") Task1 task1 = (Task1) taskPackage.getTaskParameters()[0];
-                task1.apply(taskPackage.getTaskParameters()[1]);
-            }
-            case 2 -> {
-                @SuppressWarnings("rawtypes") Task2 task2 = (Task2) taskPackage.getTaskParameters()[0];
-                task2.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2]);
-            }
-            case 3 -> {
-                @SuppressWarnings("rawtypes") Task3 task3 = (Task3) taskPackage.getTaskParameters()[0];
-                task3.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3]);
-            }
-            case 4 -> {
-                @SuppressWarnings("rawtypes") Task4 task4 = (Task4) taskPackage.getTaskParameters()[0];
-                task4.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4]);
-            }
-            case 5 -> {
-                @SuppressWarnings("rawtypes") Task5 task5 = (Task5) taskPackage.getTaskParameters()[0];
-                task5.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5]);
-            }
-            case 6 -> {
-                @SuppressWarnings("rawtypes") Task6 task6 = (Task6) taskPackage.getTaskParameters()[0];
-                task6.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6]);
-            }
-            case 7 -> {
-                @SuppressWarnings("rawtypes") Task7 task7 = (Task7) taskPackage.getTaskParameters()[0];
-                task7.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7]);
-            }
-            case 8 -> {
-                @SuppressWarnings("rawtypes") Task8 task8 = (Task8) taskPackage.getTaskParameters()[0];
-                task8.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8]);
-            }
-            case 9 -> {
-                @SuppressWarnings("rawtypes") Task9 task9 = (Task9) taskPackage.getTaskParameters()[0];
-                task9.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9]);
-            }
-            case 10 -> {
-                @SuppressWarnings("rawtypes") Task10 task10 = (Task10) taskPackage.getTaskParameters()[0];
-                task10.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10]);
-            }
-            case 11 -> {
-                @SuppressWarnings("rawtypes") Task11 task11 = (Task11) taskPackage.getTaskParameters()[0];
-                task11.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10], taskPackage.getTaskParameters()[11]);
-            }
-            case 12 -> {
-                @SuppressWarnings("rawtypes") Task12 task12 = (Task12) taskPackage.getTaskParameters()[0];
-                task12.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10], taskPackage.getTaskParameters()[11], taskPackage.getTaskParameters()[12]);
-            }
-            case 13 -> {
-                @SuppressWarnings("rawtypes") Task13 task13 = (Task13) taskPackage.getTaskParameters()[0];
-                task13.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10], taskPackage.getTaskParameters()[11], taskPackage.getTaskParameters()[12], taskPackage.getTaskParameters()[13]);
-            }
-            case 14 -> {
-                @SuppressWarnings("rawtypes") Task14 task14 = (Task14) taskPackage.getTaskParameters()[0];
-                task14.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10], taskPackage.getTaskParameters()[11], taskPackage.getTaskParameters()[12], taskPackage.getTaskParameters()[13], taskPackage
-                                .getTaskParameters()[14]);
-            }
-            case 15 -> {
-                @SuppressWarnings("rawtypes") Task15 task15 = (Task15) taskPackage.getTaskParameters()[0];
-                task15.apply(taskPackage.getTaskParameters()[1], taskPackage.getTaskParameters()[2], taskPackage.getTaskParameters()[3], taskPackage.getTaskParameters()[4], taskPackage
-                        .getTaskParameters()[5], taskPackage.getTaskParameters()[6], taskPackage.getTaskParameters()[7], taskPackage.getTaskParameters()[8], taskPackage.getTaskParameters()[9],
-                        taskPackage.getTaskParameters()[10], taskPackage.getTaskParameters()[11], taskPackage.getTaskParameters()[12], taskPackage.getTaskParameters()[13], taskPackage
-                                .getTaskParameters()[14], taskPackage.getTaskParameters()[15]);
-            }
-            default -> throw new TornadoRuntimeException("Sequential Runner not supported yet. Number of parameters: " + type);
-        }
-    }
-
-    private void runAllTasksJavaSequential() {
+    private void runAllTasksJava() {
         for (TaskPackage taskPackage : taskPackages) {
-            runSequentialCodeInThread(taskPackage);
+            JavaFallbackRunner.run(taskGraphName, taskPackage, gridScheduler);
         }
     }
 
@@ -1779,6 +1834,38 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     public void withBatch(String batchSize) {
         this.batchSizeBytes = parseSizeToBytes(batchSize);
         executionContext.setBatchSize(this.batchSizeBytes);
+        executionContext.setBatchChunksInFlight(1);
+    }
+
+    @Override
+    public void withBatch(String batchSize, int chunksInFlight) {
+        if (chunksInFlight < 1) {
+            throw new TornadoRuntimeException("[ERROR] The number of batches in flight must be at least 1: " + chunksInFlight);
+        }
+        withBatch(batchSize);
+        executionContext.setBatchChunksInFlight(chunksInFlight);
+    }
+
+    @Override
+    public void withDataParallelSplit(List<ExecutionTarget> targets) {
+        withoutDataParallelSplit();
+        dataParallelTaskGraph = new DataParallelTaskGraph(taskGraphName, executionContext, taskPackages, inputModesObjects, outputModeObjects, targets);
+    }
+
+    @Override
+    public void withoutDataParallelSplit() {
+        if (dataParallelTaskGraph != null) {
+            dataParallelTaskGraph.close();
+            dataParallelTaskGraph = null;
+        }
+    }
+
+    /**
+     * It restricts the execution to the iterations {@code [start, end)}. See
+     * {@link TornadoExecutionContext#setIterationRange}.
+     */
+    void setIterationRange(long start, long end) {
+        executionContext.setIterationRange(start, end);
     }
 
     @Override
@@ -1926,4 +2013,52 @@ public class TornadoTaskGraph implements TornadoTaskGraphInterface {
     private record CompileInfo(boolean compile, boolean updateDevice) {
     }
 
+    /**
+     * The iteration range of a task-graph only changes when a data-parallel
+     * split moves it, and the split does not go back to a previous range, so
+     * the instances built for other ranges of the same device and batch
+     * configuration are closed and removed from the table.
+     */
+    private void evictOtherIterationRanges(VMConfiguration configuration) {
+        vmTable.entrySet().removeIf(entry -> {
+            if (entry.getKey().isOtherIterationRange(configuration)) {
+                entry.getValue().close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * It creates the table of TornadoVM instances. The table keeps the most
+     * recently used instances, up to
+     * {@link TornadoOptions#MAX_TORNADO_VMS_PER_TASK_GRAPH}, and closes the
+     * instances that it evicts.
+     */
+    private static Map<VMConfiguration, TornadoVM> createVMTable() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VMConfiguration, TornadoVM> eldest) {
+                if (size() > TornadoOptions.MAX_TORNADO_VMS_PER_TASK_GRAPH) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Key of the TornadoVM instances of a task-graph. The bytecode depends on the
+     * device, on the batch configuration and on the iteration range. The grid scheduler is not part of
+     * the key, because the interpreter applies it at launch time.
+     */
+    private record VMConfiguration(TornadoXPUDevice device, long batchSize, int batchChunksInFlight, long iterationRangeStart, long iterationRangeEnd) {
+
+        private boolean isOtherIterationRange(VMConfiguration other) {
+            return device.equals(other.device) && batchSize == other.batchSize && batchChunksInFlight == other.batchChunksInFlight && (iterationRangeStart != other.iterationRangeStart
+                    || iterationRangeEnd != other.iterationRangeEnd);
+        }
+    }
+
 }
@@ -1,9 +1,13 @@
 open module tornado.unittests {
     requires transitive junit;
     requires transitive tornado.api;
+    requires tornado.runtime;
+    requires tornado.drivers.common;
+    requires tornado.matrices;
     requires lucene.core;
     requires java.desktop;
     requires jdk.incubator.vector;
+    requires java.management;
 
     exports uk.ac.manchester.tornado.unittests;
     exports uk.ac.manchester.tornado.unittests.api;
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.lang.foreign.ValueLayout;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.types.HalfFloat;
+import uk.ac.manchester.tornado.api.types.arrays.ByteArray;
+import uk.ac.manchester.tornado.api.types.arrays.CharArray;
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.HalfFloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.Int8Array;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.LongArray;
+import uk.ac.manchester.tornado.api.types.arrays.ShortArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the bulk conversions between on-heap arrays and the native arrays.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.api.TestBulkCopies
+ * </code>
+ */
+public class TestBulkCopies extends TornadoTestBase {
+
+    // Not a power of two, so the fill of the last region is partial
+    private static final int NUM_ELEMENTS = 1001;
+
+    @Test
+    public void testFloatArrayRoundTrip() {
+        float[] values = new float[NUM_ELEMENTS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.5f;
+        }
+        FloatArray array = FloatArray.fromArray(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i), 0.0f);
+        }
+        assertArrayEquals(values, array.toHeapArray(), 0.0f);
+    }
+
+    @Test
+    public void testDoubleArrayRoundTrip() {
+        double[] values = new double[NUM_ELEMENTS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.25;
+        }
+        DoubleArray array = DoubleArray.fromArray(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i), 0.0);
+        }
+        assertArrayEquals(values, array.toHeapArray(), 0.0);
+    }
+
+    @Test
+    public void testIntArrayRoundTrip() {
+        int[] values = new int[NUM_ELEMENTS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = -i;
+        }
+        IntArray array = IntArray.fromArray(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i));
+        }
+        assertArrayEquals(values, array.toHeapArray());
+    }
+
+    @Test
+    public void testLongArrayRoundTrip() {
+        long[] values = new long[NUM_ELEMENTS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) i << 33;
+        }
+        LongArray array = LongArray.fromArray(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], array.get(i));
+        }
+        assertArrayEquals(values, array.toHeapArray());
+    }
+
+    @Test
+    public void testShortCharAndByteArraysRoundTrip() {
+        short[] shorts = new short[NUM_ELEMENTS];
+        char[] chars = new char[NUM_ELEMENTS];
+        byte[] bytes = new byte[NUM_ELEMENTS];
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            shorts[i] = (short) (i - 500);
+            chars[i] = (char) ('a' + i % 26);
+            bytes[i] = (byte) i;
+        }
+        assertArrayEquals(shorts, ShortArray.fromArray(shorts).toHeapArray());
+        assertArrayEquals(chars, CharArray.fromArray(chars).toHeapArray());
+        assertArrayEquals(bytes, ByteArray.fromArray(bytes).toHeapArray());
+        assertArrayEquals(bytes, Int8Array.fromArray(bytes).toHeapArray());
+
+        ShortArray shortArray = ShortArray.fromArray(shorts);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(shorts[i], shortArray.get(i));
+        }
+    }
+
+    @Test
+    public void testHalfFloatArrayRoundTrip() {
+        HalfFloat[] values = new HalfFloat[NUM_ELEMENTS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new HalfFloat(i % 64);
+        }
+        HalfFloat[] output = HalfFloatArray.fromArray(values).toHeapArray();
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i].getFloat32(), output[i].getFloat32(), 0.0f);
+        }
+    }
+
+    @Test
+    public void testCopyFromRange() {
+        FloatArray array = new FloatArray(NUM_ELEMENTS);
+        array.init(-1.0f);
+        float[] values = new float[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+
+        array.copyFrom(values, 10, 500, 50);
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            float expected = (i >= 500 && i < 550) ? values[i - 500 + 10] : -1.0f;
+            assertEquals(expected, array.get(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testCopyToRange() {
+        LongArray array = new LongArray(NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            array.set(i, i);
+        }
+        long[] output = new long[100];
+
+        array.copyTo(output, 900, 20, 80);
+
+        for (int i = 0; i < output.length; i++) {
+            long expected = (i >= 20) ? 900 + i - 20 : 0;
+            assertEquals(expected, output[i]);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCopyFromOutOfBounds() {
+        IntArray array = new IntArray(NUM_ELEMENTS);
+        array.copyFrom(new int[10], 0, NUM_ELEMENTS - 5, 10);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCopyToOutOfBounds() {
+        IntArray array = new IntArray(NUM_ELEMENTS);
+        array.copyTo(new int[10], -1, 0, 10);
+    }
+
+    @Test
+    public void testInitWithFill() {
+        FloatArray floats = new FloatArray(NUM_ELEMENTS);
+        DoubleArray doubles = new DoubleArray(NUM_ELEMENTS);
+        IntArray ints = new IntArray(NUM_ELEMENTS);
+        LongArray longs = new LongArray(NUM_ELEMENTS);
+        ShortArray shorts = new ShortArray(NUM_ELEMENTS);
+        CharArray chars = new CharArray(NUM_ELEMENTS);
+        ByteArray bytes = new ByteArray(NUM_ELEMENTS);
+        HalfFloatArray halfFloats = new HalfFloatArray(NUM_ELEMENTS);
+
+        floats.init(3.5f);
+        doubles.init(-2.25);
+        ints.init(0x01020304);
+        longs.init(Long.MIN_VALUE + 7);
+        shorts.init((short) -3);
+        chars.init('z');
+        bytes.init((byte) 0x7f);
+        halfFloats.init(new HalfFloat(1.5f));
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(3.5f, floats.get(i), 0.0f);
+            assertEquals(-2.25, doubles.get(i), 0.0);
+            assertEquals(0x01020304, ints.get(i));
+            assertEquals(Long.MIN_VALUE + 7, longs.get(i));
+            assertEquals(-3, shorts.get(i));
+            assertEquals('z', chars.get(i));
+            assertEquals(0x7f, bytes.get(i));
+            assertEquals(1.5f, halfFloats.get(i).getFloat32(), 0.0f);
+        }
+
+        floats.clear();
+        ints.init(0);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(0.0f, floats.get(i), 0.0f);
+            assertEquals(0, ints.get(i));
+        }
+        // The header stores the number of elements, and it must survive the fill
+        assertEquals(NUM_ELEMENTS, ints.getSegmentWithHeader().get(ValueLayout.JAVA_INT, 0));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoExecutionResult;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the executions of execution plans in the background.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.api.TestExecuteInBackground
+ * </code>
+ */
+public class TestExecuteInBackground extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 1024;
+
+    public static void scale(FloatArray input, FloatArray output, float factor) {
+        for (@Parallel int i = 0; i < input.getSize(); i++) {
+            output.set(i, input.get(i) * factor);
+        }
+    }
+
+    private static TornadoExecutionPlan createExecutionPlan(String name, FloatArray input, FloatArray output, float factor) {
+        TaskGraph taskGraph = new TaskGraph(name) //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("scale", TestExecuteInBackground::scale, input, output, factor) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        return new TornadoExecutionPlan(immutableTaskGraph);
+    }
+
+    @Test
+    public void testExecuteInBackground() throws TornadoExecutionPlanException, ExecutionException, InterruptedException {
+        FloatArray input = new FloatArray(NUM_ELEMENTS);
+        FloatArray output = new FloatArray(NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            input.set(i, i);
+        }
+
+        try (TornadoExecutionPlan executionPlan = createExecutionPlan("s0", input, output, 2.0f)) {
+            TornadoExecutionResult executionResult = executionPlan.executeInBackground().get();
+            assertTrue(executionResult.isReady());
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i * 2.0f, output.get(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testExecuteInBackgroundCallbacks() throws TornadoExecutionPlanException {
+        FloatArray input = new FloatArray(NUM_ELEMENTS);
+        FloatArray outputA = new FloatArray(NUM_ELEMENTS);
+        FloatArray outputB = new FloatArray(NUM_ELEMENTS);
+        input.init(1.0f);
+
+        try (TornadoExecutionPlan planA = createExecutionPlan("s0", input, outputA, 2.0f); //
+                TornadoExecutionPlan planB = createExecutionPlan("s1", input, outputB, 3.0f)) {
+            // The callbacks run once the output has been copied to the host
+            CompletableFuture<Float> sumA = planA.executeInBackground().thenApply(result -> sum(outputA));
+            CompletableFuture<Float> sumB = planB.executeInBackground().thenApply(result -> sum(outputB));
+            assertEquals(NUM_ELEMENTS * 2.0f, sumA.join(), 0.0f);
+            assertEquals(NUM_ELEMENTS * 3.0f, sumB.join(), 0.0f);
+        }
+    }
+
+    @Test
+    public void testExecuteInBackgroundInOrder() throws TornadoExecutionPlanException {
+        FloatArray input = new FloatArray(NUM_ELEMENTS);
+        FloatArray output = new FloatArray(NUM_ELEMENTS);
+        input.init(1.0f);
+
+        try (TornadoExecutionPlan executionPlan = createExecutionPlan("s0", input, output, 4.0f)) {
+            CompletableFuture<TornadoExecutionResult> first = executionPlan.executeInBackground();
+            CompletableFuture<TornadoExecutionResult> second = executionPlan.executeInBackground();
+            second.join();
+            assertTrue(first.isDone());
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(4.0f, output.get(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testCloseFromCallback() throws TornadoExecutionPlanException, ExecutionException, InterruptedException, TimeoutException {
+        FloatArray input = new FloatArray(NUM_ELEMENTS);
+        FloatArray output = new FloatArray(NUM_ELEMENTS);
+        input.init(1.0f);
+
+        TornadoExecutionPlan executionPlan = createExecutionPlan("s0", input, output, 5.0f);
+        CompletableFuture<TornadoExecutionResult> first = executionPlan.executeInBackground();
+        CompletableFuture<TornadoExecutionResult> second = executionPlan.executeInBackground();
+
+        // The callback runs in the thread of the plan if the first execution has not
+        // finished yet. Closing the plan there must not wait for its own thread.
+        CompletableFuture<Thread> closed = first.thenApply(result -> {
+            try {
+                executionPlan.close();
+            } catch (TornadoExecutionPlanException e) {
+                throw new CompletionException(e);
+            }
+            return Thread.currentThread();
+        });
+
+        Thread closingThread = closed.get(60, TimeUnit.SECONDS);
+        if (closingThread.getName().startsWith("tornadovm-plan-")) {
+            // The execution that had not started is cancelled
+            assertTrue(second.isCancelled());
+        } else {
+            second.get(60, TimeUnit.SECONDS);
+            assertFalse(second.isCompletedExceptionally());
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(5.0f, output.get(i), 0.0f);
+        }
+    }
+
+    private static float sum(FloatArray array) {
+        float sum = 0;
+        for (int i = 0; i < array.getSize(); i++) {
+            sum += array.get(i);
+        }
+        return sum;
+    }
+}
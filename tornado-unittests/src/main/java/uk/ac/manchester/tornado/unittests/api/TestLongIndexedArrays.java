@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.HalfFloat;
+import uk.ac.manchester.tornado.api.types.arrays.ByteArray;
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.HalfFloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.LongArray;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the {@code long} index methods of the native arrays, including an array with more than 2^31 elements that is backed by a sparse file.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.api.TestLongIndexedArrays
+ * </code>
+ */
+public class TestLongIndexedArrays extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 1024;
+
+    private static final long OVERSIZED_ELEMENTS = (1L << 31) + 64;
+
+    /**
+     * Elements of a row of the oversized array processed in batches. The array has one row beyond 2^31 elements.
+     */
+    private static final int ROW = 4096;
+
+    private static final long BATCHED_ELEMENTS = (1L << 31) + ROW;
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("tornado-long-indexed", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Maps a sparse file of zeros, so the tests do not allocate 2 GB.
+     */
+    private ByteArray mapSparseFile(long numberOfElements) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(TornadoNativeArray.ARRAY_HEADER + numberOfElements);
+        }
+        return ByteArray.mapFile(file, TornadoNativeArray.ARRAY_HEADER, numberOfElements, MapMode.PRIVATE);
+    }
+
+    public static void rowSums(ByteArray input, IntArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            int sum = 0;
+            for (int j = 0; j < ROW; j++) {
+                sum += input.get(i * ROW + j);
+            }
+            output.set(i, sum);
+        }
+    }
+
+    public static void gather(ByteArray table, IntArray indexMap, IntArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, table.get(indexMap.get(i)));
+        }
+    }
+
+    private static TornadoExecutionPlan createRowSumsPlan(ByteArray input, IntArray output) {
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestLongIndexedArrays::rowSums, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        return new TornadoExecutionPlan(immutableTaskGraph);
+    }
+
+    @Test
+    public void testLongConstructor() {
+        FloatArray array = new FloatArray((long) NUM_ELEMENTS);
+        assertEquals(NUM_ELEMENTS, array.getSize());
+        assertEquals(NUM_ELEMENTS, array.getSizeLong());
+        assertEquals(TornadoNativeArray.ARRAY_HEADER + (long) NUM_ELEMENTS * Float.BYTES, array.getNumBytesOfSegmentWithHeader());
+    }
+
+    @Test
+    public void testLongIndices() {
+        IntArray ints = new IntArray(NUM_ELEMENTS);
+        DoubleArray doubles = new DoubleArray(NUM_ELEMENTS);
+        HalfFloatArray halfFloats = new HalfFloatArray(NUM_ELEMENTS);
+        for (long i = 0; i < NUM_ELEMENTS; i++) {
+            ints.set(i, (int) i);
+            doubles.set(i, i * 0.5);
+            halfFloats.set(i, new HalfFloat(i % 16));
+        }
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i, ints.get(i));
+            assertEquals(ints.get(i), ints.get((long) i));
+            assertEquals(i * 0.5, doubles.get(i), 0.0);
+            assertEquals(doubles.get(i), doubles.get((long) i), 0.0);
+            assertEquals(i % 16, halfFloats.get((long) i).getFloat32(), 0.0f);
+        }
+    }
+
+    @Test
+    public void testLongInit() {
+        LongArray array = new LongArray((long) NUM_ELEMENTS);
+        array.init(42L);
+        for (long i = 0; i < array.getSizeLong(); i++) {
+            assertEquals(42L, array.get(i));
+        }
+    }
+
+    @Test
+    public void testOversizedArray() throws IOException {
+        ByteArray array = mapSparseFile(OVERSIZED_ELEMENTS);
+        assertThrows(IllegalStateException.class, array::getSize);
+        assertEquals(OVERSIZED_ELEMENTS, array.getSizeLong());
+
+        final long last = OVERSIZED_ELEMENTS - 1;
+        array.set(last, (byte) 7);
+        array.set(Integer.MAX_VALUE + 1L, (byte) 3);
+        assertEquals(7, array.get(last));
+        assertEquals(3, array.get(Integer.MAX_VALUE + 1L));
+        assertEquals(0, array.get(0L));
+    }
+
+    @Test
+    public void testOversizedSlice() throws IOException {
+        ByteArray array = mapSparseFile(OVERSIZED_ELEMENTS);
+        array.set(10L, (byte) 5);
+        ByteArray slice = array.slice(0, NUM_ELEMENTS);
+        assertEquals(NUM_ELEMENTS, slice.getSize());
+        assertEquals(5, slice.get(10));
+    }
+
+    @Test
+    public void testOversizedArrayInBatches() throws IOException, TornadoExecutionPlanException {
+        ByteArray input = mapSparseFile(BATCHED_ELEMENTS);
+        IntArray output = new IntArray((int) (BATCHED_ELEMENTS / ROW));
+        final int lastRowBelow = Integer.MAX_VALUE / ROW;
+        final int firstRowAbove = lastRowBelow + 1;
+        input.set(0L, (byte) 2);
+        input.set(Integer.MAX_VALUE - 1L, (byte) 4);
+        input.set((long) Integer.MAX_VALUE, (byte) 5);
+        input.set(Integer.MAX_VALUE + 1L, (byte) 7);
+        input.set(BATCHED_ELEMENTS - 1, (byte) 1);
+
+        try (TornadoExecutionPlan executionPlan = createRowSumsPlan(input, output)) {
+            executionPlan.withBatch("512MB").execute();
+        }
+
+        for (int i = 0; i < output.getSize(); i++) {
+            int expected = switch (i) {
+                case 0 -> 2;
+                case lastRowBelow -> 9;
+                case firstRowAbove -> 8;
+                default -> 0;
+            };
+            assertEquals("row " + i, expected, output.get(i));
+        }
+    }
+
+    @Test
+    public void testOversizedArrayNotBatched() throws IOException, TornadoExecutionPlanException {
+        // The table is indexed with a value read from memory, so it is transferred whole, and it does not fit in the int index of the kernel
+        ByteArray table = mapSparseFile(OVERSIZED_ELEMENTS);
+        IntArray indexMap = new IntArray(NUM_ELEMENTS);
+        IntArray output = new IntArray(NUM_ELEMENTS);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, table, indexMap) //
+                .task("t0", TestLongIndexedArrays::gather, table, indexMap, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("1MB").execute());
+        }
+    }
+
+    @Test
+    public void testOversizedBatch() throws IOException, TornadoExecutionPlanException {
+        // A single batch with the whole input has more than 2^31 elements
+        ByteArray input = mapSparseFile(BATCHED_ELEMENTS);
+        IntArray output = new IntArray((int) (BATCHED_ELEMENTS / ROW));
+
+        try (TornadoExecutionPlan executionPlan = createRowSumsPlan(input, output)) {
+            assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("3GB").execute());
+        }
+    }
+}
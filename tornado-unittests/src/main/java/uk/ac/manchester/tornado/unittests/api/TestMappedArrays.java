@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoMemorySegment;
+import uk.ac.manchester.tornado.api.types.arrays.TornadoNativeArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the native arrays that are backed by memory-mapped files.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.api.TestMappedArrays
+ * </code>
+ */
+public class TestMappedArrays extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 4096;
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("tornado-mapped", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Writes the floats after a gap of {@code gapBytes} bytes.
+     */
+    private static byte[] writeFloats(Path path, int gapBytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(gapBytes + NUM_ELEMENTS * Float.BYTES).order(ByteOrder.nativeOrder());
+        buffer.position(gapBytes);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            buffer.putFloat(i * 0.5f);
+        }
+        byte[] bytes = buffer.array();
+        Files.write(path, bytes);
+        return bytes;
+    }
+
+    private static void scale(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, input.get(i) * 2.0f);
+        }
+    }
+
+    @Test
+    public void testMapReadOnly() throws IOException {
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        byte[] contents = writeFloats(file, offset);
+
+        FloatArray array = FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_ONLY);
+
+        assertEquals(NUM_ELEMENTS, array.getSize());
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i * 0.5f, array.get(i), 0.0f);
+        }
+
+        // The mapping is copy-on-write, so neither the header nor the writes reach the file
+        array.set(0, 100.0f);
+        assertEquals(100.0f, array.get(0), 0.0f);
+        assertArrayEquals(contents, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testMapReadWrite() throws IOException {
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        writeFloats(file, offset);
+        TornadoMemorySegment.reserveHeader(file, offset);
+
+        FloatArray array = FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_WRITE);
+        array.set(10, -1.0f);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.nativeOrder());
+        assertEquals(-1.0f, buffer.getFloat(offset + 10 * Float.BYTES), 0.0f);
+        assertEquals(11 * 0.5f, buffer.getFloat(offset + 11 * Float.BYTES), 0.0f);
+    }
+
+    @Test
+    public void testRemapReadWrite() throws IOException {
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        writeFloats(file, offset);
+        TornadoMemorySegment.reserveHeader(file, offset);
+
+        FloatArray array = FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_WRITE);
+        array.set(10, -1.0f);
+
+        // The header of the first mapping keeps the marker, so the region can be mapped again
+        FloatArray remapped = FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_WRITE);
+        assertEquals(NUM_ELEMENTS, remapped.getSize());
+        assertEquals(-1.0f, remapped.get(10), 0.0f);
+    }
+
+    @Test
+    public void testMapReadWriteWithoutReservedHeader() throws IOException {
+        // Zeros before the offset may be data of the file, so the header must be reserved explicitly
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        byte[] contents = writeFloats(file, offset);
+
+        assertThrows(IllegalArgumentException.class, () -> FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_WRITE));
+        assertArrayEquals(contents, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testMapReadWriteOverData() throws IOException {
+        // The bytes before the offset are data of the file, not room for the header
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        byte[] contents = writeFloats(file, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> FloatArray.mapFile(file, offset, NUM_ELEMENTS - offset / Float.BYTES, MapMode.READ_WRITE));
+        assertArrayEquals(contents, Files.readAllBytes(file));
+
+        // A private mapping of the same region leaves the file unmodified
+        FloatArray array = FloatArray.mapFile(file, offset, NUM_ELEMENTS - offset / Float.BYTES, MapMode.PRIVATE);
+        assertEquals(offset / Float.BYTES * 0.5f, array.get(0), 0.0f);
+        assertArrayEquals(contents, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testMapWithoutRoomForHeader() throws IOException {
+        writeFloats(file, 0);
+
+        FloatArray array = FloatArray.mapFile(file, 0, NUM_ELEMENTS, MapMode.READ_ONLY);
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i * 0.5f, array.get(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testMapSubRegion() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 + NUM_ELEMENTS * Integer.BYTES).order(ByteOrder.nativeOrder());
+        buffer.position(64);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            buffer.putInt(i);
+        }
+        Files.write(file, buffer.array());
+
+        IntArray array = IntArray.mapFile(file, 64 + 100 * Integer.BYTES, 50, MapMode.PRIVATE);
+
+        assertEquals(50, array.getSize());
+        for (int i = 0; i < array.getSize(); i++) {
+            assertEquals(100 + i, array.get(i));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapReadWriteWithoutRoomForHeader() throws IOException {
+        writeFloats(file, 0);
+        FloatArray.mapFile(file, 0, NUM_ELEMENTS, MapMode.READ_WRITE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapBeyondEndOfFile() throws IOException {
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        writeFloats(file, offset);
+        FloatArray.mapFile(file, offset, NUM_ELEMENTS + 1, MapMode.READ_ONLY);
+    }
+
+    @Test
+    public void testMappedArrayInTaskGraph() throws IOException, TornadoExecutionPlanException {
+        final int offset = (int) TornadoNativeArray.ARRAY_HEADER;
+        writeFloats(file, offset);
+
+        FloatArray input = FloatArray.mapFile(file, offset, NUM_ELEMENTS, MapMode.READ_ONLY);
+        FloatArray output = new FloatArray(NUM_ELEMENTS);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestMappedArrays::scale, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.execute();
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i * 1.0f, output.get(i), 0.0f);
+        }
+    }
+}
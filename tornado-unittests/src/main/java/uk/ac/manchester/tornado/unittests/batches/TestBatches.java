@@ -32,6 +32,7 @@ import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
 import uk.ac.manchester.tornado.api.TornadoExecutionResult;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
 import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
 import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
@@ -163,6 +164,22 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    public static void matrixVector(FloatArray matrix, FloatArray vector, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            float sum = 0;
+            for (int j = 0; j < vector.getSize(); j++) {
+                sum += matrix.get(i * vector.getSize() + j) * vector.get(j);
+            }
+            output.set(i, sum);
+        }
+    }
+
+    public static void gather(FloatArray values, IntArray indexMap, FloatArray table, DoubleArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, values.get(i) + table.get(indexMap.get(i)));
+        }
+    }
+
     public static void compute(FloatArray data, float beta) {
         for (@Parallel int i = 0; i < data.getSize(); i++) {
             data.set(i, i * 20 + beta);
@@ -270,6 +287,79 @@ public class TestBatches extends TornadoTestBase {
 
     }
 
+    @Test
+    public void test100MBPipelined() throws TornadoExecutionPlanException {
+
+        long maxAllocMemory = checkMaxHeapAllocationOnDevice(100, MemoryUnit.MB);
+
+        // Fill 800MB of float array
+        int size = 200000000;
+        // or as much as we can, leaving room for the second set of chunk buffers
+        if (size * 4 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 4 / 4) * 0.9);
+        }
+        FloatArray arrayA = new FloatArray(size);
+        FloatArray arrayB = new FloatArray(size);
+
+        IntStream.range(0, arrayA.getSize()).sequential().forEach(idx -> arrayA.set(idx, idx));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, arrayA) //
+                .task("t0", TestBatches::compute, arrayA, arrayB) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayB);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withBatch("100MB", 2) // Two slots of 100 MB in flight
+                    .execute();
+        }
+
+        for (int i = 0; i < arrayB.getSize(); i++) {
+            assertEquals(arrayA.get(i) + 100, arrayB.get(i), 0.1f);
+        }
+
+    }
+
+    @Test
+    public void testAlternatingBatchSizes() throws TornadoExecutionPlanException {
+
+        long maxAllocMemory = checkMaxHeapAllocationOnDevice(100, MemoryUnit.MB);
+
+        // Elements of a 100MB batch. The size is a multiple of it, so both batch
+        // sizes split the arrays in even batches and each kernel is compiled once.
+        final int elementsPerBatch = 100_000_000 / 4;
+        int size = 4 * elementsPerBatch;
+        if ((long) size * 4 > maxAllocMemory) {
+            size = (int) Math.max(1, (long) ((maxAllocMemory / 4 / 2) * 0.9) / elementsPerBatch) * elementsPerBatch;
+        }
+        FloatArray arrayA = new FloatArray(size);
+        FloatArray arrayB = new FloatArray(size);
+
+        IntStream.range(0, arrayA.getSize()).sequential().forEach(idx -> arrayA.set(idx, idx));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, arrayA) //
+                .task("t0", TestBatches::compute, arrayA, arrayB) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, arrayB);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withProfiler(ProfilerMode.SILENT);
+            String[] batchSizes = { "50MB", "100MB", "50MB", "100MB" };
+            for (int execution = 0; execution < batchSizes.length; execution++) {
+                arrayB.init(0.0f);
+                TornadoExecutionResult executionResult = executionPlan.withBatch(batchSizes[execution]).execute();
+                if (execution >= 2) {
+                    // Switching back to a batch size reuses the bytecode and the kernel built for it
+                    assertEquals(0, executionResult.getProfilerResult().getCompileTime());
+                }
+                for (int i = 0; i < arrayB.getSize(); i++) {
+                    assertEquals(arrayA.get(i) + 100, arrayB.get(i), 0.1f);
+                }
+            }
+        }
+    }
+
     @Test
     public void test100MBLazy() throws TornadoExecutionPlanException {
 
@@ -651,10 +741,11 @@ public class TestBatches extends TornadoTestBase {
     }
 
     @Test
-    public void testSameInputTypeRestriction() throws TornadoExecutionPlanException {
-        // IntArray is NOT compatible with LongArray even if the total input size is equal
+    public void testDifferentInputTypes() throws TornadoExecutionPlanException {
+        // IntArray and LongArray with the same # of elements are split with their own batch sizes
         checkMaxHeapAllocationOnDevice(6, MemoryUnit.MB);
-        IntArray a0 = new IntArray(4 * 1_000_000);
+        IntArray a0 = new IntArray(2 * 1_000_000);
+        IntStream.range(0, a0.getSize()).forEach(i -> a0.set(i, i));
         LongArray a1 = new LongArray(2 * 1_000_000);
 
         TaskGraph taskGraph = new TaskGraph("s0") //
@@ -663,15 +754,20 @@ public class TestBatches extends TornadoTestBase {
                 .transferToHost(DataTransferMode.EVERY_EXECUTION, a1);
         ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
         try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
-            Assert.assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("1MB").execute());
+            executionPlan.withBatch("1MB").execute();
+        }
+
+        for (int i = 0; i < a1.getSize(); i++) {
+            assertEquals(a0.get(i), a1.get(i));
         }
     }
 
     @Test
-    public void testSameInputTypeRestrictionJavaArrays() throws TornadoExecutionPlanException {
-        // int[] is NOT compatible with long[] even if the total input size is equal
+    public void testDifferentInputTypesJavaArrays() throws TornadoExecutionPlanException {
+        // int[] and long[] with the same # of elements are split with their own batch sizes
         checkMaxHeapAllocationOnDevice(6, MemoryUnit.MB);
-        int[] a0 = new int[4 * 1_000_000];
+        int[] a0 = new int[2 * 1_000_000];
+        IntStream.range(0, a0.length).forEach(i -> a0[i] = i);
         long[] a1 = new long[2 * 1_000_000];
 
         TaskGraph taskGraph = new TaskGraph("s0") //
@@ -679,11 +775,182 @@ public class TestBatches extends TornadoTestBase {
                 .task("t0", TestBatches::compute, a0, a1) //
                 .transferToHost(DataTransferMode.EVERY_EXECUTION, a1);
         ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withBatch("1MB").execute();
+        }
+
+        for (int i = 0; i < a1.length; i++) {
+            assertEquals(a0[i], a1[i]);
+        }
+    }
+
+    @Test
+    public void testMatrixVectorBatches() throws TornadoExecutionPlanException {
+        // The matrix is split in batches of rows, and the vector is transferred whole
+        checkMaxHeapAllocationOnDevice(16, MemoryUnit.MB);
+        final int rows = 250_000;
+        final int columns = 16;
+        FloatArray matrix = new FloatArray(rows * columns);
+        FloatArray vector = new FloatArray(columns);
+        FloatArray output = new FloatArray(rows);
+        IntStream.range(0, matrix.getSize()).forEach(i -> matrix.set(i, i % 100));
+        IntStream.range(0, vector.getSize()).forEach(i -> vector.set(i, i));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, matrix, vector) //
+                .task("t0", TestBatches::matrixVector, matrix, vector, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withBatch("2MB").execute();
+        }
+
+        for (int i = 0; i < rows; i++) {
+            float sum = 0;
+            for (int j = 0; j < columns; j++) {
+                sum += matrix.get(i * columns + j) * vector.get(j);
+            }
+            assertEquals(sum, output.get(i), 0.01f);
+        }
+    }
+
+    @Test
+    public void testSquareMatrixVectorBatches() throws TornadoExecutionPlanException {
+        // The vector has as many elements as the output, but it is used whole by every row,
+        // so it must not be split in batches
+        checkMaxHeapAllocationOnDevice(20, MemoryUnit.MB);
+        final int size = 2048;
+        FloatArray matrix = new FloatArray(size * size);
+        FloatArray vector = new FloatArray(size);
+        FloatArray output = new FloatArray(size);
+        IntStream.range(0, matrix.getSize()).forEach(i -> matrix.set(i, i % 100));
+        IntStream.range(0, vector.getSize()).forEach(i -> vector.set(i, i % 10));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, matrix, vector) //
+                .task("t0", TestBatches::matrixVector, matrix, vector, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withBatch("4MB").execute();
+        }
+
+        for (int i = 0; i < size; i++) {
+            float sum = 0;
+            for (int j = 0; j < size; j++) {
+                sum += matrix.get(i * size + j) * vector.get(j);
+            }
+            assertEquals(sum, output.get(i), 0.01f);
+        }
+    }
+
+    public static void subtractFirst(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, input.get(i) - input.get(0));
+        }
+    }
+
+    @Test
+    public void testAmbiguousBatchShape() throws TornadoExecutionPlanException {
+        // The input is indexed both with and without the parallel loop, so it is
+        // unknown whether it can be split in batches
+        checkMaxHeapAllocationOnDevice(8, MemoryUnit.MB);
+        final int size = 1_000_000;
+        FloatArray input = new FloatArray(size);
+        FloatArray output = new FloatArray(size);
+        input.init(1.0f);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestBatches::subtractFirst, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
         try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
             Assert.assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("1MB").execute());
         }
     }
 
+    public static void forwardDifference(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, input.get(i + 1) - input.get(i));
+        }
+    }
+
+    @Test
+    public void testStencilBatchShape() throws TornadoExecutionPlanException {
+        // Each iteration reads the first element of the next one, so the input
+        // cannot be split in batches of consecutive elements
+        checkMaxHeapAllocationOnDevice(8, MemoryUnit.MB);
+        final int size = 1_000_000;
+        FloatArray input = new FloatArray(size + 1);
+        FloatArray output = new FloatArray(size);
+        IntStream.range(0, input.getSize()).forEach(i -> input.set(i, i * i));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestBatches::forwardDifference, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            Assert.assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("1MB").execute());
+        }
+    }
+
+    public static void addHalves(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, input.get(i) + input.get(i + output.getSize()));
+        }
+    }
+
+    @Test
+    public void testOffsetBatchShape() throws TornadoExecutionPlanException {
+        // The input has two elements per iteration, but they are not
+        // consecutive: the second one is in the other half of the array
+        checkMaxHeapAllocationOnDevice(8, MemoryUnit.MB);
+        final int size = 1_000_000;
+        FloatArray input = new FloatArray(size * 2);
+        FloatArray output = new FloatArray(size);
+        input.init(1.0f);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestBatches::addHalves, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            Assert.assertThrows(TornadoBailoutRuntimeException.class, () -> executionPlan.withBatch("1MB").execute());
+        }
+    }
+
+    @Test
+    public void testIndexMapBatches() throws TornadoExecutionPlanException {
+        // The values and the index map are split in batches, and the look-up table is transferred whole
+        checkMaxHeapAllocationOnDevice(12, MemoryUnit.MB);
+        final int size = 1_000_000;
+        FloatArray values = new FloatArray(size);
+        IntArray indexMap = new IntArray(size);
+        FloatArray table = new FloatArray(1000);
+        DoubleArray output = new DoubleArray(size);
+        IntStream.range(0, size).forEach(i -> {
+            values.set(i, i);
+            indexMap.set(i, (i * 7) % table.getSize());
+        });
+        IntStream.range(0, table.getSize()).forEach(i -> table.set(i, i * 0.5f));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, values, indexMap, table) //
+                .task("t0", TestBatches::gather, values, indexMap, table, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withBatch("1MB").execute();
+        }
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(values.get(i) + table.get(indexMap.get(i)), output.get(i), 0.01);
+        }
+    }
+
     @Test
     public void testSameInputSize() throws TornadoExecutionPlanException {
         // IntArray is compatible with FloatArray for the same # of elements
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.compiler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.drivers.common.code.PersistentKernelCache;
+import uk.ac.manchester.tornado.runtime.TornadoAcceleratorBackend;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.common.TornadoXPUDevice;
+import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleContext;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the {@link PersistentKernelCache}: the entries that are stored are
+ * found again, and the key changes with the source of the task, the values
+ * folded into the kernel, the device and the options.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.kernel.cache.enable=True" uk.ac.manchester.tornado.unittests.compiler.TestPersistentKernelCache
+ * </code>
+ */
+public class TestPersistentKernelCache extends TornadoTestBase {
+
+    private static final String NONCE = "tornado.unittests.kernel.cache.nonce";
+    private static final String OPTION = "tornado.unittests.kernel.cache.option";
+    private static final String FILE_EXTENSION = ".kernel";
+    private static final int SIZE = 1024;
+
+    private final Set<Path> storedEntries = new HashSet<>();
+
+    public static void vectorAdd(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void vectorSub(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) - b.get(i));
+        }
+    }
+
+    public static void scale(FloatArray a, float factor) {
+        for (@Parallel int i = 0; i < a.getSize(); i++) {
+            a.set(i, a.get(i) * factor);
+        }
+    }
+
+    @Before
+    public void useNewKeys() {
+        // The key hashes every TornadoVM option, so a new value gives keys that are not in the cache yet
+        System.setProperty(NONCE, UUID.randomUUID().toString());
+    }
+
+    @After
+    public void removeEntries() throws IOException {
+        System.clearProperty(NONCE);
+        System.clearProperty(OPTION);
+        for (Path entry : storedEntries) {
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    private static Method method(String name) {
+        for (Method method : TestPersistentKernelCache.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static CompilableTask createTask(String methodName, Object... args) {
+        return new CompilableTask(new ScheduleContext("s0"), "t0", method(methodName), args);
+    }
+
+    private static TornadoXPUDevice deviceFor(CompilableTask task) {
+        return (TornadoXPUDevice) TornadoCoreRuntime.getTornadoRuntime().getBackend(task.meta().getBackendIndex()).getDevice(task.meta().getDeviceIndex());
+    }
+
+    private static Sketch sketch(CompilableTask task) {
+        TornadoAcceleratorBackend backend = TornadoCoreRuntime.getTornadoRuntime().getBackend(task.meta().getBackendIndex());
+        new SketchRequest(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(task.getMethod()), backend.getProviders(), backend.getSuitesProvider().getGraphBuilderSuite(), backend
+                .getSuitesProvider().getSketchTier(), task.meta().getBackendIndex(), task.meta().getDeviceIndex()).run();
+        return TornadoSketcher.lookup(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(task.getMethod()), task.meta().getBackendIndex(), task.meta().getDeviceIndex());
+    }
+
+    private static String computeKey(TornadoXPUDevice device, CompilableTask task) {
+        String key = PersistentKernelCache.computeKey(device, device.getClass(), sketch(task), task);
+        assertNotNull(key);
+        return key;
+    }
+
+    private static String computeKey(CompilableTask task) {
+        return computeKey(deviceFor(task), task);
+    }
+
+    private Path entryPath(String key) {
+        Path path = Paths.get(TornadoOptions.KERNEL_CACHE_DIR, key + FILE_EXTENSION);
+        storedEntries.add(path);
+        return path;
+    }
+
+    private static Set<Path> listEntries() throws IOException {
+        Path directory = Paths.get(TornadoOptions.KERNEL_CACHE_DIR);
+        if (!Files.isDirectory(directory)) {
+            return new HashSet<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new HashSet<>(files.filter(path -> path.toString().endsWith(FILE_EXTENSION)).toList());
+        }
+    }
+
+    @Test
+    public void testStoreAndLookup() {
+        String key = computeKey(createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE)));
+        byte[] code = "__kernel void vectorAdd() {}".getBytes(StandardCharsets.UTF_8);
+        DomainTree domain = new DomainTree(2);
+        domain.set(0, new IntDomain(0, 1, SIZE));
+        domain.set(1, new IntDomain(4, 2, 16));
+
+        entryPath(key);
+        assertNull(PersistentKernelCache.lookup(key));
+        PersistentKernelCache.store(key, "vectorAdd", domain, code);
+
+        PersistentKernelCache.Entry entry = PersistentKernelCache.lookup(key);
+        assertNotNull(entry);
+        assertEquals("vectorAdd", entry.name());
+        assertArrayEquals(code, entry.code());
+        assertEquals(2, entry.domain().getDepth());
+        for (int i = 0; i < domain.getDepth(); i++) {
+            IntDomain expected = (IntDomain) domain.get(i);
+            IntDomain actual = (IntDomain) entry.domain().get(i);
+            assertEquals(expected.getOffset(), actual.getOffset());
+            assertEquals(expected.getStep(), actual.getStep());
+            assertEquals(expected.cardinality(), actual.cardinality());
+        }
+    }
+
+    @Test
+    public void testStoreAndLookupSequentialKernel() {
+        String key = computeKey(createTask("scale", new FloatArray(SIZE), 2.0f));
+        byte[] code = new byte[] { 1, 2, 3 };
+
+        entryPath(key);
+        PersistentKernelCache.store(key, "scale", null, code);
+
+        PersistentKernelCache.Entry entry = PersistentKernelCache.lookup(key);
+        assertNotNull(entry);
+        assertNull(entry.domain());
+        assertArrayEquals(code, entry.code());
+    }
+
+    @Test
+    public void testCorruptedEntryIsAMiss() throws IOException {
+        String key = computeKey(createTask("vectorSub", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE)));
+        Path path = entryPath(key);
+        Files.createDirectories(path.getParent());
+        Files.write(path, "not a kernel".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(PersistentKernelCache.lookup(key));
+        assertNull(PersistentKernelCache.lookup(null));
+    }
+
+    @Test
+    public void testKeyIsStable() {
+        String key = computeKey(createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE)));
+        assertEquals(key, computeKey(createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE))));
+    }
+
+    @Test
+    public void testKeyChangesWithSource() {
+        String add = computeKey(createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE)));
+        String sub = computeKey(createTask("vectorSub", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE)));
+        assertNotEquals(add, sub);
+    }
+
+    @Test
+    public void testKeyChangesWithArguments() {
+        String key = computeKey(createTask("scale", new FloatArray(SIZE), 2.0f));
+        // Array lengths and scalar values are folded into the kernel
+        assertNotEquals(key, computeKey(createTask("scale", new FloatArray(SIZE * 2), 2.0f)));
+        assertNotEquals(key, computeKey(createTask("scale", new FloatArray(SIZE), 3.0f)));
+        // The contents of the arrays are not
+        FloatArray array = new FloatArray(SIZE);
+        array.init(1.0f);
+        assertEquals(key, computeKey(createTask("scale", array, 2.0f)));
+    }
+
+    @Test
+    public void testKeyChangesWithDevice() {
+        CompilableTask task = createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE));
+        TornadoXPUDevice device = deviceFor(task);
+        TornadoXPUDevice otherDevice = (TornadoXPUDevice) Proxy.newProxyInstance(TornadoXPUDevice.class.getClassLoader(), new Class<?>[] { TornadoXPUDevice.class }, (proxy, m, args) -> {
+            if (m.getName().equals("getDescription")) {
+                return device.getDescription() + " (other)";
+            }
+            return m.invoke(device, args);
+        });
+
+        assertNotEquals(computeKey(device, task), computeKey(otherDevice, task));
+    }
+
+    @Test
+    public void testKeyChangesWithOptions() {
+        CompilableTask task = createTask("vectorAdd", new FloatArray(SIZE), new FloatArray(SIZE), new FloatArray(SIZE));
+        String key = computeKey(task);
+
+        // Any TornadoVM option may change the generated code
+        System.setProperty(OPTION, "True");
+        assertNotEquals(key, computeKey(task));
+        System.clearProperty(OPTION);
+        assertEquals(key, computeKey(task));
+
+        // The options of the cache itself do not
+        String directory = System.getProperty("tornado.kernel.cache.dir");
+        System.setProperty("tornado.kernel.cache.dir", "/tmp/other-kernel-cache");
+        try {
+            assertEquals(key, computeKey(task));
+        } finally {
+            if (directory == null) {
+                System.clearProperty("tornado.kernel.cache.dir");
+            } else {
+                System.setProperty("tornado.kernel.cache.dir", directory);
+            }
+        }
+
+        // Nor do compiler flags for other backends
+        TornadoVMBackendType backendType = deviceFor(task).getTornadoVMBackend();
+        TornadoVMBackendType otherBackend = backendType == TornadoVMBackendType.PTX ? TornadoVMBackendType.OPENCL : TornadoVMBackendType.PTX;
+        task.meta().setCompilerFlags(otherBackend, "-other-flag");
+        assertEquals(key, computeKey(task));
+        task.meta().setCompilerFlags(backendType, "-other-flag");
+        assertNotEquals(key, computeKey(task));
+    }
+
+    @Test
+    public void testHitSkipsCompilation() throws IOException, TornadoExecutionPlanException {
+        Assume.assumeTrue("The persistent kernel cache is disabled", PersistentKernelCache.isEnabled());
+        Assume.assumeTrue("The host backend does not use the persistent kernel cache", TornadoCoreRuntime.getTornadoRuntime().getDefaultDevice()
+                .getTornadoVMBackend() != TornadoVMBackendType.JAVA);
+
+        Set<Path> entries = listEntries();
+
+        FloatArray a = new FloatArray(SIZE);
+        FloatArray b = new FloatArray(SIZE);
+        a.init(2.0f);
+        b.init(3.0f);
+
+        FloatArray first = new FloatArray(SIZE);
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestPersistentKernelCache::vectorAdd, a, b, first) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, first);
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(taskGraph.snapshot())) {
+            executionPlan.execute();
+        }
+
+        Set<Path> newEntries = listEntries();
+        newEntries.removeAll(entries);
+        storedEntries.addAll(newEntries);
+        assertEquals(1, newEntries.size());
+        Path entry = newEntries.iterator().next();
+        FileTime timestamp = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(entry, timestamp);
+
+        // A new execution plan compiles the task again: on a hit, the entry is not rewritten
+        FloatArray second = new FloatArray(SIZE);
+        taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestPersistentKernelCache::vectorAdd, a, b, second) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, second);
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(taskGraph.snapshot())) {
+            executionPlan.execute();
+        }
+
+        assertEquals(timestamp, Files.getLastModifiedTime(entry));
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(5.0f, first.get(i), DELTA);
+            assertEquals(5.0f, second.get(i), DELTA);
+        }
+    }
+}
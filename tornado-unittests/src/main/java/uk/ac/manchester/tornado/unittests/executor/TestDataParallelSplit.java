@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.executor;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the split of the iteration space of a task-graph across the default
+ * device and the sequential Java implementation.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.executor.TestDataParallelSplit
+ * </code>
+ */
+public class TestDataParallelSplit extends TornadoTestBase {
+
+    private static final int NUM_ELEMENTS = 8192;
+
+    private static final ExecutionTarget DEVICE = ExecutionTarget.of(TornadoExecutionPlan.DEFAULT_DEVICE);
+
+    public static void vectorAdd(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void matrixVector(FloatArray matrix, FloatArray vector, FloatArray output, int columns) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            float sum = 0.0f;
+            for (int j = 0; j < columns; j++) {
+                sum += matrix.get(i * columns + j) * vector.get(j);
+            }
+            output.set(i, sum);
+        }
+    }
+
+    @Test
+    public void testVectorAdd() throws TornadoExecutionPlanException {
+        FloatArray a = new FloatArray(NUM_ELEMENTS);
+        FloatArray b = new FloatArray(NUM_ELEMENTS);
+        FloatArray c = new FloatArray(NUM_ELEMENTS);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestDataParallelSplit::vectorAdd, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDataParallelSplit(DEVICE, ExecutionTarget.sequentialJava());
+            // The split changes between executions, so each one checks the whole output
+            for (int execution = 0; execution < 5; execution++) {
+                for (int i = 0; i < NUM_ELEMENTS; i++) {
+                    a.set(i, i);
+                    b.set(i, execution);
+                }
+                c.init(-1.0f);
+                executionPlan.execute();
+                for (int i = 0; i < NUM_ELEMENTS; i++) {
+                    assertEquals(i + execution, c.get(i), 0.0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatrixVector() throws TornadoExecutionPlanException {
+        final int rows = 512;
+        // The vector has as many elements as the output, but it is not indexed by the
+        // parallel loop, so each target receives all of it
+        final int columns = rows;
+        FloatArray matrix = new FloatArray(rows * columns);
+        FloatArray vector = new FloatArray(columns);
+        FloatArray output = new FloatArray(rows);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                matrix.set(i * columns + j, i);
+            }
+        }
+        vector.init(1.0f);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, matrix, vector) //
+                .task("t0", TestDataParallelSplit::matrixVector, matrix, vector, output, columns) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDataParallelSplit(ExecutionTarget.sequentialJava(), DEVICE);
+            for (int execution = 0; execution < 3; execution++) {
+                output.init(0.0f);
+                executionPlan.execute();
+                for (int i = 0; i < rows; i++) {
+                    assertEquals(i * columns, output.get(i), 0.01f);
+                }
+            }
+
+            // Without the split, the task-graph runs on the default device
+            output.init(0.0f);
+            executionPlan.withoutDataParallelSplit().execute();
+            for (int i = 0; i < rows; i++) {
+                assertEquals(i * columns, output.get(i), 0.01f);
+            }
+        }
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testOutputNotSplit() throws TornadoExecutionPlanException {
+        FloatArray a = new FloatArray(NUM_ELEMENTS);
+        FloatArray b = new FloatArray(NUM_ELEMENTS);
+        FloatArray c = new FloatArray(NUM_ELEMENTS);
+        // The second output is not a multiple of the iteration space
+        FloatArray d = new FloatArray(NUM_ELEMENTS + 1);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestDataParallelSplit::vectorAdd, a, b, c) //
+                .task("t1", TestDataParallelSplit::vectorAdd, a, b, d) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c, d);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDataParallelSplit(DEVICE, ExecutionTarget.sequentialJava());
+        }
+    }
+
+    public static void forwardDifference(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize() - 1; i++) {
+            output.set(i, input.get(i + 1) - input.get(i));
+        }
+    }
+
+    @Test(expected = TornadoRuntimeException.class)
+    public void testStencilNotSplit() throws TornadoExecutionPlanException {
+        // Each iteration reads the first element of the next one, so a target
+        // would need one element of the range of the next target
+        FloatArray input = new FloatArray(NUM_ELEMENTS);
+        FloatArray output = new FloatArray(NUM_ELEMENTS);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestDataParallelSplit::forwardDifference, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDataParallelSplit(DEVICE, ExecutionTarget.sequentialJava());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.plan.policy.EpsilonGreedyDevicePolicy;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionSample;
+import uk.ac.manchester.tornado.api.plan.policy.ExecutionTarget;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the device policies of the execution plan. Most tests evaluate the
+ * policy offline with recorded traces, so they do not need a device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.executor.TestDevicePolicy
+ * </code>
+ */
+public class TestDevicePolicy extends TornadoTestBase {
+
+    private static final ExecutionTarget GPU = new ExecutionTarget("gpu", null, false);
+    private static final ExecutionTarget CPU = new ExecutionTarget("cpu", null, false);
+    private static final ExecutionTarget JAVA = ExecutionTarget.sequentialJava();
+
+    private static final long SMALL = 1024;
+    private static final long LARGE = 1 << 24;
+
+    /**
+     * Recorded cost in nanoseconds of each target: the sequential Java code is
+     * the fastest for small inputs and the GPU for large inputs.
+     */
+    private static long cost(ExecutionTarget target, long inputSize) {
+        if (target == JAVA) {
+            return inputSize * 2;
+        } else if (target == CPU) {
+            return 50_000 + inputSize / 2;
+        } else {
+            return 200_000 + inputSize / 64;
+        }
+    }
+
+    /**
+     * Replays a trace: the policy selects a target and it receives the recorded
+     * cost of that target.
+     */
+    private static ExecutionTarget replay(EpsilonGreedyDevicePolicy policy, long inputSize, int executions) {
+        ExecutionTarget target = null;
+        for (int i = 0; i < executions; i++) {
+            target = policy.select(inputSize);
+            policy.record(new ExecutionSample(target, inputSize, cost(target, inputSize)));
+        }
+        return policy.select(inputSize);
+    }
+
+    @Test
+    public void testExploresAllTargets() {
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(GPU, CPU, JAVA), 0.0, 8, 0);
+        Set<ExecutionTarget> selected = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            ExecutionTarget target = policy.select(SMALL);
+            selected.add(target);
+            policy.record(new ExecutionSample(target, SMALL, cost(target, SMALL)));
+        }
+        assertEquals(Set.of(GPU, CPU, JAVA), selected);
+    }
+
+    @Test
+    public void testFastestTargetPerInputSize() {
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(GPU, CPU, JAVA), 0.0, 8, 0);
+        assertEquals(JAVA, replay(policy, SMALL, 20));
+        assertEquals(GPU, replay(policy, LARGE, 20));
+        // The small inputs keep their own history
+        assertEquals(JAVA, policy.select(SMALL));
+    }
+
+    @Test
+    public void testWarmUpSampleIsDiscarded() {
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(GPU), 0.0, 8, 0);
+        // The first execution includes the JIT compilation
+        policy.record(new ExecutionSample(GPU, SMALL, 1_000_000_000L));
+        policy.record(new ExecutionSample(GPU, SMALL, 1000));
+        assertEquals(1000.0, policy.getMeanCost(GPU, SMALL), 0.0);
+    }
+
+    @Test
+    public void testBoundedHistory() {
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(GPU, CPU), 0.0, 4, 0);
+        replay(policy, LARGE, 10);
+        assertEquals(GPU, policy.select(LARGE));
+
+        // The GPU becomes slower (e.g., it is shared with another application)
+        for (int i = 0; i < 4; i++) {
+            policy.record(new ExecutionSample(GPU, LARGE, cost(CPU, LARGE) * 2));
+        }
+        assertEquals(cost(CPU, LARGE) * 2, policy.getMeanCost(GPU, LARGE), 0.0);
+        assertEquals(CPU, policy.select(LARGE));
+    }
+
+    @Test
+    public void testExploration() {
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(GPU, CPU, JAVA), 0.5, 8, 42);
+        replay(policy, LARGE, 10);
+        Set<ExecutionTarget> selected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(policy.select(LARGE));
+        }
+        assertEquals(3, selected.size());
+    }
+
+    public static void scale(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < input.getSize(); i++) {
+            output.set(i, input.get(i) * 2);
+        }
+    }
+
+    @Test
+    public void testDevicePolicyTaskGraph() throws TornadoExecutionPlanException {
+        final int size = 4096;
+        FloatArray input = new FloatArray(size);
+        FloatArray output = new FloatArray(size);
+        input.init(3.0f);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestDevicePolicy::scale, input, output) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        EpsilonGreedyDevicePolicy policy = new EpsilonGreedyDevicePolicy(List.of(ExecutionTarget.of(TornadoExecutionPlan.DEFAULT_DEVICE), JAVA), 0.0, 8, 0);
+        Set<ExecutionTarget> selected = new HashSet<>();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDynamicDevicePolicy(policy, () -> size);
+            for (int i = 0; i < 6; i++) {
+                output.init(0.0f);
+                selected.add(policy.select(size));
+                executionPlan.execute();
+                for (int j = 0; j < size; j++) {
+                    assertEquals(6.0f, output.get(j), 0.0f);
+                }
+            }
+        }
+        assertTrue(selected.contains(JAVA));
+        assertEquals(2, selected.size());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.fails;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.common.TaskPackage;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.runtime.fallback.JavaFallbackRunner;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the Java fallback that runs the tasks when TornadoVM bails out. The
+ * tests call the fallback directly, as the task-graph does after a bailout, so
+ * they do not depend on which kernels each backend rejects. The
+ * {@link Parallel} loops are partitioned across the Java threads of the
+ * fallback, while the tasks with reductions or without parallel loops run
+ * sequentially.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.bailout.parallel.threads=4" uk.ac.manchester.tornado.unittests.fails.TestParallelBailout
+ * </code>
+ */
+public class TestParallelBailout extends TornadoTestBase {
+
+    private static final int SIZE = 4099;
+    private static final int N = 67;
+
+    public static void vectorAdd(IntArray a, IntArray b, IntArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void matrixMultiplication(FloatArray a, FloatArray b, FloatArray c, int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            for (@Parallel int j = 0; j < size; j++) {
+                float sum = 0.0f;
+                for (int k = 0; k < size; k++) {
+                    sum += a.get(i * size + k) * b.get(k * size + j);
+                }
+                c.set(i * size + j, sum);
+            }
+        }
+    }
+
+    public static void reduceAdd(IntArray input, @Reduce IntArray result) {
+        for (@Parallel int i = 0; i < input.getSize(); i++) {
+            result.set(0, result.get(0) + input.get(i));
+        }
+    }
+
+    public static void prefixSum(IntArray input, IntArray output) {
+        int sum = 0;
+        for (int i = 0; i < input.getSize(); i++) {
+            sum += input.get(i);
+            output.set(i, sum);
+        }
+    }
+
+    private static IntArray randomIntArray(int size, Random random) {
+        IntArray array = new IntArray(size);
+        IntStream.range(0, size).forEach(i -> array.set(i, random.nextInt(1000)));
+        return array;
+    }
+
+    private static FloatArray randomFloatArray(int size, Random random) {
+        FloatArray array = new FloatArray(size);
+        IntStream.range(0, size).forEach(i -> array.set(i, random.nextFloat()));
+        return array;
+    }
+
+    @Test
+    public void testParallelLoop1D() {
+        Random random = new Random(1);
+        IntArray a = randomIntArray(SIZE, random);
+        IntArray b = randomIntArray(SIZE, random);
+        IntArray c = new IntArray(SIZE);
+
+        TaskPackage taskPackage = TaskPackage.createPackage("t0", TestParallelBailout::vectorAdd, a, b, c);
+        boolean isParallel = JavaFallbackRunner.run("s0", taskPackage, null);
+
+        assertTrue(isParallel);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(a.get(i) + b.get(i), c.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelLoop2D() {
+        Random random = new Random(2);
+        FloatArray a = randomFloatArray(N * N, random);
+        FloatArray b = randomFloatArray(N * N, random);
+        FloatArray c = new FloatArray(N * N);
+        FloatArray sequential = new FloatArray(N * N);
+
+        TaskPackage taskPackage = TaskPackage.createPackage("t0", TestParallelBailout::matrixMultiplication, a, b, c, N);
+        boolean isParallel = JavaFallbackRunner.run("s0", taskPackage, null);
+        matrixMultiplication(a, b, sequential, N);
+
+        assertTrue(isParallel);
+        for (int i = 0; i < N * N; i++) {
+            assertEquals(sequential.get(i), c.get(i), 0.0f);
+        }
+    }
+
+    @Test
+    public void testReductionRunsSequentially() {
+        Random random = new Random(3);
+        IntArray input = randomIntArray(SIZE, random);
+        IntArray result = new IntArray(1);
+
+        TaskPackage taskPackage = TaskPackage.createPackage("t0", TestParallelBailout::reduceAdd, input, result);
+        boolean isParallel = JavaFallbackRunner.run("s0", taskPackage, null);
+
+        assertFalse(isParallel);
+        int expected = 0;
+        for (int i = 0; i < SIZE; i++) {
+            expected += input.get(i);
+        }
+        assertEquals(expected, result.get(0));
+    }
+
+    @Test
+    public void testSequentialLoop() {
+        Random random = new Random(4);
+        IntArray input = randomIntArray(SIZE, random);
+        IntArray output = new IntArray(SIZE);
+
+        TaskPackage taskPackage = TaskPackage.createPackage("t0", TestParallelBailout::prefixSum, input, output);
+        boolean isParallel = JavaFallbackRunner.run("s0", taskPackage, null);
+
+        assertFalse(isParallel);
+        int sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += input.get(i);
+            assertEquals(sum, output.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelFallbackDisabledForTask() {
+        Random random = new Random(5);
+        IntArray a = randomIntArray(SIZE, random);
+        IntArray b = randomIntArray(SIZE, random);
+        IntArray c = new IntArray(SIZE);
+
+        TaskPackage taskPackage = TaskPackage.createPackage("t0", TestParallelBailout::vectorAdd, a, b, c);
+        System.setProperty("s1.t0.bailout.parallel", "False");
+        boolean isParallel;
+        try {
+            isParallel = JavaFallbackRunner.run("s1", taskPackage, null);
+        } finally {
+            System.clearProperty("s1.t0.bailout.parallel");
+        }
+
+        assertFalse(isParallel);
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(a.get(i) + b.get(i), c.get(i));
+        }
+    }
+}
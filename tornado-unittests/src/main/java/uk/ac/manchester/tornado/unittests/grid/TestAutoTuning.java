@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.grid;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the autotuning of the local work sizes. Each execution of the
+ * search uses different local work sizes, and the results must be the same in
+ * all of them.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.grid.TestAutoTuning
+ * </code>
+ */
+public class TestAutoTuning extends TornadoTestBase {
+
+    private static final int ITERATIONS = 8;
+
+    public static void saxpy(float alpha, FloatArray x, FloatArray y, FloatArray z) {
+        for (@Parallel int i = 0; i < z.getSize(); i++) {
+            z.set(i, alpha * x.get(i) + y.get(i));
+        }
+    }
+
+    public static void transpose(FloatArray input, FloatArray output, int size) {
+        for (@Parallel int i = 0; i < size; i++) {
+            for (@Parallel int j = 0; j < size; j++) {
+                output.set(j * size + i, input.get(i * size + j));
+            }
+        }
+    }
+
+    private static FloatArray createArray(Random random, int size) {
+        FloatArray array = new FloatArray(size);
+        for (int i = 0; i < size; i++) {
+            array.set(i, random.nextFloat());
+        }
+        return array;
+    }
+
+    @Test
+    public void testAutoTuning1D() throws TornadoExecutionPlanException {
+        final int size = 8192;
+        Random random = new Random(31);
+        FloatArray x = createArray(random, size);
+        FloatArray y = createArray(random, size);
+        FloatArray z = new FloatArray(size);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, x, y) //
+                .task("t0", TestAutoTuning::saxpy, 2.0f, x, y, z) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, z);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withAutoTuning(ITERATIONS);
+            // The search runs in the first executions, and the best configuration is used afterwards
+            for (int iteration = 0; iteration < ITERATIONS + 2; iteration++) {
+                z.init(0.0f);
+                executionPlan.execute();
+                for (int i = 0; i < size; i++) {
+                    assertEquals(2.0f * x.get(i) + y.get(i), z.get(i), 0.001f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAutoTuning2D() throws TornadoExecutionPlanException {
+        final int size = 256;
+        Random random = new Random(32);
+        FloatArray input = createArray(random, size * size);
+        FloatArray output = new FloatArray(size * size);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestAutoTuning::transpose, input, output, size) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withAutoTuning(ITERATIONS);
+            for (int iteration = 0; iteration < ITERATIONS + 2; iteration++) {
+                output.init(0.0f);
+                executionPlan.execute();
+                for (int i = 0; i < size; i++) {
+                    for (int j = 0; j < size; j++) {
+                        assertEquals(input.get(i * size + j), output.get(j * size + i), 0.0f);
+                    }
+                }
+            }
+
+            // The default local work sizes are used again
+            executionPlan.withoutAutoTuning().execute();
+        }
+    }
+}
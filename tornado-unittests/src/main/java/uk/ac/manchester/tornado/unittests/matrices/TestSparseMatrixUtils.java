@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.types.arrays.DoubleArray;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the loading of Matrix Market files into CSR matrices through
+ * {@link SparseMatrixUtils}: the parallel parser with different numbers of
+ * chunks, and the binary cache that is stored next to each file.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.matrices.TestSparseMatrixUtils
+ * </code>
+ */
+public class TestSparseMatrixUtils extends TornadoTestBase {
+
+    private static final String CHUNK_BYTES = "tornado.matrices.chunk.bytes";
+    private static final boolean IS_CACHE_ENABLED = Boolean.parseBoolean(System.getProperty("tornado.matrices.cache", "True"));
+
+    private Path directory;
+    private int numFiles;
+
+    /**
+     * Entry of a Matrix Market file, with zero-based indices.
+     */
+    private record Entry(int row, int col, String value) {
+    }
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("tornado-matrices");
+    }
+
+    @After
+    public void removeDirectory() throws IOException {
+        System.clearProperty(CHUNK_BYTES);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static String contents(String field, String symmetry, int nRows, int nCols, List<Entry> entries) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("%%MatrixMarket matrix coordinate ").append(field).append(' ').append(symmetry).append('\n');
+        builder.append("% comment line\n");
+        builder.append(nRows).append(' ').append(nCols).append(' ').append(entries.size()).append('\n');
+        for (Entry entry : entries) {
+            builder.append(entry.row() + 1).append(' ').append(entry.col() + 1);
+            if (entry.value() != null) {
+                builder.append(' ').append(entry.value());
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private Path writeFile(String contents) throws IOException {
+        return Files.writeString(directory.resolve("matrix" + numFiles++ + ".mtx"), contents, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return The entries of the matrix sorted by row and column, with the
+     *     entries of a symmetric matrix mirrored.
+     */
+    private static List<Entry> expectedEntries(List<Entry> entries, boolean isSymmetric) {
+        List<Entry> expected = new ArrayList<>(entries);
+        if (isSymmetric) {
+            for (Entry entry : entries) {
+                if (entry.row() != entry.col()) {
+                    expected.add(new Entry(entry.col(), entry.row(), entry.value()));
+                }
+            }
+        }
+        expected.sort(Comparator.comparingInt(Entry::row).thenComparingInt(Entry::col));
+        return expected;
+    }
+
+    private static void assertStructure(CSRMatrix<?> mat, int nRows, List<Entry> expected) {
+        assertNotNull(mat);
+        assertEquals(nRows, mat.size);
+        assertEquals(expected.size(), mat.n);
+        assertEquals(nRows + 1, mat.rows.getSize());
+        assertEquals(expected.size(), mat.cols.getSize());
+        int index = 0;
+        for (int row = 0; row < nRows; row++) {
+            assertEquals(index, mat.rows.get(row));
+            while (index < expected.size() && expected.get(index).row() == row) {
+                assertEquals(expected.get(index).col(), mat.cols.get(index));
+                index++;
+            }
+        }
+        assertEquals(expected.size(), mat.rows.get(nRows));
+    }
+
+    private static void assertMatrixF(CSRMatrix<FloatArray> mat, int nRows, List<Entry> expected) {
+        assertStructure(mat, nRows, expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((float) Double.parseDouble(expected.get(i).value()), mat.vals.get(i), 0.0f);
+        }
+    }
+
+    private static void assertMatrixD(CSRMatrix<DoubleArray> mat, int nRows, List<Entry> expected) {
+        assertStructure(mat, nRows, expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Double.parseDouble(expected.get(i).value()), mat.vals.get(i), 0.0);
+        }
+    }
+
+    /**
+     * @return A matrix with the entries in random order. The first and the last
+     *     rows are empty.
+     */
+    private static List<Entry> randomEntries(Random random, int nRows, int entriesPerRow, boolean hasValues) {
+        List<Entry> entries = new ArrayList<>();
+        for (int row = 1; row < nRows - 1; row++) {
+            for (int col = 0; col < nRows; col++) {
+                if (random.nextInt(nRows) < entriesPerRow) {
+                    entries.add(new Entry(row, col, hasValues ? Float.toString(random.nextFloat() * 200 - 100) : null));
+                }
+            }
+        }
+        Collections.shuffle(entries, random);
+        return entries;
+    }
+
+    /**
+     * @return Entries of the lower triangle of a random symmetric matrix.
+     */
+    private static List<Entry> randomLowerTriangle(Random random, int nRows, int entriesPerRow) {
+        List<Entry> entries = new ArrayList<>();
+        for (Entry entry : randomEntries(random, nRows, entriesPerRow, false)) {
+            if (entry.col() <= entry.row()) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Pattern matrices get the values of {@code new Random(7)}, in the order of
+     * the entries in the file.
+     */
+    private static List<Entry> withPatternValues(List<Entry> entries) {
+        Random random = new Random(7);
+        List<Entry> values = new ArrayList<>();
+        for (Entry entry : entries) {
+            values.add(new Entry(entry.row(), entry.col(), Double.toString(random.nextFloat() * 256.0f)));
+        }
+        return values;
+    }
+
+    @Test
+    public void testGeneralMatrix() throws IOException {
+        List<Entry> entries = List.of( //
+                new Entry(2, 1, "-4.5"), //
+                new Entry(0, 3, "1.25"), //
+                new Entry(0, 0, "3"), //
+                new Entry(1, 2, "2e-3"), //
+                new Entry(2, 0, "7.0E2"), //
+                new Entry(0, 1, "-0.5"));
+        Path file = writeFile(contents("real", "general", 3, 4, entries));
+
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 3, expectedEntries(entries, false));
+        assertMatrixD(SparseMatrixUtils.loadMatrixD(file.toString()), 3, expectedEntries(entries, false));
+    }
+
+    @Test
+    public void testSymmetricMatrix() throws IOException {
+        List<Entry> entries = List.of( //
+                new Entry(0, 0, "1"), //
+                new Entry(3, 0, "2.5"), //
+                new Entry(2, 1, "-3"), //
+                new Entry(3, 3, "4"), //
+                new Entry(3, 2, "0.125"));
+        Path file = writeFile(contents("real", "symmetric", 4, 4, entries));
+
+        // The entries outside the diagonal are stored twice
+        CSRMatrix<FloatArray> mat = SparseMatrixUtils.loadMatrixF(file.toString());
+        assertEquals(8, mat.n);
+        assertMatrixF(mat, 4, expectedEntries(entries, true));
+        assertMatrixD(SparseMatrixUtils.loadMatrixD(file.toString()), 4, expectedEntries(entries, true));
+    }
+
+    @Test
+    public void testPatternMatrix() throws IOException {
+        List<Entry> entries = List.of( //
+                new Entry(1, 1, null), //
+                new Entry(0, 2, null), //
+                new Entry(2, 0, null), //
+                new Entry(0, 0, null));
+        Path file = writeFile(contents("pattern", "general", 3, 3, entries));
+
+        List<Entry> expected = expectedEntries(withPatternValues(entries), false);
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 3, expected);
+        // Double-precision matrices get the same single-precision values
+        assertMatrixD(SparseMatrixUtils.loadMatrixD(file.toString()), 3, expected);
+    }
+
+    @Test
+    public void testTrailingEmptyRows() throws IOException {
+        List<Entry> entries = List.of( //
+                new Entry(1, 0, "1.5"), //
+                new Entry(2, 4, "2.5"));
+        Path file = writeFile(contents("real", "general", 6, 5, entries));
+
+        CSRMatrix<FloatArray> mat = SparseMatrixUtils.loadMatrixF(file.toString());
+        assertMatrixF(mat, 6, expectedEntries(entries, false));
+        for (int row = 3; row <= 6; row++) {
+            assertEquals(2, mat.rows.get(row));
+        }
+    }
+
+    @Test
+    public void testDoublePrecision() throws IOException {
+        List<Entry> entries = List.of( //
+                new Entry(0, 0, "0.1234567890123"), //
+                new Entry(1, 1, "1.0000000000001"), //
+                new Entry(1, 0, "3.141592653589793238"));
+        Path file = writeFile(contents("real", "general", 2, 2, entries));
+
+        CSRMatrix<DoubleArray> mat = SparseMatrixUtils.loadMatrixD(file.toString());
+        assertMatrixD(mat, 2, expectedEntries(entries, false));
+        // Parsed in single precision, the value would be 1
+        assertEquals(1.0000000000001, mat.vals.get(2), 0.0);
+    }
+
+    @Test
+    public void testInputStream() {
+        List<Entry> entries = randomEntries(new Random(11), 50, 5, true);
+        byte[] contents = contents("real", "general", 50, 50, entries).getBytes(StandardCharsets.US_ASCII);
+
+        CSRMatrix<FloatArray> mat = SparseMatrixUtils.loadMatrixF(new ByteArrayInputStream(contents));
+        assertMatrixF(mat, 50, expectedEntries(entries, false));
+    }
+
+    @Test
+    public void testChunks() throws IOException {
+        final int nRows = 400;
+        List<Entry> general = randomEntries(new Random(13), nRows, 8, true);
+        List<Entry> symmetric = randomLowerTriangle(new Random(17), nRows, 8);
+        String generalContents = contents("real", "general", nRows, nRows, general);
+        String symmetricContents = contents("pattern", "symmetric", nRows, nRows, symmetric);
+        List<Entry> expectedGeneral = expectedEntries(general, false);
+        List<Entry> expectedSymmetric = expectedEntries(withPatternValues(symmetric), true);
+
+        // From a single chunk to as many chunks as the parser allows
+        for (int chunkBytes : new int[] { 1 << 20, generalContents.length() / 2, generalContents.length() / 7, 64 }) {
+            System.setProperty(CHUNK_BYTES, Integer.toString(chunkBytes));
+            assertMatrixF(SparseMatrixUtils.loadMatrixF(new ByteArrayInputStream(generalContents.getBytes(StandardCharsets.US_ASCII))), nRows, expectedGeneral);
+            assertMatrixD(SparseMatrixUtils.loadMatrixD(writeFile(generalContents).toString()), nRows, expectedGeneral);
+            // Each chunk of a pattern matrix starts from the state of the generator at its first entry
+            assertMatrixF(SparseMatrixUtils.loadMatrixF(writeFile(symmetricContents).toString()), nRows, expectedSymmetric);
+        }
+    }
+
+    @Test
+    public void testCacheReuse() throws IOException {
+        Assume.assumeTrue("The matrix cache is disabled", IS_CACHE_ENABLED);
+        List<Entry> entries = randomEntries(new Random(19), 30, 4, true);
+        Path file = writeFile(contents("real", "general", 30, 30, entries));
+
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 30, expectedEntries(entries, false));
+        assertMatrixD(SparseMatrixUtils.loadMatrixD(file.toString()), 30, expectedEntries(entries, false));
+        Path cacheF = file.resolveSibling(file.getFileName() + ".f32.csr");
+        Path cacheD = file.resolveSibling(file.getFileName() + ".f64.csr");
+        assertTrue(Files.isRegularFile(cacheF));
+        assertTrue(Files.isRegularFile(cacheD));
+
+        // The cache is newer than the file, so the file is not parsed again
+        FileTime cacheTime = Files.getLastModifiedTime(cacheF);
+        Files.writeString(file, contents("real", "general", 30, 30, List.of(new Entry(0, 0, "1"))), StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(cacheTime.toMillis() - 10_000));
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 30, expectedEntries(entries, false));
+        assertMatrixD(SparseMatrixUtils.loadMatrixD(file.toString()), 30, expectedEntries(entries, false));
+    }
+
+    @Test
+    public void testCacheInvalidation() throws IOException {
+        Assume.assumeTrue("The matrix cache is disabled", IS_CACHE_ENABLED);
+        List<Entry> entries = randomEntries(new Random(23), 30, 4, true);
+        Path file = writeFile(contents("real", "general", 30, 30, entries));
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 30, expectedEntries(entries, false));
+        Path cache = file.resolveSibling(file.getFileName() + ".f32.csr");
+        FileTime cacheTime = Files.getLastModifiedTime(cache);
+
+        // The file is newer than the cache, so it is parsed again and the cache is replaced
+        List<Entry> newEntries = randomEntries(new Random(29), 40, 4, true);
+        Files.setLastModifiedTime(cache, FileTime.fromMillis(cacheTime.toMillis() - 10_000));
+        Files.writeString(file, contents("real", "general", 40, 40, newEntries), StandardCharsets.US_ASCII);
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 40, expectedEntries(newEntries, false));
+        assertTrue(Files.getLastModifiedTime(cache).compareTo(Files.getLastModifiedTime(file)) >= 0);
+
+        // A corrupted cache is ignored
+        Files.writeString(cache, "not a cache", StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(cache, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+        assertMatrixF(SparseMatrixUtils.loadMatrixF(file.toString()), 40, expectedEntries(newEntries, false));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TornadoDeviceContext;
+import uk.ac.manchester.tornado.api.TornadoTargetDevice;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.drivers.common.TornadoBufferProvider;
+import uk.ac.manchester.tornado.runtime.common.BufferProviderStatistics;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the size classes, the best-fit reuse and the eviction of free
+ * buffers in the {@link TornadoBufferProvider}. The native allocations are
+ * replaced with a fake provider that only records them, so the tests run
+ * without a device.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.memory.TestBufferProvider
+ * </code>
+ */
+public class TestBufferProvider extends TornadoTestBase {
+
+    private static final long DEVICE_MEMORY = TornadoOptions.DEVICE_AVAILABLE_MEMORY;
+    private static final long SIZE_CLASS_LIMIT = TornadoOptions.DEVICE_BUFFER_SIZE_CLASS_LIMIT;
+
+    private FakeBufferProvider bufferProvider;
+
+    /**
+     * Buffer provider that hands out fake pointers and records the native
+     * allocations and releases.
+     */
+    private static class FakeBufferProvider extends TornadoBufferProvider {
+
+        private final Map<Long, Long> capacities = new HashMap<>();
+        private final List<Long> released = new ArrayList<>();
+        private long nextBuffer = 0x1000;
+
+        FakeBufferProvider() {
+            super(fakeDeviceContext());
+        }
+
+        @Override
+        protected long allocateBuffer(long size, Access access) {
+            long buffer = nextBuffer;
+            nextBuffer += 0x1000;
+            capacities.put(buffer, size);
+            return buffer;
+        }
+
+        @Override
+        protected void releaseBuffer(long buffer) {
+            released.add(buffer);
+        }
+    }
+
+    private static TornadoDeviceContext fakeDeviceContext() {
+        TornadoTargetDevice device = (TornadoTargetDevice) Proxy.newProxyInstance(TornadoTargetDevice.class.getClassLoader(), new Class<?>[] { TornadoTargetDevice.class }, (proxy, method, args) -> {
+            if (method.getName().equals("getDeviceMaxAllocationSize")) {
+                return DEVICE_MEMORY;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return (TornadoDeviceContext) Proxy.newProxyInstance(TornadoDeviceContext.class.getClassLoader(), new Class<?>[] { TornadoDeviceContext.class }, (proxy, method, args) -> {
+            if (method.getName().equals("getDevice")) {
+                return device;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    @Before
+    public void createBufferProvider() {
+        bufferProvider = new FakeBufferProvider();
+    }
+
+    @Test
+    public void testSizeClassRounding() {
+        long buffer = bufferProvider.getOrAllocateBufferWithSize(1000, Access.READ_ONLY);
+        assertEquals(1024L, (long) bufferProvider.capacities.get(buffer));
+
+        buffer = bufferProvider.getOrAllocateBufferWithSize(1024, Access.READ_ONLY);
+        assertEquals(1024L, (long) bufferProvider.capacities.get(buffer));
+
+        buffer = bufferProvider.getOrAllocateBufferWithSize(1025, Access.READ_ONLY);
+        assertEquals(2048L, (long) bufferProvider.capacities.get(buffer));
+
+        // Buffers above the limit keep their exact size
+        buffer = bufferProvider.getOrAllocateBufferWithSize(SIZE_CLASS_LIMIT + 1, Access.READ_ONLY);
+        assertEquals(SIZE_CLASS_LIMIT + 1, (long) bufferProvider.capacities.get(buffer));
+
+        BufferProviderStatistics statistics = bufferProvider.getStatistics();
+        assertEquals(4, statistics.nativeAllocations());
+        assertEquals(1000 + 1024 + 1025 + SIZE_CLASS_LIMIT + 1, statistics.bytesRequested());
+        assertEquals(1024 + 1024 + 2048 + SIZE_CLASS_LIMIT + 1, statistics.bytesInUse());
+        assertEquals(24 + 1023, statistics.fragmentationBytes());
+    }
+
+    @Test
+    public void testReuseAfterRelease() {
+        long buffer = bufferProvider.getOrAllocateBufferWithSize(1000, Access.READ_WRITE);
+        bufferProvider.markBufferReleased(buffer, Access.READ_WRITE);
+        assertTrue(bufferProvider.isNumFreeBuffersAvailable(1, Access.READ_WRITE));
+
+        // Same size class and access type: the free buffer is reused
+        assertEquals(buffer, bufferProvider.getOrAllocateBufferWithSize(900, Access.READ_WRITE));
+        // A different access type has its own free list
+        bufferProvider.markBufferReleased(buffer, Access.READ_WRITE);
+        assertNotEquals(buffer, bufferProvider.getOrAllocateBufferWithSize(900, Access.WRITE_ONLY));
+
+        BufferProviderStatistics statistics = bufferProvider.getStatistics();
+        assertEquals(2, statistics.nativeAllocations());
+        assertEquals(1, statistics.reusedAllocations());
+        assertEquals(0, statistics.nativeReleases());
+        assertEquals(1024, statistics.bytesFree());
+    }
+
+    @Test
+    public void testBestFit() {
+        long buffer4K = bufferProvider.getOrAllocateBufferWithSize(4096, Access.READ_ONLY);
+        long buffer1K = bufferProvider.getOrAllocateBufferWithSize(1024, Access.READ_ONLY);
+        long buffer2K = bufferProvider.getOrAllocateBufferWithSize(2048, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(buffer4K, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(buffer1K, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(buffer2K, Access.READ_ONLY);
+
+        assertEquals(buffer2K, bufferProvider.getOrAllocateBufferWithSize(1500, Access.READ_ONLY));
+        assertEquals(buffer4K, bufferProvider.getOrAllocateBufferWithSize(3000, Access.READ_ONLY));
+        assertEquals(buffer1K, bufferProvider.getOrAllocateBufferWithSize(1000, Access.READ_ONLY));
+
+        // A free buffer of a larger size class is not used while there is device memory
+        bufferProvider.markBufferReleased(buffer4K, Access.READ_ONLY);
+        long buffer = bufferProvider.getOrAllocateBufferWithSize(100, Access.READ_ONLY);
+        assertNotEquals(buffer4K, buffer);
+        assertEquals(128L, (long) bufferProvider.capacities.get(buffer));
+        assertEquals(4, bufferProvider.getStatistics().nativeAllocations());
+    }
+
+    @Test
+    public void testLargerBufferReusedUnderMemoryPressure() {
+        bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 2 + DEVICE_MEMORY / 8, Access.READ_ONLY);
+        long quarter = bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 4, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(quarter, Access.READ_ONLY);
+
+        // There is not enough device memory left, so the larger free buffer is used
+        assertEquals(quarter, bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 4 - 4096, Access.READ_ONLY));
+        assertEquals(2, bufferProvider.getStatistics().nativeAllocations());
+        assertTrue(bufferProvider.released.isEmpty());
+    }
+
+    @Test
+    public void testEvictionUnderMemoryPressure() {
+        long first = bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 8 * 3, Access.READ_ONLY);
+        long second = bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 8 * 3, Access.READ_ONLY);
+        long small = bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 8, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(small, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(first, Access.READ_ONLY);
+        bufferProvider.markBufferReleased(second, Access.READ_ONLY);
+
+        // No free buffer is large enough, so the largest free buffers are released
+        // until there is room for the new buffer
+        long buffer = bufferProvider.getOrAllocateBufferWithSize(DEVICE_MEMORY / 2, Access.READ_ONLY);
+        assertEquals(List.of(first, second), bufferProvider.released);
+        assertEquals(DEVICE_MEMORY / 2, (long) bufferProvider.capacities.get(buffer));
+
+        BufferProviderStatistics statistics = bufferProvider.getStatistics();
+        assertEquals(4, statistics.nativeAllocations());
+        assertEquals(2, statistics.nativeReleases());
+        assertEquals(DEVICE_MEMORY / 8, statistics.bytesFree());
+
+        // The remaining free buffers are released with deallocate
+        assertEquals(DEVICE_MEMORY / 8, bufferProvider.deallocate(Access.READ_ONLY));
+        assertEquals(List.of(first, second, small), bufferProvider.released);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.foreign.ValueLayout;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for skipping the copies of native arrays that have not been modified on
+ * the host. The results must be the same as when every copy is performed.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.skip.unmodified.transfers=True" uk.ac.manchester.tornado.unittests.memory.TestTransferElision
+ * </code>
+ */
+public class TestTransferElision extends TornadoTestBase {
+
+    private static final int SIZE = 4096;
+
+    public static void add(IntArray a, IntArray b, IntArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void increment(IntArray a) {
+        for (@Parallel int i = 0; i < a.getSize(); i++) {
+            a.set(i, a.get(i) + 1);
+        }
+    }
+
+    @Test
+    public void testUnmodifiedInputs() throws TornadoExecutionPlanException {
+        IntArray a = new IntArray(SIZE);
+        IntArray b = new IntArray(SIZE);
+        IntArray c = new IntArray(SIZE);
+        a.init(1);
+        b.init(2);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestTransferElision::add, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withProfiler(ProfilerMode.SILENT);
+            long firstCopyIn = executionPlan.execute().getProfilerResult().getTotalBytesCopyIn();
+            long secondCopyIn = executionPlan.execute().getProfilerResult().getTotalBytesCopyIn();
+            assertTrue(secondCopyIn < firstCopyIn);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(3, c.get(i));
+        }
+    }
+
+    @Test
+    public void testModifiedInputs() throws TornadoExecutionPlanException {
+        IntArray a = new IntArray(SIZE);
+        IntArray b = new IntArray(SIZE);
+        IntArray c = new IntArray(SIZE);
+        a.init(1);
+        b.init(2);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestTransferElision::add, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.execute();
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals(3, c.get(i));
+            }
+
+            // Only one input is modified, through the set methods
+            a.set(10, 100);
+            executionPlan.execute();
+            assertEquals(102, c.get(10));
+
+            // Writes through the memory segment must be marked
+            a.getSegment().setAtIndex(ValueLayout.JAVA_INT, 20, 200);
+            a.markModified();
+            executionPlan.execute();
+            assertEquals(202, c.get(20));
+        }
+    }
+
+    @Test
+    public void testInputWrittenOnDevice() throws TornadoExecutionPlanException {
+        IntArray a = new IntArray(SIZE);
+        a.init(0);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a) //
+                .task("t0", TestTransferElision::increment, a) //
+                .transferToHost(DataTransferMode.UNDER_DEMAND, a);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            // The array is not modified on the host, but the kernel modifies its device copy
+            executionPlan.execute();
+            executionPlan.execute().transferToHost(a);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(1, a.get(i));
+        }
+    }
+}
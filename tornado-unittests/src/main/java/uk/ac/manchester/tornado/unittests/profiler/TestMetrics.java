@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.unittests.TestHello;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the metrics of the runtime through their JMX MBeans. The metrics are
+ * only recorded with {@code -Dtornado.metrics=True}.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.metrics=True" uk.ac.manchester.tornado.unittests.profiler.TestMetrics
+ * </code>
+ */
+public class TestMetrics extends TornadoTestBase {
+
+    private static final String JMX_DOMAIN = "uk.ac.manchester.tornado";
+
+    private static final int ITERATIONS = 100;
+
+    private MBeanServer server;
+
+    @Before
+    public void checkMetricsEnabled() {
+        Assume.assumeTrue("Skipping TestMetrics: requires -Dtornado.metrics=True", Boolean.parseBoolean(System.getProperty("tornado.metrics", "False")));
+        server = ManagementFactory.getPlatformMBeanServer();
+    }
+
+    private void runVectorAdd(String taskGraphName) throws TornadoExecutionPlanException {
+        final int numElements = 1024;
+        IntArray a = new IntArray(numElements);
+        IntArray b = new IntArray(numElements);
+        IntArray c = new IntArray(numElements);
+        a.init(1);
+        b.init(2);
+
+        TaskGraph taskGraph = new TaskGraph(taskGraphName) //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestHello::add, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            for (int i = 0; i < ITERATIONS; i++) {
+                executionPlan.execute();
+            }
+        }
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(3, c.get(i));
+        }
+    }
+
+    private ObjectName latencyName(String metric, String task) throws JMException {
+        Set<ObjectName> names = server.queryNames(new ObjectName(JMX_DOMAIN + ":type=Latency,name=" + ObjectName.quote(metric) + ",task=" + ObjectName.quote(task) + ",*"), null);
+        assertEquals(1, names.size());
+        return names.iterator().next();
+    }
+
+    @Test
+    public void testKernelLatency() throws TornadoExecutionPlanException, JMException {
+        runVectorAdd("metrics0");
+
+        ObjectName kernel = latencyName("tornado.kernel.latency", "metrics0.t0");
+        long count = (Long) server.getAttribute(kernel, "Count");
+        long p50 = (Long) server.getAttribute(kernel, "P50Nanos");
+        long p99 = (Long) server.getAttribute(kernel, "P99Nanos");
+        long max = (Long) server.getAttribute(kernel, "MaxNanos");
+        assertEquals(ITERATIONS, count);
+        assertTrue(p50 > 0);
+        assertTrue(p50 <= p99);
+        assertTrue(p99 <= max);
+
+        ObjectName taskGraph = latencyName("tornado.taskgraph.latency", "metrics0");
+        assertEquals((long) ITERATIONS, server.getAttribute(taskGraph, "Count"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCounters() throws TornadoExecutionPlanException, JMException {
+        runVectorAdd("metrics1");
+
+        ObjectName registry = new ObjectName(JMX_DOMAIN + ":type=Registry");
+        Map<String, Long> counters = (Map<String, Long>) server.getAttribute(registry, "Counters");
+        assertFalse(counters.isEmpty());
+        long copyInBytes = counters.entrySet().stream() //
+                .filter(entry -> entry.getKey().startsWith("tornado.copyin.bytes")) //
+                .mapToLong(Map.Entry::getValue) //
+                .sum();
+        // The bytes are counted per device, and they include two arrays of 1024 integers on each iteration
+        assertTrue(copyInBytes >= 2L * ITERATIONS * 1024 * Integer.BYTES);
+
+        server.invoke(registry, "reset", null, null);
+        ObjectName kernel = latencyName("tornado.kernel.latency", "metrics1.t0");
+        assertEquals(0L, server.getAttribute(kernel, "Count"));
+    }
+}
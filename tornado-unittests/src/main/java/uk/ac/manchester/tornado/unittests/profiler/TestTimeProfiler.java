@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.profiler.ProfilerType;
+import uk.ac.manchester.tornado.runtime.profiler.TimeProfiler;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the {@link TimeProfiler}: the values recorded from several threads
+ * at the same time, the snapshots taken while the values are recorded, and the
+ * output of {@link TimeProfiler#dump()}.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.profiler.TestTimeProfiler
+ * </code>
+ */
+public class TestTimeProfiler extends TornadoTestBase {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 100_000;
+    private static final String[] TASKS = { "s0.t0", "s0.t1", TimeProfiler.NO_TASK_NAME };
+
+    private static String dump(TimeProfiler profiler) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream capture = new PrintStream(buffer, true)) {
+            System.setOut(capture);
+            profiler.dump();
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString();
+    }
+
+    @Test
+    public void testConcurrentAddValueToMetric() throws Exception {
+        TimeProfiler profiler = new TimeProfiler();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean(false);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final String taskName = TASKS[thread % TASKS.length];
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, taskName, 1);
+                        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES, taskName, 2);
+                    }
+                    return null;
+                }));
+            }
+
+            // The snapshots taken while the values are recorded never go back, and
+            // only contain the types that have been recorded
+            Future<Integer> reader = executor.submit(() -> {
+                start.await();
+                Map<String, Long> previous = new HashMap<>();
+                int snapshots = 0;
+                while (!done.get()) {
+                    TimeProfiler.Snapshot snapshot = profiler.snapshot();
+                    for (Map.Entry<String, Map<ProfilerType, Long>> task : snapshot.taskSizes().entrySet()) {
+                        for (ProfilerType type : task.getValue().keySet()) {
+                            assertTrue(type == ProfilerType.TOTAL_COPY_IN_SIZE_BYTES || type == ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES);
+                        }
+                        long copyIn = task.getValue().getOrDefault(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, 0L);
+                        assertTrue(copyIn >= previous.getOrDefault(task.getKey(), 0L));
+                        previous.put(task.getKey(), copyIn);
+                    }
+                    assertTrue(snapshot.timers().isEmpty());
+                    assertTrue(snapshot.taskTimers().isEmpty());
+                    snapshots++;
+                }
+                return snapshots;
+            });
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TimeProfiler.Snapshot snapshot = profiler.snapshot();
+        assertEquals(TASKS.length, snapshot.taskSizes().size());
+        for (int task = 0; task < TASKS.length; task++) {
+            long writersOfTask = (THREADS - task + TASKS.length - 1) / TASKS.length;
+            Map<ProfilerType, Long> sizes = snapshot.taskSizes().get(TASKS[task]);
+            assertEquals(writersOfTask * ITERATIONS, (long) sizes.get(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES));
+            assertEquals(2 * writersOfTask * ITERATIONS, (long) sizes.get(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES));
+        }
+        assertEquals((long) THREADS * ITERATIONS, profiler.getSize(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES));
+        assertEquals(2L * THREADS * ITERATIONS, profiler.getSize(ProfilerType.TOTAL_COPY_OUT_SIZE_BYTES));
+    }
+
+    @Test
+    public void testSnapshotIsACopy() {
+        TimeProfiler profiler = new TimeProfiler();
+        profiler.setTimer(ProfilerType.TOTAL_TASK_GRAPH_TIME, 100);
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0", 10);
+        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, "s0.t0", 64);
+
+        TimeProfiler.Snapshot snapshot = profiler.snapshot();
+        profiler.setTimer(ProfilerType.TOTAL_TASK_GRAPH_TIME, 200);
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t1", 20);
+        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, "s0.t0", 64);
+
+        assertEquals(Map.of(ProfilerType.TOTAL_TASK_GRAPH_TIME, 100L), snapshot.timers());
+        assertEquals(Map.of("s0.t0", Map.of(ProfilerType.TASK_KERNEL_TIME, 10L)), snapshot.taskTimers());
+        assertEquals(Map.of("s0.t0", Map.of(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, 64L)), snapshot.taskSizes());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.timers().put(ProfilerType.TOTAL_KERNEL_TIME, 0L));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.taskTimers().get("s0.t0").clear());
+
+        assertEquals(128, profiler.snapshot().taskSizes().get("s0.t0").get(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES).longValue());
+    }
+
+    @Test
+    public void testDumpOutput() {
+        TimeProfiler profiler = new TimeProfiler();
+        profiler.setTimer(ProfilerType.TOTAL_TASK_GRAPH_TIME, 1000);
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0", 300);
+        profiler.setTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t1", 400);
+        // The metrics and the labels are not part of the dump
+        profiler.addValueToMetric(ProfilerType.TOTAL_COPY_IN_SIZE_BYTES, "s0.t0", 64);
+        profiler.registerDeviceName("s0.t0", "device");
+
+        // Same format as the dump of the profiler before the values were moved to
+        // preallocated slots: a line per task-graph timer, and a line per task
+        // with the map of its timers
+        String expected = "[PROFILER] TS-Total-Time: 1000" + System.lineSeparator() //
+                + "[PROFILER-TASK] s0.t0: {TASK_KERNEL_TIME=300}" + System.lineSeparator() //
+                + "[PROFILER-TASK] s0.t1: {TASK_KERNEL_TIME=400}" + System.lineSeparator();
+        assertEquals(expected, dump(profiler));
+
+        profiler.clean();
+        assertEquals("", dump(profiler));
+    }
+
+    @Test
+    public void testStartStop() {
+        TimeProfiler profiler = new TimeProfiler();
+        profiler.start(ProfilerType.TOTAL_KERNEL_TIME);
+        profiler.start(ProfilerType.TASK_KERNEL_TIME, "s0.t0");
+        profiler.stop(ProfilerType.TASK_KERNEL_TIME, "s0.t0");
+        profiler.stop(ProfilerType.TOTAL_KERNEL_TIME);
+
+        long taskTime = profiler.getTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t0");
+        long totalTime = profiler.getTimer(ProfilerType.TOTAL_KERNEL_TIME);
+        assertTrue(taskTime >= 0);
+        assertTrue(totalTime >= taskTime);
+        assertEquals(0, profiler.getTaskTimer(ProfilerType.TASK_KERNEL_TIME, "s0.t1"));
+        assertFalse(profiler.snapshot().taskTimers().containsKey("s0.t1"));
+    }
+}
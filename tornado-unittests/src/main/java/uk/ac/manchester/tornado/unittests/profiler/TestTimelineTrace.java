@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.profiler.TimelineTracer;
+import uk.ac.manchester.tornado.api.types.arrays.IntArray;
+import uk.ac.manchester.tornado.unittests.TestHello;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests the timeline trace of the execution plans.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.profiler.TestTimelineTrace
+ * </code>
+ */
+public class TestTimelineTrace extends TornadoTestBase {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("tornado-timeline", ".json");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testRingBuffer() {
+        TimelineTracer tracer = new TimelineTracer(1, 4);
+        for (int i = 0; i < 6; i++) {
+            tracer.record("span" + i, TimelineTracer.CATEGORY_BYTECODE, "track", i * 1000L, i * 1000L + 500);
+        }
+        assertEquals(4, tracer.size());
+        assertEquals(2, tracer.getDroppedSpans());
+
+        // The oldest spans are replaced
+        String json = tracer.toJson();
+        assertFalse(json.contains("\"span1\""));
+        assertTrue(json.contains("\"span2\""));
+        assertTrue(json.contains("\"span5\""));
+        assertTrue(json.indexOf("\"span2\"") < json.indexOf("\"span5\""));
+    }
+
+    @Test
+    public void testChromeTraceFormat() throws IOException {
+        TimelineTracer tracer = new TimelineTracer(7, 16);
+        tracer.record("TRANSFER_HOST_TO_DEVICE_ONCE", TimelineTracer.CATEGORY_DEVICE, "gpu", 1000, 2000, 3000, 5000, 4096);
+        tracer.record("LAUNCH t0", TimelineTracer.CATEGORY_BYTECODE, "interpreter", 6000, 8000);
+        tracer.write(file);
+
+        String json = Files.readString(file);
+        assertTrue(json.contains("\"traceEvents\""));
+        assertTrue(json.contains("\"process_name\""));
+        assertTrue(json.contains("\"thread_name\""));
+        assertTrue(json.contains("\"pid\":7"));
+        assertTrue(json.contains("\"ph\":\"X\""));
+        assertTrue(json.contains("\"bytes\":4096"));
+        assertTrue(json.contains("\"queued-to-start (ns)\":2000"));
+        assertTrue(json.contains("\"dur\":2"));
+    }
+
+    @Test
+    public void testExecutionPlanTrace() throws TornadoExecutionPlanException, IOException {
+        final int numElements = 256;
+        IntArray a = new IntArray(numElements);
+        IntArray b = new IntArray(numElements);
+        IntArray c = new IntArray(numElements);
+        a.init(1);
+        b.init(2);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestHello::add, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withTimelineTrace(file);
+            executionPlan.execute();
+            executionPlan.execute();
+            assertTrue(executionPlan.getTimelineTracer().size() > 0);
+        }
+
+        for (int i = 0; i < numElements; i++) {
+            assertEquals(3, c.get(i));
+        }
+
+        // The trace is written when the plan is closed
+        String json = Files.readString(file);
+        assertTrue(json.contains("\"cat\":\"" + TimelineTracer.CATEGORY_BYTECODE + "\""));
+        assertTrue(json.contains("\"cat\":\"" + TimelineTracer.CATEGORY_TASK_GRAPH + "\""));
+        assertTrue(json.contains("LAUNCH s0.t0"));
+        assertTrue(json.contains("TRANSFER_HOST_TO_DEVICE_ALWAYS"));
+        assertTrue(json.contains("TRANSFER_DEVICE_TO_HOST_ALWAYS"));
+    }
+}
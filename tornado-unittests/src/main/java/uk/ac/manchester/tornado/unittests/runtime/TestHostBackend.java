@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.GridScheduler;
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoBackend;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.WorkerGrid1D;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.math.TornadoMath;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.api.types.collections.VectorFloat4;
+import uk.ac.manchester.tornado.api.types.vectors.Float4;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the Host Backend, which runs the tasks on the cores of the host
+ * with Java threads.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.host.backend=True" uk.ac.manchester.tornado.unittests.runtime.TestHostBackend
+ * </code>
+ *
+ * <p>
+ * The element-wise loops run with the Java Vector API. To compare with the
+ * scalar version, run with <code>-Dtornado.host.vectorize=False</code>.
+ * </p>
+ */
+public class TestHostBackend extends TornadoTestBase {
+
+    private static final int SIZE = 4096;
+    private static final int LOCAL_SIZE = 256;
+
+    public static void saxpy(float alpha, FloatArray x, FloatArray y, FloatArray z) {
+        for (@Parallel int i = 0; i < z.getSize(); i++) {
+            z.set(i, alpha * x.get(i) + y.get(i));
+        }
+    }
+
+    public static void clamp(FloatArray input, FloatArray output, float scale) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            float value = TornadoMath.sqrt(TornadoMath.abs(input.get(i))) * scale;
+            output.set(i, TornadoMath.min(TornadoMath.max(value, 0.5f), 10.0f));
+        }
+    }
+
+    public static void fma4(VectorFloat4 a, VectorFloat4 b, VectorFloat4 c) {
+        for (@Parallel int i = 0; i < c.getLength(); i++) {
+            c.set(i, Float4.add(Float4.mult(a.get(i), b.get(i)), c.get(i)));
+        }
+    }
+
+    public static void reduceLocalMemory(KernelContext context, FloatArray a, FloatArray b) {
+        int globalIdx = context.globalIdx;
+        int localIdx = context.localIdx;
+        int localGroupSize = context.localGroupSizeX;
+        int groupID = context.groupIdx;
+
+        float[] localA = context.allocateFloatLocalArray(LOCAL_SIZE);
+        localA[localIdx] = a.get(globalIdx);
+        for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+            context.localBarrier();
+            if (localIdx < stride) {
+                localA[localIdx] += localA[localIdx + stride];
+            }
+        }
+        if (localIdx == 0) {
+            b.set(groupID, localA[0]);
+        }
+    }
+
+    private static TornadoDevice getHostDevice() {
+        for (int backendIndex = 0; backendIndex < getTornadoRuntime().getNumBackends(); backendIndex++) {
+            TornadoBackend backend = getTornadoRuntime().getBackend(backendIndex);
+            if (backend.getBackendType() == TornadoVMBackendType.JAVA) {
+                return backend.getDevice(0);
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testParallelLoop() throws TornadoExecutionPlanException {
+        TornadoDevice device = getHostDevice();
+        assertNotNull("The Host Backend is not loaded. Run with -Dtornado.host.backend=True", device);
+
+        FloatArray x = new FloatArray(SIZE);
+        FloatArray y = new FloatArray(SIZE);
+        FloatArray z = new FloatArray(SIZE);
+        IntStream.range(0, SIZE).forEach(i -> {
+            x.set(i, i);
+            y.set(i, SIZE - i);
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, x, y) //
+                .task("t0", TestHostBackend::saxpy, 2.0f, x, y, z) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, z);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDevice(device).execute();
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(2.0f * x.get(i) + y.get(i), z.get(i), DELTA);
+        }
+    }
+
+    @Test
+    public void testKernelContextWithBarriers() throws TornadoExecutionPlanException {
+        TornadoDevice device = getHostDevice();
+        assertNotNull("The Host Backend is not loaded. Run with -Dtornado.host.backend=True", device);
+
+        FloatArray input = new FloatArray(SIZE);
+        FloatArray reduce = new FloatArray(SIZE / LOCAL_SIZE);
+        IntStream.range(0, SIZE).forEach(i -> input.set(i, i % 10));
+
+        WorkerGrid worker = new WorkerGrid1D(SIZE);
+        worker.setLocalWork(LOCAL_SIZE, 1, 1);
+        GridScheduler gridScheduler = new GridScheduler("s0.t0", worker);
+        KernelContext context = new KernelContext();
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, input) //
+                .task("t0", TestHostBackend::reduceLocalMemory, context, input, reduce) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, reduce);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDevice(device) //
+                    .withGridScheduler(gridScheduler) //
+                    .execute();
+        }
+
+        for (int group = 0; group < reduce.getSize(); group++) {
+            float expected = 0;
+            for (int i = group * LOCAL_SIZE; i < (group + 1) * LOCAL_SIZE; i++) {
+                expected += input.get(i);
+            }
+            assertEquals(expected, reduce.get(group), DELTA);
+        }
+    }
+
+    @Test
+    public void testVectorizedLoopWithTail() throws TornadoExecutionPlanException {
+        TornadoDevice device = getHostDevice();
+        assertNotNull("The Host Backend is not loaded. Run with -Dtornado.host.backend=True", device);
+
+        // The size is not a multiple of the vector length, so the last iterations are scalar
+        final int size = SIZE + 3;
+        FloatArray input = new FloatArray(size);
+        FloatArray output = new FloatArray(size);
+        IntStream.range(0, size).forEach(i -> input.set(i, (i % 2 == 0) ? i : -i));
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, input) //
+                .task("t0", TestHostBackend::clamp, input, output, 0.25f) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, output);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDevice(device).execute();
+        }
+
+        for (int i = 0; i < size; i++) {
+            float value = TornadoMath.sqrt(TornadoMath.abs(input.get(i))) * 0.25f;
+            assertEquals(TornadoMath.min(TornadoMath.max(value, 0.5f), 10.0f), output.get(i), DELTA);
+        }
+    }
+
+    @Test
+    public void testVectorizedLoopWithFloat4() throws TornadoExecutionPlanException {
+        TornadoDevice device = getHostDevice();
+        assertNotNull("The Host Backend is not loaded. Run with -Dtornado.host.backend=True", device);
+
+        final int size = SIZE / 4 + 1;
+        VectorFloat4 a = new VectorFloat4(size);
+        VectorFloat4 b = new VectorFloat4(size);
+        VectorFloat4 c = new VectorFloat4(size);
+        IntStream.range(0, size).forEach(i -> {
+            a.set(i, new Float4(i, i + 1, i + 2, i + 3));
+            b.set(i, new Float4(2, 3, 4, 5));
+            c.set(i, new Float4(1, 1, 1, 1));
+        });
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b, c) //
+                .task("t0", TestHostBackend::fma4, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withDevice(device).execute();
+        }
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(2.0f * i + 1, c.get(i).getX(), DELTA);
+            assertEquals(3.0f * (i + 1) + 1, c.get(i).getY(), DELTA);
+            assertEquals(4.0f * (i + 2) + 1, c.get(i).getZ(), DELTA);
+            assertEquals(5.0f * (i + 3) + 1, c.get(i).getW(), DELTA);
+        }
+    }
+}
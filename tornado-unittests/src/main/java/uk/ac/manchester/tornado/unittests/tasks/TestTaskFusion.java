@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.TornadoExecutionResult;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.ProfilerMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests for the fusion of consecutive element-wise tasks. The profiler log
+ * shows which tasks have been fused: a fused task is named after the ids of its
+ * tasks, and its method is {@code fused_<method names>} of a generated class.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V -J"-Dtornado.experimental.fusion=True" uk.ac.manchester.tornado.unittests.tasks.TestTaskFusion
+ * </code>
+ */
+public class TestTaskFusion extends TornadoTestBase {
+
+    private static final int SIZE = 2048;
+
+    public static void scale(FloatArray input, FloatArray output, float alpha) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, alpha * input.get(i));
+        }
+    }
+
+    public static void add(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    public static void relu(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, Math.max(0.0f, input.get(i)));
+        }
+    }
+
+    /**
+     * Reads a neighbour of the element written by the previous task, so it cannot
+     * be fused with it.
+     */
+    public static void shift(FloatArray input, FloatArray output) {
+        for (@Parallel int i = 0; i < output.getSize(); i++) {
+            output.set(i, input.get((i + 1) % input.getSize()));
+        }
+    }
+
+    private static FloatArray createArray(Random random) {
+        FloatArray array = new FloatArray(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            array.set(i, random.nextFloat() * 2 - 1);
+        }
+        return array;
+    }
+
+    @Before
+    public void checkFusionEnabled() {
+        Assume.assumeTrue("Skipping TestTaskFusion: requires -Dtornado.experimental.fusion=True", TornadoOptions.TASK_FUSION);
+    }
+
+    /**
+     * The host backend does not profile the tasks nor track the device memory, so
+     * the fused tasks can only be checked through their results.
+     */
+    private static boolean isTaskProfiled() {
+        return TornadoCoreRuntime.getTornadoRuntime().getDefaultDevice().getTornadoVMBackend() != TornadoVMBackendType.JAVA;
+    }
+
+    private static void assertFused(TornadoExecutionResult executionResult, String taskId, String methodName) {
+        if (!isTaskProfiled()) {
+            return;
+        }
+        String profileLog = executionResult.getProfilerResult().getProfileLog();
+        assertTrue(profileLog, profileLog.contains("\"s0." + taskId + "\""));
+        assertTrue(profileLog, profileLog.contains(TestTaskFusion.class.getSimpleName() + "$$TornadoFused$"));
+        assertTrue(profileLog, profileLog.contains("." + methodName + "\""));
+    }
+
+    @Test
+    public void testChainOfTasks() throws TornadoExecutionPlanException {
+        Random random = new Random(71);
+        FloatArray a = createArray(random);
+        FloatArray b = createArray(random);
+        FloatArray scaled = new FloatArray(SIZE);
+        FloatArray sum = new FloatArray(SIZE);
+        FloatArray result = new FloatArray(SIZE);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("scale", TestTaskFusion::scale, a, scaled, 2.0f) //
+                .task("add", TestTaskFusion::add, scaled, b, sum) //
+                .task("relu", TestTaskFusion::relu, sum, result) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, result);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.withProfiler(ProfilerMode.SILENT).execute();
+            // Second execution to check that the fused kernel is reused
+            TornadoExecutionResult executionResult = executionPlan.execute();
+            assertFused(executionResult, "scale_add_relu", "fused_scale_add_relu");
+            if (isTaskProfiled()) {
+                // The intermediate results are kept in the fused kernel, so only the inputs and the result get device buffers
+                assertEquals(a.getNumBytesOfSegmentWithHeader() * 3, executionPlan.getCurrentDeviceMemoryUsage());
+            }
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(Math.max(0.0f, 2.0f * a.get(i) + b.get(i)), result.get(i), 0.001f);
+        }
+    }
+
+    @Test
+    public void testIndependentTasks() throws TornadoExecutionPlanException {
+        Random random = new Random(72);
+        FloatArray a = createArray(random);
+        FloatArray b = createArray(random);
+        FloatArray c = new FloatArray(SIZE);
+        FloatArray d = new FloatArray(SIZE);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("t0", TestTaskFusion::scale, a, c, 0.5f) //
+                .task("t1", TestTaskFusion::scale, b, d, 3.0f) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c, d);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            TornadoExecutionResult executionResult = executionPlan.withProfiler(ProfilerMode.SILENT).execute();
+            assertFused(executionResult, "t0_t1", "fused_scale_scale");
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(0.5f * a.get(i), c.get(i), 0.001f);
+            assertEquals(3.0f * b.get(i), d.get(i), 0.001f);
+        }
+    }
+
+    @Test
+    public void testNonFusableTasks() throws TornadoExecutionPlanException {
+        Random random = new Random(73);
+        FloatArray a = createArray(random);
+        FloatArray b = createArray(random);
+        FloatArray c = new FloatArray(SIZE);
+        FloatArray d = new FloatArray(SIZE);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestTaskFusion::add, a, b, c) //
+                .task("t1", TestTaskFusion::shift, c, d) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, d);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            String profileLog = executionPlan.withProfiler(ProfilerMode.SILENT).execute().getProfilerResult().getProfileLog();
+            assertFalse(profileLog, profileLog.contains("$$TornadoFused$"));
+            if (isTaskProfiled()) {
+                assertTrue(profileLog, profileLog.contains("\"s0.t0\"") && profileLog.contains("\"s0.t1\""));
+            }
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            int next = (i + 1) % SIZE;
+            assertEquals(a.get(next) + b.get(next), d.get(i), 0.001f);
+        }
+    }
+}
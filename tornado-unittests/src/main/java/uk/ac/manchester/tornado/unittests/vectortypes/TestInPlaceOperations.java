@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.vectortypes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.types.collections.VectorFloat3;
+import uk.ac.manchester.tornado.api.types.collections.VectorFloat4;
+import uk.ac.manchester.tornado.api.types.images.ImageFloat3;
+import uk.ac.manchester.tornado.api.types.images.ImageFloat4;
+import uk.ac.manchester.tornado.api.types.vectors.Float3;
+import uk.ac.manchester.tornado.api.types.vectors.Float4;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Checks the in-place operations of the vector collections and images, and
+ * their reductions, against the allocating {@link Float3} and {@link Float4}
+ * operations.
+ *
+ * <p>
+ * How to run.
+ * </p>
+ * <code>
+ * tornado-test -V uk.ac.manchester.tornado.unittests.vectortypes.TestInPlaceOperations
+ * </code>
+ */
+public class TestInPlaceOperations extends TornadoTestBase {
+
+    public static final double DELTA = 0.001;
+
+    private static final int NUM_ELEMENTS = 256;
+    private static final int X = 32;
+    private static final int Y = 16;
+    private static final float SCALE = 2.5f;
+
+    private static Float3 randomFloat3(Random r) {
+        return new Float3(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f);
+    }
+
+    private static Float4 randomFloat4(Random r) {
+        return new Float4(r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f, r.nextFloat() - 0.5f);
+    }
+
+    private static VectorFloat3 randomVectorFloat3(Random r) {
+        VectorFloat3 vector = new VectorFloat3(NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            vector.set(i, randomFloat3(r));
+        }
+        return vector;
+    }
+
+    private static VectorFloat4 randomVectorFloat4(Random r) {
+        VectorFloat4 vector = new VectorFloat4(NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            vector.set(i, randomFloat4(r));
+        }
+        return vector;
+    }
+
+    private static ImageFloat3 randomImageFloat3(Random r) {
+        ImageFloat3 image = new ImageFloat3(X, Y);
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                image.set(x, y, randomFloat3(r));
+            }
+        }
+        return image;
+    }
+
+    private static ImageFloat4 randomImageFloat4(Random r) {
+        ImageFloat4 image = new ImageFloat4(X, Y);
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                image.set(x, y, randomFloat4(r));
+            }
+        }
+        return image;
+    }
+
+    private static void assertFloat3(Float3 expected, Float3 actual) {
+        assertEquals(expected.getX(), actual.getX(), DELTA);
+        assertEquals(expected.getY(), actual.getY(), DELTA);
+        assertEquals(expected.getZ(), actual.getZ(), DELTA);
+    }
+
+    private static void assertFloat4(Float4 expected, Float4 actual) {
+        assertEquals(expected.getX(), actual.getX(), DELTA);
+        assertEquals(expected.getY(), actual.getY(), DELTA);
+        assertEquals(expected.getZ(), actual.getZ(), DELTA);
+        assertEquals(expected.getW(), actual.getW(), DELTA);
+    }
+
+    @Test
+    public void testVectorFloat3InPlace() {
+        Random r = new Random(31);
+        VectorFloat3 a = randomVectorFloat3(r);
+        VectorFloat3 b = randomVectorFloat3(r);
+        VectorFloat3 add = new VectorFloat3(NUM_ELEMENTS);
+        VectorFloat3 sub = new VectorFloat3(NUM_ELEMENTS);
+        VectorFloat3 mult = new VectorFloat3(NUM_ELEMENTS);
+        VectorFloat3 scale = new VectorFloat3(NUM_ELEMENTS);
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            VectorFloat3.addInto(add, a, b, i);
+            VectorFloat3.subInto(sub, a, b, i);
+            VectorFloat3.multInto(mult, a, b, i);
+            VectorFloat3.scaleInto(scale, a, SCALE, i);
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertFloat3(Float3.add(a.get(i), b.get(i)), add.get(i));
+            assertFloat3(Float3.sub(a.get(i), b.get(i)), sub.get(i));
+            assertFloat3(Float3.mult(a.get(i), b.get(i)), mult.get(i));
+            assertFloat3(Float3.mult(a.get(i), SCALE), scale.get(i));
+            assertEquals(Float3.dot(a.get(i), b.get(i)), VectorFloat3.dot(a, b, i), DELTA);
+        }
+    }
+
+    @Test
+    public void testVectorFloat4InPlace() {
+        Random r = new Random(31);
+        VectorFloat4 a = randomVectorFloat4(r);
+        VectorFloat4 b = randomVectorFloat4(r);
+        VectorFloat4 add = new VectorFloat4(NUM_ELEMENTS);
+        VectorFloat4 sub = new VectorFloat4(NUM_ELEMENTS);
+        VectorFloat4 mult = new VectorFloat4(NUM_ELEMENTS);
+        VectorFloat4 scale = new VectorFloat4(NUM_ELEMENTS);
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            VectorFloat4.addInto(add, a, b, i);
+            VectorFloat4.subInto(sub, a, b, i);
+            VectorFloat4.multInto(mult, a, b, i);
+            VectorFloat4.scaleInto(scale, a, SCALE, i);
+        }
+
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertFloat4(Float4.add(a.get(i), b.get(i)), add.get(i));
+            assertFloat4(Float4.sub(a.get(i), b.get(i)), sub.get(i));
+            assertFloat4(Float4.mult(a.get(i), b.get(i)), mult.get(i));
+            assertFloat4(Float4.mult(a.get(i), SCALE), scale.get(i));
+            assertEquals(Float4.dot(a.get(i), b.get(i)), VectorFloat4.dot(a, b, i), DELTA);
+        }
+    }
+
+    @Test
+    public void testImageFloat3InPlace() {
+        Random r = new Random(31);
+        ImageFloat3 a = randomImageFloat3(r);
+        ImageFloat3 b = randomImageFloat3(r);
+        ImageFloat3 add = new ImageFloat3(X, Y);
+        ImageFloat3 sub = new ImageFloat3(X, Y);
+        ImageFloat3 mult = new ImageFloat3(X, Y);
+        ImageFloat3 scale = new ImageFloat3(X, Y);
+
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                ImageFloat3.addInto(add, a, b, x, y);
+                ImageFloat3.subInto(sub, a, b, x, y);
+                ImageFloat3.multInto(mult, a, b, x, y);
+                ImageFloat3.scaleInto(scale, a, SCALE, x, y);
+            }
+        }
+
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                assertFloat3(Float3.add(a.get(x, y), b.get(x, y)), add.get(x, y));
+                assertFloat3(Float3.sub(a.get(x, y), b.get(x, y)), sub.get(x, y));
+                assertFloat3(Float3.mult(a.get(x, y), b.get(x, y)), mult.get(x, y));
+                assertFloat3(Float3.mult(a.get(x, y), SCALE), scale.get(x, y));
+                assertEquals(Float3.dot(a.get(x, y), b.get(x, y)), ImageFloat3.dot(a, b, x, y), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testImageFloat4InPlace() {
+        Random r = new Random(31);
+        ImageFloat4 a = randomImageFloat4(r);
+        ImageFloat4 b = randomImageFloat4(r);
+        ImageFloat4 add = new ImageFloat4(X, Y);
+        ImageFloat4 sub = new ImageFloat4(X, Y);
+        ImageFloat4 mult = new ImageFloat4(X, Y);
+        ImageFloat4 scale = new ImageFloat4(X, Y);
+
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                ImageFloat4.addInto(add, a, b, x, y);
+                ImageFloat4.subInto(sub, a, b, x, y);
+                ImageFloat4.multInto(mult, a, b, x, y);
+                ImageFloat4.scaleInto(scale, a, SCALE, x, y);
+            }
+        }
+
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                assertFloat4(Float4.add(a.get(x, y), b.get(x, y)), add.get(x, y));
+                assertFloat4(Float4.sub(a.get(x, y), b.get(x, y)), sub.get(x, y));
+                assertFloat4(Float4.mult(a.get(x, y), b.get(x, y)), mult.get(x, y));
+                assertFloat4(Float4.mult(a.get(x, y), SCALE), scale.get(x, y));
+                assertEquals(Float4.dot(a.get(x, y), b.get(x, y)), ImageFloat4.dot(a, b, x, y), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testVectorFloat3Reductions() {
+        VectorFloat3 vector = randomVectorFloat3(new Random(31));
+
+        Float3 sum = new Float3();
+        Float3 min = new Float3();
+        Float3 max = new Float3();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            sum = Float3.add(sum, vector.get(i));
+            min = Float3.min(min, vector.get(i));
+            max = Float3.max(max, vector.get(i));
+        }
+
+        assertFloat3(sum, vector.sum());
+        assertFloat3(min, vector.min());
+        assertFloat3(max, vector.max());
+    }
+
+    @Test
+    public void testVectorFloat4Reductions() {
+        VectorFloat4 vector = randomVectorFloat4(new Random(31));
+
+        Float4 sum = new Float4();
+        Float4 min = new Float4();
+        Float4 max = new Float4();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            sum = Float4.add(sum, vector.get(i));
+            min = Float4.min(min, vector.get(i));
+            max = Float4.max(max, vector.get(i));
+        }
+
+        assertFloat4(sum, vector.sum());
+        assertFloat4(min, vector.min());
+        assertFloat4(max, vector.max());
+    }
+
+    @Test
+    public void testImageFloat3Reductions() {
+        ImageFloat3 image = randomImageFloat3(new Random(31));
+
+        Float3 sum = new Float3();
+        Float3 min = new Float3(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        Float3 max = new Float3(Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE);
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                sum = Float3.add(sum, image.get(x, y));
+                min = Float3.min(min, image.get(x, y));
+                max = Float3.max(max, image.get(x, y));
+            }
+        }
+        Float3 mean = Float3.div(sum, X * Y);
+
+        Float3 variance = new Float3();
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                Float3 v = Float3.sub(mean, image.get(x, y));
+                v = Float3.mult(v, v);
+                v = Float3.div(v, X);
+                variance = Float3.add(v, variance);
+            }
+        }
+
+        assertFloat3(mean, image.mean());
+        assertFloat3(min, image.min());
+        assertFloat3(max, image.max());
+        assertFloat3(Float3.sqrt(variance), image.stdDev());
+    }
+
+    @Test
+    public void testImageFloat4Reductions() {
+        ImageFloat4 image = randomImageFloat4(new Random(31));
+
+        Float4 sum = new Float4();
+        Float4 min = new Float4(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        Float4 max = new Float4(Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE);
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                sum = Float4.add(sum, image.get(x, y));
+                min = Float4.min(min, image.get(x, y));
+                max = Float4.max(max, image.get(x, y));
+            }
+        }
+        Float4 mean = Float4.div(sum, X * Y);
+
+        Float4 variance = new Float4();
+        for (int y = 0; y < Y; y++) {
+            for (int x = 0; x < X; x++) {
+                Float4 v = Float4.sub(mean, image.get(x, y));
+                v = Float4.mult(v, v);
+                v = Float4.div(v, X);
+                variance = Float4.add(v, variance);
+            }
+        }
+
+        assertFloat4(mean, image.mean());
+        assertFloat4(min, image.min());
+        assertFloat4(max, image.max());
+        assertFloat4(Float4.sqrt(variance), image.stdDev());
+    }
+
+}
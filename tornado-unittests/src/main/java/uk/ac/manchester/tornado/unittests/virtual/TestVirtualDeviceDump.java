@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2024, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.virtual;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.ImmutableTaskGraph;
+import uk.ac.manchester.tornado.api.TaskGraph;
+import uk.ac.manchester.tornado.api.TornadoExecutionPlan;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.enums.DataTransferMode;
+import uk.ac.manchester.tornado.api.enums.TornadoVMBackendType;
+import uk.ac.manchester.tornado.api.exceptions.TornadoExecutionPlanException;
+import uk.ac.manchester.tornado.api.types.arrays.FloatArray;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Checks that the virtual devices of each backend write the generated kernels
+ * to the dump directory.
+ *
+ * <p>
+ * How to run?
+ * </p>
+ * <code>
+ * tornado-test -V --jvm="-Dtornado.virtual.device=True -Dtornado.virtual.device.dump.dir=virtualKernels
+ * -Dtornado.device.desc=virtual-device-GPU.json -Dtornado.ptx.device.desc=virtual-ptx-device-template.json
+ * -Dtornado.spirv.device.desc=virtual-spirv-device-template.json" uk.ac.manchester.tornado.unittests.virtual.TestVirtualDeviceDump
+ * </code>
+ */
+public class TestVirtualDeviceDump extends TornadoTestBase {
+
+    private static final String DUMP_DIR = System.getProperty("tornado.virtual.device.dump.dir");
+    private static final int SIZE = 1024;
+    private static final int SPIRV_MAGIC_NUMBER = 0x07230203;
+
+    private static void vectorAdd(FloatArray a, FloatArray b, FloatArray c) {
+        for (@Parallel int i = 0; i < c.getSize(); i++) {
+            c.set(i, a.get(i) + b.get(i));
+        }
+    }
+
+    @After
+    public void after() throws IOException {
+        // make sure the kernels generated are deleted
+        if (DUMP_DIR != null && Files.isDirectory(Paths.get(DUMP_DIR))) {
+            try (var files = Files.list(Paths.get(DUMP_DIR))) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testVirtualDeviceDump() throws TornadoExecutionPlanException, IOException {
+        assertNotNull("tornado.virtual.device.dump.dir is not set", DUMP_DIR);
+
+        FloatArray a = new FloatArray(SIZE);
+        FloatArray b = new FloatArray(SIZE);
+        FloatArray c = new FloatArray(SIZE);
+
+        TaskGraph taskGraph = new TaskGraph("s0") //
+                .transferToDevice(DataTransferMode.EVERY_EXECUTION, a, b) //
+                .task("t0", TestVirtualDeviceDump::vectorAdd, a, b, c) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, c);
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+            executionPlan.execute();
+        }
+
+        int backendIndex = getTornadoRuntime().getDefaultDevice().getBackendIndex();
+        TornadoVMBackendType backendType = getTornadoRuntime().getBackendType(backendIndex);
+        String extension = switch (backendType) {
+            case PTX -> "ptx";
+            case SPIRV -> "spv";
+            default -> "cl";
+        };
+
+        Path kernelFile = Paths.get(DUMP_DIR, "s0.t0." + extension);
+        assertTrue("The kernel has not been dumped: " + kernelFile, Files.exists(kernelFile));
+        byte[] kernel = Files.readAllBytes(kernelFile);
+        switch (backendType) {
+            case PTX -> assertTrue(new String(kernel, StandardCharsets.UTF_8).contains(".entry"));
+            case SPIRV -> {
+                int magic = (kernel[0] & 0xFF) | (kernel[1] & 0xFF) << 8 | (kernel[2] & 0xFF) << 16 | (kernel[3] & 0xFF) << 24;
+                assertTrue("Invalid SPIR-V module", magic == SPIRV_MAGIC_NUMBER);
+            }
+            default -> assertTrue(new String(kernel, StandardCharsets.UTF_8).contains("__kernel"));
+        }
+    }
+}
@@ -18,8 +18,11 @@
 package uk.ac.manchester.tornado.unittests.vm.concurrency;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -65,6 +68,12 @@ public class TestParallelTaskGraph extends TornadoTestBase {
         }
     }
 
+    private static Set<Thread> interpreterThreads() {
+        return Thread.getAllStackTraces().keySet().stream() //
+                .filter(thread -> thread.getName().startsWith("tornadovm-interpreter-")) //
+                .collect(Collectors.toSet());
+    }
+
     @Test
     public void testTwoDevicesSerial() throws TornadoExecutionPlanException {
 
@@ -336,4 +345,68 @@ public class TestParallelTaskGraph extends TornadoTestBase {
             assertEquals(refB.get(i), b.get(i), DELTA_05);
         }
     }
+
+    @Test
+    public void testConcurrentInterpreterThreads() throws TornadoExecutionPlanException {
+
+        FloatArray a = new FloatArray(SIZE);
+        FloatArray b = new FloatArray(SIZE);
+        FloatArray refB = new FloatArray(SIZE);
+        float alpha = 0.12f;
+
+        Random r = new Random(31);
+        IntStream.range(0, SIZE).forEach(i -> {
+            b.set(i, r.nextFloat());
+            refB.set(i, b.get(i));
+        });
+
+        TaskGraph taskGraph = new TaskGraph("graph") //
+                .transferToDevice(DataTransferMode.FIRST_EXECUTION, a, b) //
+                .task("task0", TestParallelTaskGraph::init, a) //
+                .task("task1", TestParallelTaskGraph::multiply, b, alpha) //
+                .transferToHost(DataTransferMode.EVERY_EXECUTION, a, b); //
+
+        ImmutableTaskGraph immutableTaskGraph = taskGraph.snapshot();
+        Set<Thread> threadsBefore = interpreterThreads();
+        Set<Thread> threads;
+        try (TornadoExecutionPlan executionPlan = new TornadoExecutionPlan(immutableTaskGraph)) {
+
+            // Assume that the first drivers finds, at least two devices
+            int deviceCount = TornadoRuntimeProvider.getTornadoRuntime().getBackend(0).getNumDevices();
+            if (deviceCount < 2) {
+                throw new UnsupportedConfigurationException("Test requires at least two devices");
+            }
+
+            TornadoDevice device0 = TornadoRuntimeProvider.getTornadoRuntime().getBackend(0).getDevice(0);
+            TornadoDevice device1 = TornadoRuntimeProvider.getTornadoRuntime().getBackend(0).getDevice(1);
+
+            executionPlan.withConcurrentDevices() //
+                    .withDevice("graph.task0", device0) //
+                    .withDevice("graph.task1", device1);
+
+            // One thread per device runs the interpreters
+            executionPlan.execute();
+            threads = interpreterThreads();
+            threads.removeAll(threadsBefore);
+            assertEquals(2, threads.size());
+
+            // The next executions run on the same threads
+            executionPlan.execute();
+            Set<Thread> threadsAfter = interpreterThreads();
+            threadsAfter.removeAll(threadsBefore);
+            assertEquals(threads, threadsAfter);
+        }
+
+        // Closing the execution plan frees the threads
+        for (Thread thread : threads) {
+            assertFalse(thread.isAlive());
+        }
+
+        multiply(refB, alpha);
+        multiply(refB, alpha);
+        for (int i = 0; i < a.getSize(); i++) {
+            assertEquals(i, a.get(i), DELTA);
+            assertEquals(refB.get(i), b.get(i), DELTA_05);
+        }
+    }
 }